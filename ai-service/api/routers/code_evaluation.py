@@ -5,10 +5,12 @@ Code Evaluation API Router for compila.dev
 REST endpoint for code evaluation, testing, and AI feedback.
 """
 
+import asyncio
 import json
 from typing import Any
 
-from fastapi import APIRouter, HTTPException
+from fastapi import APIRouter, HTTPException, Request
+from fastapi.responses import StreamingResponse
 from pydantic import BaseModel, Field
 
 from src.logging import get_logger
@@ -66,6 +68,16 @@ class CodeEvaluationResponse(BaseModel):
     error: str | None = None
 
 
+class BatchEvaluationRequest(BaseModel):
+    """Several independent evaluations sent together"""
+    requests: list[CodeEvaluationRequest]
+
+
+class BatchEvaluationResponse(BaseModel):
+    """One result per request, in request order; null where a request failed"""
+    results: list[CodeEvaluationResponse | None]
+
+
 @router.post("/evaluate")
 async def evaluate_code(request: CodeEvaluationRequest) -> CodeEvaluationResponse:
     """
@@ -160,6 +172,23 @@ async def evaluate_code(request: CodeEvaluationRequest) -> CodeEvaluationRespons
         raise HTTPException(status_code=500, detail=str(e))
 
 
+@router.post("/evaluate/batch")
+async def evaluate_batch(request: BatchEvaluationRequest) -> BatchEvaluationResponse:
+    """
+    Evaluate several submissions in one request, concurrently.
+    A failing evaluation yields null in its slot instead of failing the batch.
+    """
+    logger.info(f"Evaluating batch of {len(request.requests)} submissions")
+
+    results = await asyncio.gather(
+        *(evaluate_code(item) for item in request.requests),
+        return_exceptions=True
+    )
+    return BatchEvaluationResponse(
+        results=[None if isinstance(result, BaseException) else result for result in results]
+    )
+
+
 @router.post("/analyze")
 async def analyze_code(request: CodeEvaluationRequest) -> CodeFeedback:
     """
@@ -195,6 +224,53 @@ async def analyze_code(request: CodeEvaluationRequest) -> CodeFeedback:
         raise HTTPException(status_code=500, detail=str(e))
 
 
+def sse(data: dict, event: str | None = None) -> str:
+    """One server-sent event"""
+    prefix = f"event: {event}\n" if event else ""
+    return f"{prefix}data: {json.dumps(data)}\n\n"
+
+
+@router.post("/hint/stream")
+async def stream_hint(request: CodeEvaluationRequest, http_request: Request) -> StreamingResponse:
+    """
+    Stream a hint token by token as server-sent events: `data: {"token": ...}`
+    per piece, then `event: done` with `tokens_used` when known, or
+    `event: error` with `detail`. Generation stops when the client disconnects.
+    """
+    logger.info(f"Streaming hint for {request.language} code")
+
+    async def events():
+        try:
+            try:
+                from src.services.code_analyzer import CodeAnalyzer
+
+                analyzer = CodeAnalyzer(language=request.language)
+                tokens = analyzer.stream_hint(
+                    code=request.code,
+                    problem_statement=request.problem_statement,
+                )
+            except ImportError:
+                # Mock hint for development, streamed word by word
+                async def mock_tokens():
+                    for word in "Considere adicionar validação de entrada".split(" "):
+                        await asyncio.sleep(0.05)
+                        yield word + " "
+
+                tokens = mock_tokens()
+
+            async for token in tokens:
+                if await http_request.is_disconnected():
+                    logger.info("Hint stream abandoned by the client")
+                    return
+                yield sse({"token": token})
+            yield sse({"tokens_used": getattr(tokens, "tokens_used", None)}, event="done")
+        except Exception as e:
+            logger.error(f"Error streaming hint: {e}")
+            yield sse({"detail": str(e)}, event="error")
+
+    return StreamingResponse(events(), media_type="text/event-stream")
+
+
 @router.get("/health")
 async def health_check():
     """Health check endpoint"""
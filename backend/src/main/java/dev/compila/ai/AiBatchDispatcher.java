@@ -0,0 +1,180 @@
+package dev.compila.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Collects independent AI requests into batches: a batch is sent once it
+ * holds {@code maxSize} requests or {@code window} after its first one
+ * arrived, whichever comes first, and each caller receives the result at
+ * its position in the reply.
+ * <p>
+ * A batch is sent under the earliest deadline of its requests. Callers that
+ * cancel before their batch goes out are left out of it; once it is out,
+ * it runs to completion for the others. A failed batch fails every caller
+ * in it.
+ *
+ * @param <I> a single request
+ * @param <O> the result of a single request
+ */
+final class AiBatchDispatcher<I, O> {
+
+    private final int maxSize;
+    private final Duration window;
+    private final BiFunction<List<I>, Instant, Mono<List<O>>> sender;
+    private final DistributionSummary batchSize;
+    private final Timer batchWait;
+    private final Timer batchDuration;
+    private final MeterRegistry meterRegistry;
+    private final String name;
+
+    private List<Pending<I, O>> buffer = new ArrayList<>();
+    /** Bumped whenever the buffer is taken, so a stale window timer leaves the next batch alone */
+    private long epoch;
+
+    /**
+     * @param sender sends a batch under a deadline; the reply holds one
+     *               result per request, in order, null where a request failed
+     */
+    AiBatchDispatcher(
+            String name,
+            int maxSize,
+            Duration window,
+            BiFunction<List<I>, Instant, Mono<List<O>>> sender,
+            MeterRegistry meterRegistry
+    ) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.window = window;
+        this.sender = sender;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = DistributionSummary.builder("ai.batch.size")
+                .tag("name", name)
+                .description("Requests per AI batch")
+                .register(meterRegistry);
+        this.batchWait = Timer.builder("ai.batch.wait")
+                .tag("name", name)
+                .description("Time requests spent waiting for their AI batch to go out")
+                .register(meterRegistry);
+        this.batchDuration = Timer.builder("ai.batch.duration")
+                .tag("name", name)
+                .description("Time from sending an AI batch to its reply")
+                .register(meterRegistry);
+    }
+
+    Mono<O> submit(I request, Instant deadline) {
+        return Mono.create(sink -> {
+            Pending<I, O> pending = new Pending<>(request, deadline, sink, System.nanoTime());
+            List<Pending<I, O>> full = null;
+            long startedEpoch = -1;
+            synchronized (this) {
+                buffer.add(pending);
+                if (buffer.size() >= maxSize) {
+                    full = take();
+                } else if (buffer.size() == 1) {
+                    startedEpoch = epoch;
+                }
+            }
+            sink.onCancel(() -> leave(pending));
+
+            if (full != null) {
+                send(full);
+            } else if (startedEpoch >= 0) {
+                long batchEpoch = startedEpoch;
+                Mono.delay(window).subscribe(tick -> flush(batchEpoch));
+            }
+        });
+    }
+
+    private void flush(long batchEpoch) {
+        List<Pending<I, O>> batch;
+        synchronized (this) {
+            if (epoch != batchEpoch || buffer.isEmpty()) {
+                return;
+            }
+            batch = take();
+        }
+        send(batch);
+    }
+
+    private List<Pending<I, O>> take() {
+        List<Pending<I, O>> batch = buffer;
+        buffer = new ArrayList<>();
+        epoch++;
+        return batch;
+    }
+
+    private synchronized void leave(Pending<I, O> pending) {
+        buffer.remove(pending);
+    }
+
+    private void send(List<Pending<I, O>> batch) {
+        long now = System.nanoTime();
+        Instant deadline = batch.get(0).deadline();
+        List<I> requests = new ArrayList<>(batch.size());
+        for (Pending<I, O> pending : batch) {
+            requests.add(pending.request());
+            batchWait.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+            if (pending.deadline().isBefore(deadline)) {
+                deadline = pending.deadline();
+            }
+        }
+        batchSize.record(batch.size());
+
+        Mono<List<O>> reply;
+        try {
+            reply = sender.apply(requests, deadline);
+        } catch (RuntimeException e) {
+            fail(batch, e);
+            return;
+        }
+        reply.switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty AI batch reply"))).subscribe(
+                results -> {
+                    batchDuration.record(System.nanoTime() - now, TimeUnit.NANOSECONDS);
+                    if (results == null || results.size() != batch.size()) {
+                        fail(batch, new IllegalStateException("AI batch reply holds "
+                                + (results != null ? results.size() : 0) + " results for " + batch.size() + " requests"));
+                        return;
+                    }
+                    count("sent");
+                    for (int i = 0; i < batch.size(); i++) {
+                        O result = results.get(i);
+                        if (result != null) {
+                            batch.get(i).sink().success(result);
+                        } else {
+                            batch.get(i).sink().error(new IllegalStateException("AI service returned no result"));
+                        }
+                    }
+                },
+                error -> fail(batch, error)
+        );
+    }
+
+    private void fail(List<Pending<I, O>> batch, Throwable error) {
+        count("failed");
+        batch.forEach(pending -> pending.sink().error(error));
+    }
+
+    private void count(String result) {
+        Counter.builder("ai.batch.count")
+                .tag("name", name)
+                .tag("result", result)
+                .description("AI batches sent, by outcome")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private record Pending<I, O>(I request, Instant deadline, MonoSink<O> sink, long enqueuedAt) {
+    }
+}
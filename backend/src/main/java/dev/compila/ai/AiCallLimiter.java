@@ -0,0 +1,195 @@
+package dev.compila.ai;
+
+import dev.compila.ai.config.AiServiceConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Caps concurrent calls to the AI service without holding threads.
+ * <p>
+ * Calls beyond {@code ai-service.max-concurrent-calls} wait in a FIFO queue
+ * of at most {@code ai-service.max-queued-calls}; further calls fail right
+ * away with {@link RejectedException}. A call cancelled while waiting, e.g.
+ * because its deadline passed, leaves the queue, and one cancelled while
+ * running frees its slot for the next. A streamed call holds its slot until
+ * the stream ends or is cancelled.
+ */
+@Component
+public class AiCallLimiter {
+
+    private final AiServiceConfig config;
+    private final Counter rejected;
+    private final Deque<Call<?>> waiting = new ArrayDeque<>();
+    private int inFlight;
+
+    public AiCallLimiter(AiServiceConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.rejected = Counter.builder("ai.calls.rejected")
+                .description("AI service calls rejected because the wait queue was full")
+                .register(meterRegistry);
+
+        Gauge.builder("ai.calls.in.flight", this, AiCallLimiter::getInFlight)
+                .description("AI service calls in progress")
+                .register(meterRegistry);
+        Gauge.builder("ai.calls.queued", this, AiCallLimiter::getQueued)
+                .description("AI service calls waiting for a slot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a call once a slot is free
+     *
+     * @param call creates the call; subscribed to once it may start
+     */
+    public <T> Mono<T> submit(Supplier<Mono<T>> call) {
+        return Mono.create(sink -> {
+            Call<T> pending = new Call<>(call, sink::success, sink::error, sink::success);
+            sink.onCancel(pending::cancel);
+            enter(pending);
+        });
+    }
+
+    /**
+     * {@link #submit(Supplier)} for a call that streams its response
+     */
+    public <T> Flux<T> submitMany(Supplier<Flux<T>> call) {
+        return Flux.create(sink -> {
+            Call<T> pending = new Call<>(call, sink::next, sink::error, sink::complete);
+            sink.onCancel(pending::cancel);
+            enter(pending);
+        });
+    }
+
+    private void enter(Call<?> pending) {
+        boolean start = false;
+        synchronized (this) {
+            if (inFlight < config.getMaxConcurrentCalls()) {
+                inFlight++;
+                start = true;
+            } else if (waiting.size() < config.getMaxQueuedCalls()) {
+                waiting.add(pending);
+            } else {
+                rejected.increment();
+                pending.onError.accept(new RejectedException("AI service is at capacity"));
+                return;
+            }
+        }
+        if (start) {
+            pending.start();
+        }
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return waiting.size();
+    }
+
+    /**
+     * Hand the slot to the next waiting call, or give it back
+     */
+    private void release() {
+        Call<?> next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                inFlight--;
+            }
+        }
+        if (next != null) {
+            next.start();
+        }
+    }
+
+    private synchronized boolean leaveQueue(Call<?> call) {
+        return waiting.remove(call);
+    }
+
+    private final class Call<T> {
+        private final Supplier<? extends Publisher<T>> call;
+        private final Consumer<T> onNext;
+        private final Consumer<Throwable> onError;
+        private final Runnable onComplete;
+        private Disposable running;
+        private boolean cancelled;
+
+        private Call(
+                Supplier<? extends Publisher<T>> call,
+                Consumer<T> onNext,
+                Consumer<Throwable> onError,
+                Runnable onComplete
+        ) {
+            this.call = call;
+            this.onNext = onNext;
+            this.onError = onError;
+            this.onComplete = onComplete;
+        }
+
+        /**
+         * Start the call on a slot that is already counted as in flight
+         */
+        void start() {
+            synchronized (this) {
+                if (cancelled) {
+                    release();
+                    return;
+                }
+            }
+            Disposable subscription;
+            try {
+                subscription = Flux.from(call.get())
+                        .doFinally(signal -> release())
+                        .subscribe(onNext, onError, onComplete);
+            } catch (RuntimeException e) {
+                release();
+                onError.accept(e);
+                return;
+            }
+            boolean dispose;
+            synchronized (this) {
+                running = subscription;
+                dispose = cancelled;
+            }
+            if (dispose) {
+                subscription.dispose();
+            }
+        }
+
+        void cancel() {
+            Disposable subscription;
+            synchronized (this) {
+                cancelled = true;
+                subscription = running;
+            }
+            if (subscription != null) {
+                subscription.dispose();
+            } else {
+                // Still waiting: no slot to give back. Otherwise start() sees
+                // the flag and releases the slot itself.
+                leaveQueue(this);
+            }
+        }
+    }
+
+    /**
+     * Too many AI calls are running and waiting already
+     */
+    public static class RejectedException extends RuntimeException {
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+}
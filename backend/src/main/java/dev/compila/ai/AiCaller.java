@@ -0,0 +1,38 @@
+package dev.compila.ai;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.UUID;
+
+/**
+ * Who an AI call is made for, so its tokens are charged to the right user,
+ * challenge and submission. Travels in the Reactor context of the calls to
+ * {@link AiEvaluationService}; calls without one are only charged to the
+ * total.
+ *
+ * @param userId       null for anonymous calls
+ * @param challengeId  null when not about a challenge
+ * @param submissionId null when not about a submission
+ */
+public record AiCaller(UUID userId, UUID challengeId, UUID submissionId) {
+
+    public static final AiCaller ANONYMOUS = new AiCaller(null, null, null);
+
+    private static final Class<AiCaller> KEY = AiCaller.class;
+
+    public static AiCaller of(UUID userId, UUID challengeId) {
+        return new AiCaller(userId, challengeId, null);
+    }
+
+    /**
+     * For {@code contextWrite} on the Mono returned by {@link AiEvaluationService}
+     */
+    public Context asContext() {
+        return Context.of(KEY, this);
+    }
+
+    static AiCaller from(ContextView context) {
+        return context.getOrDefault(KEY, ANONYMOUS);
+    }
+}
@@ -0,0 +1,228 @@
+package dev.compila.ai;
+
+import dev.compila.ai.config.AiServiceConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Stops calling the AI service while it is failing or slow.
+ * <p>
+ * The outcomes of the last {@code ai-service.circuit-breaker.window-size}
+ * calls are kept; once enough were recorded and the share of failed or slow
+ * calls reaches its threshold, the breaker opens and {@link #tryAcquire()}
+ * refuses calls. After {@code open-duration} it turns half-open and runs the
+ * probe, the AI service's health check, once: a healthy service closes the
+ * breaker with an empty window, otherwise it stays open for another period.
+ * Listeners hear of every transition.
+ */
+@Component
+public class AiCircuitBreaker implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AiCircuitBreaker.class);
+
+    private static final byte OK = 0;
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final AiServiceConfig.CircuitBreaker config;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+    private final List<Consumer<State>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ai-circuit-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Ring buffer of outcome flags */
+    private final byte[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+    private State state = State.CLOSED;
+    private volatile BooleanSupplier probe = () -> true;
+
+    public AiCircuitBreaker(AiServiceConfig config, MeterRegistry meterRegistry) {
+        this.config = config.getCircuitBreaker();
+        this.meterRegistry = meterRegistry;
+        this.outcomes = new byte[Math.max(1, this.config.getWindowSize())];
+        this.rejected = Counter.builder("ai.circuit.rejected")
+                .description("AI service calls refused while the circuit was open")
+                .register(meterRegistry);
+
+        Gauge.builder("ai.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("AI service circuit state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param probe whether the AI service is healthy again; runs on the
+     *              breaker's own thread and may block
+     */
+    public void setProbe(BooleanSupplier probe) {
+        this.probe = probe;
+    }
+
+    public void addListener(Consumer<State> listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Whether a call may go ahead; counts it as rejected otherwise
+     */
+    public boolean tryAcquire() {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public void onSuccess(long durationNanos) {
+        record(false, durationNanos);
+    }
+
+    /**
+     * Record a call that failed because of the AI service, e.g. a server
+     * error or timeout, as opposed to a bad request
+     */
+    public void onFailure(long durationNanos) {
+        record(true, durationNanos);
+    }
+
+    private void record(boolean failed, long durationNanos) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        byte outcome = (byte) ((failed ? FAILED : OK) | (durationNanos >= config.getSlowCallThreshold().toNanos() ? SLOW : OK));
+        int failureRate;
+        int slowCallRate;
+        synchronized (this) {
+            // Calls started before the breaker opened say nothing new
+            if (state != State.CLOSED) {
+                return;
+            }
+            if (recorded == outcomes.length) {
+                forget(outcomes[next]);
+            } else {
+                recorded++;
+            }
+            outcomes[next] = outcome;
+            next = (next + 1) % outcomes.length;
+            failures += (outcome & FAILED) != 0 ? 1 : 0;
+            slowCalls += (outcome & SLOW) != 0 ? 1 : 0;
+
+            if (recorded < config.getMinimumCalls()) {
+                return;
+            }
+            failureRate = failures * 100 / recorded;
+            slowCallRate = slowCalls * 100 / recorded;
+            if (failureRate < config.getFailureRateThreshold() && slowCallRate < config.getSlowCallRateThreshold()) {
+                return;
+            }
+            state = State.OPEN;
+        }
+        log.warn("AI service circuit opened: {}% of the last calls failed, {}% were slow", failureRate, slowCallRate);
+        opened();
+    }
+
+    private void forget(byte outcome) {
+        failures -= (outcome & FAILED) != 0 ? 1 : 0;
+        slowCalls -= (outcome & SLOW) != 0 ? 1 : 0;
+    }
+
+    private void opened() {
+        transitioned(State.OPEN);
+        prober.schedule(this::probe, config.getOpenDuration().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void probe() {
+        synchronized (this) {
+            state = State.HALF_OPEN;
+        }
+        transitioned(State.HALF_OPEN);
+
+        boolean healthy;
+        try {
+            healthy = probe.getAsBoolean();
+        } catch (RuntimeException e) {
+            log.warn("AI service probe failed", e);
+            healthy = false;
+        }
+
+        if (!healthy) {
+            synchronized (this) {
+                state = State.OPEN;
+            }
+            log.info("AI service still unhealthy; circuit stays open for {}", config.getOpenDuration());
+            opened();
+            return;
+        }
+        synchronized (this) {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+            slowCalls = 0;
+            state = State.CLOSED;
+        }
+        log.info("AI service healthy again; circuit closed");
+        transitioned(State.CLOSED);
+    }
+
+    private void transitioned(State to) {
+        Counter.builder("ai.circuit.transitions")
+                .tag("to", to.name().toLowerCase(Locale.ROOT))
+                .description("AI service circuit state changes")
+                .register(meterRegistry)
+                .increment();
+        for (Consumer<State> listener : listeners) {
+            try {
+                listener.accept(to);
+            } catch (RuntimeException e) {
+                log.warn("AI circuit listener failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        prober.shutdownNow();
+    }
+
+    /**
+     * A call was refused because the circuit is open
+     */
+    public static class OpenException extends RuntimeException {
+        public OpenException(String message) {
+            super(message);
+        }
+    }
+}
@@ -4,43 +4,96 @@ import dev.compila.ai.dto.CodeAnalysisRequest;
 import dev.compila.ai.dto.CodeAnalysisResponse;
 import dev.compila.ai.dto.CodeEvaluationRequest;
 import dev.compila.ai.dto.CodeEvaluationResponse;
+import dev.compila.ai.dto.HintRequest;
+import dev.compila.auth.security.userdetails.UserDetailsImpl;
+import dev.compila.challenge.ChallengeService;
+import dev.compila.challenge.dto.ChallengeResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.Map;
+import java.util.UUID;
 
+/**
+ * AI endpoints. Responses are asynchronous, so no request thread waits on
+ * the AI service. Calls are charged to the signed-in user's AI token budget.
+ */
 @RestController
 @RequestMapping("/ai")
 @CrossOrigin(origins = "*")
 public class AiController {
 
     private final AiEvaluationService aiEvaluationService;
+    private final ChallengeService challengeService;
 
-    public AiController(AiEvaluationService aiEvaluationService) {
+    public AiController(AiEvaluationService aiEvaluationService, ChallengeService challengeService) {
         this.aiEvaluationService = aiEvaluationService;
+        this.challengeService = challengeService;
     }
 
     @PostMapping("/evaluate")
-    public ResponseEntity<CodeEvaluationResponse> evaluateCode(
+    public Mono<ResponseEntity<CodeEvaluationResponse>> evaluateCode(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
             @Valid @RequestBody CodeEvaluationRequest request) {
-        CodeEvaluationResponse response = aiEvaluationService.evaluateCode(request);
-        return ResponseEntity.ok(response);
+        return aiEvaluationService.evaluateCode(request)
+                .map(ResponseEntity::ok)
+                .contextWrite(AiCaller.of(userId(userDetails), null).asContext());
     }
 
     @PostMapping("/analyze")
-    public ResponseEntity<CodeAnalysisResponse> analyzeCode(
+    public Mono<ResponseEntity<CodeAnalysisResponse>> analyzeCode(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
             @Valid @RequestBody CodeAnalysisRequest request) {
-        CodeAnalysisResponse response = aiEvaluationService.analyzeCode(request);
-        return ResponseEntity.ok(response);
+        return aiEvaluationService.analyzeCode(request)
+                .map(ResponseEntity::ok)
+                .contextWrite(AiCaller.of(userId(userDetails), null).asContext());
+    }
+
+    @PostMapping("/hint")
+    public Mono<ResponseEntity<Map<String, String>>> hint(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @Valid @RequestBody HintRequest request) {
+        ChallengeResponse challenge = challengeService.findById(request.challengeId());
+        return aiEvaluationService.generateHint(challenge.id().toString(), challenge.description(), request.code(), request.language())
+                .map(hint -> ResponseEntity.ok(Map.of("hint", hint)))
+                .contextWrite(AiCaller.of(userId(userDetails), challenge.id()).asContext());
+    }
+
+    /**
+     * The hint as server-sent {@code token} events while the AI service
+     * writes it, then a {@code done} event, or an {@code error} event when the
+     * stream broke off part way. A client that disconnects cancels the
+     * upstream call, noticed at the next token sent.
+     */
+    @PostMapping(value = "/hint/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, String>>> streamHint(
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @Valid @RequestBody HintRequest request) {
+        ChallengeResponse challenge = challengeService.findById(request.challengeId());
+        return aiEvaluationService.streamHint(challenge.id().toString(), challenge.description(), request.code(), request.language())
+                .map(token -> ServerSentEvent.builder(Map.of("token", token)).event("token").build())
+                .concatWithValues(ServerSentEvent.builder(Map.<String, String>of()).event("done").build())
+                .onErrorResume(AiEvaluationService.StreamBrokenException.class, e -> Flux.just(
+                        ServerSentEvent.builder(Map.of("message", "The hint was cut off. Please try again.")).event("error").build()))
+                .contextWrite(AiCaller.of(userId(userDetails), challenge.id()).asContext());
     }
 
     @GetMapping("/health")
-    public ResponseEntity<Map<String, Object>> health() {
-        boolean isHealthy = aiEvaluationService.isHealthy();
-        return ResponseEntity.ok(Map.of(
-                "status", isHealthy ? "UP" : "DOWN",
-                "enabled", true
-        ));
+    public Mono<ResponseEntity<Map<String, Object>>> health() {
+        return aiEvaluationService.checkHealth()
+                .map(isHealthy -> ResponseEntity.ok(Map.of(
+                        "status", isHealthy ? "UP" : "DOWN",
+                        "enabled", true
+                )));
+    }
+
+    private static UUID userId(UserDetailsImpl userDetails) {
+        return userDetails != null ? userDetails.getId() : null;
     }
 }
@@ -1,174 +1,552 @@
 package dev.compila.ai;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.ai.budget.AiTokenBudget;
 import dev.compila.ai.config.AiServiceConfig;
 import dev.compila.ai.dto.*;
+import dev.compila.cache.ResultCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
-
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Client of the AI service. Calls are non-blocking: every method returns a
+ * {@link Mono} that completes when the AI service answers, so a slow backend
+ * holds connections rather than threads. Calls go through the
+ * {@link AiCallLimiter} and are bounded by a deadline, ai-service.timeout
+ * from now unless the caller passes its own, which covers the wait for a
+ * slot; the time left is forwarded to the AI service in
+ * {@value #DEADLINE_HEADER}. While the {@link AiCircuitBreaker} is open,
+ * calls are refused without reaching the service. With
+ * {@code ai-service.batch.enabled}, evaluations are micro-batched by an
+ * {@link AiBatchDispatcher}. Calls that reach the service are charged to the
+ * {@link AiCaller} in the subscriber context by the {@link AiTokenBudget},
+ * and refused once one of its daily quotas is spent; cached answers are
+ * free. Failures complete with an error response rather than an error
+ * signal.
+ */
 @Service
 public class AiEvaluationService {
 
     private static final Logger log = LoggerFactory.getLogger(AiEvaluationService.class);
     private static final String COMPILA_API_PREFIX = "/api/v1/compila";
+    private static final String CACHE_KIND = "ai-evaluation";
+    /** Milliseconds the AI service has left to answer */
+    static final String DEADLINE_HEADER = "X-Request-Timeout-Ms";
+    private static final Duration HEALTH_TIMEOUT = Duration.ofSeconds(5);
+    private static final ParameterizedTypeReference<ServerSentEvent<AiServiceHintChunk>> HINT_EVENTS =
+            new ParameterizedTypeReference<>() {};
 
     private final WebClient webClient;
     private final AiServiceConfig config;
     private final ObjectMapper objectMapper;
-
-    public AiEvaluationService(AiServiceConfig config, ObjectMapper objectMapper) {
+    private final ResultCache resultCache;
+    private final AiCallLimiter limiter;
+    private final AiResponseCache responseCache;
+    private final AiCircuitBreaker circuitBreaker;
+    private final AiTokenBudget tokenBudget;
+    private final AiBatchDispatcher<AiServiceEvaluateRequest, AiServiceEvaluateResponse> evaluationBatches;
+
+    public AiEvaluationService(
+            AiServiceConfig config,
+            ObjectMapper objectMapper,
+            ResultCache resultCache,
+            AiCallLimiter limiter,
+            AiResponseCache responseCache,
+            AiCircuitBreaker circuitBreaker,
+            AiTokenBudget tokenBudget,
+            MeterRegistry meterRegistry
+    ) {
         this.config = config;
         this.objectMapper = objectMapper;
+        this.resultCache = resultCache;
+        this.limiter = limiter;
+        this.responseCache = responseCache;
+        this.circuitBreaker = circuitBreaker;
+        this.tokenBudget = tokenBudget;
 
         this.webClient = WebClient.builder()
                 .baseUrl(config.getBaseUrl())
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .build();
+        circuitBreaker.setProbe(this::isHealthy);
+        this.evaluationBatches = config.getBatch().isEnabled()
+                ? new AiBatchDispatcher<>(
+                        "evaluate",
+                        config.getBatch().getMaxSize(),
+                        config.getBatch().getWindow(),
+                        (bodies, deadline) -> call(deadline, "/evaluate/batch", new AiServiceBatchRequest(bodies), AiServiceBatchResponse.class)
+                                .map(AiServiceBatchResponse::results),
+                        meterRegistry)
+                : null;
+    }
+
+    /**
+     * Whether calls currently reach the AI service, or the mock when it is disabled
+     */
+    public boolean isAvailable() {
+        return !config.isEnabled() || circuitBreaker.getState() == AiCircuitBreaker.State.CLOSED;
     }
 
     /**
      * Evaluate code submission against test cases
      * Calls the AI Service's /api/v1/compila/evaluate endpoint
      */
-    public CodeEvaluationResponse evaluateCode(CodeEvaluationRequest request) {
+    public Mono<CodeEvaluationResponse> evaluateCode(CodeEvaluationRequest request) {
+        return evaluateCode(request, null);
+    }
+
+    public Mono<CodeEvaluationResponse> evaluateCode(CodeEvaluationRequest request, String challengeId) {
+        return evaluateCode(request, challengeId, defaultDeadline());
+    }
+
+    /**
+     * Evaluate code for a challenge. Successful evaluations are cached, so an
+     * identical resubmission is answered without calling the AI service again
+     * until the challenge's requirements change.
+     */
+    public Mono<CodeEvaluationResponse> evaluateCode(CodeEvaluationRequest request, String challengeId, Instant deadline) {
+        return tryEvaluateCode(request, challengeId, deadline)
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    log.error("AI service returned error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
+                    return Mono.just(createErrorEvaluationResponse("Service temporarily unavailable"));
+                })
+                .onErrorResume(AiCallLimiter.RejectedException.class, e -> {
+                    log.warn("AI evaluation rejected: {}", e.getMessage());
+                    return Mono.just(createErrorEvaluationResponse("Evaluation service is busy"));
+                })
+                .onErrorResume(AiCircuitBreaker.OpenException.class, e ->
+                        Mono.just(createErrorEvaluationResponse("Evaluation service is unavailable")))
+                .onErrorResume(AiTokenBudget.ExhaustedException.class, e ->
+                        Mono.just(createErrorEvaluationResponse("Daily AI evaluation limit reached")))
+                .onErrorResume(e -> {
+                    log.error("Failed to call AI service", e);
+                    return Mono.just(createErrorEvaluationResponse("Failed to connect to evaluation service"));
+                });
+    }
+
+    /**
+     * {@link #evaluateCode(CodeEvaluationRequest, String)} for callers with a
+     * fallback of their own: failures, including calls refused while the
+     * circuit is open or the token budget is spent, arrive as error signals
+     */
+    public Mono<CodeEvaluationResponse> tryEvaluateCode(CodeEvaluationRequest request, String challengeId) {
+        return tryEvaluateCode(request, challengeId, defaultDeadline());
+    }
+
+    public Mono<CodeEvaluationResponse> tryEvaluateCode(CodeEvaluationRequest request, String challengeId, Instant deadline) {
         if (!config.isEnabled()) {
             log.debug("AI service is disabled, returning mock response");
-            return createMockEvaluationResponse();
+            return Mono.just(createMockEvaluationResponse());
         }
 
-        try {
-            // Build request body for AI Service
-            AiServiceEvaluateRequest body = new AiServiceEvaluateRequest(
-                    request.code(),
-                    request.language(),
-                    request.problemStatement(),
-                    convertTestCases(request.testCases()),
-                    request.constraints()
-            );
-
-            AiServiceEvaluateResponse response = webClient.post()
-                    .uri(COMPILA_API_PREFIX + "/evaluate")
-                    .bodyValue(body)
-                    .retrieve()
-                    .bodyToMono(AiServiceEvaluateResponse.class)
-                    .block(Duration.ofMillis(config.getTimeout().toMillis()));
-
-            return convertResponse(response);
-
-        } catch (WebClientResponseException e) {
-            log.error("AI service returned error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-            return createErrorEvaluationResponse("Service temporarily unavailable");
-        } catch (Exception e) {
-            log.error("Failed to call AI service", e);
-            return createErrorEvaluationResponse("Failed to connect to evaluation service");
-        }
+        // Build request body for AI Service
+        AiServiceEvaluateRequest body = new AiServiceEvaluateRequest(
+                request.code(),
+                request.language(),
+                request.problemStatement(),
+                convertTestCases(request.testCases()),
+                request.constraints()
+        );
+
+        // The result cache talks to Redis, which blocks
+        return Mono.fromCallable(() -> resultCache.key(
+                        CACHE_KIND, challengeId, request.language(), request.code(), request.withCode(null)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cacheKey -> Mono.justOrEmpty(cacheKey.flatMap(key -> resultCache.get(key, CodeEvaluationResponse.class)))
+                        .switchIfEmpty(Mono.defer(() -> metered("evaluation", body, evaluate(body, deadline), AiServiceEvaluateResponse::tokens_used)
+                                .map(this::convertResponse)
+                                .flatMap(evaluation -> Mono.fromRunnable(() -> cacheKey.ifPresent(key -> resultCache.put(key, evaluation)))
+                                        .subscribeOn(Schedulers.boundedElastic())
+                                        .thenReturn(evaluation)))));
     }
 
     /**
-     * Analyze code quality without running tests
+     * Analyze code quality without running tests. Analyses are cached by
+     * language and normalized code.
      */
-    public CodeAnalysisResponse analyzeCode(CodeAnalysisRequest request) {
+    public Mono<CodeAnalysisResponse> analyzeCode(CodeAnalysisRequest request) {
+        return analyzeCode(request, defaultDeadline());
+    }
+
+    public Mono<CodeAnalysisResponse> analyzeCode(CodeAnalysisRequest request, Instant deadline) {
         if (!config.isEnabled()) {
             log.debug("AI service is disabled, returning mock analysis");
-            return createMockAnalysisResponse();
+            return Mono.just(createMockAnalysisResponse());
         }
 
-        try {
-            AiServiceEvaluateRequest body = new AiServiceEvaluateRequest(
-                    request.code(),
-                    request.language(),
-                    request.code(), // Use code as problem_statement since not available
-                    List.of(),
-                    null
-            );
-
-            AiServiceFeedback feedback = webClient.post()
-                    .uri(COMPILA_API_PREFIX + "/analyze")
-                    .bodyValue(body)
-                    .retrieve()
-                    .bodyToMono(AiServiceFeedback.class)
-                    .block(Duration.ofMillis(config.getTimeout().toMillis()));
-
-            return new CodeAnalysisResponse(
-                    feedback.overall_score(),
-                    feedback.strengths().isEmpty() ? "Code submitted" : String.join(", ", feedback.strengths()),
-                    List.of(), // issues - not used in new format
-                    List.of(new CodeAnalysisResponse.Suggestion(
-                            "improvement",
-                            String.join(", ", feedback.improvements()),
-                            null
-                    )),
-                    new CodeAnalysisResponse.ComplexityMetrics(
-                            5,
-                            request.code().split("\n").length,
-                            3
-                    )
-            );
-
-        } catch (WebClientResponseException e) {
-            log.error("AI service returned error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-            return createErrorAnalysisResponse("Service temporarily unavailable");
-        } catch (Exception e) {
-            log.error("Failed to call AI service", e);
-            return createErrorAnalysisResponse("Failed to connect to analysis service");
-        }
+        AiServiceEvaluateRequest body = new AiServiceEvaluateRequest(
+                request.code(),
+                request.language(),
+                request.code(), // Use code as problem_statement since not available
+                List.of(),
+                null
+        );
+
+        String key = responseCache.key("analysis", "", request.language(), request.code());
+        return withDeadline(responseCache.getOrCall("analysis", key, () -> metered("analysis", body, call(deadline, "/analyze", body, AiServiceFeedback.class), AiServiceFeedback::tokens_used)), deadline)
+                .map(feedback -> new CodeAnalysisResponse(
+                        feedback.overall_score(),
+                        feedback.strengths().isEmpty() ? "Code submitted" : String.join(", ", feedback.strengths()),
+                        List.of(), // issues - not used in new format
+                        List.of(new CodeAnalysisResponse.Suggestion(
+                                "improvement",
+                                String.join(", ", feedback.improvements()),
+                                null
+                        )),
+                        new CodeAnalysisResponse.ComplexityMetrics(
+                                5,
+                                request.code().split("\n").length,
+                                3
+                        )
+                ))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    log.error("AI service returned error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
+                    return Mono.just(createErrorAnalysisResponse("Service temporarily unavailable"));
+                })
+                .onErrorResume(AiCircuitBreaker.OpenException.class, e ->
+                        Mono.just(createErrorAnalysisResponse("Analysis service is unavailable")))
+                .onErrorResume(AiTokenBudget.ExhaustedException.class, e ->
+                        Mono.just(createErrorAnalysisResponse("Daily AI analysis limit reached")))
+                .onErrorResume(e -> {
+                    log.error("Failed to call AI service", e);
+                    return Mono.just(createErrorAnalysisResponse("Failed to connect to analysis service"));
+                });
     }
 
     /**
-     * Generate a hint for a coding challenge
+     * Generate a hint for a coding challenge. Hints are cached by challenge,
+     * problem statement, language and normalized code.
      */
-    public String generateHint(String problemStatement, String userCode, String language) {
+    public Mono<String> generateHint(String challengeId, String problemStatement, String userCode, String language) {
+        return generateHint(challengeId, problemStatement, userCode, language, defaultDeadline());
+    }
+
+    public Mono<String> generateHint(
+            String challengeId,
+            String problemStatement,
+            String userCode,
+            String language,
+            Instant deadline
+    ) {
         if (!config.isEnabled()) {
-            return "AI hints are currently disabled.";
+            return Mono.just("AI hints are currently disabled.");
         }
 
-        try {
-            AiServiceEvaluateRequest body = new AiServiceEvaluateRequest(
-                    userCode,
-                    language,
-                    problemStatement,
-                    List.of(),
-                    null
-            );
-
-            AiServiceFeedback feedback = webClient.post()
-                    .uri(COMPILA_API_PREFIX + "/analyze")
-                    .bodyValue(body)
-                    .retrieve()
-                    .bodyToMono(AiServiceFeedback.class)
-                    .block(Duration.ofMillis(config.getTimeout().toMillis()));
-
-            return feedback.hint() != null ? feedback.hint() : "Continue practicing!";
-
-        } catch (Exception e) {
-            log.error("Failed to generate hint", e);
-            return "Unable to generate hint at this time.";
+        AiServiceEvaluateRequest body = new AiServiceEvaluateRequest(
+                userCode,
+                language,
+                problemStatement,
+                List.of(),
+                null
+        );
+
+        String key = responseCache.key("hint", challengeId + "\0" + problemStatement, language, userCode);
+        return withDeadline(responseCache.getOrCall("hint", key, () -> metered("hint", body, call(deadline, "/analyze", body, AiServiceFeedback.class), AiServiceFeedback::tokens_used)), deadline)
+                .map(feedback -> feedback.hint() != null ? feedback.hint() : "Continue practicing!")
+                .onErrorResume(AiCircuitBreaker.OpenException.class, e -> Mono.just("Unable to generate hint at this time."))
+                .onErrorResume(AiTokenBudget.ExhaustedException.class, e ->
+                        Mono.just("You have used up today's AI hints. Try again tomorrow."))
+                .onErrorResume(e -> {
+                    log.error("Failed to generate hint", e);
+                    return Mono.just("Unable to generate hint at this time.");
+                });
+    }
+
+    /**
+     * Stream a hint as the AI service writes it, so the first words show up
+     * long before the whole hint is done. A cached hint arrives in one piece,
+     * and a streamed one is cached once complete.
+     * <p>
+     * Cancelling the returned {@link Flux}, e.g. because the client went away,
+     * closes the upstream stream and frees its limiter slot; the tokens
+     * streamed until then are charged. Failures before the first token
+     * arrive as a single message, like {@link #generateHint}; a stream that
+     * fails later errors with {@link StreamBrokenException}, and the partial
+     * hint is not cached.
+     */
+    public Flux<String> streamHint(String challengeId, String problemStatement, String userCode, String language) {
+        if (!config.isEnabled()) {
+            return Flux.just("AI hints are currently disabled.");
         }
+
+        AiServiceEvaluateRequest body = new AiServiceEvaluateRequest(
+                userCode,
+                language,
+                problemStatement,
+                List.of(),
+                null
+        );
+
+        String key = responseCache.key("hint", challengeId + "\0" + problemStatement, language, userCode);
+        return Flux.defer(() -> {
+            AiServiceFeedback cached = responseCache.get("hint", key);
+            if (cached != null && cached.hint() != null) {
+                return Flux.just(cached.hint());
+            }
+
+            AtomicBoolean started = new AtomicBoolean();
+            StringBuilder hint = new StringBuilder();
+            return meteredStream("hint", body, stream("/hint/stream", body))
+                    .doOnNext(token -> {
+                        started.set(true);
+                        hint.append(token);
+                    })
+                    .doOnComplete(() -> {
+                        if (!hint.isEmpty()) {
+                            responseCache.put(key, new AiServiceFeedback(
+                                    0, List.of(), List.of(), List.of(), null, hint.toString(), null));
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        if (started.get()) {
+                            log.warn("Hint stream broke off: {}", e.toString());
+                            return Flux.error(new StreamBrokenException(e));
+                        }
+                        if (e instanceof AiTokenBudget.ExhaustedException) {
+                            return Flux.just("You have used up today's AI hints. Try again tomorrow.");
+                        }
+                        if (!(e instanceof AiCircuitBreaker.OpenException)) {
+                            log.error("Failed to stream hint", e);
+                        }
+                        return Flux.just("Unable to generate hint at this time.");
+                    });
+        });
+    }
+
+    /**
+     * Check if the AI service is healthy. Bypasses the concurrency cap, so a
+     * saturated service still answers.
+     */
+    public Mono<Boolean> checkHealth() {
+        return webClient.get()
+                .uri(COMPILA_API_PREFIX + "/health")
+                .header(DEADLINE_HEADER, String.valueOf(HEALTH_TIMEOUT.toMillis()))
+                .retrieve()
+                .bodyToMono(String.class)
+                .map("OK"::equals)
+                .timeout(HEALTH_TIMEOUT)
+                .onErrorResume(e -> {
+                    log.warn("AI service health check failed", e);
+                    return Mono.just(false);
+                });
     }
 
     /**
-     * Check if the AI service is healthy
+     * Blocking form of {@link #checkHealth()}, for probes that run on their
+     * own thread
      */
     public boolean isHealthy() {
-        try {
-            return webClient.get()
-                    .uri(COMPILA_API_PREFIX + "/health")
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .map("OK"::equals)
-                    .block(Duration.ofSeconds(5));
-        } catch (Exception e) {
-            log.warn("AI service health check failed", e);
-            return false;
+        return Boolean.TRUE.equals(checkHealth().block());
+    }
+
+    /**
+     * POST to the AI service once the limiter grants a slot, failing with a
+     * {@link TimeoutException} when the deadline passes first. Each call that
+     * reaches the service reports its outcome to the circuit breaker.
+     */
+    private <T> Mono<T> call(Instant deadline, String path, Object body, Class<T> responseType) {
+        return Mono.defer(() -> {
+            Duration budget = Duration.between(Instant.now(), deadline);
+            if (budget.isNegative() || budget.isZero()) {
+                return Mono.error(new TimeoutException("Deadline passed before calling the AI service"));
+            }
+            if (!circuitBreaker.tryAcquire()) {
+                return Mono.error(new AiCircuitBreaker.OpenException("AI service circuit is open"));
+            }
+            return limiter.submit(() -> {
+                        long start = System.nanoTime();
+                        return webClient.post()
+                                .uri(COMPILA_API_PREFIX + path)
+                                .header(DEADLINE_HEADER, String.valueOf(Math.max(1, Duration.between(Instant.now(), deadline).toMillis())))
+                                .bodyValue(body)
+                                .retrieve()
+                                .bodyToMono(responseType)
+                                .doOnSuccess(response -> circuitBreaker.onSuccess(System.nanoTime() - start))
+                                .doOnError(e -> {
+                                    if (isServiceFailure(e)) {
+                                        circuitBreaker.onFailure(System.nanoTime() - start);
+                                    } else {
+                                        circuitBreaker.onSuccess(System.nanoTime() - start);
+                                    }
+                                })
+                                // Cut off by the deadline below, unless the caller just went away
+                                .doOnCancel(() -> {
+                                    if (!Instant.now().isBefore(deadline)) {
+                                        circuitBreaker.onFailure(System.nanoTime() - start);
+                                    }
+                                });
+                    })
+                    .timeout(budget);
+        });
+    }
+
+    /**
+     * POST to a streaming endpoint of the AI service and relay its
+     * server-sent events. The first must arrive within ai-service.timeout,
+     * which covers the wait for a slot, each later one within
+     * {@code stream-idle-timeout}, and the stream fails once it has run for
+     * {@code stream-max-duration}. The slot is held until the stream ends.
+     * The circuit breaker judges the call by the time to its first event, as
+     * a long stream is not a slow service. Only a {@code done} event ends
+     * the stream normally; an {@code error} event or a closed connection
+     * fails it.
+     */
+    private Flux<AiServiceHintChunk> stream(String path, Object body) {
+        return Flux.defer(() -> {
+            Instant deadline = defaultDeadline();
+            if (!circuitBreaker.tryAcquire()) {
+                return Flux.error(new AiCircuitBreaker.OpenException("AI service circuit is open"));
+            }
+            Flux<AiServiceHintChunk> events = limiter.submitMany(() -> {
+                long start = System.nanoTime();
+                Instant end = Instant.now().plus(config.getStreamMaxDuration());
+                long[] firstEvent = {0};
+                boolean[] done = {false};
+                return webClient.post()
+                        .uri(COMPILA_API_PREFIX + path)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header(DEADLINE_HEADER, String.valueOf(Math.max(1, Duration.between(Instant.now(), deadline).toMillis())))
+                        .bodyValue(body)
+                        .retrieve()
+                        .bodyToFlux(HINT_EVENTS)
+                        .timeout(Mono.never(), event -> Mono.delay(min(
+                                config.getStreamIdleTimeout(), max(Duration.between(Instant.now(), end), Duration.ofMillis(1)))))
+                        .doOnNext(event -> {
+                            if (firstEvent[0] == 0) {
+                                firstEvent[0] = System.nanoTime() - start;
+                            }
+                        })
+                        .concatMap(event -> {
+                            if ("error".equals(event.event())) {
+                                return Mono.error(new IllegalStateException("AI service stream failed: "
+                                        + (event.data() != null ? event.data().detail() : "unknown error")));
+                            }
+                            done[0] |= "done".equals(event.event());
+                            return Mono.justOrEmpty(event.data());
+                        })
+                        // A connection closed before the done event is a truncated answer, not a complete one
+                        .concatWith(Mono.defer(() -> done[0]
+                                ? Mono.empty()
+                                : Mono.error(new IllegalStateException("AI service stream ended without a done event"))))
+                        .doOnComplete(() -> circuitBreaker.onSuccess(firstEvent[0]))
+                        .doOnError(e -> {
+                            if (isServiceFailure(e)) {
+                                circuitBreaker.onFailure(System.nanoTime() - start);
+                            } else {
+                                circuitBreaker.onSuccess(firstEvent[0]);
+                            }
+                        })
+                        // Cut off before the first event by the deadline below, unless the caller just went away
+                        .doOnCancel(() -> {
+                            if (firstEvent[0] == 0 && !Instant.now().isBefore(deadline)) {
+                                circuitBreaker.onFailure(System.nanoTime() - start);
+                            }
+                        });
+            });
+            return events.timeout(Mono.delay(max(Duration.between(Instant.now(), deadline), Duration.ofMillis(1))), event -> Mono.never());
+        });
+    }
+
+    /**
+     * {@link #metered} for a stream: charged when it ends, however it ends,
+     * with what the AI service reports or an estimate from what was streamed
+     */
+    private Flux<String> meteredStream(String kind, Object body, Flux<AiServiceHintChunk> upstream) {
+        return Flux.deferContextual(context -> {
+            AiCaller caller = AiCaller.from(context);
+            tokenBudget.check(caller);
+            StringBuilder streamed = new StringBuilder();
+            AtomicInteger reported = new AtomicInteger();
+            return upstream
+                    .doOnNext(chunk -> {
+                        if (chunk.token() != null) {
+                            streamed.append(chunk.token());
+                        }
+                        if (chunk.tokens_used() != null) {
+                            reported.set(chunk.tokens_used());
+                        }
+                    })
+                    .doFinally(signal -> tokenBudget.record(caller, kind,
+                            reported.get() > 0 ? reported.get() : tokenBudget.estimate(body, streamed.toString())))
+                    .mapNotNull(AiServiceHintChunk::token);
+        });
+    }
+
+    /**
+     * Send an evaluation on its own or with the next batch
+     */
+    private Mono<AiServiceEvaluateResponse> evaluate(AiServiceEvaluateRequest body, Instant deadline) {
+        if (evaluationBatches == null) {
+            return call(deadline, "/evaluate", body, AiServiceEvaluateResponse.class);
+        }
+        return withDeadline(evaluationBatches.submit(body, deadline), deadline);
+    }
+
+    /**
+     * Refuse a call when the caller's budget is spent, otherwise charge its
+     * tokens: those the AI service reports, or an estimate when it does not
+     *
+     * @param reported tokens the response reports; null or 0 when unknown
+     */
+    private <R> Mono<R> metered(String kind, Object body, Mono<R> upstream, Function<R, Integer> reported) {
+        return Mono.deferContextual(context -> {
+            AiCaller caller = AiCaller.from(context);
+            tokenBudget.check(caller);
+            return upstream.doOnNext(response -> {
+                Integer tokens = reported.apply(response);
+                tokenBudget.record(caller, kind, tokens != null && tokens > 0 ? tokens : tokenBudget.estimate(body, response));
+            });
+        });
+    }
+
+    /**
+     * Whether an error says the AI service is in trouble; rejected requests
+     * say nothing about its health
+     */
+    private static boolean isServiceFailure(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
         }
+        return true;
+    }
+
+    /**
+     * Bound a caller's wait by its own deadline, e.g. when it joined a call
+     * made under someone else's
+     */
+    private static <T> Mono<T> withDeadline(Mono<T> mono, Instant deadline) {
+        return Mono.defer(() -> mono.timeout(max(Duration.between(Instant.now(), deadline), Duration.ofMillis(1))));
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private Instant defaultDeadline() {
+        return Instant.now().plus(config.getTimeout());
     }
 
     private List<AiServiceTestCase> convertTestCases(List<String> testCases) {
@@ -209,6 +587,17 @@ public class AiEvaluationService {
             Object constraints
     ) {}
 
+    public record AiServiceBatchRequest(
+            List<AiServiceEvaluateRequest> requests
+    ) {}
+
+    /**
+     * One result per request, in request order; null where a request failed
+     */
+    public record AiServiceBatchResponse(
+            List<AiServiceEvaluateResponse> results
+    ) {}
+
     public record AiServiceTestCase(
             String input_data,
             String expected_output,
@@ -221,7 +610,8 @@ public class AiEvaluationService {
             int total_tests,
             List<AiServiceTestResult> test_results,
             AiServiceFeedback feedback,
-            Integer execution_time_ms
+            Integer execution_time_ms,
+            Integer tokens_used
     ) {
         public AiServiceFeedback feedback() {
             return feedback;
@@ -265,7 +655,8 @@ public class AiEvaluationService {
             List<String> improvements,
             List<String> best_practices,
             String complexity_analysis,
-            String hint
+            String hint,
+            Integer tokens_used
             ) {
         public int overall_score() {
             return overall_score;
@@ -278,6 +669,16 @@ public class AiEvaluationService {
         }
     }
 
+    /**
+     * One event of a streamed hint: a piece of its text, and with the last
+     * event the tokens used; {@code detail} explains an {@code error} event
+     */
+    public record AiServiceHintChunk(
+            String token,
+            Integer tokens_used,
+            String detail
+    ) {}
+
     private CodeEvaluationResponse createMockEvaluationResponse() {
         return new CodeEvaluationResponse(
                 true,
@@ -329,4 +730,13 @@ public class AiEvaluationService {
                 new CodeAnalysisResponse.ComplexityMetrics(0, 0, 0)
         );
     }
+
+    /**
+     * A streamed answer failed after part of it was sent
+     */
+    public static class StreamBrokenException extends RuntimeException {
+        public StreamBrokenException(Throwable cause) {
+            super("AI stream broke off: " + cause.getMessage(), cause);
+        }
+    }
 }
@@ -0,0 +1,151 @@
+package dev.compila.ai;
+
+import dev.compila.ai.config.AiServiceConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory cache of AI hint and analysis responses, with single-flight
+ * coalescing: concurrent requests for the same key share one upstream call.
+ * <p>
+ * Keys combine what the response depends on (e.g. the challenge and its
+ * problem statement), the language and the code's {@link CodeFingerprint},
+ * so near-identical code, typically untouched starter code, is answered
+ * once. Entries expire after {@code ai-service.response-cache-ttl}; the
+ * least recently used go once there are more than
+ * {@code ai-service.response-cache-size}. Failures are not cached.
+ */
+@Component
+public class AiResponseCache {
+
+    private final AiServiceConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Entry> entries;
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    public AiResponseCache(AiServiceConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > config.getResponseCacheSize();
+            }
+        };
+
+        Gauge.builder("ai.response.cache.size", this, AiResponseCache::size)
+                .description("AI responses held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param scope everything besides language and code the response depends on
+     */
+    public String key(String kind, String scope, String language, String code) {
+        String normalized = CodeFingerprint.normalize(language, code);
+        return kind + ":" + sha256(scope + "\0" + (language != null ? language.toUpperCase(Locale.ROOT) : "") + "\0" + normalized);
+    }
+
+    /**
+     * Answer from the cache, join a call already under way for the key, or
+     * make the call
+     *
+     * @param call the upstream call; its failures reach every caller sharing it
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> getOrCall(String kind, String key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            T cached = (T) lookup(key);
+            if (cached != null) {
+                count(kind, "hit");
+                return Mono.just(cached);
+            }
+
+            boolean[] leader = new boolean[1];
+            Mono<T> shared = (Mono<T>) inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                // Shared calls run to completion even if the caller that
+                // started them goes away, since others may be waiting
+                return call.get()
+                        .doOnNext(value -> store(k, value))
+                        .doFinally(signal -> inFlight.remove(k))
+                        .cache();
+            });
+            count(kind, leader[0] ? "miss" : "coalesced");
+            return shared;
+        });
+    }
+
+    /**
+     * A cached response, for callers that stream theirs and so cannot share
+     * a call; null on a miss
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String kind, String key) {
+        T cached = (T) lookup(key);
+        count(kind, cached != null ? "hit" : "miss");
+        return cached;
+    }
+
+    /**
+     * Cache a response that was streamed rather than made through
+     * {@link #getOrCall}
+     */
+    public void put(String key, Object value) {
+        store(key, value);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized Object lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.storedAt() > config.getResponseCacheTtl().toNanos()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    private synchronized void store(String key, Object value) {
+        entries.put(key, new Entry(value, System.nanoTime()));
+    }
+
+    private void count(String kind, String result) {
+        Counter.builder("ai.response.cache.requests")
+                .tag("kind", kind)
+                .tag("result", result)
+                .description("AI hint and analysis requests answered from the cache, coalesced or sent upstream")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Entry(Object value, long storedAt) {
+    }
+}
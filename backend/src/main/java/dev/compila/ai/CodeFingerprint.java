@@ -0,0 +1,100 @@
+package dev.compila.ai;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Normalizes code for AI response caching, so submissions that only differ
+ * in comments, indentation or blank lines share a cache entry.
+ * <p>
+ * Comments are removed and whitespace outside string literals is dropped,
+ * except for a single space between two word characters, which keeps
+ * {@code return x} apart from {@code returnx}. Python and Ruby use
+ * {@code #} comments, every other language C-style ones.
+ */
+final class CodeFingerprint {
+
+    private static final Set<String> HASH_COMMENT_LANGUAGES = Set.of("PYTHON", "RUBY");
+
+    private CodeFingerprint() {
+    }
+
+    static String normalize(String language, String code) {
+        if (code == null) {
+            return "";
+        }
+        boolean hashComments = language != null && HASH_COMMENT_LANGUAGES.contains(language.toUpperCase(Locale.ROOT));
+        StringBuilder out = new StringBuilder(code.length());
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < code.length()) {
+            char c = code.charAt(i);
+
+            if (hashComments ? c == '#' : startsWith(code, i, "//")) {
+                i = indexOrEnd(code, '\n', i);
+                pendingSpace = true;
+            } else if (!hashComments && startsWith(code, i, "/*")) {
+                int end = code.indexOf("*/", i + 2);
+                i = end < 0 ? code.length() : end + 2;
+                pendingSpace = true;
+            } else if (c == '"' || c == '\'' || (c == '`' && !hashComments)) {
+                int end = stringEnd(code, i);
+                appendSeparated(out, pendingSpace, c);
+                out.append(code, i, end);
+                pendingSpace = false;
+                i = end;
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+            } else {
+                appendSeparated(out, pendingSpace, c);
+                out.append(c);
+                pendingSpace = false;
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Keep one space where dropping it would join two words
+     */
+    private static void appendSeparated(StringBuilder out, boolean pendingSpace, char next) {
+        if (pendingSpace && !out.isEmpty() && isWordChar(out.charAt(out.length() - 1)) && isWordChar(next)) {
+            out.append(' ');
+        }
+    }
+
+    /**
+     * Index just past the literal starting at {@code start}, honouring
+     * backslash escapes; unterminated literals run to the end
+     */
+    private static int stringEnd(String code, int start) {
+        char quote = code.charAt(start);
+        int i = start + 1;
+        while (i < code.length()) {
+            char c = code.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return code.length();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean startsWith(String code, int index, String prefix) {
+        return code.startsWith(prefix, index);
+    }
+
+    private static int indexOrEnd(String code, char c, int from) {
+        int index = code.indexOf(c, from);
+        return index < 0 ? code.length() : index;
+    }
+}
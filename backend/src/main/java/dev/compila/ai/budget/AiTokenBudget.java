@@ -0,0 +1,320 @@
+package dev.compila.ai.budget;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.ai.AiCaller;
+import dev.compila.ai.config.AiServiceConfig;
+import dev.compila.submission.SubmissionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accounts the tokens AI calls consume and enforces the daily quotas in
+ * {@code ai-service.budget}.
+ * <p>
+ * Usage is aggregated in memory per user, per challenge and in total for
+ * the current UTC day, and flushed every {@code flush-interval} to
+ * {@code ai_token_usage}, together with each submission's
+ * {@code ai_tokens_used}. Every flush reloads the day's totals, so quotas
+ * also count what other instances spent. A call whose caller has a quota
+ * spent is refused with {@link ExhaustedException}.
+ */
+@Component
+public class AiTokenBudget implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AiTokenBudget.class);
+    private static final String TOTAL_KEY = "total";
+
+    public enum Scope {
+        USER, CHALLENGE, TOTAL
+    }
+
+    private final AiServiceConfig.Budget config;
+    private final AiTokenUsageRepository usageRepository;
+    private final SubmissionRepository submissionRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ai-token-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Today's usage as of the last flush, from every instance */
+    private Map<Key, Long> persisted = new HashMap<>();
+    /** Usage being written by the running flush */
+    private Map<Key, Long> flushing = new HashMap<>();
+    private Map<Key, Long> unflushed = new HashMap<>();
+    private Map<UUID, Long> unflushedSubmissions = new HashMap<>();
+
+    public AiTokenBudget(
+            AiServiceConfig config,
+            AiTokenUsageRepository usageRepository,
+            SubmissionRepository submissionRepository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.config = config.getBudget();
+        this.usageRepository = usageRepository;
+        this.submissionRepository = submissionRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("ai.tokens.today", this, budget -> budget.used(Scope.TOTAL, TOTAL_KEY))
+                .description("AI tokens spent today (UTC) across all instances")
+                .register(meterRegistry);
+        Gauge.builder("ai.tokens.budget.remaining", this, budget -> budget.remaining(Scope.TOTAL, TOTAL_KEY))
+                .description("AI tokens left in today's total budget; -1 when unlimited")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = config.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flush, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @throws ExhaustedException when one of the caller's quotas is spent
+     */
+    public void check(AiCaller caller) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Scope spent = spentScope(caller);
+        if (spent != null) {
+            Counter.builder("ai.budget.exhausted")
+                    .tag("scope", spent.name().toLowerCase(Locale.ROOT))
+                    .description("AI calls refused because a token quota was spent")
+                    .register(meterRegistry)
+                    .increment();
+            throw new ExhaustedException(spent);
+        }
+    }
+
+    /**
+     * Charge tokens to a caller
+     *
+     * @param kind what the tokens were spent on, e.g. {@code hint}
+     */
+    public void record(AiCaller caller, String kind, long tokens) {
+        if (tokens <= 0) {
+            return;
+        }
+        Counter.builder("ai.tokens")
+                .tag("kind", kind)
+                .description("AI tokens spent")
+                .register(meterRegistry)
+                .increment(tokens);
+
+        LocalDate today = today();
+        synchronized (this) {
+            unflushed.merge(new Key(Scope.TOTAL, TOTAL_KEY, today), tokens, Long::sum);
+            if (caller.userId() != null) {
+                unflushed.merge(new Key(Scope.USER, caller.userId().toString(), today), tokens, Long::sum);
+            }
+            if (caller.challengeId() != null) {
+                unflushed.merge(new Key(Scope.CHALLENGE, caller.challengeId().toString(), today), tokens, Long::sum);
+            }
+            if (caller.submissionId() != null) {
+                unflushedSubmissions.merge(caller.submissionId(), tokens, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Tokens for a call whose usage the AI service did not report, from the
+     * size of what was sent and received
+     */
+    public long estimate(Object request, Object response) {
+        return (length(request) + length(response)) / Math.max(1, config.getCharsPerToken());
+    }
+
+    /**
+     * Tokens spent today (UTC) by a user, on a challenge or in total
+     */
+    public synchronized long used(Scope scope, String scopeKey) {
+        Key key = new Key(scope, scopeKey, today());
+        return persisted.getOrDefault(key, 0L) + flushing.getOrDefault(key, 0L) + unflushed.getOrDefault(key, 0L);
+    }
+
+    /**
+     * @return -1 when the scope has no quota
+     */
+    public long remaining(Scope scope, String scopeKey) {
+        long quota = quota(scope);
+        return quota > 0 ? Math.max(0, quota - used(scope, scopeKey)) : -1;
+    }
+
+    public long quota(Scope scope) {
+        return switch (scope) {
+            case USER -> config.getDailyTokensPerUser();
+            case CHALLENGE -> config.getDailyTokensPerChallenge();
+            case TOTAL -> config.getDailyTokensTotal();
+        };
+    }
+
+    /**
+     * The biggest spenders of a scope on a day; today's figures include what
+     * is not flushed yet
+     */
+    public List<Spend> top(Scope scope, LocalDate day, int limit) {
+        Map<String, Long> tokens = new HashMap<>();
+        usageRepository.findByScopeAndDayOrderByTokensDesc(scope, day, PageRequest.of(0, limit))
+                .forEach(usage -> tokens.put(usage.getScopeKey(), usage.getTokens()));
+        if (day.equals(today())) {
+            synchronized (this) {
+                tokens.replaceAll((scopeKey, stored) -> used(scope, scopeKey));
+                for (Key key : unflushed.keySet()) {
+                    if (key.scope() == scope && key.day().equals(day)) {
+                        tokens.put(key.scopeKey(), used(scope, key.scopeKey()));
+                    }
+                }
+            }
+        }
+        return tokens.entrySet().stream()
+                .map(entry -> new Spend(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(Spend::tokens).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Daily usage of one user or challenge, oldest day first; days without
+     * usage are left out
+     */
+    public List<AiTokenUsage> history(Scope scope, String scopeKey, LocalDate from, LocalDate to) {
+        return usageRepository.findByScopeAndScopeKeyAndDayBetweenOrderByDay(scope, scopeKey, from, to);
+    }
+
+    /**
+     * Write the usage gathered since the last flush and reload today's totals
+     */
+    void flush() {
+        Map<Key, Long> pending;
+        Map<UUID, Long> submissions;
+        synchronized (this) {
+            flushing = unflushed;
+            unflushed = new HashMap<>();
+            pending = new HashMap<>(flushing);
+            submissions = unflushedSubmissions;
+            unflushedSubmissions = new HashMap<>();
+        }
+        Map<Key, Long> written = new HashMap<>();
+        try {
+            for (Map.Entry<Key, Long> entry : pending.entrySet()) {
+                Key key = entry.getKey();
+                usageRepository.addTokens(key.scope().name(), key.scopeKey(), key.day(), entry.getValue());
+                written.put(key, entry.getValue());
+            }
+            pending.clear();
+            for (var iterator = submissions.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<UUID, Long> entry = iterator.next();
+                submissionRepository.addAiTokensUsed(entry.getKey(), Math.toIntExact(entry.getValue()));
+                iterator.remove();
+            }
+
+            LocalDate today = today();
+            Map<Key, Long> reloaded = new HashMap<>();
+            usageRepository.findByDay(today)
+                    .forEach(usage -> reloaded.put(new Key(usage.getScope(), usage.getScopeKey(), today), usage.getTokens()));
+            synchronized (this) {
+                persisted = reloaded;
+                flushing = new HashMap<>();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Flushing AI token usage failed; the rest is retried with the next flush", e);
+            synchronized (this) {
+                written.forEach((key, tokens) -> persisted.merge(key, tokens, Long::sum));
+                pending.keySet().removeAll(written.keySet());
+                pending.forEach((key, tokens) -> unflushed.merge(key, tokens, Long::sum));
+                submissions.forEach((submissionId, tokens) -> unflushedSubmissions.merge(submissionId, tokens, Long::sum));
+                flushing = new HashMap<>();
+            }
+        }
+    }
+
+    private synchronized Scope spentScope(AiCaller caller) {
+        if (spent(Scope.TOTAL, TOTAL_KEY)) {
+            return Scope.TOTAL;
+        }
+        if (caller.userId() != null && spent(Scope.USER, caller.userId().toString())) {
+            return Scope.USER;
+        }
+        if (caller.challengeId() != null && spent(Scope.CHALLENGE, caller.challengeId().toString())) {
+            return Scope.CHALLENGE;
+        }
+        return null;
+    }
+
+    private boolean spent(Scope scope, String scopeKey) {
+        long quota = quota(scope);
+        return quota > 0 && used(scope, scopeKey) >= quota;
+    }
+
+    private int length(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String text) {
+            return text.length();
+        }
+        try {
+            return objectMapper.writeValueAsString(value).length();
+        } catch (JsonProcessingException e) {
+            return 0;
+        }
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private record Key(Scope scope, String scopeKey, LocalDate day) {
+    }
+
+    public record Spend(String id, long tokens) {
+    }
+
+    /**
+     * A token quota of the caller is spent for today
+     */
+    public static class ExhaustedException extends RuntimeException {
+        private final Scope scope;
+
+        public ExhaustedException(Scope scope) {
+            super("Daily AI token budget spent (" + scope.name().toLowerCase(Locale.ROOT) + ")");
+            this.scope = scope;
+        }
+
+        public Scope getScope() {
+            return scope;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dev.compila.ai.budget;
+
+import dev.compila.common.BaseEntity;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * AI tokens spent on one UTC day by a user, on a challenge, or in total
+ */
+@Entity
+@Table(name = "ai_token_usage")
+public class AiTokenUsage extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private AiTokenBudget.Scope scope;
+
+    /** User or challenge id, or {@code total} */
+    @Column(name = "scope_key", nullable = false, length = 64)
+    private String scopeKey;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private long tokens;
+
+    public AiTokenUsage() {}
+
+    // Getters and Setters
+    public AiTokenBudget.Scope getScope() {
+        return scope;
+    }
+
+    public void setScope(AiTokenBudget.Scope scope) {
+        this.scope = scope;
+    }
+
+    public String getScopeKey() {
+        return scopeKey;
+    }
+
+    public void setScopeKey(String scopeKey) {
+        this.scopeKey = scopeKey;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public long getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(long tokens) {
+        this.tokens = tokens;
+    }
+}
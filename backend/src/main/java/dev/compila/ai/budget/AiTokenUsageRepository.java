@@ -0,0 +1,37 @@
+package dev.compila.ai.budget;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AiTokenUsageRepository extends JpaRepository<AiTokenUsage, UUID> {
+
+    List<AiTokenUsage> findByDay(LocalDate day);
+
+    List<AiTokenUsage> findByScopeAndDayOrderByTokensDesc(AiTokenBudget.Scope scope, LocalDate day, Pageable pageable);
+
+    List<AiTokenUsage> findByScopeAndScopeKeyAndDayBetweenOrderByDay(
+            AiTokenBudget.Scope scope, String scopeKey, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO ai_token_usage (scope, scope_key, day, tokens) VALUES (:scope, :scopeKey, :day, :tokens) "
+            + "ON CONFLICT (scope, scope_key, day) DO UPDATE "
+            + "SET tokens = ai_token_usage.tokens + EXCLUDED.tokens, updated_at = CURRENT_TIMESTAMP",
+            nativeQuery = true)
+    void addTokens(
+            @Param("scope") String scope,
+            @Param("scopeKey") String scopeKey,
+            @Param("day") LocalDate day,
+            @Param("tokens") long tokens
+    );
+}
@@ -0,0 +1,105 @@
+package dev.compila.ai.budget;
+
+import dev.compila.ai.budget.dto.AiUsageHistory;
+import dev.compila.ai.budget.dto.AiUsageReport;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * AI token spend for the admin dashboard
+ */
+@RestController
+@RequestMapping("/admin/ai")
+@PreAuthorize("hasRole('ADMIN')")
+public class AiUsageAdminController {
+
+    private static final String TOTAL_KEY = "total";
+    private static final int MAX_DAYS = 90;
+
+    private final AiTokenBudget tokenBudget;
+
+    public AiUsageAdminController(AiTokenBudget tokenBudget) {
+        this.tokenBudget = tokenBudget;
+    }
+
+    /**
+     * Spend of a day, today (UTC) by default, with its biggest spenders
+     */
+    @GetMapping("/usage")
+    public ResponseEntity<AiUsageReport> getUsage(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate reportDay = day != null ? day : today;
+        int top = Math.min(Math.max(limit, 1), 100);
+
+        long totalTokens = reportDay.equals(today)
+                ? tokenBudget.used(AiTokenBudget.Scope.TOTAL, TOTAL_KEY)
+                : tokenBudget.history(AiTokenBudget.Scope.TOTAL, TOTAL_KEY, reportDay, reportDay).stream()
+                        .mapToLong(AiTokenUsage::getTokens)
+                        .sum();
+        long totalQuota = quotaOrUnlimited(AiTokenBudget.Scope.TOTAL);
+
+        return ResponseEntity.ok(new AiUsageReport(
+                reportDay,
+                totalTokens,
+                totalQuota,
+                totalQuota > 0 ? Math.max(0, totalQuota - totalTokens) : -1,
+                quotaOrUnlimited(AiTokenBudget.Scope.USER),
+                quotaOrUnlimited(AiTokenBudget.Scope.CHALLENGE),
+                spenders(AiTokenBudget.Scope.USER, reportDay, top),
+                spenders(AiTokenBudget.Scope.CHALLENGE, reportDay, top)
+        ));
+    }
+
+    @GetMapping("/usage/users/{userId}")
+    public ResponseEntity<AiUsageHistory> getUserUsage(
+            @PathVariable UUID userId,
+            @RequestParam(defaultValue = "7") int days
+    ) {
+        return ResponseEntity.ok(history(AiTokenBudget.Scope.USER, userId, days));
+    }
+
+    @GetMapping("/usage/challenges/{challengeId}")
+    public ResponseEntity<AiUsageHistory> getChallengeUsage(
+            @PathVariable UUID challengeId,
+            @RequestParam(defaultValue = "7") int days
+    ) {
+        return ResponseEntity.ok(history(AiTokenBudget.Scope.CHALLENGE, challengeId, days));
+    }
+
+    private AiUsageHistory history(AiTokenBudget.Scope scope, UUID id, int days) {
+        LocalDate to = LocalDate.now(ZoneOffset.UTC);
+        LocalDate from = to.minusDays(Math.min(Math.max(days, 1), MAX_DAYS) - 1L);
+        List<AiUsageHistory.Day> usage = new ArrayList<>();
+        tokenBudget.history(scope, id.toString(), from, to).stream()
+                .filter(day -> !day.getDay().equals(to))
+                .forEach(day -> usage.add(new AiUsageHistory.Day(day.getDay(), day.getTokens())));
+        // Today's row lags behind what is not flushed yet
+        long today = tokenBudget.used(scope, id.toString());
+        if (today > 0) {
+            usage.add(new AiUsageHistory.Day(to, today));
+        }
+        return new AiUsageHistory(id.toString(), quotaOrUnlimited(scope), usage);
+    }
+
+    private List<AiUsageReport.Spender> spenders(AiTokenBudget.Scope scope, LocalDate day, int limit) {
+        return tokenBudget.top(scope, day, limit).stream()
+                .map(spend -> new AiUsageReport.Spender(spend.id(), spend.tokens()))
+                .toList();
+    }
+
+    private long quotaOrUnlimited(AiTokenBudget.Scope scope) {
+        long quota = tokenBudget.quota(scope);
+        return quota > 0 ? quota : -1;
+    }
+}
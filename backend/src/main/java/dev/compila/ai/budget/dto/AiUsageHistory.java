@@ -0,0 +1,18 @@
+package dev.compila.ai.budget.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily AI token spend of one user or challenge, oldest day first
+ */
+public record AiUsageHistory(
+        String id,
+        Long quota,
+        List<Day> days
+) {
+    public record Day(
+            LocalDate day,
+            Long tokens
+    ) {}
+}
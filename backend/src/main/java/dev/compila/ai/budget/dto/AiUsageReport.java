@@ -0,0 +1,23 @@
+package dev.compila.ai.budget.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * AI token spend of one UTC day; quotas and remaining are -1 when unlimited
+ */
+public record AiUsageReport(
+        LocalDate day,
+        Long totalTokens,
+        Long totalQuota,
+        Long totalRemaining,
+        Long userQuota,
+        Long challengeQuota,
+        List<Spender> topUsers,
+        List<Spender> topChallenges
+) {
+    public record Spender(
+            String id,
+            Long tokens
+    ) {}
+}
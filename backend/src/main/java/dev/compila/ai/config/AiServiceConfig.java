@@ -12,6 +12,15 @@ public class AiServiceConfig {
     private String apiKey;
     private String model = "gpt-4";
     private boolean enabled = true;
+    private int maxConcurrentCalls = 16;
+    private int maxQueuedCalls = 100;
+    private Duration responseCacheTtl = Duration.ofHours(1);
+    private int responseCacheSize = 10_000;
+    private Duration streamIdleTimeout = Duration.ofSeconds(15);
+    private Duration streamMaxDuration = Duration.ofMinutes(2);
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Batch batch = new Batch();
+    private Budget budget = new Budget();
 
     public String getBaseUrl() {
         return baseUrl;
@@ -52,4 +61,246 @@ public class AiServiceConfig {
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    public int getMaxQueuedCalls() {
+        return maxQueuedCalls;
+    }
+
+    public void setMaxQueuedCalls(int maxQueuedCalls) {
+        this.maxQueuedCalls = maxQueuedCalls;
+    }
+
+    public Duration getResponseCacheTtl() {
+        return responseCacheTtl;
+    }
+
+    public void setResponseCacheTtl(Duration responseCacheTtl) {
+        this.responseCacheTtl = responseCacheTtl;
+    }
+
+    public int getResponseCacheSize() {
+        return responseCacheSize;
+    }
+
+    public void setResponseCacheSize(int responseCacheSize) {
+        this.responseCacheSize = responseCacheSize;
+    }
+
+    public Duration getStreamIdleTimeout() {
+        return streamIdleTimeout;
+    }
+
+    public void setStreamIdleTimeout(Duration streamIdleTimeout) {
+        this.streamIdleTimeout = streamIdleTimeout;
+    }
+
+    public Duration getStreamMaxDuration() {
+        return streamMaxDuration;
+    }
+
+    public void setStreamMaxDuration(Duration streamMaxDuration) {
+        this.streamMaxDuration = streamMaxDuration;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    public Budget getBudget() {
+        return budget;
+    }
+
+    public void setBudget(Budget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * When to stop calling the AI service: once at least {@code minimumCalls}
+     * of the last {@code windowSize} calls were recorded and the share that
+     * failed, or took longer than {@code slowCallThreshold}, reaches its
+     * threshold (in percent)
+     */
+    public static class CircuitBreaker {
+
+        private boolean enabled = true;
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50;
+        private Duration slowCallThreshold = Duration.ofSeconds(10);
+        private int slowCallRateThreshold = 80;
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public Duration getSlowCallThreshold() {
+            return slowCallThreshold;
+        }
+
+        public void setSlowCallThreshold(Duration slowCallThreshold) {
+            this.slowCallThreshold = slowCallThreshold;
+        }
+
+        public int getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+    }
+
+    /**
+     * Evaluations sent together: a batch goes out once it holds
+     * {@code maxSize} requests or {@code window} after its first request
+     */
+    public static class Batch {
+
+        private boolean enabled = false;
+        private int maxSize = 16;
+        private Duration window = Duration.ofMillis(20);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+    }
+
+    /**
+     * Daily token quotas, per UTC day; 0 means unlimited
+     */
+    public static class Budget {
+
+        private boolean enabled = true;
+        private long dailyTokensPerUser = 50_000;
+        private long dailyTokensPerChallenge = 0;
+        private long dailyTokensTotal = 2_000_000;
+        private Duration flushInterval = Duration.ofSeconds(30);
+        /** For estimating usage when the AI service does not report it */
+        private int charsPerToken = 4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getDailyTokensPerUser() {
+            return dailyTokensPerUser;
+        }
+
+        public void setDailyTokensPerUser(long dailyTokensPerUser) {
+            this.dailyTokensPerUser = dailyTokensPerUser;
+        }
+
+        public long getDailyTokensPerChallenge() {
+            return dailyTokensPerChallenge;
+        }
+
+        public void setDailyTokensPerChallenge(long dailyTokensPerChallenge) {
+            this.dailyTokensPerChallenge = dailyTokensPerChallenge;
+        }
+
+        public long getDailyTokensTotal() {
+            return dailyTokensTotal;
+        }
+
+        public void setDailyTokensTotal(long dailyTokensTotal) {
+            this.dailyTokensTotal = dailyTokensTotal;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getCharsPerToken() {
+            return charsPerToken;
+        }
+
+        public void setCharsPerToken(int charsPerToken) {
+            this.charsPerToken = charsPerToken;
+        }
+    }
 }
@@ -10,6 +10,10 @@ public record CodeEvaluationRequest(
         String expectedOutput,
         EvaluationConstraints constraints
 ) {
+    public CodeEvaluationRequest withCode(String code) {
+        return new CodeEvaluationRequest(code, language, problemStatement, testCases, expectedOutput, constraints);
+    }
+
     public record EvaluationConstraints(
             Integer maxMemoryMb,
             Integer maxTimeSeconds,
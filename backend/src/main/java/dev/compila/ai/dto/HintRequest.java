@@ -0,0 +1,17 @@
+package dev.compila.ai.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record HintRequest(
+        @NotNull
+        UUID challengeId,
+
+        @NotBlank
+        String code,
+
+        @NotBlank
+        String language
+) {}
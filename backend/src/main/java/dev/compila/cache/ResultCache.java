@@ -0,0 +1,146 @@
+package dev.compila.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.cache.config.ResultCacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Redis-backed cache of evaluation results for byte-identical resubmissions.
+ * <p>
+ * Keys are a hash of the normalized code, the language and whatever else the
+ * result depends on (test suite, evaluation request), scoped to a per-challenge
+ * generation. {@link #invalidateChallenge} bumps the generation, so every
+ * result computed against the old requirements becomes unreachable and
+ * expires with its TTL. Redis errors are treated as cache misses.
+ */
+@Component
+public class ResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultCache.class);
+    private static final String NO_CHALLENGE = "none";
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final ResultCacheConfig config;
+    private final MeterRegistry meterRegistry;
+
+    public ResultCache(
+            StringRedisTemplate redis,
+            ObjectMapper objectMapper,
+            ResultCacheConfig config,
+            MeterRegistry meterRegistry
+    ) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Build the cache key for a result
+     *
+     * @param kind        what is cached, e.g. "tests" or "ai-evaluation"
+     * @param challengeId challenge the result belongs to, or null for ad-hoc requests
+     * @param context     everything besides the code the result depends on; serialized to JSON
+     * @return empty when caching is disabled or the key cannot be built
+     */
+    public Optional<Key> key(String kind, String challengeId, String language, String code, Object context) {
+        if (!config.isEnabled() || code == null) {
+            return Optional.empty();
+        }
+        try {
+            String scope = challengeId != null ? challengeId : NO_CHALLENGE;
+            String generation = challengeId != null ? redis.opsForValue().get(generationKey(challengeId)) : null;
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(language).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalizeCode(code).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(context));
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            String redisKey = config.getKeyPrefix() + ":" + kind + ":" + scope + ":"
+                    + (generation != null ? generation : "0") + ":" + hash;
+            return Optional.of(new Key(kind, redisKey));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } catch (Exception e) {
+            log.debug("Result cache unavailable, skipping lookup", e);
+            return Optional.empty();
+        }
+    }
+
+    public <T> Optional<T> get(Key key, Class<T> type) {
+        try {
+            String json = redis.opsForValue().get(key.redisKey());
+            count(key, json != null ? "hit" : "miss");
+            return json != null ? Optional.of(objectMapper.readValue(json, type)) : Optional.empty();
+        } catch (Exception e) {
+            log.debug("Result cache read failed for {}", key.redisKey(), e);
+            return Optional.empty();
+        }
+    }
+
+    public void put(Key key, Object value) {
+        try {
+            redis.opsForValue().set(key.redisKey(), objectMapper.writeValueAsString(value), config.getTtl());
+        } catch (Exception e) {
+            log.debug("Result cache write failed for {}", key.redisKey(), e);
+        }
+    }
+
+    /**
+     * Drop every cached result for a challenge, e.g. after its requirements changed
+     */
+    public void invalidateChallenge(String challengeId) {
+        try {
+            redis.opsForValue().increment(generationKey(challengeId));
+            log.info("Invalidated cached results for challenge {}", challengeId);
+        } catch (Exception e) {
+            log.warn("Failed to invalidate cached results for challenge {}", challengeId, e);
+        }
+    }
+
+    private String generationKey(String challengeId) {
+        return config.getKeyPrefix() + ":generation:" + challengeId;
+    }
+
+    private void count(Key key, String result) {
+        Counter.builder("result.cache.requests")
+                .tag("kind", key.kind())
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Normalize code so that resubmissions differing only in line endings,
+     * trailing whitespace or surrounding blank lines share a cache entry.
+     * Leading indentation is significant in some languages and is kept.
+     */
+    static String normalizeCode(String code) {
+        String[] lines = code.replace("\r\n", "\n").replace('\r', '\n').split("\n", -1);
+        StringBuilder normalized = new StringBuilder(code.length());
+        for (String line : lines) {
+            normalized.append(line.stripTrailing()).append('\n');
+        }
+        return normalized.toString().replaceFirst("^\n+", "").stripTrailing();
+    }
+
+    /**
+     * A resolved cache key
+     */
+    public record Key(String kind, String redisKey) {}
+}
@@ -0,0 +1,9 @@
+package dev.compila.cache.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ResultCacheConfig.class)
+public class CacheConfiguration {
+}
@@ -0,0 +1,84 @@
+package dev.compila.challenge;
+
+import dev.compila.common.BaseEntity;
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Run times of a challenge's reference solution in one language, measured on
+ * the hardware and toolchain identified by {@code fingerprint}
+ */
+@Entity
+@Table(name = "challenge_calibrations")
+public class ChallengeCalibration extends BaseEntity {
+
+    @Column(name = "challenge_id", nullable = false)
+    private UUID challengeId;
+
+    @Column(nullable = false, length = 20)
+    private String language;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    /** Slowest reference run per test case id, in milliseconds */
+    @JdbcTypeCode(org.hibernate.type.SqlTypes.JSON)
+    @Column(name = "case_baselines_ms", columnDefinition = "jsonb", nullable = false)
+    private Map<String, Long> caseBaselinesMs;
+
+    @Column(name = "calibrated_at", nullable = false)
+    private LocalDateTime calibratedAt = LocalDateTime.now();
+
+    public ChallengeCalibration() {}
+
+    public ChallengeCalibration(UUID challengeId, String language, String fingerprint) {
+        this.challengeId = challengeId;
+        this.language = language;
+        this.fingerprint = fingerprint;
+    }
+
+    // Getters and Setters
+    public UUID getChallengeId() {
+        return challengeId;
+    }
+
+    public void setChallengeId(UUID challengeId) {
+        this.challengeId = challengeId;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public Map<String, Long> getCaseBaselinesMs() {
+        return caseBaselinesMs;
+    }
+
+    public void setCaseBaselinesMs(Map<String, Long> caseBaselinesMs) {
+        this.caseBaselinesMs = caseBaselinesMs;
+    }
+
+    public LocalDateTime getCalibratedAt() {
+        return calibratedAt;
+    }
+
+    public void setCalibratedAt(LocalDateTime calibratedAt) {
+        this.calibratedAt = calibratedAt;
+    }
+}
@@ -0,0 +1,24 @@
+package dev.compila.challenge;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ChallengeCalibrationRepository extends JpaRepository<ChallengeCalibration, UUID> {
+
+    Optional<ChallengeCalibration> findByChallengeIdAndLanguageAndFingerprint(UUID challengeId, String language, String fingerprint);
+
+    boolean existsByChallengeIdAndLanguageAndFingerprint(UUID challengeId, String language, String fingerprint);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChallengeCalibration c WHERE c.challengeId = :challengeId")
+    void deleteByChallengeId(@Param("challengeId") UUID challengeId);
+}
@@ -1,18 +1,23 @@
 package dev.compila.challenge;
 
 import dev.compila.auth.exception.ResourceNotFoundException;
+import dev.compila.cache.ResultCache;
 import dev.compila.challenge.dto.ChallengeRequest;
 import dev.compila.challenge.dto.ChallengeResponse;
 import dev.compila.challenge.dto.ChallengeSummaryResponse;
 import dev.compila.challenge.enums.ChallengeLevel;
 import dev.compila.challenge.enums.ChallengeStack;
+import dev.compila.testing.TimeoutCalibrationJob;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 @Service
@@ -20,10 +25,19 @@ public class ChallengeService {
 
     private final ChallengeRepository challengeRepository;
     private final ObjectMapper objectMapper;
-
-    public ChallengeService(ChallengeRepository challengeRepository, ObjectMapper objectMapper) {
+    private final ResultCache resultCache;
+    private final TimeoutCalibrationJob timeoutCalibrationJob;
+
+    public ChallengeService(
+            ChallengeRepository challengeRepository,
+            ObjectMapper objectMapper,
+            ResultCache resultCache,
+            TimeoutCalibrationJob timeoutCalibrationJob
+    ) {
         this.challengeRepository = challengeRepository;
         this.objectMapper = objectMapper;
+        this.resultCache = resultCache;
+        this.timeoutCalibrationJob = timeoutCalibrationJob;
     }
 
     public List<ChallengeSummaryResponse> findAllPublished() {
@@ -74,6 +88,7 @@ public class ChallengeService {
         Challenge challenge = new Challenge();
         updateChallengeFromRequest(challenge, request);
         challenge = challengeRepository.save(challenge);
+        timeoutCalibrationJob.recalibrate(challenge.getId());
         return ChallengeResponse.from(challenge);
     }
 
@@ -81,11 +96,41 @@ public class ChallengeService {
     public ChallengeResponse update(UUID id, ChallengeRequest request) {
         Challenge challenge = challengeRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Challenge", "id=" + id));
+        String previousRequirements = challenge.getRequirements();
+        String previousSolution = challenge.getSolutionCode();
         updateChallengeFromRequest(challenge, request);
         challenge = challengeRepository.save(challenge);
+
+        // Cached test and AI results were computed against the old requirements
+        if (!Objects.equals(previousRequirements, challenge.getRequirements())) {
+            invalidateCachedResults(id);
+        }
+        // Timeouts were derived from running the old solution on the old test cases
+        if (!Objects.equals(previousRequirements, challenge.getRequirements())
+                || !Objects.equals(previousSolution, challenge.getSolutionCode())) {
+            timeoutCalibrationJob.recalibrate(id);
+        }
         return ChallengeResponse.from(challenge);
     }
 
+    /**
+     * Bump the challenge's cache generation once the current transaction, if
+     * any, has committed; a run reading the old requirements before the commit
+     * would otherwise cache its result under the new generation
+     */
+    private void invalidateCachedResults(UUID challengeId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    resultCache.invalidateChallenge(challengeId.toString());
+                }
+            });
+        } else {
+            resultCache.invalidateChallenge(challengeId.toString());
+        }
+    }
+
     @Transactional
     public void delete(UUID id) {
         challengeRepository.deleteById(id);
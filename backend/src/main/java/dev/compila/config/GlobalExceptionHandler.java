@@ -4,6 +4,8 @@ import dev.compila.auth.exception.AuthException;
 import dev.compila.auth.exception.InvalidTokenException;
 import dev.compila.auth.exception.ResourceNotFoundException;
 import dev.compila.auth.exception.UserAlreadyExistsException;
+import dev.compila.submission.queue.SubmissionQueueFullException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -78,6 +80,22 @@ public class GlobalExceptionHandler {
                 ));
     }
 
+    /**
+     * Handle SubmissionQueueFullException with a Retry-After hint.
+     */
+    @ExceptionHandler(SubmissionQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleSubmissionQueueFull(SubmissionQueueFullException ex) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(new ErrorResponse(
+                        HttpStatus.TOO_MANY_REQUESTS.value(),
+                        ex.getMessage(),
+                        ex.getErrorCode(),
+                        Instant.now()
+                ));
+    }
+
     /**
      * Fallback for all other exceptions.
      */
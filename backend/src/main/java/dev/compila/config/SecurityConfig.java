@@ -4,6 +4,7 @@ import dev.compila.auth.security.JwtAuthenticationFilter;
 import dev.compila.auth.security.JwtAuthenticationEntryPoint;
 import dev.compila.auth.security.oauth2.OAuth2AuthenticationSuccessHandler;
 import dev.compila.auth.security.oauth2.CustomOAuth2UserService;
+import dev.compila.ratelimit.RateLimitFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -39,13 +40,15 @@ public class SecurityConfig {
     private final CustomOAuth2UserService oAuth2UserService;
     private final OAuth2AuthenticationSuccessHandler oAuth2SuccessHandler;
     private final UserDetailsService userDetailsService;
+    private final RateLimitFilter rateLimitFilter;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, JwtAuthenticationEntryPoint authEntryPoint, CustomOAuth2UserService oAuth2UserService, OAuth2AuthenticationSuccessHandler oAuth2SuccessHandler, @Lazy UserDetailsService userDetailsService) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, JwtAuthenticationEntryPoint authEntryPoint, CustomOAuth2UserService oAuth2UserService, OAuth2AuthenticationSuccessHandler oAuth2SuccessHandler, @Lazy UserDetailsService userDetailsService, RateLimitFilter rateLimitFilter) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.authEntryPoint = authEntryPoint;
         this.oAuth2UserService = oAuth2UserService;
         this.oAuth2SuccessHandler = oAuth2SuccessHandler;
         this.userDetailsService = userDetailsService;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
     @Bean
@@ -76,6 +79,7 @@ public class SecurityConfig {
             )
             .authenticationProvider(authenticationProvider())
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class)
             .exceptionHandling(exception -> exception
                 .authenticationEntryPoint(authEntryPoint)
             );
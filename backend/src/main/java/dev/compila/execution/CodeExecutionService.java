@@ -4,6 +4,9 @@ import dev.compila.execution.config.ExecutionConfig;
 import dev.compila.execution.dto.ExecutionRequest;
 import dev.compila.execution.dto.ExecutionResult;
 import dev.compila.execution.language.CodeExecutor;
+import dev.compila.execution.metrics.ExecutionMetrics;
+import dev.compila.execution.remote.RemoteExecutionDispatcher;
+import dev.compila.execution.validation.ValidationCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -24,14 +27,26 @@ public class CodeExecutionService {
 
     private final Map<String, CodeExecutor> executors;
     private final ExecutionConfig config;
+    private final ExecutionMetrics metrics;
+    private final RemoteExecutionDispatcher remote;
+    private final ValidationCache validationCache;
 
-    public CodeExecutionService(List<CodeExecutor> executors, ExecutionConfig config) {
+    public CodeExecutionService(
+            List<CodeExecutor> executors,
+            ExecutionConfig config,
+            ExecutionMetrics metrics,
+            RemoteExecutionDispatcher remote,
+            ValidationCache validationCache
+    ) {
         this.executors = executors.stream()
                 .collect(Collectors.toMap(
                         CodeExecutor::getLanguage,
                         Function.identity()
                 ));
         this.config = config;
+        this.metrics = metrics;
+        this.remote = remote;
+        this.validationCache = validationCache;
         log.info("Loaded executors for languages: {}", this.executors.keySet());
     }
 
@@ -39,6 +54,13 @@ public class CodeExecutionService {
      * Execute code in the specified language
      */
     public ExecutionResult execute(ExecutionRequest request) {
+        return execute(request, null);
+    }
+
+    /**
+     * Execute code on behalf of a challenge, which its metrics are tagged with
+     */
+    public ExecutionResult execute(ExecutionRequest request, String challengeId) {
         if (!config.isEnabled()) {
             log.debug("Code execution is disabled");
             return ExecutionResult.error("Code execution is disabled", ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
@@ -56,19 +78,98 @@ public class CodeExecutionService {
 
         log.debug("Executing {} code", request.language());
 
+        long startTime = System.nanoTime();
+        ExecutionResult result;
         try {
-            return executor.execute(request);
+            result = remote.isEnabled() ? remote.execute(request) : executor.execute(request);
         } catch (Exception e) {
             log.error("Execution failed for language: " + request.language(), e);
-            return ExecutionResult.error(
+            result = ExecutionResult.error(
                     "Execution failed: " + e.getMessage(),
                     ExecutionResult.ExecutionStatus.INTERNAL_ERROR
             );
         }
+        metrics.record(request.language(), challengeId, result, System.nanoTime() - startTime);
+        return result;
     }
 
     /**
-     * Validate code syntax without executing
+     * Execute the same code against several inputs, loading it once per
+     * process where the language executor supports it
+     *
+     * @return one result per input, in input order
+     */
+    public List<ExecutionResult> executeBatch(ExecutionRequest request, List<String> inputs) {
+        return executeBatch(request, inputs, null);
+    }
+
+    /**
+     * Execute a batch on behalf of a challenge, which its metrics are tagged with
+     *
+     * @return one result per input, in input order
+     */
+    public List<ExecutionResult> executeBatch(ExecutionRequest request, List<String> inputs, String challengeId) {
+        if (!config.isEnabled()) {
+            log.debug("Code execution is disabled");
+            return inputs.stream()
+                    .map(input -> ExecutionResult.error("Code execution is disabled", ExecutionResult.ExecutionStatus.INTERNAL_ERROR))
+                    .toList();
+        }
+
+        CodeExecutor executor = executors.get(request.language());
+        if (executor == null) {
+            log.warn("No executor found for language: {}", request.language());
+            return inputs.stream()
+                    .map(input -> ExecutionResult.error(
+                            "Unsupported language: " + request.language(),
+                            ExecutionResult.ExecutionStatus.INTERNAL_ERROR
+                    ))
+                    .toList();
+        }
+
+        log.debug("Executing {} code in batch of {} inputs", request.language(), inputs.size());
+
+        long startTime = System.nanoTime();
+        List<ExecutionResult> results;
+        try {
+            results = remote.isEnabled()
+                    ? remote.executeBatch(request, inputs)
+                    : executor.executeBatch(request, inputs);
+        } catch (Exception e) {
+            log.error("Batch execution failed for language: " + request.language(), e);
+            results = inputs.stream()
+                    .map(input -> ExecutionResult.error(
+                            "Execution failed: " + e.getMessage(),
+                            ExecutionResult.ExecutionStatus.INTERNAL_ERROR
+                    ))
+                    .toList();
+        }
+        metrics.recordBatch(request.language(), inputs.size(), System.nanoTime() - startTime);
+        for (ExecutionResult result : results) {
+            metrics.record(request.language(), challengeId, result, -1);
+        }
+        return results;
+    }
+
+    /**
+     * Check if a language executor can run a batch of inputs in one process
+     */
+    public boolean supportsBatch(String language) {
+        CodeExecutor executor = executors.get(language);
+        return executor != null && executor.supportsBatch();
+    }
+
+    /**
+     * The toolchain behind a language, or null when it is not supported
+     */
+    public String toolchainVersion(String language) {
+        CodeExecutor executor = executors.get(language);
+        return executor != null ? executor.toolchainVersion() : null;
+    }
+
+    /**
+     * Validate code syntax without executing; repeated checks of the same
+     * code are answered from the validation cache
      */
     public CodeExecutor.ValidationResult validate(String language, String code) {
         CodeExecutor executor = executors.get(language);
@@ -77,7 +178,7 @@ public class CodeExecutionService {
         }
 
         try {
-            return executor.validate(code);
+            return validationCache.validate(language, code, executor::validate);
         } catch (Exception e) {
             log.error("Validation failed for language: " + language, e);
             return CodeExecutor.ValidationResult.failure("Validation failed: " + e.getMessage());
@@ -91,6 +192,14 @@ public class CodeExecutionService {
         return executors.containsKey(language);
     }
 
+    /**
+     * Check if code in a language can run right now: execution is enabled
+     * and the language has an executor
+     */
+    public boolean canExecute(String language) {
+        return config.isEnabled() && isSupported(language);
+    }
+
     /**
      * Get list of supported languages
      */
@@ -1,14 +1,21 @@
 package dev.compila.execution;
 
+import dev.compila.auth.security.userdetails.UserDetailsImpl;
 import dev.compila.execution.dto.ExecutionRequest;
 import dev.compila.execution.dto.ExecutionResult;
 import dev.compila.execution.language.CodeExecutor;
+import dev.compila.submission.queue.SubmissionLane;
+import dev.compila.submission.queue.SubmissionQueue;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/execution")
@@ -16,24 +23,47 @@ import java.util.Map;
 public class ExecutionController {
 
     private final CodeExecutionService executionService;
+    private final SubmissionQueue submissionQueue;
 
-    public ExecutionController(CodeExecutionService executionService) {
+    public ExecutionController(CodeExecutionService executionService, SubmissionQueue submissionQueue) {
         this.executionService = executionService;
+        this.submissionQueue = submissionQueue;
     }
 
     @PostMapping("/execute")
-    public ResponseEntity<ExecutionResult> execute(@Valid @RequestBody ExecutionRequest request) {
+    public CompletableFuture<ResponseEntity<ExecutionResult>> execute(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Valid @RequestBody ExecutionRequest request,
+            @RequestParam(required = false) UUID challengeId
+    ) {
+        String userKey = userDetails instanceof UserDetailsImpl user ? user.getId().toString() : "anonymous";
+
         // Set default constraints if not provided
         ExecutionRequest enrichedRequest = new ExecutionRequest(
                 request.code(),
                 request.language(),
                 request.input(),
                 request.constraints() != null ? request.constraints() : ExecutionRequest.ExecutionConstraints.defaultConstraints(),
-                request.environmentVariables()
+                request.environmentVariables(),
+                null,
+                workspace(request.workspace(), userDetails instanceof UserDetailsImpl ? userKey : null, challengeId)
         );
 
-        ExecutionResult result = executionService.execute(enrichedRequest);
-        return ResponseEntity.ok(result);
+        // Runs share the submission workers on the lowest-priority lane
+        return submissionQueue.submit(userKey, SubmissionLane.RUN, () -> executionService.execute(enrichedRequest))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Workspace runs of a signed-in user reuse the files of their previous run
+     * of the same challenge; anonymous runs start from scratch
+     */
+    private static ExecutionRequest.Workspace workspace(ExecutionRequest.Workspace workspace, String userKey, UUID challengeId) {
+        if (workspace == null) {
+            return null;
+        }
+        String snapshotKey = userKey != null ? userKey + ":" + (challengeId != null ? challengeId : "playground") : null;
+        return workspace.withSnapshotKey(snapshotKey);
     }
 
     @PostMapping("/validate")
@@ -0,0 +1,258 @@
+package dev.compila.execution.cache;
+
+import dev.compila.execution.config.ExecutionConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of compiled artifacts under {@code <workDir>/artifacts}.
+ * <p>
+ * Artifacts are keyed by a hash of language, toolchain version and source, so
+ * every test case of a submission, and every identical resubmission, reuses
+ * the first compilation. Concurrent requests for the same key share a single
+ * compilation. Least recently used artifacts are evicted once the cache grows
+ * past {@code code-execution.artifact-cache-max-mb}.
+ */
+@Component
+public class ArtifactCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactCache.class);
+
+    private final Path root;
+    private final long maxBytes;
+    private final Map<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private long totalBytes;
+
+    public ArtifactCache(ExecutionConfig config, MeterRegistry meterRegistry) {
+        this.root = Path.of(config.getWorkDir(), "artifacts");
+        this.maxBytes = config.getArtifactCacheMaxMb() * 1024L * 1024L;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("execution.artifact.cache.size", this, ArtifactCache::getTotalBytes)
+                .baseUnit("bytes")
+                .description("Disk space used by cached compiled artifacts")
+                .register(meterRegistry);
+
+        loadIndex();
+    }
+
+    /**
+     * Return the directory holding the compiled artifact for this source,
+     * compiling it first on a miss.
+     *
+     * @throws CompilationException if the compiler rejects the source; failures are not cached
+     */
+    public Path getOrCompile(String language, String toolchainVersion, String source, Compiler compiler) {
+        String key = key(language, toolchainVersion, source);
+
+        synchronized (this) {
+            // get() rather than containsKey() so the entry moves to the LRU tail
+            if (sizes.get(key) != null) {
+                count(language, "hit");
+                touch(root.resolve(key));
+                return root.resolve(key);
+            }
+        }
+
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            count(language, "hit");
+            return await(existing);
+        }
+
+        count(language, "miss");
+        try {
+            Path artifact = compile(key, source, compiler);
+            mine.complete(artifact);
+            return artifact;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private Path compile(String key, String source, Compiler compiler) {
+        try {
+            Files.createDirectories(root);
+            Path staging = Files.createTempDirectory(root, "." + key + "-");
+            try {
+                Path sourceDir = Files.createDirectories(staging.resolve("src"));
+                Path outputDir = Files.createDirectories(staging.resolve("out"));
+                compiler.compile(source, sourceDir, outputDir);
+
+                Path target = root.resolve(key);
+                Files.move(outputDir, target, StandardCopyOption.ATOMIC_MOVE);
+                register(key, directorySize(target));
+                return target;
+            } finally {
+                deleteRecursively(staging);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to build artifact " + key, e);
+        }
+    }
+
+    private synchronized void register(String key, long size) {
+        sizes.put(key, size);
+        totalBytes += size;
+
+        Iterator<Map.Entry<String, Long>> eldest = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            deleteRecursively(root.resolve(entry.getKey()));
+            Counter.builder("execution.artifact.cache.evictions")
+                    .description("Compiled artifacts evicted from the cache")
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    /**
+     * Rebuild the in-memory LRU index from disk, oldest access first
+     */
+    private synchronized void loadIndex() {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> entries = Files.list(root)) {
+            entries.filter(path -> !path.getFileName().toString().startsWith("."))
+                    .sorted(Comparator.comparing(ArtifactCache::lastModified))
+                    .forEach(path -> {
+                        long size = directorySize(path);
+                        sizes.put(path.getFileName().toString(), size);
+                        totalBytes += size;
+                    });
+            log.info("Artifact cache loaded {} entries ({} bytes)", sizes.size(), totalBytes);
+        } catch (IOException e) {
+            log.warn("Failed to index artifact cache at {}", root, e);
+        }
+    }
+
+    private void count(String language, String result) {
+        Counter.builder("execution.artifact.cache.requests")
+                .tag("language", language)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static Path await(CompletableFuture<Path> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for compilation", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static String key(String language, String toolchainVersion, String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(language.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(toolchainVersion.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        } catch (IOException ignored) {
+            // Only affects eviction order after a restart
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long directorySize(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .mapToLong(file -> file.toFile().length())
+                    .sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", dir, e);
+        }
+    }
+
+    /**
+     * Compiles a source into the given output directory
+     */
+    @FunctionalInterface
+    public interface Compiler {
+        void compile(String source, Path sourceDir, Path outputDir) throws IOException;
+    }
+
+    /**
+     * The compiler rejected the source
+     */
+    public static class CompilationException extends RuntimeException {
+        public CompilationException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package dev.compila.execution.compare;
+
+/**
+ * How a program's output is checked against the expected output.
+ * Line endings (CRLF, CR) always count as LF.
+ */
+public enum ComparisonMode {
+    /** Byte-for-byte identical */
+    EXACT,
+    /** Identical apart from leading and trailing whitespace (the default) */
+    TRIMMED,
+    /** Identical once all whitespace is removed */
+    WHITESPACE_INSENSITIVE,
+    /** Same sequence of whitespace-separated tokens, regardless of layout */
+    TOKEN,
+    /** Like {@link #TOKEN}, but numeric tokens may differ within a tolerance */
+    FLOAT;
+
+    /**
+     * Parse a mode name as written in test case metadata, e.g. "token" or "float"
+     */
+    public static ComparisonMode from(Object value) {
+        if (value == null) {
+            return TRIMMED;
+        }
+        String name = value.toString().trim().toUpperCase().replace('-', '_');
+        if (name.equals("WHITESPACE")) {
+            return WHITESPACE_INSENSITIVE;
+        }
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return TRIMMED;
+        }
+    }
+}
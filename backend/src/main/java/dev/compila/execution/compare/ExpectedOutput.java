@@ -0,0 +1,40 @@
+package dev.compila.execution.compare;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Expected output of a run and how to compare against it
+ *
+ * @param tolerance absolute or relative difference allowed between numbers in {@link ComparisonMode#FLOAT} mode
+ */
+public record ExpectedOutput(String value, ComparisonMode mode, double tolerance) {
+
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+
+    public static ExpectedOutput of(String value) {
+        return new ExpectedOutput(value, ComparisonMode.TRIMMED, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * A fresh comparator for one run
+     */
+    public OutputComparator comparator() {
+        byte[] expected = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        return switch (mode) {
+            case EXACT -> new SequenceComparator(expected, false);
+            case TRIMMED -> new SequenceComparator(expected, true);
+            case WHITESPACE_INSENSITIVE -> new WhitespaceInsensitiveComparator(expected);
+            case TOKEN -> new TokenComparator(expected, Double.NaN);
+            case FLOAT -> new TokenComparator(expected, tolerance);
+        };
+    }
+
+    /**
+     * Compare a complete output
+     */
+    public boolean matches(String actual) {
+        OutputComparator comparator = comparator();
+        byte[] bytes = actual != null ? actual.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        return comparator.accept(bytes, 0, bytes.length) && comparator.finish();
+    }
+}
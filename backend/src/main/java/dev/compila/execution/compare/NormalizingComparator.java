@@ -0,0 +1,60 @@
+package dev.compila.execution.compare;
+
+import java.util.Arrays;
+
+/**
+ * Base for comparators: turns CRLF and CR into LF across chunk boundaries and
+ * hands each byte to the subclass until it reports a divergence.
+ */
+abstract class NormalizingComparator implements OutputComparator {
+
+    protected boolean diverged;
+    private boolean afterCr;
+
+    @Override
+    public final boolean accept(byte[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length && !diverged; i++) {
+            byte b = buffer[i];
+            if (b == '\n' && afterCr) {
+                afterCr = false;
+                continue;
+            }
+            afterCr = b == '\r';
+            accept(afterCr ? (byte) '\n' : b);
+        }
+        return !diverged;
+    }
+
+    @Override
+    public final boolean finish() {
+        return !diverged && complete();
+    }
+
+    protected abstract void accept(byte b);
+
+    /**
+     * Whether the output seen so far is a complete match
+     */
+    protected abstract boolean complete();
+
+    static boolean isWhitespace(byte b) {
+        // Same set as String.trim(); bytes of multi-byte UTF-8 sequences are negative
+        return b >= 0 && b <= ' ';
+    }
+
+    static byte[] normalizeLineEndings(byte[] bytes) {
+        byte[] normalized = new byte[bytes.length];
+        int length = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\r') {
+                normalized[length++] = '\n';
+                if (i + 1 < bytes.length && bytes[i + 1] == '\n') {
+                    i++;
+                }
+            } else {
+                normalized[length++] = bytes[i];
+            }
+        }
+        return length == bytes.length ? normalized : Arrays.copyOf(normalized, length);
+    }
+}
@@ -0,0 +1,22 @@
+package dev.compila.execution.compare;
+
+/**
+ * Streaming check of a program's output against the expected output.
+ * Output is fed in chunks as it is produced; a comparator never copies it.
+ */
+public interface OutputComparator {
+
+    /**
+     * Feed the next chunk of output
+     *
+     * @return false once the output can no longer match
+     */
+    boolean accept(byte[] buffer, int offset, int length);
+
+    /**
+     * Signal the end of output
+     *
+     * @return whether the whole output matched
+     */
+    boolean finish();
+}
@@ -0,0 +1,78 @@
+package dev.compila.execution.compare;
+
+import java.util.Arrays;
+
+/**
+ * {@link ComparisonMode#EXACT} and {@link ComparisonMode#TRIMMED}: the output
+ * must be the expected bytes, optionally surrounded by whitespace.
+ */
+final class SequenceComparator extends NormalizingComparator {
+
+    private final byte[] expected;
+    private final boolean trimmed;
+    private int matched;
+    private int pendingWhitespace;
+    private boolean pendingMismatch;
+    private boolean started;
+
+    SequenceComparator(byte[] expected, boolean trimmed) {
+        byte[] normalized = normalizeLineEndings(expected);
+        this.expected = trimmed ? trim(normalized) : normalized;
+        this.trimmed = trimmed;
+    }
+
+    @Override
+    protected void accept(byte b) {
+        if (!trimmed) {
+            if (matched >= expected.length || expected[matched] != b) {
+                diverged = true;
+                return;
+            }
+            matched++;
+            return;
+        }
+
+        if (isWhitespace(b)) {
+            // Held back until the next visible byte, since trailing whitespace is ignored
+            if (started) {
+                int position = matched + pendingWhitespace;
+                if (position >= expected.length || expected[position] != b) {
+                    pendingMismatch = true;
+                }
+                pendingWhitespace++;
+            }
+            return;
+        }
+        started = true;
+
+        if (pendingMismatch) {
+            diverged = true;
+            return;
+        }
+        matched += pendingWhitespace;
+        pendingWhitespace = 0;
+
+        if (matched >= expected.length || expected[matched] != b) {
+            diverged = true;
+            return;
+        }
+        matched++;
+    }
+
+    @Override
+    protected boolean complete() {
+        return matched == expected.length;
+    }
+
+    private static byte[] trim(byte[] bytes) {
+        int from = 0;
+        int to = bytes.length;
+        while (from < to && isWhitespace(bytes[from])) {
+            from++;
+        }
+        while (to > from && isWhitespace(bytes[to - 1])) {
+            to--;
+        }
+        return Arrays.copyOfRange(bytes, from, to);
+    }
+}
@@ -0,0 +1,135 @@
+package dev.compila.execution.compare;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@link ComparisonMode#TOKEN} and {@link ComparisonMode#FLOAT}: the output is
+ * compared as a sequence of whitespace-separated tokens.
+ * <p>
+ * Tokens are matched byte by byte against the expected token in place. In
+ * float mode a token that is not byte-identical is buffered (numbers are
+ * short) and both sides are parsed and compared within the tolerance.
+ */
+final class TokenComparator extends NormalizingComparator {
+
+    /** Longer tokens are never treated as numbers */
+    private static final int MAX_NUMBER_LENGTH = 64;
+
+    private final byte[] expected;
+    private final int[] starts;
+    private final int[] ends;
+    private final int tokenCount;
+    private final double tolerance;
+    private final byte[] number = new byte[MAX_NUMBER_LENGTH];
+    private int token = -1;
+    private int position;
+    private int numberLength;
+    private boolean inToken;
+    private boolean identical;
+
+    /**
+     * @param tolerance allowed numeric difference, or NaN for plain token comparison
+     */
+    TokenComparator(byte[] expected, double tolerance) {
+        this.expected = expected;
+        this.tolerance = tolerance;
+
+        int[] tokenStarts = new int[16];
+        int[] tokenEnds = new int[16];
+        int count = 0;
+        int i = 0;
+        while (i < expected.length) {
+            while (i < expected.length && isWhitespace(expected[i])) {
+                i++;
+            }
+            if (i == expected.length) {
+                break;
+            }
+            if (count == tokenStarts.length) {
+                tokenStarts = Arrays.copyOf(tokenStarts, count * 2);
+                tokenEnds = Arrays.copyOf(tokenEnds, count * 2);
+            }
+            tokenStarts[count] = i;
+            while (i < expected.length && !isWhitespace(expected[i])) {
+                i++;
+            }
+            tokenEnds[count++] = i;
+        }
+        this.starts = tokenStarts;
+        this.ends = tokenEnds;
+        this.tokenCount = count;
+    }
+
+    @Override
+    protected void accept(byte b) {
+        if (isWhitespace(b)) {
+            if (inToken) {
+                endToken();
+            }
+            return;
+        }
+
+        if (!inToken) {
+            inToken = true;
+            token++;
+            position = 0;
+            numberLength = 0;
+            identical = true;
+            if (token >= tokenCount) {
+                diverged = true;
+                return;
+            }
+        }
+
+        if (isFloat()) {
+            if (numberLength < MAX_NUMBER_LENGTH) {
+                number[numberLength] = b;
+            }
+            numberLength++;
+        }
+
+        if (identical) {
+            if (starts[token] + position < ends[token] && expected[starts[token] + position] == b) {
+                position++;
+                return;
+            }
+            identical = false;
+        }
+        if (!isFloat() || numberLength > MAX_NUMBER_LENGTH) {
+            diverged = true;
+        }
+    }
+
+    private void endToken() {
+        inToken = false;
+        if (identical && starts[token] + position == ends[token]) {
+            return;
+        }
+        if (!isFloat() || !numbersMatch()) {
+            diverged = true;
+        }
+    }
+
+    private boolean numbersMatch() {
+        try {
+            double actual = Double.parseDouble(new String(number, 0, numberLength, StandardCharsets.US_ASCII));
+            double wanted = Double.parseDouble(new String(expected, starts[token], ends[token] - starts[token], StandardCharsets.US_ASCII));
+            return Math.abs(actual - wanted) <= tolerance * Math.max(1.0, Math.abs(wanted));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private boolean isFloat() {
+        return !Double.isNaN(tolerance);
+    }
+
+    @Override
+    protected boolean complete() {
+        if (inToken) {
+            endToken();
+        }
+        return !diverged && token + 1 == tokenCount;
+    }
+}
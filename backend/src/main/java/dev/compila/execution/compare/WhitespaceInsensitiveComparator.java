@@ -0,0 +1,40 @@
+package dev.compila.execution.compare;
+
+import java.util.Arrays;
+
+/**
+ * {@link ComparisonMode#WHITESPACE_INSENSITIVE}: all whitespace is ignored on both sides
+ */
+final class WhitespaceInsensitiveComparator extends NormalizingComparator {
+
+    private final byte[] expected;
+    private int matched;
+
+    WhitespaceInsensitiveComparator(byte[] expected) {
+        byte[] visible = new byte[expected.length];
+        int length = 0;
+        for (byte b : expected) {
+            if (!isWhitespace(b)) {
+                visible[length++] = b;
+            }
+        }
+        this.expected = Arrays.copyOf(visible, length);
+    }
+
+    @Override
+    protected void accept(byte b) {
+        if (isWhitespace(b)) {
+            return;
+        }
+        if (matched >= expected.length || expected[matched] != b) {
+            diverged = true;
+            return;
+        }
+        matched++;
+    }
+
+    @Override
+    protected boolean complete() {
+        return matched == expected.length;
+    }
+}
@@ -3,6 +3,8 @@ package dev.compila.execution.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 @ConfigurationProperties(prefix = "code-execution")
 public class ExecutionConfig {
@@ -14,6 +16,26 @@ public class ExecutionConfig {
     private int maxCpuCores = 1;
     private boolean useDocker = true;
     private String workDir = "/tmp/compila-exec";
+    private int poolSize = 2;
+    private int poolMaxRunsPerWorker = 100;
+    private Duration poolAcquireTimeout = Duration.ofMillis(500);
+    private int testParallelism = 0;
+    private long artifactCacheMaxMb = 512;
+    private int maxOutputKb = 1024;
+    private String sandbox = "auto";
+    private String cgroupRoot = "/sys/fs/cgroup/compila";
+    private int maxProcesses = 64;
+    private int validationCacheSize = 10_000;
+    private String containerRuntime = "docker";
+    private Map<String, String> containerImages = new HashMap<>();
+    private int containerPoolSize = 2;
+    private String containerWorkspaceRoot = "/dev/shm/compila-workspaces";
+    private boolean timeoutCalibrationEnabled = true;
+    private double timeoutCalibrationFactor = 5.0;
+    private int timeoutCalibrationRuns = 3;
+    private int workspaceMaxFiles = 200;
+    private int workspaceMaxKb = 2048;
+    private int workspaceMaxSnapshots = 256;
 
     public boolean isEnabled() {
         return enabled;
@@ -70,4 +92,164 @@ public class ExecutionConfig {
     public void setWorkDir(String workDir) {
         this.workDir = workDir;
     }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getPoolMaxRunsPerWorker() {
+        return poolMaxRunsPerWorker;
+    }
+
+    public void setPoolMaxRunsPerWorker(int poolMaxRunsPerWorker) {
+        this.poolMaxRunsPerWorker = poolMaxRunsPerWorker;
+    }
+
+    public Duration getPoolAcquireTimeout() {
+        return poolAcquireTimeout;
+    }
+
+    public void setPoolAcquireTimeout(Duration poolAcquireTimeout) {
+        this.poolAcquireTimeout = poolAcquireTimeout;
+    }
+
+    public int getTestParallelism() {
+        return testParallelism;
+    }
+
+    public void setTestParallelism(int testParallelism) {
+        this.testParallelism = testParallelism;
+    }
+
+    public long getArtifactCacheMaxMb() {
+        return artifactCacheMaxMb;
+    }
+
+    public void setArtifactCacheMaxMb(long artifactCacheMaxMb) {
+        this.artifactCacheMaxMb = artifactCacheMaxMb;
+    }
+
+    public int getMaxOutputKb() {
+        return maxOutputKb;
+    }
+
+    public void setMaxOutputKb(int maxOutputKb) {
+        this.maxOutputKb = maxOutputKb;
+    }
+
+    public String getSandbox() {
+        return sandbox;
+    }
+
+    public void setSandbox(String sandbox) {
+        this.sandbox = sandbox;
+    }
+
+    public String getCgroupRoot() {
+        return cgroupRoot;
+    }
+
+    public void setCgroupRoot(String cgroupRoot) {
+        this.cgroupRoot = cgroupRoot;
+    }
+
+    public int getMaxProcesses() {
+        return maxProcesses;
+    }
+
+    public void setMaxProcesses(int maxProcesses) {
+        this.maxProcesses = maxProcesses;
+    }
+
+    public String getContainerRuntime() {
+        return containerRuntime;
+    }
+
+    public void setContainerRuntime(String containerRuntime) {
+        this.containerRuntime = containerRuntime;
+    }
+
+    public Map<String, String> getContainerImages() {
+        return containerImages;
+    }
+
+    public void setContainerImages(Map<String, String> containerImages) {
+        this.containerImages = containerImages;
+    }
+
+    public int getContainerPoolSize() {
+        return containerPoolSize;
+    }
+
+    public void setContainerPoolSize(int containerPoolSize) {
+        this.containerPoolSize = containerPoolSize;
+    }
+
+    public String getContainerWorkspaceRoot() {
+        return containerWorkspaceRoot;
+    }
+
+    public void setContainerWorkspaceRoot(String containerWorkspaceRoot) {
+        this.containerWorkspaceRoot = containerWorkspaceRoot;
+    }
+
+    public int getValidationCacheSize() {
+        return validationCacheSize;
+    }
+
+    public void setValidationCacheSize(int validationCacheSize) {
+        this.validationCacheSize = validationCacheSize;
+    }
+
+    public boolean isTimeoutCalibrationEnabled() {
+        return timeoutCalibrationEnabled;
+    }
+
+    public void setTimeoutCalibrationEnabled(boolean timeoutCalibrationEnabled) {
+        this.timeoutCalibrationEnabled = timeoutCalibrationEnabled;
+    }
+
+    public double getTimeoutCalibrationFactor() {
+        return timeoutCalibrationFactor;
+    }
+
+    public void setTimeoutCalibrationFactor(double timeoutCalibrationFactor) {
+        this.timeoutCalibrationFactor = timeoutCalibrationFactor;
+    }
+
+    public int getTimeoutCalibrationRuns() {
+        return timeoutCalibrationRuns;
+    }
+
+    public void setTimeoutCalibrationRuns(int timeoutCalibrationRuns) {
+        this.timeoutCalibrationRuns = timeoutCalibrationRuns;
+    }
+
+    public int getWorkspaceMaxFiles() {
+        return workspaceMaxFiles;
+    }
+
+    public void setWorkspaceMaxFiles(int workspaceMaxFiles) {
+        this.workspaceMaxFiles = workspaceMaxFiles;
+    }
+
+    public int getWorkspaceMaxKb() {
+        return workspaceMaxKb;
+    }
+
+    public void setWorkspaceMaxKb(int workspaceMaxKb) {
+        this.workspaceMaxKb = workspaceMaxKb;
+    }
+
+    public int getWorkspaceMaxSnapshots() {
+        return workspaceMaxSnapshots;
+    }
+
+    public void setWorkspaceMaxSnapshots(int workspaceMaxSnapshots) {
+        this.workspaceMaxSnapshots = workspaceMaxSnapshots;
+    }
 }
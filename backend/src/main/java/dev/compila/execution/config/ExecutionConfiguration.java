@@ -4,6 +4,6 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-@EnableConfigurationProperties(ExecutionConfig.class)
+@EnableConfigurationProperties({ExecutionConfig.class, RemoteExecutionConfig.class})
 public class ExecutionConfiguration {
 }
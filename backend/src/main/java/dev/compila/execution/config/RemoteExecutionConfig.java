@@ -0,0 +1,120 @@
+package dev.compila.execution.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "remote-execution")
+public class RemoteExecutionConfig {
+
+    private boolean enabled = false;
+    private List<String> workers = new ArrayList<>();
+    private int serverPort = 0;
+    private String serverBindAddress = "127.0.0.1";
+    private int serverConcurrency = 4;
+    private String authToken = "";
+    private int maxConcurrencyPerWorker = 4;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+    private Duration requestTimeoutMargin = Duration.ofSeconds(10);
+    private int maxAttempts = 3;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(List<String> workers) {
+        this.workers = workers;
+    }
+
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    public void setServerPort(int serverPort) {
+        this.serverPort = serverPort;
+    }
+
+    public String getServerBindAddress() {
+        return serverBindAddress;
+    }
+
+    public void setServerBindAddress(String serverBindAddress) {
+        this.serverBindAddress = serverBindAddress;
+    }
+
+    public int getServerConcurrency() {
+        return serverConcurrency;
+    }
+
+    public void setServerConcurrency(int serverConcurrency) {
+        this.serverConcurrency = serverConcurrency;
+    }
+
+    public String getAuthToken() {
+        return authToken;
+    }
+
+    public void setAuthToken(String authToken) {
+        this.authToken = authToken;
+    }
+
+    public int getMaxConcurrencyPerWorker() {
+        return maxConcurrencyPerWorker;
+    }
+
+    public void setMaxConcurrencyPerWorker(int maxConcurrencyPerWorker) {
+        this.maxConcurrencyPerWorker = maxConcurrencyPerWorker;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public void setHealthCheckInterval(Duration healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public Duration getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public void setAcquireTimeout(Duration acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    public Duration getRequestTimeoutMargin() {
+        return requestTimeoutMargin;
+    }
+
+    public void setRequestTimeoutMargin(Duration requestTimeoutMargin) {
+        this.requestTimeoutMargin = requestTimeoutMargin;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+}
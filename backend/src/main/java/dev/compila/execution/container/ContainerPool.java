@@ -0,0 +1,257 @@
+package dev.compila.execution.container;
+
+import dev.compila.execution.compare.OutputComparator;
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.process.ProcessRunner;
+import dev.compila.execution.sandbox.SandboxLimits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Pool of warm, paused containers for one image.
+ * <p>
+ * Each container has its own host workspace directory bind-mounted into it.
+ * A run writes its files there, unpauses the container, execs the program and
+ * hands the container back; it is then reset and paused in the background.
+ * Containers are replaced after {@code poolMaxRunsPerWorker} runs and after any
+ * run that did not exit on its own, since killing {@code docker exec} leaves
+ * the program running inside. When no container is idle in time, the run
+ * starts a new one, paying the cold-start cost once.
+ */
+public class ContainerPool {
+
+    private static final Logger log = LoggerFactory.getLogger(ContainerPool.class);
+    /** Exit status of a program killed with SIGKILL, which inside a container means the OOM killer */
+    private static final int SIGKILL_EXIT = 128 + 9;
+    private static final Duration SHUTDOWN_GRACE = Duration.ofSeconds(10);
+
+    private final String image;
+    private final ContainerRuntime runtime;
+    private final ExecutionConfig config;
+    private final Path workspaceRoot;
+    private final SandboxLimits defaultLimits;
+    private final BlockingQueue<PooledContainer> idle = new LinkedBlockingQueue<>();
+    private final ExecutorService recycler;
+    private volatile boolean shutdown;
+
+    public ContainerPool(String image, ContainerRuntime runtime, ExecutionConfig config) {
+        this.image = image;
+        this.runtime = runtime;
+        this.config = config;
+        this.workspaceRoot = Path.of(config.getContainerWorkspaceRoot());
+        this.defaultLimits = new SandboxLimits(
+                (int) config.getDefaultTimeout().toSeconds(), config.getMaxMemoryMb(), config.getMaxCpuCores(), false);
+        this.recycler = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("container-pool-", 0).factory());
+    }
+
+    /**
+     * Start the configured number of containers in the background
+     */
+    public void start() {
+        for (int i = 0; i < config.getContainerPoolSize(); i++) {
+            recycler.execute(this::spawnContainer);
+        }
+    }
+
+    /**
+     * Run a program in a pooled container
+     *
+     * @param workspaceWriter writes the program's files into the (empty) workspace
+     * @param command         command line, with paths relative to the workspace
+     * @param input           data for stdin, or null
+     * @param comparator      expected-output comparator for early abort, or null
+     */
+    public ProcessRunner.ProcessOutcome run(
+            WorkspaceWriter workspaceWriter,
+            List<String> command,
+            SandboxLimits limits,
+            String input,
+            OutputComparator comparator
+    ) throws IOException, InterruptedException {
+        if (shutdown) {
+            throw new IOException("Container pool for " + image + " is shut down");
+        }
+        long setupStart = System.nanoTime();
+        PooledContainer container = acquire();
+        boolean reusable = false;
+        ProcessRunner.ProcessOutcome outcome;
+        long writeNanos;
+        long setupNanos;
+        long teardownStart;
+        try {
+            long writeStart = System.nanoTime();
+            workspaceWriter.write(container.workspace);
+            writeNanos = System.nanoTime() - writeStart;
+            if (container.limits.maxMemoryMb() != limits.maxMemoryMb()
+                    || container.limits.maxCpuCores() != limits.maxCpuCores()) {
+                runtime.update(container.id, limits);
+                container.limits = limits;
+            }
+            runtime.unpause(container.id);
+            container.runs++;
+            setupNanos = System.nanoTime() - setupStart - writeNanos;
+
+            outcome = ProcessRunner.run(
+                    runtime.exec(container.id, command),
+                    input,
+                    Duration.ofSeconds(limits.timeoutSeconds()),
+                    config.getMaxOutputKb() * 1024,
+                    comparator
+            );
+            if (outcome.status() == ProcessRunner.ProcessOutcome.Status.EXITED && outcome.exitCode() == SIGKILL_EXIT) {
+                outcome = outcome.withUsage(null, true);
+            }
+            reusable = outcome.status() == ProcessRunner.ProcessOutcome.Status.EXITED;
+        } finally {
+            teardownStart = System.nanoTime();
+            release(container, reusable);
+        }
+        // Acquiring and unpausing count as spawning; resetting happens off the caller's clock
+        return outcome.withSandboxPhases(writeNanos, setupNanos, System.nanoTime() - teardownStart);
+    }
+
+    private PooledContainer acquire() throws IOException, InterruptedException {
+        PooledContainer container = idle.poll(config.getPoolAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        if (container != null) {
+            return container;
+        }
+        log.debug("No warm container for {} available, starting one", image);
+        return startContainer();
+    }
+
+    private void release(PooledContainer container, boolean reusable) {
+        clearWorkspace(container.workspace);
+        try {
+            recycler.execute(() -> {
+                if (!shutdown && reusable && container.runs < config.getPoolMaxRunsPerWorker()) {
+                    try {
+                        runtime.reset(container.id);
+                        runtime.pause(container.id);
+                        if (idle.size() < config.getContainerPoolSize()) {
+                            idle.offer(container);
+                            return;
+                        }
+                    } catch (IOException e) {
+                        log.warn("Failed to recycle container {}", container.id, e);
+                    }
+                }
+                discard(container);
+                if (!shutdown && idle.size() < config.getContainerPoolSize()) {
+                    spawnContainer();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shut down while the run was in progress
+            discard(container);
+        }
+    }
+
+    private void spawnContainer() {
+        if (shutdown) {
+            return;
+        }
+        try {
+            PooledContainer container = startContainer();
+            runtime.pause(container.id);
+            idle.offer(container);
+        } catch (IOException e) {
+            log.warn("Failed to start container for {}", image, e);
+        }
+    }
+
+    private PooledContainer startContainer() throws IOException {
+        Path workspace = Files.createDirectories(workspaceRoot).resolve(UUID.randomUUID().toString());
+        // Readable by the container's unprivileged user, writable only by us
+        Files.createDirectory(workspace, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwxr-xr-x")));
+        try {
+            return new PooledContainer(runtime.start(image, workspace, defaultLimits), workspace, defaultLimits);
+        } catch (IOException | RuntimeException e) {
+            deleteRecursively(workspace);
+            throw e;
+        }
+    }
+
+    private void discard(PooledContainer container) {
+        runtime.remove(container.id);
+        deleteRecursively(container.workspace);
+    }
+
+    private static void clearWorkspace(Path workspace) {
+        try (Stream<Path> entries = Files.list(workspace)) {
+            entries.forEach(ContainerPool::deleteRecursively);
+        } catch (IOException e) {
+            log.debug("Failed to clear workspace {}", workspace, e);
+        }
+    }
+
+    private static void deleteRecursively(Path path) {
+        try (Stream<Path> walk = Files.walk(path)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(entry -> {
+                try {
+                    Files.deleteIfExists(entry);
+                } catch (IOException e) {
+                    log.debug("Failed to delete {}", entry, e);
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Failed to delete {}", path, e);
+        }
+    }
+
+    /**
+     * Stop handing out containers and remove all idle ones
+     */
+    public void shutdown() {
+        shutdown = true;
+        recycler.shutdownNow();
+        try {
+            // A container being recycled may still be handed back; wait so none is left behind
+            if (!recycler.awaitTermination(SHUTDOWN_GRACE.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Container pool for {} did not finish recycling within {}", image, SHUTDOWN_GRACE);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PooledContainer container;
+        while ((container = idle.poll()) != null) {
+            discard(container);
+        }
+    }
+
+    /**
+     * Writes a program's files into a container workspace
+     */
+    @FunctionalInterface
+    public interface WorkspaceWriter {
+        void write(Path workspace) throws IOException;
+    }
+
+    private static final class PooledContainer {
+        private final String id;
+        private final Path workspace;
+        private SandboxLimits limits;
+        private int runs;
+
+        private PooledContainer(String id, Path workspace, SandboxLimits limits) {
+            this.id = id;
+            this.workspace = workspace;
+            this.limits = limits;
+        }
+    }
+}
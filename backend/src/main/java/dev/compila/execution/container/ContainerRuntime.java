@@ -0,0 +1,55 @@
+package dev.compila.execution.container;
+
+import dev.compila.execution.sandbox.SandboxLimits;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Lifecycle operations on long-lived execution containers.
+ * <p>
+ * A container is started once with a host workspace directory mounted at
+ * {@link #WORKSPACE}, then alternates between paused (idle in the pool) and
+ * running (executing one program). Programs are started inside it with
+ * {@link #exec} and refer to their files relative to the workspace.
+ */
+public interface ContainerRuntime {
+
+    /** Mount point of the host workspace inside every container, also its working directory */
+    String WORKSPACE = "/workspace";
+
+    /**
+     * Start a container that idles until programs are exec'd into it
+     *
+     * @return the container id
+     */
+    String start(String image, Path workspace, SandboxLimits limits) throws IOException;
+
+    void pause(String id) throws IOException;
+
+    void unpause(String id) throws IOException;
+
+    /**
+     * Change the memory and CPU limits of a running or paused container
+     */
+    void update(String id, SandboxLimits limits) throws IOException;
+
+    /**
+     * Process that runs {@code command} inside the container with stdin attached
+     */
+    ProcessBuilder exec(String id, List<String> command);
+
+    /**
+     * Kill everything a program left running and wipe its scratch space, so
+     * the next program sees a fresh container
+     */
+    void reset(String id) throws IOException;
+
+    void remove(String id);
+
+    /**
+     * Remove containers left behind by a previous instance of the application
+     */
+    void removeOrphans();
+}
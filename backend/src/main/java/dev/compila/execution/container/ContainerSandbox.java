@@ -0,0 +1,94 @@
+package dev.compila.execution.container;
+
+import dev.compila.execution.compare.OutputComparator;
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.process.ProcessRunner;
+import dev.compila.execution.sandbox.SandboxLimits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Container-isolated execution, enabled by {@code code-execution.use-docker}.
+ * <p>
+ * Keeps one {@link ContainerPool} per image; languages without an entry in
+ * {@code container-images} share the pool of {@code docker-image}.
+ */
+@Component
+public class ContainerSandbox implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ContainerSandbox.class);
+
+    private final ExecutionConfig config;
+    private final ContainerRuntime runtime;
+    private final Map<String, ContainerPool> pools = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ContainerSandbox(ExecutionConfig config) {
+        this(config, "local".equalsIgnoreCase(config.getContainerRuntime())
+                ? new LocalContainerRuntime()
+                : new DockerCliRuntime(config));
+    }
+
+    public ContainerSandbox(ExecutionConfig config, ContainerRuntime runtime) {
+        this.config = config;
+        this.runtime = runtime;
+        if (config.isUseDocker()) {
+            runtime.removeOrphans();
+            log.info("Container execution enabled with {} runtime", config.getContainerRuntime());
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isUseDocker();
+    }
+
+    /**
+     * Start warming the language's container pool ahead of its first run
+     */
+    public void prewarm(String language) {
+        if (isEnabled()) {
+            pool(language);
+        }
+    }
+
+    /**
+     * Run a program in a warm container of the language's image
+     *
+     * @see ContainerPool#run
+     */
+    public ProcessRunner.ProcessOutcome run(
+            String language,
+            ContainerPool.WorkspaceWriter workspaceWriter,
+            List<String> command,
+            SandboxLimits limits,
+            String input,
+            OutputComparator comparator
+    ) throws IOException, InterruptedException {
+        return pool(language).run(workspaceWriter, command, limits, input, comparator);
+    }
+
+    public String imageFor(String language) {
+        return config.getContainerImages().getOrDefault(language.toLowerCase(), config.getDockerImage());
+    }
+
+    private ContainerPool pool(String language) {
+        return pools.computeIfAbsent(imageFor(language), image -> {
+            ContainerPool pool = new ContainerPool(image, runtime, config);
+            pool.start();
+            return pool;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        pools.values().forEach(ContainerPool::shutdown);
+    }
+}
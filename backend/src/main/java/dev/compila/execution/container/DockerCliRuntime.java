@@ -0,0 +1,144 @@
+package dev.compila.execution.container;
+
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.process.ProcessRunner;
+import dev.compila.execution.sandbox.SandboxLimits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ContainerRuntime} driving the {@code docker} CLI.
+ * <p>
+ * Containers run without network as an unprivileged user, with a read-only
+ * root filesystem, the workspace mounted read-only and a small tmpfs at
+ * {@code /tmp} as the only writable location. Their init process is a plain
+ * {@code sleep}, which is PID 1 and therefore survives {@link #reset}.
+ */
+public class DockerCliRuntime implements ContainerRuntime {
+
+    private static final Logger log = LoggerFactory.getLogger(DockerCliRuntime.class);
+    private static final String POOL_LABEL = "dev.compila.execution=pool";
+    private static final Duration COMMAND_TIMEOUT = Duration.ofSeconds(30);
+    private static final int COMMAND_OUTPUT_LIMIT = 64 * 1024;
+    private static final String UNPRIVILEGED_USER = "65534:65534";
+
+    private final ExecutionConfig config;
+
+    public DockerCliRuntime(ExecutionConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public String start(String image, Path workspace, SandboxLimits limits) throws IOException {
+        List<String> command = new ArrayList<>(List.of(
+                "run", "--detach",
+                "--label", POOL_LABEL,
+                "--network", "none",
+                "--user", UNPRIVILEGED_USER,
+                "--read-only",
+                "--tmpfs", "/tmp:rw,nosuid,nodev,size=64m",
+                "--mount", "type=bind,source=" + workspace + ",target=" + WORKSPACE + ",readonly",
+                "--workdir", WORKSPACE,
+                "--pids-limit", String.valueOf(config.getMaxProcesses())
+        ));
+        command.addAll(limitFlags(limits));
+        command.addAll(List.of(image, "sleep", "infinity"));
+        return docker(command).trim();
+    }
+
+    @Override
+    public void pause(String id) throws IOException {
+        docker(List.of("pause", id));
+    }
+
+    @Override
+    public void unpause(String id) throws IOException {
+        docker(List.of("unpause", id));
+    }
+
+    @Override
+    public void update(String id, SandboxLimits limits) throws IOException {
+        List<String> command = new ArrayList<>(List.of("update"));
+        command.addAll(limitFlags(limits));
+        command.add(id);
+        docker(command);
+    }
+
+    @Override
+    public ProcessBuilder exec(String id, List<String> command) {
+        List<String> docker = new ArrayList<>(List.of("docker", "exec", "--interactive", id));
+        docker.addAll(command);
+        return new ProcessBuilder(docker);
+    }
+
+    /**
+     * {@code kill -1} signals every process the user may signal except PID 1
+     * and the shell itself
+     */
+    @Override
+    public void reset(String id) throws IOException {
+        docker(List.of(
+                "exec", id, "sh", "-c",
+                "kill -9 -1 2>/dev/null; rm -rf /tmp/* /tmp/.[!.]* 2>/dev/null; true"
+        ));
+    }
+
+    @Override
+    public void remove(String id) {
+        try {
+            docker(List.of("rm", "--force", id));
+        } catch (IOException e) {
+            log.warn("Failed to remove container {}", id, e);
+        }
+    }
+
+    @Override
+    public void removeOrphans() {
+        try {
+            String ids = docker(List.of("ps", "--all", "--quiet", "--filter", "label=" + POOL_LABEL)).trim();
+            if (!ids.isEmpty()) {
+                List<String> command = new ArrayList<>(List.of("rm", "--force"));
+                command.addAll(List.of(ids.split("\\s+")));
+                docker(command);
+                log.info("Removed {} orphaned execution containers", command.size() - 2);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to remove orphaned execution containers", e);
+        }
+    }
+
+    private List<String> limitFlags(SandboxLimits limits) {
+        String memory = limits.maxMemoryMb() + "m";
+        return List.of(
+                "--memory", memory,
+                // Equal to --memory, so the container cannot swap
+                "--memory-swap", memory,
+                "--cpus", String.valueOf(Math.max(1, limits.maxCpuCores()))
+        );
+    }
+
+    private String docker(List<String> args) throws IOException {
+        List<String> command = new ArrayList<>(args.size() + 1);
+        command.add("docker");
+        command.addAll(args);
+
+        ProcessRunner.ProcessOutcome outcome;
+        try {
+            outcome = ProcessRunner.run(new ProcessBuilder(command), null, COMMAND_TIMEOUT, COMMAND_OUTPUT_LIMIT, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running docker " + args.get(0), e);
+        }
+        if (outcome.status() != ProcessRunner.ProcessOutcome.Status.EXITED || outcome.exitCode() != 0) {
+            throw new IOException("docker " + args.get(0) + " failed (" + outcome.status() + ", exit "
+                    + outcome.exitCode() + "): " + outcome.stderr().trim());
+        }
+        return outcome.stdout();
+    }
+}
@@ -0,0 +1,100 @@
+package dev.compila.execution.container;
+
+import dev.compila.execution.sandbox.SandboxLimits;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ContainerRuntime} stand-in that runs programs directly on the host,
+ * in the workspace directory. It provides no isolation and exists so the
+ * container pool can be exercised in tests and on machines without Docker.
+ * <p>
+ * It does track container state and refuses to exec into a paused or
+ * removed container, which is where pool bookkeeping bugs would show.
+ */
+public class LocalContainerRuntime implements ContainerRuntime {
+
+    private final Map<String, LocalContainer> containers = new ConcurrentHashMap<>();
+
+    @Override
+    public String start(String image, Path workspace, SandboxLimits limits) {
+        String id = "local-" + UUID.randomUUID();
+        containers.put(id, new LocalContainer(workspace));
+        return id;
+    }
+
+    @Override
+    public void pause(String id) throws IOException {
+        container(id).paused = true;
+    }
+
+    @Override
+    public void unpause(String id) throws IOException {
+        container(id).paused = false;
+    }
+
+    @Override
+    public void update(String id, SandboxLimits limits) throws IOException {
+        container(id);
+    }
+
+    @Override
+    public ProcessBuilder exec(String id, List<String> command) {
+        LocalContainer container = containers.get(id);
+        if (container == null || container.paused) {
+            throw new IllegalStateException("Container " + id + " is not running");
+        }
+        return new ProcessBuilder(command).directory(container.workspace.toFile());
+    }
+
+    @Override
+    public void reset(String id) throws IOException {
+        container(id);
+    }
+
+    @Override
+    public void remove(String id) {
+        containers.remove(id);
+    }
+
+    @Override
+    public void removeOrphans() {
+        // Local containers do not outlive the application
+    }
+
+    /**
+     * Number of containers started and not yet removed
+     */
+    public int liveContainers() {
+        return containers.size();
+    }
+
+    /**
+     * Number of live containers that are paused, i.e. idle in a pool
+     */
+    public int pausedContainers() {
+        return (int) containers.values().stream().filter(container -> container.paused).count();
+    }
+
+    private LocalContainer container(String id) throws IOException {
+        LocalContainer container = containers.get(id);
+        if (container == null) {
+            throw new IOException("No such container: " + id);
+        }
+        return container;
+    }
+
+    private static final class LocalContainer {
+        private final Path workspace;
+        private volatile boolean paused;
+
+        private LocalContainer(Path workspace) {
+            this.workspace = workspace;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package dev.compila.execution.dto;
 
+import dev.compila.execution.compare.ExpectedOutput;
+
 import java.util.Map;
 
 public record ExecutionRequest(
@@ -7,8 +9,72 @@ public record ExecutionRequest(
         String language,
         String input,
         ExecutionConstraints constraints,
-        Map<String, String> environmentVariables
+        Map<String, String> environmentVariables,
+        ExpectedOutput expectedOutput,
+        Workspace workspace
 ) {
+    public ExecutionRequest(
+            String code,
+            String language,
+            String input,
+            ExecutionConstraints constraints,
+            Map<String, String> environmentVariables,
+            ExpectedOutput expectedOutput
+    ) {
+        this(code, language, input, constraints, environmentVariables, expectedOutput, null);
+    }
+
+    public ExecutionRequest(
+            String code,
+            String language,
+            String input,
+            ExecutionConstraints constraints,
+            Map<String, String> environmentVariables
+    ) {
+        this(code, language, input, constraints, environmentVariables, null, null);
+    }
+
+    public ExecutionRequest withInput(String newInput) {
+        return new ExecutionRequest(code, language, newInput, constraints, environmentVariables, expectedOutput, workspace);
+    }
+
+    /**
+     * Attach the expected output so the executor can stop the program as
+     * soon as its output diverges from it
+     */
+    public ExecutionRequest withExpectedOutput(ExpectedOutput newExpectedOutput) {
+        return new ExecutionRequest(code, language, input, constraints, environmentVariables, newExpectedOutput, workspace);
+    }
+
+    public ExecutionRequest withWorkspace(Workspace newWorkspace) {
+        return new ExecutionRequest(code, language, input, constraints, environmentVariables, expectedOutput, newWorkspace);
+    }
+
+    /**
+     * A multi-file project, run from its entrypoint instead of a single
+     * {@code code} file. When {@code code} is also set and the entrypoint is
+     * not among the files, {@code code} is the entrypoint.
+     *
+     * @param files       file contents by path relative to the project root
+     * @param entrypoint  file to run, or null for the language's default
+     *                    ({@code main.py}, {@code main.js}, {@code Main.java})
+     * @param snapshotKey runs with the same key reuse each other's unchanged
+     *                    files; set by the server, never taken from clients
+     */
+    public record Workspace(
+            Map<String, String> files,
+            String entrypoint,
+            String snapshotKey
+    ) {
+        public Workspace {
+            files = files != null ? files : Map.of();
+        }
+
+        public Workspace withSnapshotKey(String newSnapshotKey) {
+            return new Workspace(files, entrypoint, newSnapshotKey);
+        }
+    }
+
     public record ExecutionConstraints(
             Integer timeoutSeconds,
             Integer maxMemoryMb,
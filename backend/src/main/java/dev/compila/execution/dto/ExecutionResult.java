@@ -2,6 +2,11 @@ package dev.compila.execution.dto;
 
 import java.time.LocalDateTime;
 
+/**
+ * @param outputMatched whether stdout matched the request's expected output, as
+ *                      judged by the comparator while the output streamed in;
+ *                      null when nothing was compared during the run
+ */
 public record ExecutionResult(
         boolean success,
         String output,
@@ -11,7 +16,10 @@ public record ExecutionResult(
         Long memoryUsedMb,
         LocalDateTime executedAt,
         ExecutionStatus status,
-        String stderr
+        String stderr,
+        ResourceUsage resourceUsage,
+        PhaseTimings phases,
+        Boolean outputMatched
 ) {
     public enum ExecutionStatus {
         PENDING,
@@ -21,26 +29,94 @@ public record ExecutionResult(
         MEMORY_LIMIT_EXCEEDED,
         RUNTIME_ERROR,
         COMPILATION_ERROR,
+        OUTPUT_LIMIT_EXCEEDED,
+        WRONG_ANSWER,
         INTERNAL_ERROR
     }
 
     public static ExecutionResult success(String output, long executionTimeMs) {
-        return new ExecutionResult(true, output, null, 0, executionTimeMs, null, LocalDateTime.now(), ExecutionStatus.COMPLETED, null);
+        return new ExecutionResult(true, output, null, 0, executionTimeMs, null, LocalDateTime.now(), ExecutionStatus.COMPLETED, null, null, null, null);
     }
 
     public static ExecutionResult error(String error, ExecutionStatus status) {
-        return new ExecutionResult(false, null, error, null, null, null, LocalDateTime.now(), status, null);
+        return new ExecutionResult(false, null, error, null, null, null, LocalDateTime.now(), status, null, null, null, null);
     }
 
     public static ExecutionResult timeout() {
-        return new ExecutionResult(false, null, "Execution timeout exceeded", null, null, null, LocalDateTime.now(), ExecutionStatus.TIMEOUT, null);
+        return new ExecutionResult(false, null, "Execution timeout exceeded", null, null, null, LocalDateTime.now(), ExecutionStatus.TIMEOUT, null, null, null, null);
     }
 
     public static ExecutionResult compilationError(String error) {
-        return new ExecutionResult(false, null, error, null, null, null, LocalDateTime.now(), ExecutionStatus.COMPILATION_ERROR, error);
+        return new ExecutionResult(false, null, error, null, null, null, LocalDateTime.now(), ExecutionStatus.COMPILATION_ERROR, error, null, null, null);
     }
 
     public static ExecutionResult runtimeError(String error, String stderr) {
-        return new ExecutionResult(false, null, error, null, null, null, LocalDateTime.now(), ExecutionStatus.RUNTIME_ERROR, stderr);
+        return new ExecutionResult(false, null, error, null, null, null, LocalDateTime.now(), ExecutionStatus.RUNTIME_ERROR, stderr, null, null, null);
+    }
+
+    public static ExecutionResult outputLimitExceeded() {
+        return new ExecutionResult(false, null, "Output limit exceeded", null, null, null, LocalDateTime.now(), ExecutionStatus.OUTPUT_LIMIT_EXCEEDED, null, null, null, null);
+    }
+
+    /**
+     * The program was stopped early because its output diverged from the
+     * expected output; {@code output} holds what it printed up to that point
+     */
+    public static ExecutionResult wrongAnswer(String output, long executionTimeMs) {
+        return new ExecutionResult(false, output, "Output mismatch", null, executionTimeMs, null, LocalDateTime.now(), ExecutionStatus.WRONG_ANSWER, null, null, null, false);
+    }
+
+    /**
+     * The same result with the resources measured by the sandbox attached
+     */
+    public ExecutionResult withResourceUsage(ResourceUsage usage) {
+        Long memoryMb = usage != null ? (usage.peakMemoryBytes() + (1024 * 1024 - 1)) / (1024 * 1024) : memoryUsedMb;
+        return new ExecutionResult(success, output, error, exitCode, executionTimeMs, memoryMb, executedAt, status, stderr, usage, phases, outputMatched);
+    }
+
+    /**
+     * The same result with the time spent in each execution phase attached
+     */
+    public ExecutionResult withPhases(PhaseTimings newPhases) {
+        return new ExecutionResult(success, output, error, exitCode, executionTimeMs, memoryUsedMb, executedAt, status, stderr, resourceUsage, newPhases, outputMatched);
+    }
+
+    /**
+     * The same result with the comparator's verdict on its output attached
+     */
+    public ExecutionResult withOutputMatched(Boolean matched) {
+        return new ExecutionResult(success, output, error, exitCode, executionTimeMs, memoryUsedMb, executedAt, status, stderr, resourceUsage, phases, matched);
+    }
+
+    /**
+     * Add the executor's own file handling to the measured phases
+     */
+    public ExecutionResult withFilePhases(long writeNanos, long cleanupNanos) {
+        PhaseTimings current = phases != null ? phases : PhaseTimings.NONE;
+        return withPhases(new PhaseTimings(
+                current.writeNanos() + writeNanos,
+                current.spawnNanos(),
+                current.runNanos(),
+                current.drainNanos(),
+                current.cleanupNanos() + cleanupNanos
+        ));
+    }
+
+    /**
+     * Resources consumed by a run, reported when the sandbox can measure them
+     */
+    public record ResourceUsage(long peakMemoryBytes, long cpuUserMicros, long cpuSystemMicros) {
+        public long cpuTotalMicros() {
+            return cpuUserMicros + cpuSystemMicros;
+        }
+    }
+
+    /**
+     * Wall-clock time of each phase of a run: writing the program's files,
+     * starting the process, the program itself, draining its output after it
+     * exited, and removing what the run left behind
+     */
+    public record PhaseTimings(long writeNanos, long spawnNanos, long runNanos, long drainNanos, long cleanupNanos) {
+        public static final PhaseTimings NONE = new PhaseTimings(0, 0, 0, 0, 0);
     }
 }
@@ -20,11 +20,38 @@ public interface CodeExecutor {
      */
     ExecutionResult execute(ExecutionRequest request);
 
+    /**
+     * Execute the request's code once per input. Implementations that can
+     * load the code a single time and reuse the process override this; the
+     * default runs each input as an independent execution.
+     *
+     * @return one result per input, in input order
+     */
+    default List<ExecutionResult> executeBatch(ExecutionRequest request, List<String> inputs) {
+        return inputs.stream()
+                .map(input -> execute(request.withInput(input)))
+                .toList();
+    }
+
+    /**
+     * Whether {@link #executeBatch} runs all inputs in a single process
+     */
+    default boolean supportsBatch() {
+        return false;
+    }
+
     /**
      * Validate code syntax without executing
      */
     ValidationResult validate(String code);
 
+    /**
+     * Describe the compiler or interpreter that runs this language's code,
+     * e.g. its version, so results measured with it can be told apart from
+     * results measured with another one
+     */
+    String toolchainVersion();
+
     /**
      * Get the file extension for this language
      */
@@ -0,0 +1,300 @@
+package dev.compila.execution.language;
+
+import dev.compila.execution.cache.ArtifactCache;
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.container.ContainerSandbox;
+import dev.compila.execution.dto.ExecutionRequest;
+import dev.compila.execution.dto.ExecutionResult;
+import dev.compila.execution.process.ProcessRunner;
+import dev.compila.execution.sandbox.ProcessSandbox;
+import dev.compila.execution.sandbox.SandboxLimits;
+import dev.compila.execution.workspace.WorkspaceStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Java code executor. Sources are compiled once through the {@link ArtifactCache}
+ * and every run (and every test case) starts the JVM on the cached classes.
+ * Workspace projects compile all their {@code .java} files together and run
+ * from the project root, with the root on the classpath for resources.
+ */
+@Component
+public class JavaExecutor implements CodeExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(JavaExecutor.class);
+    private static final Pattern PUBLIC_CLASS = Pattern.compile("public\\s+(?:final\\s+)?class\\s+(\\w+)");
+    private static final Pattern PACKAGE = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+    private static final int COMPILE_TIMEOUT_SECONDS = 30;
+    private static final String CONTAINER_CLASSES = "classes";
+    /** Hidden, so it cannot collide with a directory of the project */
+    private static final String WORKSPACE_CLASSES = ".classes";
+
+    private final ArtifactCache artifactCache;
+    private final ExecutionConfig config;
+    private final ProcessSandbox sandbox;
+    private final ContainerSandbox containers;
+    private final WorkspaceStore workspaceStore;
+    private volatile String javacVersion;
+
+    public JavaExecutor(
+            ArtifactCache artifactCache,
+            ExecutionConfig config,
+            ProcessSandbox sandbox,
+            ContainerSandbox containers,
+            WorkspaceStore workspaceStore
+    ) {
+        this.artifactCache = artifactCache;
+        this.config = config;
+        this.sandbox = sandbox;
+        this.containers = containers;
+        this.workspaceStore = workspaceStore;
+        this.containers.prewarm(getLanguage());
+    }
+
+    @Override
+    public String getLanguage() {
+        return "JAVA";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".java";
+    }
+
+    @Override
+    public ExecutionResult execute(ExecutionRequest request) {
+        if (request.workspace() != null) {
+            return executeWorkspace(request);
+        }
+
+        Path classes;
+        try {
+            classes = compile(request.code());
+        } catch (ArtifactCache.CompilationException e) {
+            return ExecutionResult.compilationError(e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Failed to compile Java code", e);
+            return ExecutionResult.error("Failed to compile: " + e.getMessage(), ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        }
+
+        try {
+            SandboxLimits limits = SandboxLimits.of(request, config, false);
+            if (containers.isEnabled()) {
+                // Compiled on the host through the cache; only the classes go into the container
+                return containers.run(
+                        getLanguage(),
+                        workspace -> copyClasses(classes, workspace.resolve(CONTAINER_CLASSES)),
+                        buildCommand(CONTAINER_CLASSES, mainClass(request.code()), limits),
+                        limits,
+                        request.input(),
+                        request.expectedOutput() != null ? request.expectedOutput().comparator() : null
+                ).toExecutionResult();
+            }
+            return sandbox.run(
+                    buildCommand(classes.toString(), mainClass(request.code()), limits),
+                    limits,
+                    request.input(),
+                    request.expectedOutput() != null ? request.expectedOutput().comparator() : null
+            ).toExecutionResult();
+
+        } catch (IOException e) {
+            log.error("Failed to execute Java code", e);
+            return ExecutionResult.error("Failed to execute: " + e.getMessage(), ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExecutionResult.error("Execution interrupted", ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        }
+    }
+
+    private ExecutionResult executeWorkspace(ExecutionRequest request) {
+        WorkspaceStore.Project project;
+        Path classes;
+        try {
+            project = workspaceStore.prepare(request, "Main" + getFileExtension());
+            if (!project.entrypoint().endsWith(getFileExtension())) {
+                return ExecutionResult.compilationError("Entrypoint must be a Java source file: " + project.entrypoint());
+            }
+            // Keyed by the project's content; sources are only materialized on a miss
+            classes = artifactCache.getOrCompile(getLanguage(), javacVersion(), project.fingerprint(), (fingerprint, sourceDir, outputDir) -> {
+                workspaceStore.linkInto(project, sourceDir);
+                javac(sourceDir, project.paths(getFileExtension()), outputDir);
+            });
+        } catch (WorkspaceStore.InvalidWorkspaceException | ArtifactCache.CompilationException e) {
+            return ExecutionResult.compilationError(e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Failed to compile Java workspace", e);
+            return ExecutionResult.error("Failed to compile: " + e.getMessage(), ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        }
+
+        try {
+            SandboxLimits limits = SandboxLimits.of(request, config, false);
+            String mainClass = mainClass(project);
+            if (containers.isEnabled()) {
+                return containers.run(
+                        getLanguage(),
+                        workspace -> {
+                            workspaceStore.linkInto(project, workspace);
+                            copyClasses(classes, workspace.resolve(WORKSPACE_CLASSES));
+                        },
+                        buildCommand(WORKSPACE_CLASSES + File.pathSeparator + ".", mainClass, limits),
+                        limits,
+                        request.input(),
+                        request.expectedOutput() != null ? request.expectedOutput().comparator() : null
+                ).toExecutionResult();
+            }
+
+            WorkspaceStore.Lease lease = workspaceStore.checkout(project);
+            ExecutionResult result;
+            long cleanupStart;
+            try {
+                result = sandbox.run(
+                        buildCommand(classes + File.pathSeparator + ".", mainClass, limits),
+                        lease.directory(),
+                        limits,
+                        request.input(),
+                        request.expectedOutput() != null ? request.expectedOutput().comparator() : null
+                ).toExecutionResult();
+            } finally {
+                cleanupStart = System.nanoTime();
+                lease.close();
+            }
+            return result.withFilePhases(lease.writeNanos(), System.nanoTime() - cleanupStart);
+
+        } catch (IOException e) {
+            log.error("Failed to execute Java workspace", e);
+            return ExecutionResult.error("Failed to execute: " + e.getMessage(), ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExecutionResult.error("Execution interrupted", ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        }
+    }
+
+    /**
+     * Validation compiles through the artifact cache, so a valid submission
+     * is already compiled by the time it is executed.
+     */
+    @Override
+    public ValidationResult validate(String code) {
+        try {
+            compile(code);
+            return ValidationResult.success();
+        } catch (ArtifactCache.CompilationException e) {
+            return ValidationResult.failure(e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Failed to validate Java code", e);
+            // If validation fails, still allow execution - runtime will catch errors
+            return ValidationResult.success();
+        }
+    }
+
+    private Path compile(String code) {
+        return artifactCache.getOrCompile(getLanguage(), javacVersion(), code, this::javac);
+    }
+
+    private void javac(String source, Path sourceDir, Path outputDir) throws IOException {
+        String sourceFile = mainClass(source) + getFileExtension();
+        Files.writeString(sourceDir.resolve(sourceFile), source);
+        javac(sourceDir, List.of(sourceFile), outputDir);
+    }
+
+    /**
+     * @param sources paths relative to {@code sourceDir}
+     */
+    private void javac(Path sourceDir, List<String> sources, Path outputDir) throws IOException {
+        List<String> command = new ArrayList<>(List.of("javac", "-nowarn", "-encoding", "UTF-8", "-d", outputDir.toString()));
+        sources.forEach(source -> command.add(sourceDir.resolve(source).toString()));
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+
+        ProcessRunner.ProcessOutcome outcome;
+        try {
+            outcome = ProcessRunner.run(
+                    builder, null, Duration.ofSeconds(COMPILE_TIMEOUT_SECONDS), config.getMaxOutputKb() * 1024, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Compilation interrupted", e);
+        }
+
+        switch (outcome.status()) {
+            case TIMEOUT -> throw new ArtifactCache.CompilationException("Compilation timeout exceeded");
+            case OUTPUT_LIMIT -> throw new ArtifactCache.CompilationException("Too many compilation errors");
+            default -> {
+                if (outcome.exitCode() != 0) {
+                    throw new ArtifactCache.CompilationException(outcome.stdout().replace(sourceDir + "/", ""));
+                }
+            }
+        }
+    }
+
+    /**
+     * javac output depends on the JDK, so its version is part of the artifact key
+     */
+    /**
+     * Classes are always compiled on the host; they run in a container image
+     * when containers are enabled
+     */
+    @Override
+    public String toolchainVersion() {
+        String runtime = containers.isEnabled() ? Toolchains.describe(containers, getLanguage()) : Toolchains.probe("java", "-version");
+        return javacVersion() + "; " + runtime;
+    }
+
+    private String javacVersion() {
+        String version = javacVersion;
+        if (version == null) {
+            version = Toolchains.probe("javac", "-version");
+            javacVersion = version;
+        }
+        return version;
+    }
+
+    /**
+     * The JVM reserves far more address space than it uses, so its memory is
+     * capped with -Xmx rather than an address-space limit
+     */
+    private List<String> buildCommand(String classpath, String mainClass, SandboxLimits limits) {
+        return List.of(
+                "java",
+                "-Xmx" + limits.maxMemoryMb() + "m",
+                "-XX:+UseSerialGC",
+                "-XX:TieredStopAtLevel=1",
+                "-Xshare:auto",
+                "-cp", classpath,
+                mainClass
+        );
+    }
+
+    private static void copyClasses(Path classes, Path target) throws IOException {
+        try (Stream<Path> files = Files.walk(classes)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, target.resolve(classes.relativize(file).toString()));
+            }
+        }
+    }
+
+    /**
+     * The entrypoint's class, qualified by the package it declares
+     */
+    private static String mainClass(WorkspaceStore.Project project) {
+        String fileName = Path.of(project.entrypoint()).getFileName().toString();
+        String simpleName = fileName.substring(0, fileName.length() - ".java".length());
+        Matcher matcher = PACKAGE.matcher(project.contents().get(project.entrypoint()));
+        return matcher.find() ? matcher.group(1) + "." + simpleName : simpleName;
+    }
+
+    private static String mainClass(String source) {
+        Matcher matcher = PUBLIC_CLASS.matcher(source);
+        return matcher.find() ? matcher.group(1) : "Main";
+    }
+}
@@ -1,29 +1,87 @@
 package dev.compila.execution.language;
 
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.container.ContainerSandbox;
 import dev.compila.execution.dto.ExecutionRequest;
 import dev.compila.execution.dto.ExecutionResult;
+import dev.compila.execution.pool.InterpreterPool;
+import dev.compila.execution.sandbox.ProcessSandbox;
+import dev.compila.execution.sandbox.SandboxLimits;
+import dev.compila.execution.validation.ValidatorProcess;
+import dev.compila.execution.workspace.WorkspaceStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * JavaScript code executor using Node.js
  */
 @Component
-public class JavaScriptExecutor implements CodeExecutor {
+public class JavaScriptExecutor implements CodeExecutor, DisposableBean {
 
     private static final Logger log = LoggerFactory.getLogger(JavaScriptExecutor.class);
 
+    private final ExecutionConfig config;
+    private final ProcessSandbox sandbox;
+    private final ContainerSandbox containers;
+    private final InterpreterPool pool;
+    private final ValidatorProcess validator;
+    private final WorkspaceExecution workspaces;
+
+    public JavaScriptExecutor(
+            ExecutionConfig config,
+            ProcessSandbox sandbox,
+            ContainerSandbox containers,
+            WorkspaceStore workspaceStore
+    ) {
+        this.config = config;
+        this.sandbox = sandbox;
+        this.containers = containers;
+        this.workspaces = new WorkspaceExecution(getLanguage(), workspaceStore, sandbox, containers);
+        // V8 reserves far more virtual memory than it uses, so pooled workers
+        // are capped with a heap limit instead of ulimit -v. A vm context does
+        // not keep runs apart, so each worker serves a single request.
+        this.pool = new InterpreterPool(
+                getLanguage(),
+                "execution/harness/node_worker.js",
+                harness -> List.of(
+                        "node",
+                        "--max-old-space-size=" + config.getMaxMemoryMb(),
+                        harness.toString(),
+                        String.valueOf(config.getMaxOutputKb() * 1024)
+                ),
+                true,
+                config,
+                sandbox
+        );
+        this.pool.start();
+        this.containers.prewarm(getLanguage());
+        this.validator = new ValidatorProcess(
+                getLanguage(),
+                "execution/harness/node_validator.js",
+                harness -> List.of("node", "--max-old-space-size=" + config.getMaxMemoryMb(), harness.toString()),
+                config
+        );
+    }
+
     @Override
     public String getLanguage() {
         return "JAVASCRIPT";
     }
 
+    @Override
+    public String toolchainVersion() {
+        return Toolchains.describe(containers, getLanguage(), "node", "--version");
+    }
+
     @Override
     public String getFileExtension() {
         return ".js";
@@ -31,51 +89,74 @@ public class JavaScriptExecutor implements CodeExecutor {
 
     @Override
     public ExecutionResult execute(ExecutionRequest request) {
-        try {
-            // Create temporary file for code
-            Path tempFile = Files.createTempFile("code_", getFileExtension());
-            Files.writeString(tempFile, request.code());
-
-            try {
-                ProcessBuilder builder = new ProcessBuilder(buildCommand(request, tempFile));
-
-                // Redirect error stream
-                builder.redirectErrorStream(true);
+        if (request.workspace() != null) {
+            SandboxLimits limits = SandboxLimits.of(request, config, false);
+            return workspaces.run(request, "main.js", limits, entrypoint -> List.of("node", "--max-old-space-size=" + limits.maxMemoryMb(), entrypoint));
+        }
 
-                log.debug("Executing JavaScript code from file: {}", tempFile);
+        Optional<ExecutionResult> pooled = pool.execute(request);
+        if (pooled.isPresent()) {
+            return pooled.get();
+        }
 
-                // Start process
-                long startTime = System.currentTimeMillis();
-                Process process = builder.start();
+        return executeInProcess(request);
+    }
 
-                // Set timeout
-                int timeoutSeconds = request.constraints() != null
-                        ? request.constraints().timeoutSeconds()
-                        : 10;
+    @Override
+    public List<ExecutionResult> executeBatch(ExecutionRequest request, List<String> inputs) {
+        // Pooled interpreters run a single file
+        List<ExecutionResult> results = request.workspace() == null
+                ? new ArrayList<>(pool.executeBatch(request, inputs))
+                : new ArrayList<>();
+
+        // Cases after a limit breach (or all of them, if the pool could not
+        // take the batch) run individually. A worker only serves one request
+        // and may have refused the code, so they go straight to a cold process.
+        for (String input : inputs.subList(results.size(), inputs.size())) {
+            ExecutionRequest single = request.withInput(input);
+            results.add(request.workspace() != null ? execute(single) : executeInProcess(single));
+        }
+        return results;
+    }
 
-                boolean finished = process.waitFor(timeoutSeconds, java.util.concurrent.TimeUnit.SECONDS);
+    @Override
+    public boolean supportsBatch() {
+        // Without the pool every case is a cold process of its own
+        return pool.isRunning();
+    }
 
-                if (!finished) {
-                    process.destroyForcibly();
-                    return ExecutionResult.timeout();
-                }
+    private ExecutionResult executeInProcess(ExecutionRequest request) {
+        if (containers.isEnabled()) {
+            return executeInContainer(request);
+        }
 
-                long executionTime = System.currentTimeMillis() - startTime;
+        try {
+            // Create temporary file for code
+            long writeStart = System.nanoTime();
+            Path tempFile = Files.createTempFile("code_", getFileExtension());
+            Files.writeString(tempFile, request.code());
+            long writeNanos = System.nanoTime() - writeStart;
 
-                // Read output
-                String output = new String(process.getInputStream().readAllBytes());
-                int exitCode = process.exitValue();
+            ExecutionResult result;
+            long cleanupStart;
+            try {
+                log.debug("Executing JavaScript code from file: {}", tempFile);
 
-                if (exitCode == 0) {
-                    return ExecutionResult.success(output, executionTime);
-                } else {
-                    return ExecutionResult.runtimeError(output, output);
-                }
+                SandboxLimits limits = SandboxLimits.of(request, config, false);
+                // The heap flag stands in for an address-space limit, which V8 cannot run under
+                result = sandbox.run(
+                        List.of("node", "--max-old-space-size=" + limits.maxMemoryMb(), tempFile.toString()),
+                        limits,
+                        request.input(),
+                        request.expectedOutput() != null ? request.expectedOutput().comparator() : null
+                ).toExecutionResult();
 
             } finally {
                 // Clean up temp file
+                cleanupStart = System.nanoTime();
                 Files.deleteIfExists(tempFile);
             }
+            return result.withFilePhases(writeNanos, System.nanoTime() - cleanupStart);
 
         } catch (IOException e) {
             log.error("Failed to execute JavaScript code", e);
@@ -86,39 +167,37 @@ public class JavaScriptExecutor implements CodeExecutor {
         }
     }
 
-    private List<String> buildCommand(ExecutionRequest request, Path tempFile) {
-        ExecutionRequest.ExecutionConstraints constraints = request.constraints();
-        Integer timeoutSeconds = constraints != null ? constraints.timeoutSeconds() : null;
-        Integer maxMemoryMb = constraints != null ? constraints.maxMemoryMb() : null;
-
-        boolean hasLimits = (timeoutSeconds != null && timeoutSeconds > 0)
-                || (maxMemoryMb != null && maxMemoryMb > 0);
-
-        if (!hasLimits) {
-            return List.of("node", tempFile.toString());
-        }
+    private ExecutionResult executeInContainer(ExecutionRequest request) {
+        try {
+            SandboxLimits limits = SandboxLimits.of(request, config, false);
+            return containers.run(
+                    getLanguage(),
+                    workspace -> Files.writeString(workspace.resolve("main.js"), request.code()),
+                    List.of("node", "--max-old-space-size=" + limits.maxMemoryMb(), "main.js"),
+                    limits,
+                    request.input(),
+                    request.expectedOutput() != null ? request.expectedOutput().comparator() : null
+            ).toExecutionResult();
 
-        StringBuilder limits = new StringBuilder();
-        if (timeoutSeconds != null && timeoutSeconds > 0) {
-            limits.append("ulimit -t ").append(timeoutSeconds).append("; ");
-        }
-        if (maxMemoryMb != null && maxMemoryMb > 0) {
-            long maxKb = maxMemoryMb.longValue() * 1024L;
-            limits.append("ulimit -v ").append(maxKb).append("; ");
+        } catch (IOException e) {
+            log.error("Failed to execute JavaScript code", e);
+            return ExecutionResult.error("Failed to execute: " + e.getMessage(), ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExecutionResult.error("Execution interrupted", ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
         }
-
-        String filePath = shellQuote(tempFile.toString());
-        String command = limits + "exec node " + filePath;
-        return List.of("bash", "-lc", command);
-    }
-
-    private String shellQuote(String value) {
-        return "'" + value.replace("'", "'\"'\"'") + "'";
     }
 
     @Override
     public ValidationResult validate(String code) {
-        // Basic syntax validation - Node.js will catch syntax errors at runtime
+        return validator.validate(code).orElseGet(() -> validateInProcess(code));
+    }
+
+    /**
+     * Fallback for when the long-lived validator is unavailable: one
+     * {@code node --check} per check
+     */
+    private ValidationResult validateInProcess(String code) {
         try {
             ProcessBuilder builder = new ProcessBuilder(
                     "node",
@@ -134,7 +213,7 @@ public class JavaScriptExecutor implements CodeExecutor {
 
             if (!finished) {
                 process.destroyForcibly();
-                return ValidationResult.failure("Syntax validation timeout");
+                return ValidationResult.failure(ValidatorProcess.TIMEOUT_MESSAGE);
             }
 
             if (process.exitValue() == 0) {
@@ -149,4 +228,10 @@ public class JavaScriptExecutor implements CodeExecutor {
             return ValidationResult.success();
         }
     }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+        validator.shutdown();
+    }
 }
@@ -1,30 +1,88 @@
 package dev.compila.execution.language;
 
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.container.ContainerSandbox;
 import dev.compila.execution.dto.ExecutionRequest;
 import dev.compila.execution.dto.ExecutionResult;
+import dev.compila.execution.pool.InterpreterPool;
+import dev.compila.execution.sandbox.ProcessSandbox;
+import dev.compila.execution.sandbox.SandboxLimits;
+import dev.compila.execution.validation.ValidatorProcess;
+import dev.compila.execution.workspace.WorkspaceStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Python code executor using subprocess
  */
 @Component
-public class PythonExecutor implements CodeExecutor {
+public class PythonExecutor implements CodeExecutor, DisposableBean {
 
     private static final Logger log = LoggerFactory.getLogger(PythonExecutor.class);
 
+    private final ExecutionConfig config;
+    private final ProcessSandbox sandbox;
+    private final ContainerSandbox containers;
+    private final InterpreterPool pool;
+    private final ValidatorProcess validator;
+    private final WorkspaceExecution workspaces;
+
+    public PythonExecutor(
+            ExecutionConfig config,
+            ProcessSandbox sandbox,
+            ContainerSandbox containers,
+            WorkspaceStore workspaceStore
+    ) {
+        this.config = config;
+        this.sandbox = sandbox;
+        this.containers = containers;
+        this.workspaces = new WorkspaceExecution(getLanguage(), workspaceStore, sandbox, containers);
+        // Workers fork a fresh process for every run, so they can be reused
+        this.pool = new InterpreterPool(
+                getLanguage(),
+                "execution/harness/python_worker.py",
+                harness -> List.of(
+                        "bash", "-c",
+                        "ulimit -v " + (config.getMaxMemoryMb() * 1024L) + "; exec python3 -u " + shellQuote(harness.toString())
+                                + " " + config.getMaxOutputKb() * 1024
+                ),
+                false,
+                config,
+                sandbox
+        );
+        this.pool.start();
+        this.containers.prewarm(getLanguage());
+        this.validator = new ValidatorProcess(
+                getLanguage(),
+                "execution/harness/python_validator.py",
+                harness -> List.of(
+                        "bash", "-c",
+                        "ulimit -v " + (config.getMaxMemoryMb() * 1024L) + "; exec python3 -u " + shellQuote(harness.toString())
+                ),
+                config
+        );
+    }
+
     @Override
     public String getLanguage() {
         return "PYTHON";
     }
 
+    @Override
+    public String toolchainVersion() {
+        return Toolchains.describe(containers, getLanguage(), "python3", "--version");
+    }
+
     @Override
     public String getFileExtension() {
         return ".py";
@@ -32,51 +90,71 @@ public class PythonExecutor implements CodeExecutor {
 
     @Override
     public ExecutionResult execute(ExecutionRequest request) {
-        try {
-            // Create temporary file for code
-            Path tempFile = Files.createTempFile("code_", getFileExtension());
-            Files.writeString(tempFile, request.code());
-
-            try {
-                ProcessBuilder builder = new ProcessBuilder(buildCommand(request, tempFile));
-
-                // Redirect error stream
-                builder.redirectErrorStream(true);
+        if (request.workspace() != null) {
+            SandboxLimits limits = SandboxLimits.of(request, config, true);
+            return workspaces.run(request, "main.py", limits, entrypoint -> List.of("python3", entrypoint));
+        }
 
-                log.debug("Executing Python code from file: {}", tempFile);
+        Optional<ExecutionResult> pooled = pool.execute(request);
+        if (pooled.isPresent()) {
+            return pooled.get();
+        }
 
-                // Start process
-                long startTime = System.currentTimeMillis();
-                Process process = builder.start();
+        return executeInProcess(request);
+    }
 
-                // Set timeout
-                int timeoutSeconds = request.constraints() != null
-                        ? request.constraints().timeoutSeconds()
-                        : 10;
+    @Override
+    public List<ExecutionResult> executeBatch(ExecutionRequest request, List<String> inputs) {
+        // Pooled interpreters run a single file
+        List<ExecutionResult> results = request.workspace() == null
+                ? new ArrayList<>(pool.executeBatch(request, inputs))
+                : new ArrayList<>();
+
+        // Cases after a limit breach (or all of them, if the pool could not
+        // take the batch) run individually
+        for (String input : inputs.subList(results.size(), inputs.size())) {
+            results.add(execute(request.withInput(input)));
+        }
+        return results;
+    }
 
-                boolean finished = process.waitFor(timeoutSeconds, java.util.concurrent.TimeUnit.SECONDS);
+    @Override
+    public boolean supportsBatch() {
+        // Without the pool every case is a cold process of its own
+        return pool.isRunning();
+    }
 
-                if (!finished) {
-                    process.destroyForcibly();
-                    return ExecutionResult.timeout();
-                }
+    private ExecutionResult executeInProcess(ExecutionRequest request) {
+        if (containers.isEnabled()) {
+            return executeInContainer(request);
+        }
 
-                long executionTime = System.currentTimeMillis() - startTime;
+        try {
+            // Create temporary file for code
+            long writeStart = System.nanoTime();
+            Path tempFile = Files.createTempFile("code_", getFileExtension());
+            Files.writeString(tempFile, request.code());
+            long writeNanos = System.nanoTime() - writeStart;
 
-                // Read output
-                String output = new String(process.getInputStream().readAllBytes());
-                int exitCode = process.exitValue();
+            ExecutionResult result;
+            long cleanupStart;
+            try {
+                log.debug("Executing Python code from file: {}", tempFile);
 
-                if (exitCode == 0) {
-                    return ExecutionResult.success(output, executionTime);
-                } else {
-                    return ExecutionResult.runtimeError(output, output);
-                }
+                SandboxLimits limits = SandboxLimits.of(request, config, true);
+                result = sandbox.run(
+                        List.of("python3", tempFile.toString()),
+                        limits,
+                        request.input(),
+                        request.expectedOutput() != null ? request.expectedOutput().comparator() : null
+                ).toExecutionResult();
 
             } finally {
                 // Clean up temp file
+                cleanupStart = System.nanoTime();
                 Files.deleteIfExists(tempFile);
             }
+            return result.withFilePhases(writeNanos, System.nanoTime() - cleanupStart);
 
         } catch (IOException e) {
             log.error("Failed to execute Python code", e);
@@ -87,30 +165,25 @@ public class PythonExecutor implements CodeExecutor {
         }
     }
 
-    private List<String> buildCommand(ExecutionRequest request, Path tempFile) {
-        ExecutionRequest.ExecutionConstraints constraints = request.constraints();
-        Integer timeoutSeconds = constraints != null ? constraints.timeoutSeconds() : null;
-        Integer maxMemoryMb = constraints != null ? constraints.maxMemoryMb() : null;
-
-        boolean hasLimits = (timeoutSeconds != null && timeoutSeconds > 0)
-                || (maxMemoryMb != null && maxMemoryMb > 0);
-
-        if (!hasLimits) {
-            return List.of("python3", tempFile.toString());
-        }
+    private ExecutionResult executeInContainer(ExecutionRequest request) {
+        try {
+            SandboxLimits limits = SandboxLimits.of(request, config, true);
+            return containers.run(
+                    getLanguage(),
+                    workspace -> Files.writeString(workspace.resolve("main.py"), request.code()),
+                    List.of("python3", "main.py"),
+                    limits,
+                    request.input(),
+                    request.expectedOutput() != null ? request.expectedOutput().comparator() : null
+            ).toExecutionResult();
 
-        StringBuilder limits = new StringBuilder();
-        if (timeoutSeconds != null && timeoutSeconds > 0) {
-            limits.append("ulimit -t ").append(timeoutSeconds).append("; ");
-        }
-        if (maxMemoryMb != null && maxMemoryMb > 0) {
-            long maxKb = maxMemoryMb.longValue() * 1024L;
-            limits.append("ulimit -v ").append(maxKb).append("; ");
+        } catch (IOException e) {
+            log.error("Failed to execute Python code", e);
+            return ExecutionResult.error("Failed to execute: " + e.getMessage(), ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExecutionResult.error("Execution interrupted", ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
         }
-
-        String filePath = shellQuote(tempFile.toString());
-        String command = limits + "exec python3 " + filePath;
-        return List.of("bash", "-lc", command);
     }
 
     private String shellQuote(String value) {
@@ -119,13 +192,20 @@ public class PythonExecutor implements CodeExecutor {
 
     @Override
     public ValidationResult validate(String code) {
+        return validator.validate(code).orElseGet(() -> validateInProcess(code));
+    }
+
+    /**
+     * Fallback for when the long-lived validator is unavailable: one
+     * interpreter per check
+     */
+    private ValidationResult validateInProcess(String code) {
         try {
             // Use Python's compile function to validate syntax
             ProcessBuilder builder = new ProcessBuilder(
                     "python3",
                     "-c",
-                    "import py_compile; import sys; import tempfile; py_compile.compile(sys.argv[1], doraise=True)",
-                    "-"
+                    "import sys; compile(sys.stdin.buffer.read(), 'solution.py', 'exec', dont_inherit=True)"
             );
 
             Process process = builder.start();
@@ -136,7 +216,7 @@ public class PythonExecutor implements CodeExecutor {
 
             if (!finished) {
                 process.destroyForcibly();
-                return ValidationResult.failure("Syntax validation timeout");
+                return ValidationResult.failure(ValidatorProcess.TIMEOUT_MESSAGE);
             }
 
             if (process.exitValue() == 0) {
@@ -153,4 +233,10 @@ public class PythonExecutor implements CodeExecutor {
             return ValidationResult.success();
         }
     }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+        validator.shutdown();
+    }
 }
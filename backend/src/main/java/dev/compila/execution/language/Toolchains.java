@@ -0,0 +1,41 @@
+package dev.compila.execution.language;
+
+import dev.compila.execution.container.ContainerSandbox;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identifies the toolchain programs actually run on
+ */
+final class Toolchains {
+
+    private Toolchains() {
+    }
+
+    /**
+     * The container image when runs go to containers, otherwise the output
+     * of the host tool's version command
+     */
+    static String describe(ContainerSandbox containers, String language, String... versionCommand) {
+        if (containers.isEnabled()) {
+            return "image " + containers.imageFor(language);
+        }
+        return probe(versionCommand);
+    }
+
+    static String probe(String... versionCommand) {
+        try {
+            Process process = new ProcessBuilder(versionCommand).redirectErrorStream(true).start();
+            String version = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            process.waitFor(5, TimeUnit.SECONDS);
+            return version;
+        } catch (IOException e) {
+            throw new IllegalStateException(versionCommand[0] + " is not available", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while probing " + versionCommand[0], e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package dev.compila.execution.language;
+
+import dev.compila.execution.compare.OutputComparator;
+import dev.compila.execution.container.ContainerSandbox;
+import dev.compila.execution.dto.ExecutionRequest;
+import dev.compila.execution.dto.ExecutionResult;
+import dev.compila.execution.sandbox.ProcessSandbox;
+import dev.compila.execution.sandbox.SandboxLimits;
+import dev.compila.execution.workspace.WorkspaceStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Runs multi-file workspace requests of interpreted languages: the project
+ * is materialized through the {@link WorkspaceStore} and its entrypoint is
+ * run from the project root, on the host or in a container.
+ */
+final class WorkspaceExecution {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkspaceExecution.class);
+
+    private final String language;
+    private final WorkspaceStore store;
+    private final ProcessSandbox sandbox;
+    private final ContainerSandbox containers;
+
+    WorkspaceExecution(String language, WorkspaceStore store, ProcessSandbox sandbox, ContainerSandbox containers) {
+        this.language = language;
+        this.store = store;
+        this.sandbox = sandbox;
+        this.containers = containers;
+    }
+
+    /**
+     * @param command builds the command line from the entrypoint's path
+     *                relative to the project root
+     */
+    ExecutionResult run(
+            ExecutionRequest request,
+            String defaultEntrypoint,
+            SandboxLimits limits,
+            Function<String, List<String>> command
+    ) {
+        WorkspaceStore.Project project;
+        try {
+            project = store.prepare(request, defaultEntrypoint);
+        } catch (WorkspaceStore.InvalidWorkspaceException e) {
+            return ExecutionResult.compilationError(e.getMessage());
+        }
+        OutputComparator comparator = request.expectedOutput() != null ? request.expectedOutput().comparator() : null;
+
+        try {
+            if (containers.isEnabled()) {
+                return containers.run(
+                        language,
+                        workspace -> store.linkInto(project, workspace),
+                        command.apply(project.entrypoint()),
+                        limits,
+                        request.input(),
+                        comparator
+                ).toExecutionResult();
+            }
+
+            WorkspaceStore.Lease lease = store.checkout(project);
+            ExecutionResult result;
+            long cleanupStart;
+            try {
+                result = sandbox.run(
+                        command.apply(project.entrypoint()),
+                        lease.directory(),
+                        limits,
+                        request.input(),
+                        comparator
+                ).toExecutionResult();
+            } finally {
+                cleanupStart = System.nanoTime();
+                lease.close();
+            }
+            return result.withFilePhases(lease.writeNanos(), System.nanoTime() - cleanupStart);
+
+        } catch (IOException e) {
+            log.error("Failed to execute {} workspace", language, e);
+            return ExecutionResult.error("Failed to execute: " + e.getMessage(), ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExecutionResult.error("Execution interrupted", ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package dev.compila.execution.metrics;
+
+import dev.compila.execution.dto.ExecutionResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution telemetry: per-phase latency histograms tagged by language,
+ * result status and challenge, plus counters for the outcomes that need
+ * alerting (timeouts, OOM kills and executor errors).
+ * <p>
+ * Phases are {@code write} (program files), {@code spawn} (process, cgroup or
+ * container start), {@code run} (the program itself), {@code drain} (output
+ * still buffered after exit) and {@code cleanup}; {@code execution.duration}
+ * is the end-to-end time seen by the caller.
+ */
+@Component
+public class ExecutionMetrics {
+
+    /** Challenge tag for runs outside a challenge, e.g. the playground */
+    private static final String NO_CHALLENGE = "none";
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(60);
+
+    private final MeterRegistry meterRegistry;
+
+    public ExecutionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Record one execution
+     *
+     * @param challengeId challenge the run belongs to, or null
+     * @param totalNanos  end-to-end time, or a negative value when not measured
+     *                    on its own (a case within a batch)
+     */
+    public void record(String language, String challengeId, ExecutionResult result, long totalNanos) {
+        Tags tags = Tags.of(
+                "language", language,
+                "status", result.status().name(),
+                "challenge", challengeId != null ? challengeId : NO_CHALLENGE
+        );
+
+        if (totalNanos >= 0) {
+            timer("execution.duration", tags).record(totalNanos, TimeUnit.NANOSECONDS);
+        }
+        ExecutionResult.PhaseTimings phases = result.phases();
+        if (phases != null) {
+            phase("write", tags, phases.writeNanos());
+            phase("spawn", tags, phases.spawnNanos());
+            phase("run", tags, phases.runNanos());
+            phase("drain", tags, phases.drainNanos());
+            phase("cleanup", tags, phases.cleanupNanos());
+        }
+
+        switch (result.status()) {
+            case TIMEOUT -> count("execution.timeouts", language);
+            case MEMORY_LIMIT_EXCEEDED -> count("execution.oom.kills", language);
+            case INTERNAL_ERROR -> count("execution.errors", language);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Record the end-to-end time of a batch; its cases are recorded individually
+     */
+    public void recordBatch(String language, int size, long totalNanos) {
+        Timer.builder("execution.batch.duration")
+                .tag("language", language)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry)
+                .record(totalNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.summary("execution.batch.size", "language", language).record(size);
+    }
+
+    private void phase(String phase, Tags tags, long nanos) {
+        // Phases a backend does not have (a warm worker spawns nothing) are not recorded
+        if (nanos > 0) {
+            timer("execution.phase", tags.and("phase", phase)).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String name, Tags tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry);
+    }
+
+    private void count(String name, String language) {
+        Counter.builder(name)
+                .tag("language", language)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,311 @@
+package dev.compila.execution.pool;
+
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.dto.ExecutionRequest;
+import dev.compila.execution.dto.ExecutionResult;
+import dev.compila.execution.sandbox.ProcessSandbox;
+import dev.compila.execution.sandbox.SandboxLimits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Pool of warm interpreter workers for one language.
+ * <p>
+ * Workers are spawned in the background, each in a cgroup of its own, and
+ * handed out one request at a time. A reusable worker runs every request in
+ * a fresh process and is replaced after {@code poolMaxRunsPerWorker} runs or
+ * once it is lost; a single-use worker is replaced after every request, so
+ * only its startup is saved. Without the cgroup sandbox the pool stays off,
+ * as the workers would run without its limits. When no worker is available
+ * in time the caller falls back to a cold process.
+ */
+public class InterpreterPool {
+
+    private static final Logger log = LoggerFactory.getLogger(InterpreterPool.class);
+    private static final long STARTUP_TIMEOUT_MS = 10_000;
+
+    private final String language;
+    private final String harnessResource;
+    private final Function<Path, List<String>> commandFactory;
+    private final ExecutionConfig config;
+    private final ProcessSandbox sandbox;
+    private final boolean singleUse;
+    private final BlockingQueue<InterpreterWorker> idle = new LinkedBlockingQueue<>();
+    private final ExecutorService spawner;
+    private final ScheduledExecutorService watchdog;
+    private volatile List<String> command;
+    private volatile boolean shutdown;
+
+    /**
+     * @param language        language name, used for logging and thread names
+     * @param harnessResource classpath location of the worker harness script
+     * @param commandFactory  builds the worker command line from the extracted harness path
+     * @param singleUse       whether a worker may only serve one request, for
+     *                        harnesses that cannot isolate runs from each other
+     */
+    public InterpreterPool(
+            String language,
+            String harnessResource,
+            Function<Path, List<String>> commandFactory,
+            boolean singleUse,
+            ExecutionConfig config,
+            ProcessSandbox sandbox
+    ) {
+        this.language = language;
+        this.harnessResource = harnessResource;
+        this.commandFactory = commandFactory;
+        this.singleUse = singleUse;
+        this.config = config;
+        this.sandbox = sandbox;
+        this.spawner = Executors.newSingleThreadExecutor(daemon("interpreter-pool-" + language.toLowerCase()));
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(daemon("interpreter-watchdog-" + language.toLowerCase()));
+    }
+
+    /**
+     * Extract the harness and pre-fork the configured number of workers in the background
+     */
+    public void start() {
+        if (config.getPoolSize() <= 0) {
+            log.info("Interpreter pool disabled for {}", language);
+            return;
+        }
+        if (config.isUseDocker()) {
+            // Host interpreters would bypass container isolation
+            log.info("Interpreter pool disabled for {}: executing in containers", language);
+            return;
+        }
+        if (!sandbox.isCgroupBacked()) {
+            log.info("Interpreter pool disabled for {}: needs the cgroup sandbox", language);
+            return;
+        }
+        spawner.execute(() -> {
+            try {
+                command = commandFactory.apply(extractHarness());
+            } catch (IOException e) {
+                log.warn("Failed to prepare {} interpreter harness, pool disabled", language, e);
+                return;
+            }
+            for (int i = 0; i < config.getPoolSize(); i++) {
+                spawnWorker();
+            }
+            log.info("Interpreter pool for {} ready with {} workers", language, idle.size());
+        });
+    }
+
+    /**
+     * Whether the pool is enabled and ready to hand out workers; false while
+     * its harness is still being prepared, if it is disabled or shut down
+     */
+    public boolean isRunning() {
+        return command != null && !shutdown;
+    }
+
+    /**
+     * Run the request on a pooled worker.
+     *
+     * @return empty when the request is not eligible for pooling, no worker
+     * became available or the worker could not run the code faithfully
+     */
+    public Optional<ExecutionResult> execute(ExecutionRequest request) {
+        if (!isRunning() || !isEligible(request)) {
+            return Optional.empty();
+        }
+
+        InterpreterWorker worker = acquire();
+        if (worker == null) {
+            log.debug("No warm {} worker available, falling back to a cold process", language);
+            return Optional.empty();
+        }
+
+        InterpreterWorker.WorkerResult result = worker.run(request.code(), request.input(), timeoutSeconds(request), watchdog);
+        release(worker, result.workerLost());
+        if (result.status() == InterpreterWorker.WorkerResult.Status.UNSUPPORTED) {
+            log.debug("{} worker cannot run the code as a cold process would, falling back", language);
+            return Optional.empty();
+        }
+        return Optional.of(toExecutionResult(result));
+    }
+
+    /**
+     * Run the request's code once per input inside a single worker. When no
+     * pooled worker is idle a dedicated one is started for the batch, which
+     * still saves all but one interpreter startup.
+     *
+     * @return results in input order; may be shorter than {@code inputs} if a
+     * case breached a limit and killed the worker or could not be run
+     * faithfully, or empty if not eligible
+     */
+    public List<ExecutionResult> executeBatch(ExecutionRequest request, List<String> inputs) {
+        if (!isRunning() || !isEligible(request) || inputs.isEmpty()) {
+            return List.of();
+        }
+
+        InterpreterWorker worker = acquire();
+        boolean dedicated = worker == null;
+        if (dedicated) {
+            try {
+                worker = startWorker();
+            } catch (IOException e) {
+                log.warn("Failed to start {} batch worker", language, e);
+                return List.of();
+            }
+        }
+
+        List<InterpreterWorker.WorkerResult> results = worker.runBatch(request.code(), inputs, timeoutSeconds(request), watchdog);
+        boolean lost = results.size() < inputs.size()
+                || results.stream().anyMatch(InterpreterWorker.WorkerResult::workerLost);
+        if (dedicated) {
+            worker.destroy();
+        } else {
+            release(worker, lost);
+        }
+        return results.stream()
+                .takeWhile(result -> result.status() != InterpreterWorker.WorkerResult.Status.UNSUPPORTED)
+                .map(this::toExecutionResult)
+                .toList();
+    }
+
+    private InterpreterWorker acquire() {
+        try {
+            return idle.poll(config.getPoolAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private int timeoutSeconds(ExecutionRequest request) {
+        return request.constraints() != null && request.constraints().timeoutSeconds() != null
+                ? request.constraints().timeoutSeconds()
+                : (int) config.getDefaultTimeout().toSeconds();
+    }
+
+    /**
+     * Workers are started with the configured memory limit, so only requests
+     * asking for exactly that limit (or none) can safely run on them.
+     */
+    private boolean isEligible(ExecutionRequest request) {
+        if (request.environmentVariables() != null && !request.environmentVariables().isEmpty()) {
+            return false;
+        }
+        Integer maxMemoryMb = request.constraints() != null ? request.constraints().maxMemoryMb() : null;
+        return maxMemoryMb == null || maxMemoryMb == config.getMaxMemoryMb();
+    }
+
+    private void release(InterpreterWorker worker, boolean lost) {
+        if (!shutdown && !singleUse && !lost && worker.isAlive()
+                && worker.getRuns() < config.getPoolMaxRunsPerWorker()) {
+            idle.offer(worker);
+            return;
+        }
+        worker.destroy();
+        if (!shutdown) {
+            spawner.execute(this::spawnWorker);
+        }
+    }
+
+    private void spawnWorker() {
+        if (shutdown) {
+            return;
+        }
+        try {
+            idle.offer(startWorker());
+        } catch (IOException e) {
+            log.warn("Failed to start {} interpreter worker", language, e);
+        }
+    }
+
+    /**
+     * Start a worker in a new cgroup with the configured memory, CPU and
+     * process limits, removed along with the worker
+     */
+    private InterpreterWorker startWorker() throws IOException {
+        Path cgroup = sandbox.createCgroup(new SandboxLimits(
+                (int) config.getDefaultTimeout().toSeconds(),
+                config.getMaxMemoryMb(),
+                config.getMaxCpuCores(),
+                false
+        ));
+        return InterpreterWorker.start(
+                sandbox.cgroupCommand(command, cgroup),
+                () -> sandbox.removeCgroup(cgroup),
+                STARTUP_TIMEOUT_MS,
+                watchdog
+        );
+    }
+
+    private ExecutionResult toExecutionResult(InterpreterWorker.WorkerResult result) {
+        // A warm worker has nothing to write, spawn or clean up; all of its time is the program's
+        ExecutionResult.PhaseTimings phases = new ExecutionResult.PhaseTimings(
+                0, 0, TimeUnit.MILLISECONDS.toNanos(result.elapsedMs()), 0, 0);
+        ExecutionResult executionResult = switch (result.status()) {
+            // Only stdout is the program's answer, as for a cold process
+            case OK -> ExecutionResult.success(result.stdout(), result.elapsedMs());
+            case ERROR -> ExecutionResult.runtimeError(
+                    result.stderr().isEmpty() ? result.stdout() : result.stderr(), result.stderr());
+            case MEMORY -> ExecutionResult.error("Memory limit exceeded", ExecutionResult.ExecutionStatus.MEMORY_LIMIT_EXCEEDED);
+            case OUTPUT -> ExecutionResult.outputLimitExceeded();
+            case TIMEOUT -> ExecutionResult.timeout();
+            case CRASHED -> ExecutionResult.runtimeError(result.stderr(), result.stderr());
+            case UNSUPPORTED -> throw new IllegalArgumentException("Unsupported runs fall back to a cold process");
+        };
+        return executionResult.withPhases(phases);
+    }
+
+    private Path extractHarness() throws IOException {
+        return extractHarness(config, harnessResource);
+    }
+
+    /**
+     * Copy a harness script from the classpath into {@code work-dir/harness}
+     * so an interpreter can run it
+     */
+    public static Path extractHarness(ExecutionConfig config, String harnessResource) throws IOException {
+        Path dir = Files.createDirectories(Path.of(config.getWorkDir(), "harness"));
+        Path target = dir.resolve(Path.of(harnessResource).getFileName().toString());
+        try (InputStream in = InterpreterPool.class.getClassLoader().getResourceAsStream(harnessResource)) {
+            if (in == null) {
+                throw new IOException("Harness not found on classpath: " + harnessResource);
+            }
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    /**
+     * Stop handing out workers and kill all idle processes
+     */
+    public void shutdown() {
+        shutdown = true;
+        spawner.shutdownNow();
+        watchdog.shutdownNow();
+        InterpreterWorker worker;
+        while ((worker = idle.poll()) != null) {
+            worker.destroy();
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,240 @@
+package dev.compila.execution.pool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A single pre-forked interpreter process speaking the worker pipe protocol.
+ * See the harness scripts under resources/execution/harness for the other side.
+ * <p>
+ * Every request ends with a fresh random nonce that the answer must start
+ * with, so output the submitted code manages to write to the protocol
+ * stream is not taken for an answer; a mismatch loses the worker.
+ */
+final class InterpreterWorker {
+
+    /** Exit status of a process killed by SIGXCPU (CPU rlimit reached) */
+    private static final int SIGXCPU_EXIT = 128 + 24;
+    private static final SecureRandom NONCES = new SecureRandom();
+
+    private final Process process;
+    private final InputStream fromWorker;
+    private final OutputStream toWorker;
+    private final Runnable cleanup;
+    private final AtomicBoolean destroyed = new AtomicBoolean();
+    private int runs;
+
+    private InterpreterWorker(Process process, Runnable cleanup) {
+        this.process = process;
+        this.fromWorker = process.getInputStream();
+        this.toWorker = process.getOutputStream();
+        this.cleanup = cleanup;
+    }
+
+    /**
+     * Start a worker and wait until its harness reports READY
+     *
+     * @param cleanup runs once the worker is destroyed, e.g. to remove its cgroup
+     */
+    static InterpreterWorker start(
+            List<String> command,
+            Runnable cleanup,
+            long startupTimeoutMs,
+            ScheduledExecutorService watchdog
+    ) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        InterpreterWorker worker;
+        try {
+            worker = new InterpreterWorker(builder.start(), cleanup);
+        } catch (IOException e) {
+            cleanup.run();
+            throw e;
+        }
+
+        ScheduledFuture<?> kill = watchdog.schedule(worker::destroy, startupTimeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            String ready = worker.readLine();
+            if (!"READY".equals(ready)) {
+                worker.destroy();
+                throw new IOException("Interpreter worker failed to start: " + ready);
+            }
+        } finally {
+            kill.cancel(false);
+        }
+        return worker;
+    }
+
+    /**
+     * Run code in a fresh process or context of this worker. The watchdog
+     * kills the worker if it has not answered within the timeout plus a grace
+     * period.
+     */
+    WorkerResult run(String code, String input, int timeoutSeconds, ScheduledExecutorService watchdog) {
+        runs++;
+        byte[] codeBytes = code.getBytes(StandardCharsets.UTF_8);
+        byte[] inputBytes = toBytes(input);
+        String header = "RUN " + codeBytes.length + " " + inputBytes.length + " " + timeoutSeconds + "\n";
+        return exchange(watchdog, timeoutSeconds, header, codeBytes, inputBytes);
+    }
+
+    /**
+     * Load code once and run it against each input in turn, each in a fresh
+     * process or context. Stops at the first case that loses the worker, so
+     * the returned list may be shorter than {@code inputs}.
+     */
+    List<WorkerResult> runBatch(String code, List<String> inputs, int timeoutSeconds, ScheduledExecutorService watchdog) {
+        byte[] codeBytes = code.getBytes(StandardCharsets.UTF_8);
+        List<WorkerResult> results = new ArrayList<>(inputs.size());
+        try {
+            String header = "BATCH " + codeBytes.length + " " + inputs.size() + " " + timeoutSeconds + "\n";
+            toWorker.write(header.getBytes(StandardCharsets.US_ASCII));
+            toWorker.write(codeBytes);
+        } catch (IOException e) {
+            return results;
+        }
+
+        for (String input : inputs) {
+            runs++;
+            byte[] inputBytes = toBytes(input);
+            WorkerResult result = exchange(watchdog, timeoutSeconds, "CASE " + inputBytes.length + "\n", inputBytes);
+            results.add(result);
+            if (result.workerLost()) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    private WorkerResult exchange(ScheduledExecutorService watchdog, int timeoutSeconds, String header, byte[]... payload) {
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        ScheduledFuture<?> kill = watchdog.schedule(() -> {
+            timedOut.set(true);
+            destroy();
+        }, timeoutSeconds * 1000L + 500L, TimeUnit.MILLISECONDS);
+
+        String nonce = nonce();
+        try {
+            toWorker.write(header.getBytes(StandardCharsets.US_ASCII));
+            for (byte[] bytes : payload) {
+                toWorker.write(bytes);
+            }
+            toWorker.write((nonce + "\n").getBytes(StandardCharsets.US_ASCII));
+            toWorker.flush();
+
+            String response = readLine();
+            if (response == null) {
+                return terminated(timedOut.get());
+            }
+            String[] parts = response.split(" ");
+            if (parts.length != 6 || !nonce.equals(parts[0])) {
+                destroy();
+                return WorkerResult.crashed("Malformed worker response");
+            }
+            byte[] stdout = fromWorker.readNBytes(Integer.parseInt(parts[4]));
+            byte[] stderr = fromWorker.readNBytes(Integer.parseInt(parts[5]));
+            return new WorkerResult(
+                    WorkerResult.Status.valueOf(parts[1]),
+                    Integer.parseInt(parts[2]),
+                    Long.parseLong(parts[3]),
+                    new String(stdout, StandardCharsets.UTF_8),
+                    new String(stderr, StandardCharsets.UTF_8),
+                    false
+            );
+        } catch (IOException | IllegalArgumentException e) {
+            return terminated(timedOut.get());
+        } finally {
+            kill.cancel(false);
+        }
+    }
+
+    private static String nonce() {
+        byte[] bytes = new byte[16];
+        NONCES.nextBytes(bytes);
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static byte[] toBytes(String input) {
+        return input != null ? input.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private WorkerResult terminated(boolean timedOut) {
+        if (timedOut) {
+            return WorkerResult.timeout();
+        }
+        try {
+            if (process.waitFor(1, TimeUnit.SECONDS) && process.exitValue() == SIGXCPU_EXIT) {
+                return WorkerResult.timeout();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return WorkerResult.crashed("Interpreter terminated unexpectedly");
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = fromWorker.read()) != -1) {
+            if (b == '\n') {
+                return line.toString(StandardCharsets.US_ASCII);
+            }
+            line.write(b);
+        }
+        return null;
+    }
+
+    int getRuns() {
+        return runs;
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    void destroy() {
+        process.destroyForcibly();
+        if (destroyed.compareAndSet(false, true)) {
+            cleanup.run();
+        }
+    }
+
+    /**
+     * Outcome of a single pooled run
+     *
+     * @param workerLost whether the worker died or can no longer be trusted,
+     *                   rather than reporting the outcome itself
+     */
+    record WorkerResult(Status status, int exitCode, long elapsedMs, String stdout, String stderr, boolean workerLost) {
+
+        enum Status {
+            OK,
+            ERROR,
+            MEMORY,
+            OUTPUT,
+            TIMEOUT,
+            CRASHED,
+            /** The harness could not run the code as a cold process would; it was abandoned */
+            UNSUPPORTED
+        }
+
+        static WorkerResult timeout() {
+            return new WorkerResult(Status.TIMEOUT, -1, 0, "", "", true);
+        }
+
+        static WorkerResult crashed(String message) {
+            return new WorkerResult(Status.CRASHED, -1, 0, "", message, true);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package dev.compila.execution.process;
+
+import dev.compila.execution.compare.OutputComparator;
+import dev.compila.execution.dto.ExecutionResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a sandboxed program with streaming I/O.
+ * <p>
+ * Input is written to stdin on its own thread while stdout and stderr are
+ * drained concurrently, so a program producing more than the pipe buffer can
+ * hold never blocks. Output beyond {@code outputLimitBytes} (stdout and stderr
+ * combined) kills the process, and so does stdout diverging from the expected
+ * output when an {@link OutputComparator} is given.
+ */
+public final class ProcessRunner {
+
+    /** Exit status of a process killed by SIGXCPU (ulimit -t reached) */
+    private static final int SIGXCPU_EXIT = 128 + 24;
+    private static final int CHUNK_SIZE = 8192;
+    private static final long DRAIN_GRACE_MS = 1000;
+
+    private ProcessRunner() {
+    }
+
+    /**
+     * @param input      data for stdin, or null for an empty stdin
+     * @param comparator expected-output comparator for early abort, or null
+     */
+    public static ProcessOutcome run(
+            ProcessBuilder builder,
+            String input,
+            Duration timeout,
+            int outputLimitBytes,
+            OutputComparator comparator
+    ) throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        long spawnStart = System.nanoTime();
+        Process process = builder.start();
+        long runStart = System.nanoTime();
+
+        AtomicReference<ProcessOutcome.Status> killedFor = new AtomicReference<>();
+        AtomicInteger outputBytes = new AtomicInteger();
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+        Thread writer = Thread.ofVirtual().start(() -> feed(process.getOutputStream(), input));
+        Thread stdoutDrain = Thread.ofVirtual().start(() -> drain(
+                process, process.getInputStream(), stdout, outputBytes, outputLimitBytes, comparator, killedFor));
+        Thread stderrDrain = Thread.ofVirtual().start(() -> drain(
+                process, process.getErrorStream(), stderr, outputBytes, outputLimitBytes, null, killedFor));
+
+        boolean finished;
+        try {
+            finished = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+        if (!finished) {
+            killedFor.compareAndSet(null, ProcessOutcome.Status.TIMEOUT);
+            process.destroyForcibly();
+            process.waitFor();
+        }
+        long elapsedMs = System.currentTimeMillis() - startTime;
+        long drainStart = System.nanoTime();
+
+        stdoutDrain.join(DRAIN_GRACE_MS);
+        stderrDrain.join(DRAIN_GRACE_MS);
+        writer.interrupt();
+        ExecutionResult.PhaseTimings phases = new ExecutionResult.PhaseTimings(
+                0, runStart - spawnStart, drainStart - runStart, System.nanoTime() - drainStart, 0);
+
+        ProcessOutcome.Status status = killedFor.get() != null ? killedFor.get() : ProcessOutcome.Status.EXITED;
+        if (status == ProcessOutcome.Status.EXITED && process.exitValue() == SIGXCPU_EXIT) {
+            status = ProcessOutcome.Status.TIMEOUT;
+        }
+        // The comparator has seen all of stdout once its drain is done
+        Boolean outputMatched = null;
+        if (comparator != null && status == ProcessOutcome.Status.EXITED && !stdoutDrain.isAlive()) {
+            outputMatched = comparator.finish();
+        }
+        String out;
+        String err;
+        synchronized (stdout) {
+            out = stdout.toString(StandardCharsets.UTF_8);
+        }
+        synchronized (stderr) {
+            err = stderr.toString(StandardCharsets.UTF_8);
+        }
+        return new ProcessOutcome(status, process.exitValue(), elapsedMs, out, err, null, phases, outputMatched);
+    }
+
+    private static void feed(OutputStream stdin, String input) {
+        try (stdin) {
+            if (input != null && !input.isEmpty()) {
+                stdin.write(input.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException ignored) {
+            // The program exited or closed stdin without reading all of it
+        }
+    }
+
+    private static void drain(
+            Process process,
+            InputStream stream,
+            ByteArrayOutputStream sink,
+            AtomicInteger outputBytes,
+            int outputLimitBytes,
+            OutputComparator comparator,
+            AtomicReference<ProcessOutcome.Status> killedFor
+    ) {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try (stream) {
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                int total = outputBytes.addAndGet(read);
+                if (total > outputLimitBytes) {
+                    kill(process, killedFor, ProcessOutcome.Status.OUTPUT_LIMIT);
+                    return;
+                }
+                synchronized (sink) {
+                    sink.write(chunk, 0, read);
+                }
+                if (comparator != null && !comparator.accept(chunk, 0, read)) {
+                    kill(process, killedFor, ProcessOutcome.Status.DIVERGED);
+                    return;
+                }
+            }
+        } catch (IOException ignored) {
+            // Stream closed because the process was killed
+        }
+    }
+
+    private static void kill(
+            Process process,
+            AtomicReference<ProcessOutcome.Status> killedFor,
+            ProcessOutcome.Status reason
+    ) {
+        if (killedFor.compareAndSet(null, reason)) {
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * What happened to a program run
+     *
+     * @param outputMatched the comparator's verdict on a complete stdout, or
+     *                      null without a comparator or a normal exit
+     */
+    public record ProcessOutcome(
+            Status status,
+            int exitCode,
+            long elapsedMs,
+            String stdout,
+            String stderr,
+            ExecutionResult.ResourceUsage usage,
+            ExecutionResult.PhaseTimings phases,
+            Boolean outputMatched
+    ) {
+
+        public enum Status {
+            /** The program exited on its own; check {@code exitCode} */
+            EXITED,
+            TIMEOUT,
+            OUTPUT_LIMIT,
+            /** Killed by the kernel for exceeding its memory limit */
+            MEMORY_LIMIT,
+            /** Killed because stdout stopped matching the expected output */
+            DIVERGED
+        }
+
+        /**
+         * The same outcome with measured resource usage, reclassified as a
+         * memory limit breach when the kernel OOM-killed the program
+         */
+        public ProcessOutcome withUsage(ExecutionResult.ResourceUsage usage, boolean oomKilled) {
+            Status adjusted = oomKilled && status == Status.EXITED ? Status.MEMORY_LIMIT : status;
+            return new ProcessOutcome(adjusted, exitCode, elapsedMs, stdout, stderr, usage, phases, outputMatched);
+        }
+
+        /**
+         * The same outcome with the sandbox's own work added: files it wrote,
+         * setup counted as spawning and teardown counted as cleanup
+         */
+        public ProcessOutcome withSandboxPhases(long writeNanos, long setupNanos, long teardownNanos) {
+            ExecutionResult.PhaseTimings adjusted = new ExecutionResult.PhaseTimings(
+                    phases.writeNanos() + writeNanos,
+                    phases.spawnNanos() + setupNanos,
+                    phases.runNanos(),
+                    phases.drainNanos(),
+                    phases.cleanupNanos() + teardownNanos
+            );
+            return new ProcessOutcome(status, exitCode, elapsedMs, stdout, stderr, usage, adjusted, outputMatched);
+        }
+
+        public ExecutionResult toExecutionResult() {
+            ExecutionResult result = switch (status) {
+                case TIMEOUT -> ExecutionResult.timeout();
+                case OUTPUT_LIMIT -> ExecutionResult.outputLimitExceeded();
+                case MEMORY_LIMIT -> ExecutionResult.error("Memory limit exceeded", ExecutionResult.ExecutionStatus.MEMORY_LIMIT_EXCEEDED);
+                case DIVERGED -> ExecutionResult.wrongAnswer(stdout, elapsedMs);
+                case EXITED -> exitCode == 0
+                        ? ExecutionResult.success(stdout, elapsedMs).withOutputMatched(outputMatched)
+                        : ExecutionResult.runtimeError(stderr.isEmpty() ? stdout : stderr, stderr);
+            };
+            return (usage != null ? result.withResourceUsage(usage) : result).withPhases(phases);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package dev.compila.execution.remote;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.execution.config.RemoteExecutionConfig;
+import dev.compila.execution.dto.ExecutionRequest;
+import dev.compila.execution.dto.ExecutionResult;
+import dev.compila.execution.language.CodeExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Execution worker node: serves the {@link WorkerProtocol} on
+ * {@code remote-execution.server-port} and runs requests on this instance's
+ * executors, at most {@code server-concurrency} at a time.
+ * <p>
+ * Any instance can act as a worker, including the API instance itself, which
+ * makes a single machine a complete (if unscaled) setup for tests. The server
+ * refuses to start without an {@code auth-token}.
+ */
+@Component
+public class ExecutionWorkerServer implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionWorkerServer.class);
+
+    private final Map<String, CodeExecutor> executors;
+    private final RemoteExecutionConfig config;
+    private final ObjectMapper objectMapper;
+    private final Semaphore slots;
+    private volatile ServerSocket serverSocket;
+
+    public ExecutionWorkerServer(List<CodeExecutor> executors, RemoteExecutionConfig config, ObjectMapper objectMapper) {
+        this.executors = executors.stream().collect(Collectors.toMap(CodeExecutor::getLanguage, Function.identity()));
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.slots = new Semaphore(Math.max(1, config.getServerConcurrency()));
+        if (config.getServerPort() > 0) {
+            start();
+        }
+    }
+
+    private void start() {
+        if (config.getAuthToken() == null || config.getAuthToken().isBlank()) {
+            throw new IllegalStateException("remote-execution.auth-token must be set to serve as an execution worker");
+        }
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(config.getServerBindAddress(), config.getServerPort()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start execution worker on port " + config.getServerPort(), e);
+        }
+        Thread.ofPlatform().daemon().name("execution-worker-acceptor").start(this::acceptLoop);
+        log.info("Execution worker listening on {}:{} with {} slots",
+                config.getServerBindAddress(), config.getServerPort(), config.getServerConcurrency());
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread.ofVirtual().name("execution-worker-connection").start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("Failed to accept execution worker connection", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            WorkerFrame hello = WorkerProtocol.read(in, objectMapper);
+            if (hello.type() != WorkerFrame.Type.HELLO || !authorized(hello.token())) {
+                log.warn("Rejected execution worker connection from {}", socket.getRemoteSocketAddress());
+                WorkerProtocol.write(out, objectMapper, WorkerFrame.error(0, "Unauthorized"));
+                return;
+            }
+            WorkerProtocol.write(out, objectMapper, WorkerFrame.welcome(config.getServerConcurrency()));
+
+            while (true) {
+                WorkerFrame frame = WorkerProtocol.read(in, objectMapper);
+                switch (frame.type()) {
+                    case PING -> send(out, WorkerFrame.pong(frame.id()));
+                    case EXECUTE, EXECUTE_BATCH -> Thread.ofVirtual().start(() -> send(out, handle(frame)));
+                    default -> send(out, WorkerFrame.error(frame.id(), "Unexpected frame: " + frame.type()));
+                }
+            }
+        } catch (EOFException e) {
+            // Client disconnected
+        } catch (IOException e) {
+            log.debug("Execution worker connection from {} failed", socket.getRemoteSocketAddress(), e);
+        }
+    }
+
+    private WorkerFrame handle(WorkerFrame frame) {
+        ExecutionRequest request = frame.request();
+        CodeExecutor executor = request != null ? executors.get(request.language()) : null;
+        if (executor == null) {
+            return WorkerFrame.error(frame.id(), "Unsupported language: " + (request != null ? request.language() : null));
+        }
+
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return WorkerFrame.error(frame.id(), "Worker shutting down");
+        }
+        try {
+            List<ExecutionResult> results = frame.type() == WorkerFrame.Type.EXECUTE_BATCH
+                    ? executor.executeBatch(request, frame.inputs())
+                    : List.of(executor.execute(request));
+            return WorkerFrame.result(frame.id(), results);
+        } catch (Exception e) {
+            log.error("Execution failed for language: " + request.language(), e);
+            return WorkerFrame.error(frame.id(), "Execution failed: " + e.getMessage());
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void send(DataOutputStream out, WorkerFrame frame) {
+        synchronized (out) {
+            try {
+                WorkerProtocol.write(out, objectMapper, frame);
+            } catch (IOException e) {
+                // The reader notices the broken connection and closes it
+                log.debug("Failed to send frame {} to execution client", frame.id(), e);
+            }
+        }
+    }
+
+    private boolean authorized(String token) {
+        if (config.getAuthToken().isBlank()) {
+            return false;
+        }
+        byte[] expected = config.getAuthToken().getBytes(StandardCharsets.UTF_8);
+        byte[] actual = token != null ? token.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package dev.compila.execution.remote;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.config.RemoteExecutionConfig;
+import dev.compila.execution.dto.ExecutionRequest;
+import dev.compila.execution.dto.ExecutionResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Routes executions to the worker fleet in {@code remote-execution.workers}.
+ * <p>
+ * Each request goes to the healthy worker with the lowest load relative to
+ * its capacity, waiting up to {@code acquire-timeout} when every worker is
+ * full. A request whose worker is lost is retried on another, up to
+ * {@code max-attempts} times; executions have no side effects, so a retry is
+ * always safe. Workers are pinged every {@code health-check-interval} and
+ * only receive traffic while they answer.
+ */
+@Component
+public class RemoteExecutionDispatcher implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteExecutionDispatcher.class);
+
+    private final RemoteExecutionConfig config;
+    private final ExecutionConfig executionConfig;
+    private final List<RemoteWorker> workers;
+    private final ScheduledExecutorService healthChecker;
+
+    public RemoteExecutionDispatcher(
+            RemoteExecutionConfig config,
+            ExecutionConfig executionConfig,
+            ObjectMapper objectMapper
+    ) {
+        this.config = config;
+        this.executionConfig = executionConfig;
+        this.workers = config.isEnabled()
+                ? config.getWorkers().stream()
+                        .map(address -> new RemoteWorker(address, config, objectMapper, this::workersChanged))
+                        .toList()
+                : List.of();
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "execution-worker-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (config.isEnabled()) {
+            if (workers.isEmpty()) {
+                log.warn("Remote execution enabled without workers; every execution will fail");
+            }
+            long interval = config.getHealthCheckInterval().toMillis();
+            healthChecker.scheduleWithFixedDelay(this::checkWorkers, 0, interval, TimeUnit.MILLISECONDS);
+            log.info("Dispatching executions to {} remote workers", workers.size());
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public ExecutionResult execute(ExecutionRequest request) {
+        List<ExecutionResult> results = dispatch(WorkerFrame.execute(0, request), request, 1);
+        return results.get(0);
+    }
+
+    /**
+     * @return one result per input, in input order
+     */
+    public List<ExecutionResult> executeBatch(ExecutionRequest request, List<String> inputs) {
+        return dispatch(WorkerFrame.executeBatch(0, request, inputs), request, inputs.size());
+    }
+
+    private List<ExecutionResult> dispatch(WorkerFrame frame, ExecutionRequest request, int runs) {
+        Duration timeout = replyTimeout(request, runs);
+        String lastFailure = "No execution worker available";
+
+        for (int attempt = 1; attempt <= config.getMaxAttempts(); attempt++) {
+            RemoteWorker worker;
+            try {
+                worker = acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return failed(runs, "Execution interrupted");
+            }
+            if (worker == null) {
+                break;
+            }
+
+            try {
+                WorkerFrame reply = worker.call(frame, timeout);
+                if (reply.type() == WorkerFrame.Type.RESULT && reply.results() != null && reply.results().size() == runs) {
+                    return reply.results();
+                }
+                log.warn("Execution worker {} failed: {}", worker.address(), reply.error());
+                return failed(runs, reply.error() != null ? reply.error() : "Invalid reply from execution worker");
+            } catch (RemoteWorker.WorkerLostException e) {
+                log.warn("{} (attempt {}/{})", e.getMessage(), attempt, config.getMaxAttempts());
+                lastFailure = e.getMessage();
+            } catch (TimeoutException e) {
+                // The worker is alive but stuck; re-running elsewhere would just double the load
+                log.warn("Execution worker {} did not reply within {}", worker.address(), timeout);
+                return failed(runs, "Execution worker timed out");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return failed(runs, "Execution interrupted");
+            } finally {
+                release(worker);
+            }
+        }
+        return failed(runs, lastFailure);
+    }
+
+    /**
+     * Claim a slot on the least-loaded healthy worker, waiting for one to free up
+     *
+     * @return null when no worker had a free slot within the acquire timeout
+     */
+    private synchronized RemoteWorker acquire() throws InterruptedException {
+        long deadline = System.nanoTime() + config.getAcquireTimeout().toNanos();
+        while (true) {
+            RemoteWorker best = workers.stream()
+                    .filter(worker -> worker.healthy && worker.inFlight < worker.capacity)
+                    .min(Comparator.comparingDouble(worker -> (double) worker.inFlight / worker.capacity))
+                    .orElse(null);
+            if (best != null) {
+                best.inFlight++;
+                return best;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+    }
+
+    private synchronized void release(RemoteWorker worker) {
+        worker.inFlight--;
+        notifyAll();
+    }
+
+    private synchronized void workersChanged() {
+        notifyAll();
+    }
+
+    private void checkWorkers() {
+        workers.forEach(RemoteWorker::checkHealth);
+    }
+
+    /**
+     * The worker enforces the run's own time limit; the reply deadline only
+     * guards against a worker that stopped responding
+     */
+    private Duration replyTimeout(ExecutionRequest request, int runs) {
+        long runSeconds = request.constraints() != null && request.constraints().timeoutSeconds() != null
+                ? request.constraints().timeoutSeconds()
+                : executionConfig.getDefaultTimeout().toSeconds();
+        return Duration.ofSeconds(runSeconds * runs).plus(config.getRequestTimeoutMargin());
+    }
+
+    private static List<ExecutionResult> failed(int runs, String error) {
+        ExecutionResult result = ExecutionResult.error(error, ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        return Collections.nCopies(runs, result);
+    }
+
+    @Override
+    public void destroy() {
+        healthChecker.shutdownNow();
+        workers.forEach(RemoteWorker::close);
+    }
+}
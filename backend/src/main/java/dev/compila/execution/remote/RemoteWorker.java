@@ -0,0 +1,226 @@
+package dev.compila.execution.remote;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.execution.config.RemoteExecutionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client side of one execution worker: a single multiplexed connection,
+ * opened lazily and re-opened after it breaks.
+ * <p>
+ * Load and health are tracked here but guarded by the
+ * {@link RemoteExecutionDispatcher}, which does the routing.
+ */
+class RemoteWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteWorker.class);
+
+    private final String address;
+    private final String host;
+    private final int port;
+    private final RemoteExecutionConfig config;
+    private final ObjectMapper objectMapper;
+    private final Runnable onStateChange;
+    private final AtomicLong frameIds = new AtomicLong();
+    private Connection connection;
+
+    /** Requests currently routed to this worker; guarded by the dispatcher */
+    int inFlight;
+    /** Concurrency limit, lowered to the worker's advertised capacity on connect */
+    volatile int capacity;
+    volatile boolean healthy;
+
+    RemoteWorker(String address, RemoteExecutionConfig config, ObjectMapper objectMapper, Runnable onStateChange) {
+        int separator = address.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Execution worker address must be host:port, got " + address);
+        }
+        this.address = address;
+        this.host = address.substring(0, separator);
+        this.port = Integer.parseInt(address.substring(separator + 1));
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.onStateChange = onStateChange;
+        this.capacity = Math.max(1, config.getMaxConcurrencyPerWorker());
+    }
+
+    String address() {
+        return address;
+    }
+
+    /**
+     * Send a request frame and wait for its reply
+     *
+     * @throws WorkerLostException when the connection could not be opened or broke before the reply
+     * @throws TimeoutException    when the worker is connected but did not reply in time
+     */
+    WorkerFrame call(WorkerFrame frame, Duration timeout) throws WorkerLostException, TimeoutException, InterruptedException {
+        Connection current;
+        try {
+            current = connection();
+        } catch (IOException e) {
+            markUnhealthy();
+            throw new WorkerLostException(address, e);
+        }
+
+        long id = frameIds.incrementAndGet();
+        CompletableFuture<WorkerFrame> reply = new CompletableFuture<>();
+        current.pending.put(id, reply);
+        try {
+            current.send(frame.withId(id));
+            return reply.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            current.close(e);
+            throw new WorkerLostException(address, e);
+        } catch (ExecutionException e) {
+            throw new WorkerLostException(address, e.getCause());
+        } finally {
+            current.pending.remove(id);
+        }
+    }
+
+    /**
+     * Ping the worker, connecting first if needed, and record whether it answered
+     */
+    void checkHealth() {
+        boolean answered;
+        try {
+            answered = call(WorkerFrame.ping(0), config.getConnectTimeout()).type() == WorkerFrame.Type.PONG;
+        } catch (WorkerLostException | TimeoutException e) {
+            answered = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (answered != healthy) {
+            log.info("Execution worker {} is {}", address, answered ? "up" : "down");
+            healthy = answered;
+            onStateChange.run();
+        }
+    }
+
+    private void markUnhealthy() {
+        if (healthy) {
+            log.warn("Lost execution worker {}", address);
+            healthy = false;
+            onStateChange.run();
+        }
+    }
+
+    private synchronized Connection connection() throws IOException {
+        if (connection != null && !connection.closed) {
+            return connection;
+        }
+
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), (int) config.getConnectTimeout().toMillis());
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            socket.setSoTimeout((int) config.getConnectTimeout().toMillis());
+            WorkerProtocol.write(out, objectMapper, WorkerFrame.hello(config.getAuthToken()));
+            WorkerFrame welcome = WorkerProtocol.read(in, objectMapper);
+            if (welcome.type() != WorkerFrame.Type.HELLO) {
+                throw new IOException("Handshake rejected: " + welcome.error());
+            }
+            socket.setSoTimeout(0);
+            if (welcome.capacity() != null && welcome.capacity() > 0) {
+                capacity = Math.min(config.getMaxConcurrencyPerWorker(), welcome.capacity());
+            }
+
+            connection = new Connection(socket, in, out);
+            Thread.ofVirtual().name("execution-worker-reader").start(connection::readLoop);
+            return connection;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    synchronized void close() {
+        if (connection != null) {
+            connection.close(new IOException("Client shut down"));
+        }
+    }
+
+    private final class Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final Map<Long, CompletableFuture<WorkerFrame>> pending = new ConcurrentHashMap<>();
+        private volatile boolean closed;
+
+        private Connection(Socket socket, DataInputStream in, DataOutputStream out) {
+            this.socket = socket;
+            this.in = in;
+            this.out = out;
+        }
+
+        private void send(WorkerFrame frame) throws IOException {
+            synchronized (out) {
+                WorkerProtocol.write(out, objectMapper, frame);
+            }
+        }
+
+        private void readLoop() {
+            try {
+                while (true) {
+                    WorkerFrame frame = WorkerProtocol.read(in, objectMapper);
+                    CompletableFuture<WorkerFrame> reply = pending.remove(frame.id());
+                    if (reply != null) {
+                        reply.complete(frame);
+                    }
+                }
+            } catch (IOException e) {
+                close(e);
+            }
+        }
+
+        /**
+         * Fail everything in flight so callers can retry on another worker.
+         * The worker is marked unhealthy first, so a retry cannot pick it again.
+         */
+        private synchronized void close(IOException cause) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already broken
+            }
+            markUnhealthy();
+            pending.values().forEach(reply -> reply.completeExceptionally(cause));
+            pending.clear();
+        }
+    }
+
+    /**
+     * The worker could not be reached or the connection broke mid-request
+     */
+    static class WorkerLostException extends Exception {
+        WorkerLostException(String address, Throwable cause) {
+            super("Execution worker " + address + " lost: " + (cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName()), cause);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package dev.compila.execution.remote;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.compila.execution.dto.ExecutionRequest;
+import dev.compila.execution.dto.ExecutionResult;
+
+import java.util.List;
+
+/**
+ * One message of the execution worker protocol.
+ * <p>
+ * A connection opens with a {@code HELLO} from the client carrying the shared
+ * token, answered by a {@code HELLO} carrying the worker's capacity. After that
+ * the client sends {@code EXECUTE}, {@code EXECUTE_BATCH} and {@code PING}
+ * frames, and the worker answers each with a {@code RESULT}, {@code PONG} or
+ * {@code ERROR} frame echoing its id. Replies may arrive out of order.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record WorkerFrame(
+        Type type,
+        long id,
+        ExecutionRequest request,
+        List<String> inputs,
+        List<ExecutionResult> results,
+        String token,
+        Integer capacity,
+        String error
+) {
+    public enum Type {
+        HELLO,
+        EXECUTE,
+        EXECUTE_BATCH,
+        RESULT,
+        PING,
+        PONG,
+        ERROR
+    }
+
+    public static WorkerFrame hello(String token) {
+        return new WorkerFrame(Type.HELLO, 0, null, null, null, token, null, null);
+    }
+
+    public static WorkerFrame welcome(int capacity) {
+        return new WorkerFrame(Type.HELLO, 0, null, null, null, null, capacity, null);
+    }
+
+    public static WorkerFrame execute(long id, ExecutionRequest request) {
+        return new WorkerFrame(Type.EXECUTE, id, request, null, null, null, null, null);
+    }
+
+    public static WorkerFrame executeBatch(long id, ExecutionRequest request, List<String> inputs) {
+        return new WorkerFrame(Type.EXECUTE_BATCH, id, request, inputs, null, null, null, null);
+    }
+
+    public static WorkerFrame result(long id, List<ExecutionResult> results) {
+        return new WorkerFrame(Type.RESULT, id, null, null, results, null, null, null);
+    }
+
+    public static WorkerFrame ping(long id) {
+        return new WorkerFrame(Type.PING, id, null, null, null, null, null, null);
+    }
+
+    public static WorkerFrame pong(long id) {
+        return new WorkerFrame(Type.PONG, id, null, null, null, null, null, null);
+    }
+
+    public static WorkerFrame error(long id, String error) {
+        return new WorkerFrame(Type.ERROR, id, null, null, null, null, null, error);
+    }
+
+    /**
+     * Same frame under a new id; retries and connections number frames independently
+     */
+    public WorkerFrame withId(long newId) {
+        return new WorkerFrame(type, newId, request, inputs, results, token, capacity, error);
+    }
+}
@@ -0,0 +1,43 @@
+package dev.compila.execution.remote;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Framing for the execution worker protocol: each {@link WorkerFrame} is sent
+ * as a 4-byte big-endian length followed by that many bytes of UTF-8 JSON.
+ */
+public final class WorkerProtocol {
+
+    /** Larger than any legitimate frame: code, inputs and outputs are all size-limited upstream */
+    static final int MAX_FRAME_BYTES = 32 * 1024 * 1024;
+
+    private WorkerProtocol() {
+    }
+
+    /**
+     * Callers writing from several threads must synchronize on {@code out}
+     */
+    public static void write(DataOutputStream out, ObjectMapper objectMapper, WorkerFrame frame) throws IOException {
+        byte[] payload = objectMapper.writeValueAsBytes(frame);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * @throws java.io.EOFException when the peer closed the connection
+     */
+    public static WorkerFrame read(DataInputStream in, ObjectMapper objectMapper) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return objectMapper.readValue(payload, WorkerFrame.class);
+    }
+}
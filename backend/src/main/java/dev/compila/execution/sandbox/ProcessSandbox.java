@@ -0,0 +1,257 @@
+package dev.compila.execution.sandbox;
+
+import dev.compila.execution.compare.OutputComparator;
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.dto.ExecutionResult;
+import dev.compila.execution.process.ProcessRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Runs untrusted programs under resource limits.
+ * <p>
+ * With a delegated cgroup v2 subtree at {@code code-execution.cgroup-root},
+ * every run gets its own transient cgroup enforcing {@code memory.max},
+ * {@code cpu.max} and {@code pids.max}, and the result carries the peak
+ * memory and user/system CPU time the kernel accounted to it. Without one,
+ * runs fall back to {@code ulimit} in a shell wrapper and report no usage.
+ */
+@Component
+public class ProcessSandbox {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessSandbox.class);
+    private static final Set<String> REQUIRED_CONTROLLERS = Set.of("memory", "cpu", "pids");
+    private static final long CPU_PERIOD_MICROS = 100_000;
+
+    private final ExecutionConfig config;
+    private final Path cgroupRoot;
+    private final boolean cgroupsEnabled;
+
+    public ProcessSandbox(ExecutionConfig config) {
+        this.config = config;
+        this.cgroupRoot = Path.of(config.getCgroupRoot());
+        this.cgroupsEnabled = switch (config.getSandbox().toLowerCase()) {
+            case "ulimit" -> false;
+            case "cgroup" -> {
+                if (!prepareCgroupRoot()) {
+                    throw new IllegalStateException("cgroup v2 sandbox requested but " + cgroupRoot + " is not usable");
+                }
+                yield true;
+            }
+            default -> prepareCgroupRoot();
+        };
+        log.info("Execution sandbox: {}", cgroupsEnabled ? "cgroup v2 at " + cgroupRoot : "ulimit");
+    }
+
+    public boolean isCgroupBacked() {
+        return cgroupsEnabled;
+    }
+
+    /**
+     * Run a command inside the sandbox
+     *
+     * @param input      data for stdin, or null
+     * @param comparator expected-output comparator for early abort, or null
+     */
+    public ProcessRunner.ProcessOutcome run(
+            List<String> command,
+            SandboxLimits limits,
+            String input,
+            OutputComparator comparator
+    ) throws IOException, InterruptedException {
+        return run(command, null, limits, input, comparator);
+    }
+
+    /**
+     * Run a command inside the sandbox from a working directory
+     *
+     * @param workingDirectory directory the program starts in, or null for ours
+     * @param input            data for stdin, or null
+     * @param comparator       expected-output comparator for early abort, or null
+     */
+    public ProcessRunner.ProcessOutcome run(
+            List<String> command,
+            Path workingDirectory,
+            SandboxLimits limits,
+            String input,
+            OutputComparator comparator
+    ) throws IOException, InterruptedException {
+        if (!cgroupsEnabled) {
+            return ProcessRunner.run(
+                    new ProcessBuilder(ulimitCommand(command, limits)).directory(toFile(workingDirectory)),
+                    input,
+                    Duration.ofSeconds(limits.timeoutSeconds()),
+                    outputLimitBytes(),
+                    comparator
+            );
+        }
+
+        long setupStart = System.nanoTime();
+        Path cgroup = createCgroup(limits);
+        long setupNanos = System.nanoTime() - setupStart;
+        ProcessRunner.ProcessOutcome outcome;
+        long teardownStart;
+        try {
+            outcome = ProcessRunner.run(
+                    new ProcessBuilder(cgroupCommand(command, cgroup)).directory(toFile(workingDirectory)),
+                    input,
+                    Duration.ofSeconds(limits.timeoutSeconds()),
+                    outputLimitBytes(),
+                    comparator
+            ).withUsage(readUsage(cgroup), oomKilled(cgroup));
+        } finally {
+            teardownStart = System.nanoTime();
+            removeCgroup(cgroup);
+        }
+        return outcome.withSandboxPhases(0, setupNanos, System.nanoTime() - teardownStart);
+    }
+
+    private static File toFile(Path directory) {
+        return directory != null ? directory.toFile() : null;
+    }
+
+    private int outputLimitBytes() {
+        return config.getMaxOutputKb() * 1024;
+    }
+
+    /**
+     * Move the shell into the run's cgroup before exec'ing the program, so
+     * the program and every process it forks are accounted from the start.
+     * Also for long-lived processes, such as pooled interpreters, in a cgroup
+     * of their own from {@link #createCgroup}.
+     */
+    public List<String> cgroupCommand(List<String> command, Path cgroup) {
+        List<String> wrapped = new ArrayList<>(List.of(
+                "/bin/sh", "-c", "echo $$ > \"$0\" && exec \"$@\"",
+                cgroup.resolve("cgroup.procs").toString()
+        ));
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    private List<String> ulimitCommand(List<String> command, SandboxLimits limits) {
+        StringBuilder script = new StringBuilder();
+        if (limits.timeoutSeconds() > 0) {
+            script.append("ulimit -t ").append(limits.timeoutSeconds()).append("; ");
+        }
+        if (limits.limitAddressSpace() && limits.maxMemoryMb() > 0) {
+            script.append("ulimit -v ").append(limits.maxMemoryMb() * 1024L).append("; ");
+        }
+        script.append("exec ").append(command.stream().map(ProcessSandbox::shellQuote).collect(Collectors.joining(" ")));
+        return List.of("bash", "-lc", script.toString());
+    }
+
+    /**
+     * A transient cgroup enforcing the limits' memory and CPU and the
+     * configured process cap; {@link #removeCgroup} kills what is left in it
+     */
+    public Path createCgroup(SandboxLimits limits) throws IOException {
+        Path cgroup = Files.createDirectory(cgroupRoot.resolve("run-" + UUID.randomUUID()));
+        Files.writeString(cgroup.resolve("memory.max"), String.valueOf(limits.maxMemoryMb() * 1024L * 1024L));
+        writeIfPresent(cgroup.resolve("memory.swap.max"), "0");
+        Files.writeString(cgroup.resolve("cpu.max"), (Math.max(1, limits.maxCpuCores()) * CPU_PERIOD_MICROS) + " " + CPU_PERIOD_MICROS);
+        Files.writeString(cgroup.resolve("pids.max"), String.valueOf(config.getMaxProcesses()));
+        return cgroup;
+    }
+
+    private ExecutionResult.ResourceUsage readUsage(Path cgroup) {
+        try {
+            long userMicros = 0;
+            long systemMicros = 0;
+            for (String line : Files.readAllLines(cgroup.resolve("cpu.stat"))) {
+                String[] parts = line.split(" ");
+                switch (parts[0]) {
+                    case "user_usec" -> userMicros = Long.parseLong(parts[1]);
+                    case "system_usec" -> systemMicros = Long.parseLong(parts[1]);
+                    default -> {
+                    }
+                }
+            }
+            // memory.peak needs Linux 5.19; older kernels only expose the current value
+            Path peak = cgroup.resolve("memory.peak");
+            Path memory = Files.exists(peak) ? peak : cgroup.resolve("memory.current");
+            long peakBytes = Long.parseLong(Files.readString(memory).trim());
+            return new ExecutionResult.ResourceUsage(peakBytes, userMicros, systemMicros);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to read resource usage from {}", cgroup, e);
+            return null;
+        }
+    }
+
+    private boolean oomKilled(Path cgroup) {
+        try {
+            return Files.readAllLines(cgroup.resolve("memory.events")).stream()
+                    .anyMatch(line -> line.startsWith("oom_kill ") && !line.equals("oom_kill 0"));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public void removeCgroup(Path cgroup) {
+        // Kill anything the program left behind; a cgroup can only be removed once empty
+        writeIfPresent(cgroup.resolve("cgroup.kill"), "1");
+        for (int attempt = 0; attempt < 50; attempt++) {
+            try {
+                Files.delete(cgroup);
+                return;
+            } catch (IOException e) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        log.warn("Failed to remove cgroup {}", cgroup);
+    }
+
+    /**
+     * The root must be a cgroup v2 directory we can create children in, with
+     * the memory, cpu and pids controllers enabled for them
+     */
+    private boolean prepareCgroupRoot() {
+        try {
+            Path controllers = cgroupRoot.resolve("cgroup.controllers");
+            if (!Files.isRegularFile(controllers) || !Files.isWritable(cgroupRoot)) {
+                return false;
+            }
+            Set<String> available = Set.of(Files.readString(controllers).trim().split("\\s+"));
+            if (!available.containsAll(REQUIRED_CONTROLLERS)) {
+                log.warn("cgroup {} lacks controllers {}", cgroupRoot, REQUIRED_CONTROLLERS);
+                return false;
+            }
+            Files.writeString(cgroupRoot.resolve("cgroup.subtree_control"), "+memory +cpu +pids");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.debug("cgroup v2 sandbox unavailable at {}", cgroupRoot, e);
+            return false;
+        }
+    }
+
+    private static void writeIfPresent(Path file, String value) {
+        if (Files.exists(file)) {
+            try {
+                Files.writeString(file, value);
+            } catch (IOException e) {
+                log.debug("Failed to write {}", file, e);
+            }
+        }
+    }
+
+    private static String shellQuote(String value) {
+        return "'" + value.replace("'", "'\"'\"'") + "'";
+    }
+}
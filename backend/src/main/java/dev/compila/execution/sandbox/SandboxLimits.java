@@ -0,0 +1,38 @@
+package dev.compila.execution.sandbox;
+
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.dto.ExecutionRequest;
+
+/**
+ * Resource limits for one sandboxed run
+ *
+ * @param limitAddressSpace whether the ulimit fallback may cap virtual memory;
+ *                          false for runtimes such as V8 and the JVM that reserve
+ *                          far more address space than they use and limit their
+ *                          heap through their own flags instead
+ */
+public record SandboxLimits(
+        int timeoutSeconds,
+        int maxMemoryMb,
+        int maxCpuCores,
+        boolean limitAddressSpace
+) {
+    /**
+     * Limits from the request's constraints, with configured defaults for anything unset
+     */
+    public static SandboxLimits of(ExecutionRequest request, ExecutionConfig config, boolean limitAddressSpace) {
+        ExecutionRequest.ExecutionConstraints constraints = request.constraints();
+        return new SandboxLimits(
+                constraints != null && constraints.timeoutSeconds() != null
+                        ? constraints.timeoutSeconds()
+                        : (int) config.getDefaultTimeout().toSeconds(),
+                constraints != null && constraints.maxMemoryMb() != null
+                        ? constraints.maxMemoryMb()
+                        : config.getMaxMemoryMb(),
+                constraints != null && constraints.maxCpuCores() != null
+                        ? constraints.maxCpuCores()
+                        : config.getMaxCpuCores(),
+                limitAddressSpace
+        );
+    }
+}
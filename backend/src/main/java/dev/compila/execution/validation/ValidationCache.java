@@ -0,0 +1,110 @@
+package dev.compila.execution.validation;
+
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.language.CodeExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of syntax validation results, keyed by a hash of the
+ * language and code. Editors re-validate the same buffer many times, and
+ * a syntax check only depends on the code itself.
+ * <p>
+ * Records {@code execution.validation.requests} (hit or miss) and the
+ * {@code execution.validation.duration} of each, per language.
+ */
+@Component
+public class ValidationCache {
+
+    private final int maxEntries;
+    private final Map<String, CodeExecutor.ValidationResult> entries;
+    private final MeterRegistry meterRegistry;
+
+    public ValidationCache(ExecutionConfig config, MeterRegistry meterRegistry) {
+        this.maxEntries = config.getValidationCacheSize();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CodeExecutor.ValidationResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("execution.validation.cache.size", this, ValidationCache::size)
+                .description("Validation results held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Return the cached result for this code, running the validator on a miss
+     */
+    public CodeExecutor.ValidationResult validate(
+            String language,
+            String code,
+            Function<String, CodeExecutor.ValidationResult> validator
+    ) {
+        long startTime = System.nanoTime();
+        String key = key(language, code);
+
+        CodeExecutor.ValidationResult cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            record(language, "hit", startTime);
+            return cached;
+        }
+
+        CodeExecutor.ValidationResult result = validator.apply(code);
+        // A timeout says nothing about the code, so it is worth checking again
+        if (!result.errors().contains(ValidatorProcess.TIMEOUT_MESSAGE)) {
+            synchronized (this) {
+                entries.put(key, result);
+            }
+        }
+        record(language, "miss", startTime);
+        return result;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void record(String language, String result, long startTime) {
+        Counter.builder("execution.validation.requests")
+                .tag("language", language)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+        Timer.builder("execution.validation.duration")
+                .tag("language", language)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    private static String key(String language, String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(language.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(code.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package dev.compila.execution.validation;
+
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.language.CodeExecutor;
+import dev.compila.execution.pool.InterpreterPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * A long-lived syntax checker for one language, talking to a harness script
+ * over its stdin/stdout so a check costs a pipe round trip instead of a fork.
+ * <p>
+ * Checks are serialized. The process is started on first use and restarted
+ * after it dies or is killed for taking longer than {@link #CHECK_TIMEOUT_MS}.
+ */
+public class ValidatorProcess {
+
+    /** Error reported for code the validator could not check in time */
+    public static final String TIMEOUT_MESSAGE = "Syntax validation timeout";
+
+    private static final Logger log = LoggerFactory.getLogger(ValidatorProcess.class);
+    private static final long STARTUP_TIMEOUT_MS = 10_000;
+    private static final long CHECK_TIMEOUT_MS = 5_000;
+
+    private final String language;
+    private final String harnessResource;
+    private final Function<Path, List<String>> commandFactory;
+    private final ExecutionConfig config;
+    private final ScheduledExecutorService watchdog;
+    private Process process;
+    private InputStream fromValidator;
+    private OutputStream toValidator;
+    private volatile boolean shutdown;
+
+    /**
+     * @param harnessResource classpath location of the validator harness script
+     * @param commandFactory  builds the validator command line from the extracted harness path
+     */
+    public ValidatorProcess(
+            String language,
+            String harnessResource,
+            Function<Path, List<String>> commandFactory,
+            ExecutionConfig config
+    ) {
+        this.language = language;
+        this.harnessResource = harnessResource;
+        this.commandFactory = commandFactory;
+        this.config = config;
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "validator-watchdog-" + language.toLowerCase());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Check the code's syntax
+     *
+     * @return empty when the validator could not be started or crashed, so
+     * the caller can fall back to another way of checking
+     */
+    public synchronized Optional<CodeExecutor.ValidationResult> validate(String code) {
+        if (shutdown) {
+            return Optional.empty();
+        }
+        try {
+            ensureStarted();
+        } catch (IOException e) {
+            log.warn("Failed to start {} validator", language, e);
+            return Optional.empty();
+        }
+
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        Process current = process;
+        ScheduledFuture<?> kill = watchdog.schedule(() -> {
+            timedOut.set(true);
+            current.destroyForcibly();
+        }, CHECK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        try {
+            byte[] source = code.getBytes(StandardCharsets.UTF_8);
+            toValidator.write(("CHECK " + source.length + "\n").getBytes(StandardCharsets.US_ASCII));
+            toValidator.write(source);
+            toValidator.flush();
+
+            String response = readLine();
+            String[] parts = response != null ? response.split(" ") : new String[0];
+            if (parts.length != 2) {
+                throw new IOException("Malformed validator response: " + response);
+            }
+            String message = new String(fromValidator.readNBytes(Integer.parseInt(parts[1])), StandardCharsets.UTF_8);
+            return Optional.of("OK".equals(parts[0])
+                    ? CodeExecutor.ValidationResult.success()
+                    : CodeExecutor.ValidationResult.failure(message));
+        } catch (IOException | NumberFormatException e) {
+            stop();
+            if (timedOut.get()) {
+                return Optional.of(CodeExecutor.ValidationResult.failure(TIMEOUT_MESSAGE));
+            }
+            log.warn("{} validator failed", language, e);
+            return Optional.empty();
+        } finally {
+            kill.cancel(false);
+        }
+    }
+
+    private void ensureStarted() throws IOException {
+        if (process != null && process.isAlive()) {
+            return;
+        }
+        Path harness = InterpreterPool.extractHarness(config, harnessResource);
+        ProcessBuilder builder = new ProcessBuilder(commandFactory.apply(harness));
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        process = builder.start();
+        fromValidator = new BufferedInputStream(process.getInputStream());
+        toValidator = process.getOutputStream();
+
+        Process starting = process;
+        ScheduledFuture<?> kill = watchdog.schedule(starting::destroyForcibly, STARTUP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        try {
+            String ready = readLine();
+            if (!"READY".equals(ready)) {
+                stop();
+                throw new IOException(language + " validator failed to start: " + ready);
+            }
+        } finally {
+            kill.cancel(false);
+        }
+        log.info("{} validator started", language);
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(32);
+        int b;
+        while ((b = fromValidator.read()) != -1) {
+            if (b == '\n') {
+                return line.toString(StandardCharsets.US_ASCII);
+            }
+            line.write(b);
+        }
+        return null;
+    }
+
+    private void stop() {
+        if (process != null) {
+            process.destroyForcibly();
+            process = null;
+        }
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        watchdog.shutdownNow();
+        synchronized (this) {
+            stop();
+        }
+    }
+}
@@ -0,0 +1,478 @@
+package dev.compila.execution.workspace;
+
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.dto.ExecutionRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Materializes multi-file projects for workspace runs under
+ * {@code <workDir>/workspaces}.
+ * <p>
+ * File contents go into a content-addressed store and are hard-linked into
+ * the directory a program runs in, or copied where the filesystem cannot
+ * link. Each snapshot key (a user and a challenge) keeps its tree between
+ * runs: the next run only relinks files whose content changed and removes
+ * everything else, including what the previous run wrote, so an unchanged
+ * project costs a stat per file instead of a write. A run that finds the
+ * tree in use, e.g. a parallel test case, gets a throwaway tree linked from
+ * the same store.
+ * <p>
+ * The store is kept per snapshot key rather than shared: a program can write
+ * through a hard link, and that must only ever affect runs of the same user.
+ * Its state lives in memory, so the directory is cleared on startup.
+ */
+@Component
+public class WorkspaceStore implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkspaceStore.class);
+
+    private final Path root;
+    private final ExecutionConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Snapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+
+    public WorkspaceStore(ExecutionConfig config, MeterRegistry meterRegistry) {
+        this.root = Path.of(config.getWorkDir(), "workspaces");
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        deleteRecursively(root);
+
+        Gauge.builder("execution.workspace.snapshots", this, WorkspaceStore::getSnapshotCount)
+                .description("User and challenge workspaces kept for reuse")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check a workspace request and resolve its entrypoint
+     *
+     * @param defaultEntrypoint the language's entrypoint when the request names none
+     * @throws InvalidWorkspaceException if the project is malformed or too large
+     */
+    public Project prepare(ExecutionRequest request, String defaultEntrypoint) {
+        ExecutionRequest.Workspace workspace = request.workspace();
+        String entrypoint = normalize(workspace.entrypoint() != null && !workspace.entrypoint().isBlank()
+                ? workspace.entrypoint()
+                : defaultEntrypoint);
+
+        TreeMap<String, String> contents = new TreeMap<>();
+        workspace.files().forEach((path, content) -> {
+            if (content == null) {
+                throw new InvalidWorkspaceException("File without content: " + path);
+            }
+            if (contents.put(normalize(path), content) != null) {
+                throw new InvalidWorkspaceException("Duplicate file: " + path);
+            }
+        });
+        if (!contents.containsKey(entrypoint) && request.code() != null && !request.code().isBlank()) {
+            contents.put(entrypoint, request.code());
+        }
+        if (!contents.containsKey(entrypoint)) {
+            throw new InvalidWorkspaceException("Entrypoint not found: " + entrypoint);
+        }
+        if (contents.size() > config.getWorkspaceMaxFiles()) {
+            throw new InvalidWorkspaceException("Too many files: " + contents.size() + " (limit " + config.getWorkspaceMaxFiles() + ")");
+        }
+
+        long totalBytes = 0;
+        Map<String, String> hashes = new TreeMap<>();
+        for (Map.Entry<String, String> file : contents.entrySet()) {
+            byte[] bytes = file.getValue().getBytes(StandardCharsets.UTF_8);
+            totalBytes += bytes.length;
+            hashes.put(file.getKey(), sha256(bytes));
+            // Sorted, so a file that is also a directory comes right before its children
+            String next = contents.higherKey(file.getKey());
+            if (next != null && next.startsWith(file.getKey() + "/")) {
+                throw new InvalidWorkspaceException("Path is both a file and a directory: " + file.getKey());
+            }
+        }
+        if (totalBytes > config.getWorkspaceMaxKb() * 1024L) {
+            throw new InvalidWorkspaceException("Project too large: " + totalBytes / 1024 + " KB (limit " + config.getWorkspaceMaxKb() + " KB)");
+        }
+        return new Project(workspace.snapshotKey(), entrypoint, contents, hashes);
+    }
+
+    /**
+     * Materialize a project to run it in place; close the lease once the run
+     * is over
+     */
+    public Lease checkout(Project project) throws IOException {
+        long start = System.nanoTime();
+        Snapshot snapshot = acquire(project.snapshotKey());
+        try {
+            synchronized (snapshot) {
+                storeContents(snapshot, project);
+                if (!snapshot.treeBusy) {
+                    Path tree = Files.createDirectories(snapshot.dir.resolve("tree"));
+                    syncTree(snapshot, tree, project);
+                    pruneContents(snapshot, project);
+                    snapshot.treeBusy = true;
+                    return new Lease(snapshot, tree, true, System.nanoTime() - start);
+                }
+                Path run = Files.createDirectories(snapshot.dir.resolve("runs")).resolve(UUID.randomUUID().toString());
+                linkAll(snapshot, project, run);
+                return new Lease(snapshot, run, false, System.nanoTime() - start);
+            }
+        } catch (IOException | RuntimeException e) {
+            release(snapshot);
+            throw e;
+        }
+    }
+
+    /**
+     * Materialize a project into a directory the caller owns, such as a
+     * container workspace
+     */
+    public void linkInto(Project project, Path target) throws IOException {
+        Snapshot snapshot = acquire(project.snapshotKey());
+        try {
+            synchronized (snapshot) {
+                storeContents(snapshot, project);
+                linkAll(snapshot, project, target);
+            }
+        } finally {
+            release(snapshot);
+        }
+    }
+
+    public synchronized int getSnapshotCount() {
+        return snapshots.size();
+    }
+
+    @Override
+    public void destroy() {
+        deleteRecursively(root);
+    }
+
+    private synchronized Snapshot acquire(String snapshotKey) {
+        Snapshot snapshot;
+        if (snapshotKey == null) {
+            snapshot = new Snapshot(root.resolve("anonymous").resolve(UUID.randomUUID().toString()), true);
+        } else {
+            String id = sha256(snapshotKey.getBytes(StandardCharsets.UTF_8)).substring(0, 32);
+            snapshot = snapshots.computeIfAbsent(snapshotKey, key -> new Snapshot(root.resolve(id), false));
+        }
+        snapshot.leases++;
+        evictIdle();
+        return snapshot;
+    }
+
+    private void release(Snapshot snapshot) {
+        synchronized (this) {
+            snapshot.leases--;
+        }
+        if (snapshot.ephemeral) {
+            deleteRecursively(snapshot.dir);
+        }
+    }
+
+    /**
+     * Drop the least recently used snapshots nobody is running in
+     */
+    private synchronized void evictIdle() {
+        Iterator<Snapshot> eldest = snapshots.values().iterator();
+        while (snapshots.size() > config.getWorkspaceMaxSnapshots() && eldest.hasNext()) {
+            Snapshot snapshot = eldest.next();
+            if (snapshot.leases == 0) {
+                eldest.remove();
+                deleteRecursively(snapshot.dir);
+            }
+        }
+    }
+
+    /**
+     * Write every file whose content is not in the store yet, or whose stored
+     * copy was modified through a link since
+     */
+    private void storeContents(Snapshot snapshot, Project project) throws IOException {
+        Path objects = Files.createDirectories(snapshot.dir.resolve("objects"));
+        for (Map.Entry<String, String> file : project.hashes().entrySet()) {
+            String hash = file.getValue();
+            Path object = objects.resolve(hash);
+            Stamp stamp = snapshot.objects.get(hash);
+            if (stamp != null && stamp.matches(object)) {
+                continue;
+            }
+            Files.deleteIfExists(object);
+            Path staging = Files.createTempFile(objects, "." + hash, null);
+            Files.writeString(staging, project.contents().get(file.getKey()));
+            Files.setPosixFilePermissions(staging, PosixFilePermissions.fromString("r--r--r--"));
+            Files.move(staging, object, StandardCopyOption.ATOMIC_MOVE);
+            snapshot.objects.put(hash, Stamp.of(object));
+            count("written");
+        }
+    }
+
+    /**
+     * Forget stored contents the project no longer uses; runs still holding
+     * links to them keep their own copy of the inode
+     */
+    private void pruneContents(Snapshot snapshot, Project project) throws IOException {
+        Set<String> used = new HashSet<>(project.hashes().values());
+        Iterator<String> stored = snapshot.objects.keySet().iterator();
+        while (stored.hasNext()) {
+            String hash = stored.next();
+            if (!used.contains(hash)) {
+                stored.remove();
+                Files.deleteIfExists(snapshot.dir.resolve("objects").resolve(hash));
+            }
+        }
+    }
+
+    /**
+     * Bring the snapshot's tree in line with the project, touching only what
+     * changed
+     */
+    private void syncTree(Snapshot snapshot, Path tree, Project project) throws IOException {
+        removeStale(tree, project);
+        snapshot.tree.keySet().retainAll(project.hashes().keySet());
+
+        for (Map.Entry<String, String> file : project.hashes().entrySet()) {
+            Path target = tree.resolve(file.getKey());
+            TreeEntry entry = snapshot.tree.get(file.getKey());
+            if (entry != null && entry.hash().equals(file.getValue()) && entry.stamp().matches(target)) {
+                count("reused");
+                continue;
+            }
+            Files.deleteIfExists(target);
+            place(snapshot.dir.resolve("objects").resolve(file.getValue()), target);
+            snapshot.tree.put(file.getKey(), new TreeEntry(file.getValue(), Stamp.of(target)));
+        }
+    }
+
+    /**
+     * Remove whatever is not part of the project. Files a run generated, such
+     * as bytecode caches, go too: they are validated against source size and
+     * modification time, which a relinked file of the same size can share.
+     */
+    private void removeStale(Path tree, Project project) throws IOException {
+        Set<String> directories = new HashSet<>();
+        for (String path : project.hashes().keySet()) {
+            for (Path parent = Path.of(path).getParent(); parent != null; parent = parent.getParent()) {
+                directories.add(parent.toString());
+            }
+        }
+
+        List<Path> entries;
+        try (Stream<Path> walk = Files.walk(tree)) {
+            entries = walk.filter(path -> !path.equals(tree))
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+        for (Path path : entries) {
+            String relative = tree.relativize(path).toString();
+            boolean keep = Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)
+                    ? directories.contains(relative)
+                    : project.hashes().containsKey(relative);
+            if (!keep) {
+                deleteRecursively(path);
+            }
+        }
+    }
+
+    private void linkAll(Snapshot snapshot, Project project, Path target) throws IOException {
+        Path objects = snapshot.dir.resolve("objects");
+        for (Map.Entry<String, String> file : project.hashes().entrySet()) {
+            place(objects.resolve(file.getValue()), target.resolve(file.getKey()));
+        }
+    }
+
+    private void place(Path object, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, object);
+            count("linked");
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            // Different filesystem, or one without hard links
+            Files.copy(object, target);
+            count("copied");
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("execution.workspace.files")
+                .tag("result", result)
+                .description("Workspace files reused in place, linked from the store, copied or written")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String normalize(String path) {
+        try {
+            Path normalized = Path.of(path).normalize();
+            if (path.isBlank() || normalized.isAbsolute() || normalized.startsWith("..") || normalized.toString().isEmpty()) {
+                throw new InvalidWorkspaceException("Invalid file path: " + path);
+            }
+            return normalized.toString();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidWorkspaceException("Invalid file path: " + path);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to delete {}", dir, e);
+        }
+    }
+
+    /**
+     * A checked project
+     *
+     * @param contents file contents by normalized path
+     * @param hashes   content hashes by normalized path
+     */
+    public record Project(
+            String snapshotKey,
+            String entrypoint,
+            Map<String, String> contents,
+            Map<String, String> hashes
+    ) {
+        /**
+         * Identifies the project's content, e.g. as a compilation cache key
+         */
+        public String fingerprint() {
+            StringBuilder manifest = new StringBuilder();
+            hashes.forEach((path, hash) -> manifest.append(path).append('\0').append(hash).append('\n'));
+            return sha256(manifest.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Paths of the project's files with the given extension
+         */
+        public List<String> paths(String extension) {
+            return contents.keySet().stream().filter(path -> path.endsWith(extension)).toList();
+        }
+    }
+
+    /**
+     * A materialized project, kept until closed
+     */
+    public final class Lease implements AutoCloseable {
+        private final Snapshot snapshot;
+        private final Path directory;
+        private final boolean tree;
+        private final long writeNanos;
+
+        private Lease(Snapshot snapshot, Path directory, boolean tree, long writeNanos) {
+            this.snapshot = snapshot;
+            this.directory = directory;
+            this.tree = tree;
+            this.writeNanos = writeNanos;
+        }
+
+        public Path directory() {
+            return directory;
+        }
+
+        /**
+         * Time it took to materialize the project
+         */
+        public long writeNanos() {
+            return writeNanos;
+        }
+
+        @Override
+        public void close() {
+            synchronized (snapshot) {
+                if (tree) {
+                    snapshot.treeBusy = false;
+                } else {
+                    deleteRecursively(directory);
+                }
+            }
+            release(snapshot);
+        }
+    }
+
+    /**
+     * The project has bad paths, no entrypoint, or exceeds the size limits
+     */
+    public static class InvalidWorkspaceException extends RuntimeException {
+        public InvalidWorkspaceException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Size and modification time of a file when it was linked, to notice a
+     * program writing to it
+     */
+    private record Stamp(long size, FileTime modified) {
+        static Stamp of(Path path) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            return new Stamp(attributes.size(), attributes.lastModifiedTime());
+        }
+
+        boolean matches(Path path) {
+            try {
+                return equals(of(path));
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    private record TreeEntry(String hash, Stamp stamp) {
+    }
+
+    /**
+     * Store and reusable tree of one snapshot key; guarded by its own monitor,
+     * except {@code leases}, which is guarded by the store's
+     */
+    private static final class Snapshot {
+        private final Path dir;
+        private final boolean ephemeral;
+        private final Map<String, Stamp> objects = new HashMap<>();
+        private final Map<String, TreeEntry> tree = new HashMap<>();
+        private boolean treeBusy;
+        private int leases;
+
+        private Snapshot(Path dir, boolean ephemeral) {
+            this.dir = dir;
+            this.ephemeral = ephemeral;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package dev.compila.ratelimit;
+
+import dev.compila.ratelimit.config.RateLimitConfig;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buckets held on this instance. Each node limits on its own, so behind a
+ * load balancer the effective limit is multiplied by the number of nodes.
+ */
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final int maxTrackedKeys;
+
+    public InMemoryRateLimiter(int maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    @Override
+    public Decision tryConsume(String key, RateLimitConfig.Policy policy) {
+        if (buckets.size() >= maxTrackedKeys) {
+            sweep();
+        }
+        while (true) {
+            Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(policy.getCapacity()));
+            Decision decision = bucket.tryConsume(policy, System.nanoTime());
+            if (decision != null) {
+                return decision;
+            }
+            // Swept while we held it; its replacement starts full, as this one was
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Drop buckets that have refilled completely; they hold no state a new
+     * bucket would not. A bucket is retired under its own lock before it
+     * leaves the map, so a request that already looked it up cannot spend a
+     * token from it that a fresh bucket would hand out again.
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        buckets.forEach((key, bucket) -> {
+            if (bucket.retireIfFull(now)) {
+                buckets.remove(key, bucket);
+            }
+        });
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedAt = System.nanoTime();
+        private double capacity;
+        private double refillPerNano;
+        private boolean retired;
+
+        private Bucket(int capacity) {
+            this.tokens = capacity;
+        }
+
+        /**
+         * @return null when the bucket was retired and the key must be looked up again
+         */
+        private synchronized Decision tryConsume(RateLimitConfig.Policy policy, long now) {
+            if (retired) {
+                return null;
+            }
+            capacity = policy.getCapacity();
+            refillPerNano = policy.refillRate() / 1_000_000;
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return Decision.allow((long) tokens);
+            }
+            long waitNanos = (long) Math.ceil((1 - tokens) / refillPerNano);
+            return Decision.reject(Duration.ofNanos(waitNanos));
+        }
+
+        private synchronized boolean retireIfFull(long now) {
+            refill(now);
+            if (tokens >= capacity) {
+                retired = true;
+            }
+            return retired;
+        }
+
+        /**
+         * A caller may have read the clock before another one updated the
+         * bucket; its older timestamp adds nothing
+         */
+        private void refill(long now) {
+            if (now > updatedAt) {
+                tokens = Math.min(capacity, tokens + (now - updatedAt) * refillPerNano);
+                updatedAt = now;
+            }
+        }
+    }
+}
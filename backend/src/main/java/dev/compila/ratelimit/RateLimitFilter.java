@@ -0,0 +1,126 @@
+package dev.compila.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.auth.security.userdetails.UserDetailsImpl;
+import dev.compila.config.GlobalExceptionHandler;
+import dev.compila.ratelimit.config.RateLimitConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Applies the {@code rate-limit.policies} of each {@link RouteClass} before
+ * the request reaches a controller, answering 429 with {@code Retry-After}
+ * when the caller's bucket is empty.
+ * <p>
+ * Authenticated callers get a bucket per user, anonymous callers and
+ * {@link RouteClass#AUTH} a bucket per client IP. Runs after JWT
+ * authentication in the security filter chain. When the bucket store fails
+ * the request is let through.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final RateLimitConfig config;
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(
+            RateLimitConfig config,
+            RateLimiter rateLimiter,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.config = config;
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !config.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        RouteClass route = RouteClass.of(request.getMethod(), path);
+        RateLimitConfig.Policy policy = route != null ? config.getPolicies().get(route) : null;
+        if (policy == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String subject = subject(request, route);
+        RateLimiter.Decision decision;
+        try {
+            decision = rateLimiter.tryConsume(route.name().toLowerCase() + ":" + subject, policy);
+        } catch (RuntimeException e) {
+            log.debug("Rate limiter unavailable, letting request through", e);
+            Counter.builder("rate.limit.errors")
+                    .register(meterRegistry)
+                    .increment();
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (decision.allowed()) {
+            response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Counter.builder("rate.limit.rejected")
+                .tag("route", route.name())
+                .tag("subject", subject.startsWith("user:") ? "user" : "ip")
+                .register(meterRegistry)
+                .increment();
+        reject(response, decision);
+    }
+
+    private String subject(HttpServletRequest request, RouteClass route) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (route != RouteClass.AUTH && authentication != null
+                && authentication.getPrincipal() instanceof UserDetailsImpl user) {
+            return "user:" + user.getId();
+        }
+        // Behind a proxy, server.forward-headers-strategy makes this the client address
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, RateLimiter.Decision decision) throws IOException {
+        long retryAfterSeconds = Math.max(1, (decision.retryAfter().toMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new GlobalExceptionHandler.ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too many requests, please retry in " + retryAfterSeconds + "s",
+                "RATE_LIMITED",
+                Instant.now()
+        ));
+    }
+}
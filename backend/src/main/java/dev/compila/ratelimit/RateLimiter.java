@@ -0,0 +1,31 @@
+package dev.compila.ratelimit;
+
+import dev.compila.ratelimit.config.RateLimitConfig;
+
+import java.time.Duration;
+
+/**
+ * Token bucket store
+ */
+public interface RateLimiter {
+
+    /**
+     * Take one token from the bucket under {@code key}, creating a full bucket
+     * when there is none
+     */
+    Decision tryConsume(String key, RateLimitConfig.Policy policy);
+
+    /**
+     * @param remaining  whole tokens left after this request
+     * @param retryAfter when rejected, how long until a token is available
+     */
+    record Decision(boolean allowed, long remaining, Duration retryAfter) {
+        public static Decision allow(long remaining) {
+            return new Decision(true, remaining, Duration.ZERO);
+        }
+
+        public static Decision reject(Duration retryAfter) {
+            return new Decision(false, 0, retryAfter);
+        }
+    }
+}
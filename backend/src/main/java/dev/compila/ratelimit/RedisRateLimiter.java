@@ -0,0 +1,68 @@
+package dev.compila.ratelimit;
+
+import dev.compila.ratelimit.config.RateLimitConfig;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Buckets shared by every instance, kept in Redis hashes and updated
+ * atomically by a script using the Redis clock. Idle buckets expire once
+ * they would have refilled.
+ */
+public class RedisRateLimiter implements RateLimiter {
+
+    /**
+     * Replies {allowed, remaining tokens, retry after millis}. Lua integers
+     * arrive as Long, so the raw List result type is safe to narrow.
+     */
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List<Long>> TOKEN_BUCKET = new DefaultRedisScript<>("""
+            local capacity = tonumber(ARGV[1])
+            local rate = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(state[1]) or capacity
+            local ts = tonumber(state[2]) or now
+            tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+            local allowed = 0
+            local retry = 0
+            if tokens >= 1 then
+                tokens = tokens - 1
+                allowed = 1
+            else
+                retry = math.ceil((1 - tokens) / rate)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate) + 1000)
+            return {allowed, math.floor(tokens), retry}
+            """, (Class<List<Long>>) (Class<?>) List.class);
+
+    private final StringRedisTemplate redis;
+    private final String keyPrefix;
+
+    public RedisRateLimiter(StringRedisTemplate redis, String keyPrefix) {
+        this.redis = redis;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public Decision tryConsume(String key, RateLimitConfig.Policy policy) {
+        List<Long> result = redis.execute(
+                TOKEN_BUCKET,
+                List.of(keyPrefix + ":" + key),
+                String.valueOf(policy.getCapacity()),
+                String.valueOf(policy.refillRate())
+        );
+        if (result == null || result.size() != 3) {
+            throw new IllegalStateException("Unexpected rate limit script reply: " + result);
+        }
+        return result.get(0) == 1
+                ? Decision.allow(result.get(1))
+                : Decision.reject(Duration.ofMillis(result.get(2)));
+    }
+}
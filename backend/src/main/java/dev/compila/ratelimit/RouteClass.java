@@ -0,0 +1,55 @@
+package dev.compila.ratelimit;
+
+import java.util.Set;
+
+/**
+ * Groups of endpoints that share a rate limit policy. Paths are relative to
+ * the servlet context path.
+ */
+public enum RouteClass {
+    /**
+     * Syntax checks the editor sends while the user types; cheap and
+     * frequent, so matched before {@link #EXECUTION} with a looser policy
+     */
+    VALIDATION(Set.of("POST"), "/execution/validate"),
+    /** Running code: ad-hoc executions and submissions */
+    EXECUTION(Set.of("POST"), "/execution/", "/submissions"),
+    /** Calls that end in a request to the AI service */
+    AI(Set.of("POST", "GET"), "/ai/"),
+    /** Posts, comments, kudos and follows */
+    FEED_WRITE(Set.of("POST", "PUT", "DELETE"), "/feed/"),
+    /** Login, registration and token refresh; always limited per IP */
+    AUTH(Set.of("POST"), "/auth/");
+
+    private final Set<String> methods;
+    private final String[] pathPrefixes;
+
+    RouteClass(Set<String> methods, String... pathPrefixes) {
+        this.methods = methods;
+        this.pathPrefixes = pathPrefixes;
+    }
+
+    /**
+     * @return the class of the request, or null when it is not rate limited
+     */
+    public static RouteClass of(String method, String path) {
+        for (RouteClass route : values()) {
+            if (route.matches(method, path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(String method, String path) {
+        if (!methods.contains(method)) {
+            return false;
+        }
+        for (String prefix : pathPrefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+package dev.compila.ratelimit.config;
+
+import dev.compila.ratelimit.RouteClass;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitConfig {
+
+    private boolean enabled = false;
+    /** Where buckets live: "memory" (this instance only) or "redis" (shared by the cluster) */
+    private String backend = "memory";
+    private String keyPrefix = "compila:ratelimit";
+    /** Buckets kept by the in-memory backend before idle ones are swept */
+    private int maxTrackedKeys = 100_000;
+    private Map<RouteClass, Policy> policies = new EnumMap<>(Map.of(
+            RouteClass.VALIDATION, new Policy(30, 120, Duration.ofMinutes(1)),
+            RouteClass.EXECUTION, new Policy(10, 30, Duration.ofMinutes(1)),
+            RouteClass.AI, new Policy(5, 10, Duration.ofMinutes(1)),
+            RouteClass.FEED_WRITE, new Policy(20, 60, Duration.ofMinutes(1)),
+            RouteClass.AUTH, new Policy(10, 10, Duration.ofMinutes(1))
+    ));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public void setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+
+    public int getMaxTrackedKeys() {
+        return maxTrackedKeys;
+    }
+
+    public void setMaxTrackedKeys(int maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    public Map<RouteClass, Policy> getPolicies() {
+        return policies;
+    }
+
+    public void setPolicies(Map<RouteClass, Policy> policies) {
+        this.policies = policies;
+    }
+
+    /**
+     * A token bucket: up to {@code capacity} requests in a burst, refilled
+     * with {@code refillTokens} every {@code refillPeriod}
+     */
+    public static class Policy {
+
+        private int capacity;
+        private int refillTokens;
+        private Duration refillPeriod;
+
+        public Policy() {
+            this(10, 10, Duration.ofMinutes(1));
+        }
+
+        public Policy(int capacity, int refillTokens, Duration refillPeriod) {
+            this.capacity = capacity;
+            this.refillTokens = refillTokens;
+            this.refillPeriod = refillPeriod;
+        }
+
+        /**
+         * Tokens added per millisecond
+         */
+        public double refillRate() {
+            return (double) refillTokens / Math.max(1, refillPeriod.toMillis());
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getRefillTokens() {
+            return refillTokens;
+        }
+
+        public void setRefillTokens(int refillTokens) {
+            this.refillTokens = refillTokens;
+        }
+
+        public Duration getRefillPeriod() {
+            return refillPeriod;
+        }
+
+        public void setRefillPeriod(Duration refillPeriod) {
+            this.refillPeriod = refillPeriod;
+        }
+    }
+}
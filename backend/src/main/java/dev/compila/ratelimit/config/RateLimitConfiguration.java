@@ -0,0 +1,44 @@
+package dev.compila.ratelimit.config;
+
+import dev.compila.ratelimit.InMemoryRateLimiter;
+import dev.compila.ratelimit.RateLimitFilter;
+import dev.compila.ratelimit.RateLimiter;
+import dev.compila.ratelimit.RedisRateLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitConfig.class)
+public class RateLimitConfiguration {
+
+    @Bean
+    public RateLimiter rateLimiter(RateLimitConfig config, StringRedisTemplate redis, MeterRegistry meterRegistry) {
+        return switch (config.getBackend().toLowerCase()) {
+            case "redis" -> new RedisRateLimiter(redis, config.getKeyPrefix());
+            case "memory" -> {
+                InMemoryRateLimiter limiter = new InMemoryRateLimiter(config.getMaxTrackedKeys());
+                Gauge.builder("rate.limit.buckets", limiter, InMemoryRateLimiter::size)
+                        .description("Rate limit buckets held in memory")
+                        .register(meterRegistry);
+                yield limiter;
+            }
+            default -> throw new IllegalStateException("Unknown rate-limit.backend: " + config.getBackend());
+        };
+    }
+
+    /**
+     * The filter runs inside the security filter chain, after authentication;
+     * keep Spring Boot from also registering it with the servlet container
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
@@ -3,14 +3,17 @@ package dev.compila.submission;
 import dev.compila.auth.security.userdetails.UserDetailsImpl;
 import dev.compila.submission.dto.SubmitRequest;
 import dev.compila.submission.dto.SubmissionResponse;
+import dev.compila.submission.progress.SubmissionProgressPublisher;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.UUID;
 
@@ -20,9 +23,11 @@ import java.util.UUID;
 public class SubmissionController {
 
     private final SubmissionService submissionService;
+    private final SubmissionProgressPublisher progressPublisher;
 
-    public SubmissionController(SubmissionService submissionService) {
+    public SubmissionController(SubmissionService submissionService, SubmissionProgressPublisher progressPublisher) {
         this.submissionService = submissionService;
+        this.progressPublisher = progressPublisher;
     }
 
     @GetMapping("/user/{userId}")
@@ -58,6 +63,16 @@ public class SubmissionController {
         return ResponseEntity.ok(submissionService.findById(id));
     }
 
+    /**
+     * Live evaluation progress as server-sent events; see {@link SubmissionProgressPublisher}
+     */
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable UUID id) {
+        // Fails for unknown submissions before a stream is opened
+        submissionService.findById(id);
+        return progressPublisher.subscribe(id, () -> submissionService.findById(id));
+    }
+
     @PostMapping
     public ResponseEntity<SubmissionResponse> submit(
             @AuthenticationPrincipal UserDetails userDetails,
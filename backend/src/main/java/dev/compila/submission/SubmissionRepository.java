@@ -4,9 +4,11 @@ import dev.compila.submission.enums.SubmissionStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.UUID;
 
@@ -28,6 +30,28 @@ public interface SubmissionRepository extends JpaRepository<Submission, UUID> {
     @Query("SELECT s FROM Submission s WHERE s.userId = :userId AND s.challengeId = :challengeId ORDER BY s.submittedAt DESC")
     java.util.List<Submission> findLatestByUserAndChallenge(@Param("userId") UUID userId, @Param("challengeId") UUID challengeId);
 
+    /**
+     * Oldest submissions first whose AI feedback is still to be fetched
+     */
+    @Query(value = "SELECT * FROM submissions WHERE ai_feedback ->> 'status' IN ('PENDING', 'DEFERRED') "
+            + "ORDER BY submitted_at LIMIT :limit", nativeQuery = true)
+    java.util.List<Submission> findAwaitingAiFeedback(@Param("limit") int limit);
+
+    /**
+     * Move a submission to {@code to} if its status is still {@code from}
+     *
+     * @return 1 when this call made the transition, 0 when another got there first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.status = :to WHERE s.id = :id AND s.status = :from")
+    int transitionStatus(@Param("id") UUID id, @Param("from") SubmissionStatus from, @Param("to") SubmissionStatus to);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.aiTokensUsed = COALESCE(s.aiTokensUsed, 0) + :tokens WHERE s.id = :id")
+    void addAiTokensUsed(@Param("id") UUID id, @Param("tokens") int tokens);
+
     long countByStatus(SubmissionStatus status);
 
     long countByChallengeId(UUID challengeId);
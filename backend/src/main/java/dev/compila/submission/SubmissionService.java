@@ -1,15 +1,23 @@
 package dev.compila.submission;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import dev.compila.ai.AiEvaluationService;
-import dev.compila.ai.dto.CodeEvaluationRequest;
 import dev.compila.ai.dto.CodeEvaluationResponse;
 import dev.compila.challenge.Challenge;
 import dev.compila.challenge.ChallengeRepository;
+import dev.compila.execution.dto.ExecutionRequest;
+import dev.compila.submission.dto.AIFeedback;
 import dev.compila.submission.dto.SubmitRequest;
 import dev.compila.submission.dto.SubmissionResponse;
+import dev.compila.submission.dto.TestResult;
 import dev.compila.submission.enums.SubmissionStatus;
+import dev.compila.submission.feedback.AiFeedbackQueue;
+import dev.compila.submission.progress.SubmissionProgressPublisher;
+import dev.compila.submission.queue.SubmissionLane;
+import dev.compila.submission.queue.SubmissionQueue;
 import dev.compila.social.service.SocialTriggerService;
+import dev.compila.testing.TestRunnerService;
+import dev.compila.testing.dto.TestExecutionResult;
+import dev.compila.testing.dto.TestSuite;
 import dev.compila.user.User;
 import dev.compila.user.UserRepository;
 import dev.compila.submission.enums.ProgrammingLanguage;
@@ -19,11 +27,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -37,29 +47,41 @@ public class SubmissionService {
     private final SubmissionRepository submissionRepository;
     private final UserRepository userRepository;
     private final ChallengeRepository challengeRepository;
-    private final AiEvaluationService aiEvaluationService;
     private final ObjectMapper objectMapper;
     private final SocialTriggerService socialTriggerService;
     private final UserSkillService userSkillService;
+    private final SubmissionQueue submissionQueue;
+    private final SubmissionProgressPublisher progressPublisher;
+    private final TestRunnerService testRunnerService;
+    private final AiFeedbackQueue aiFeedbackQueue;
     private static final TypeReference<List<Map<String, Object>>> TEST_RESULTS_TYPE =
             new TypeReference<>() {};
+    private static final TypeReference<Map<String, Object>> FEEDBACK_TYPE =
+            new TypeReference<>() {};
 
     public SubmissionService(
             SubmissionRepository submissionRepository,
             UserRepository userRepository,
             ChallengeRepository challengeRepository,
-            AiEvaluationService aiEvaluationService,
             ObjectMapper objectMapper,
             SocialTriggerService socialTriggerService,
-            UserSkillService userSkillService
+            UserSkillService userSkillService,
+            SubmissionQueue submissionQueue,
+            SubmissionProgressPublisher progressPublisher,
+            TestRunnerService testRunnerService,
+            AiFeedbackQueue aiFeedbackQueue
     ) {
         this.submissionRepository = submissionRepository;
         this.userRepository = userRepository;
         this.challengeRepository = challengeRepository;
-        this.aiEvaluationService = aiEvaluationService;
         this.objectMapper = objectMapper;
         this.socialTriggerService = socialTriggerService;
         this.userSkillService = userSkillService;
+        this.submissionQueue = submissionQueue;
+        this.progressPublisher = progressPublisher;
+        this.testRunnerService = testRunnerService;
+        this.aiFeedbackQueue = aiFeedbackQueue;
+        aiFeedbackQueue.onVerdict(this::recordAiVerdict);
     }
 
     public Page<SubmissionResponse> findByUserId(UUID userId, Pageable pageable) {
@@ -92,6 +114,11 @@ public class SubmissionService {
         Challenge challenge = challengeRepository.findById(request.challengeId())
                 .orElseThrow(() -> new RuntimeException("Challenge not found: " + request.challengeId()));
 
+        // Reserve a queue slot up front so a saturated queue rejects the request
+        // before anything is persisted
+        SubmissionQueue.Ticket ticket = submissionQueue.reserve(userId.toString(), SubmissionLane.SUBMIT);
+        registerQueueRelease(ticket);
+
         // Calculate attempt number
         long attemptNumber = submissionRepository.countByUserIdAndChallengeId(userId, request.challengeId()) + 1;
 
@@ -109,81 +136,210 @@ public class SubmissionService {
         // Increment challenge attempted count
         challengeRepository.incrementAttemptedCount(request.challengeId());
 
-        // Trigger async AI evaluation
-        evaluateSubmissionAsync(submission.getId(), submission, challenge);
+        // Queue evaluation once the submission is committed
+        Submission saved = submission;
+        afterCommit(() -> {
+            ticket.submit(() -> {
+                evaluateSubmission(saved.getId(), saved, challenge);
+                return null;
+            });
+            progressPublisher.queued(saved.getId(), ticket);
+        });
 
         return SubmissionResponse.from(submission);
     }
 
-    @Async
-    public void evaluateSubmissionAsync(UUID submissionId, Submission submission, Challenge challenge) {
-        try {
-            // Parse challenge requirements to get test cases
-            Map<String, Object> requirements = objectMapper.readValue(
-                    challenge.getRequirements() != null ? challenge.getRequirements() : "{}",
-                    objectMapper.getTypeFactory().constructMapType(Map.class, String.class, Object.class)
-            );
-
-            // Extract test cases from requirements
-            List<String> testCases = extractTestCases(requirements);
-            String expectedOutput = extractExpectedOutput(requirements);
+    /**
+     * Give the queue slot back if the surrounding transaction rolls back
+     * before the evaluation was handed over
+     */
+    private void registerQueueRelease(SubmissionQueue.Ticket ticket) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    ticket.release();
+                }
+            }
+        });
+    }
 
-            // Build evaluation request
-            CodeEvaluationRequest.EvaluationConstraints constraints = new CodeEvaluationRequest.EvaluationConstraints(
-                    256, // maxMemoryMb
-                    10,  // maxTimeSeconds
-                    null  // allowedImports
-            );
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
-            CodeEvaluationRequest evaluationRequest = new CodeEvaluationRequest(
+    /**
+     * Grade a submission by running the challenge's test cases locally; runs
+     * on a submission queue worker. The verdict, score and XP are stored
+     * right away and the AI feedback follows from the {@link AiFeedbackQueue}.
+     * <p>
+     * Submissions that cannot be graded locally stay {@code PENDING} until
+     * the AI evaluation delivers the verdict along with the feedback: those
+     * to challenges without a local suite, such as those whose
+     * {@code testCases} are plain input strings for the AI service, those in
+     * a language this instance cannot run, and those whose run failed for
+     * reasons outside the submitted code.
+     */
+    public void evaluateSubmission(UUID submissionId, Submission submission, Challenge challenge) {
+        progressPublisher.started(submissionId);
+        SubmissionResponse verdict = null;
+        Map<String, Object> pending = objectMapper.convertValue(AIFeedback.pending(), FEEDBACK_TYPE);
+        try {
+            String language = submission.getLanguage().name();
+            TestSuite suite = testRunnerService.parseTestSuite(
+                    challenge.getRequirements(), challenge.getId().toString(), challenge.getTitle());
+            if (suite.testCases().isEmpty()) {
+                log.info("Challenge {} has no local test cases; submission {} is graded by the AI service",
+                        challenge.getId(), submissionId);
+                deferToAi(submissionId, pending);
+                return;
+            }
+            if (!testRunnerService.canRunTests(language)) {
+                log.info("{} cannot be run here; submission {} is graded by the AI service", language, submissionId);
+                deferToAi(submissionId, pending);
+                return;
+            }
+            TestExecutionResult result = testRunnerService.runTests(
+                    language,
                     submission.getCode(),
-                    submission.getLanguage().name(),
-                    challenge.getDescription(),
-                    testCases,
-                    expectedOutput,
-                    constraints
+                    workspace(submission),
+                    suite,
+                    submissionId.toString(),
+                    false,
+                    caseResult -> progressPublisher.testCaseCompleted(submissionId, TestResult.from(caseResult))
             );
+            if (result.results().stream().anyMatch(TestExecutionResult.TestCaseResult::failedToRun)) {
+                log.warn("Test cases of submission {} failed to run; it is graded by the AI service", submissionId);
+                deferToAi(submissionId, pending);
+                return;
+            }
 
-            // Call AI evaluation service
-            CodeEvaluationResponse evaluation = aiEvaluationService.evaluateCode(evaluationRequest);
-
-            // Update submission with results
-            SubmissionStatus status = evaluation.passed() ? SubmissionStatus.PASSED : SubmissionStatus.FAILED;
-            int score = evaluation.score() != null ? evaluation.score() : 0;
-            int xpGained = evaluation.passed() ? challenge.getXpReward() : 0;
-
+            boolean passed = result.passed();
             List<Map<String, Object>> testResultsPayload = objectMapper.convertValue(
-                    evaluation.testResults(),
+                    result.results().stream().map(TestResult::from).toList(),
                     TEST_RESULTS_TYPE
             );
-
-            updateStatus(submissionId, status, score, xpGained, testResultsPayload);
-
+            verdict = updateStatus(
+                    submissionId,
+                    passed ? SubmissionStatus.PASSED : SubmissionStatus.FAILED,
+                    passed ? result.score() : 0,
+                    passed ? challenge.getXpReward() : 0,
+                    testResultsPayload,
+                    pending
+            );
         } catch (Exception e) {
-            // Mark as failed on error
-            updateStatus(submissionId, SubmissionStatus.FAILED, 0, 0, null);
+            log.warn("Grading of submission {} failed, it is graded by the AI service: {}", submissionId, e.getMessage());
+            deferToAi(submissionId, pending);
+        } finally {
+            progressPublisher.completed(submissionId, verdict);
+            aiFeedbackQueue.enqueue(submissionId);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private List<String> extractTestCases(Map<String, Object> requirements) {
-        Object tests = requirements.get("testCases");
-        if (tests instanceof List) {
-            return (List<String>) tests;
+    /**
+     * Leave the verdict to the AI evaluation. Streams close without a
+     * verdict; subscribers after this point get the AI's.
+     */
+    private void deferToAi(UUID submissionId, Map<String, Object> pending) {
+        updateStatus(submissionId, SubmissionStatus.PENDING, null, 0, null, pending);
+    }
+
+    /**
+     * The submission's extra files as a workspace every test case runs in,
+     * sharing the snapshot of the user's runs of the same challenge; null
+     * for single-file submissions
+     */
+    private static ExecutionRequest.Workspace workspace(Submission submission) {
+        if (submission.getFiles() == null || submission.getFiles().isEmpty()) {
+            return null;
         }
-        return List.of();
+        Map<String, String> files = new LinkedHashMap<>();
+        submission.getFiles().forEach((path, content) -> {
+            if (content instanceof String text) {
+                files.put(path, text);
+            }
+        });
+        return new ExecutionRequest.Workspace(files, null, submission.getUserId() + ":" + submission.getChallengeId());
     }
 
-    private String extractExpectedOutput(Map<String, Object> requirements) {
-        Object output = requirements.get("expectedOutput");
-        return output != null ? output.toString() : null;
+    /**
+     * Store the AI service's verdict for a submission without a local test
+     * suite, together with its feedback
+     */
+    private void recordAiVerdict(UUID submissionId, Challenge challenge, CodeEvaluationResponse evaluation) {
+        boolean passed = evaluation.passed();
+        SubmissionStatus status = passed ? SubmissionStatus.PASSED : SubmissionStatus.FAILED;
+        // Claimed atomically, so a verdict processed twice (a sweep racing an enqueue, two instances) counts once
+        if (submissionRepository.transitionStatus(submissionId, SubmissionStatus.PENDING, status) == 0) {
+            log.info("Submission {} already has a verdict; ignoring the repeated AI verdict", submissionId);
+            return;
+        }
+        List<Map<String, Object>> testResultsPayload = evaluation.testResults() != null
+                ? objectMapper.convertValue(evaluation.testResults().stream().map(TestResult::from).toList(), TEST_RESULTS_TYPE)
+                : null;
+        Submission submission = submissionRepository.findById(submissionId)
+                .orElseThrow(() -> new RuntimeException("Submission not found: " + submissionId));
+        SubmissionResponse verdict = applyStatus(
+                submission,
+                status == SubmissionStatus.PASSED,
+                status,
+                evaluation.score() != null ? evaluation.score() : 0,
+                passed ? challenge.getXpReward() : 0,
+                testResultsPayload,
+                objectMapper.convertValue(AIFeedback.from(evaluation), FEEDBACK_TYPE)
+        );
+        progressPublisher.completed(submissionId, verdict);
     }
 
     @Transactional
     public SubmissionResponse updateStatus(UUID id, SubmissionStatus status, Integer score, Integer xpGained, List<Map<String, Object>> testResults) {
+        return updateStatus(id, status, score, xpGained, testResults, null);
+    }
+
+    /**
+     * @param aiFeedback replaces the stored AI feedback unless null
+     */
+    @Transactional
+    public SubmissionResponse updateStatus(
+            UUID id,
+            SubmissionStatus status,
+            Integer score,
+            Integer xpGained,
+            List<Map<String, Object>> testResults,
+            Map<String, Object> aiFeedback
+    ) {
         Submission submission = submissionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Submission not found: " + id));
+        boolean newlyPassed = status == SubmissionStatus.PASSED && submission.getStatus() != SubmissionStatus.PASSED;
+        return applyStatus(submission, newlyPassed, status, score, xpGained, testResults, aiFeedback);
+    }
 
+    /**
+     * @param newlyPassed whether this update moves the submission into
+     *                    {@code PASSED}; only then are XP and the completed
+     *                    count awarded
+     */
+    private SubmissionResponse applyStatus(
+            Submission submission,
+            boolean newlyPassed,
+            SubmissionStatus status,
+            Integer score,
+            Integer xpGained,
+            List<Map<String, Object>> testResults,
+            Map<String, Object> aiFeedback
+    ) {
         submission.setStatus(status);
         submission.setScore(score);
         submission.setXpGained(xpGained != null ? xpGained : 0);
@@ -192,11 +348,14 @@ public class SubmissionService {
         if (testResults != null) {
             submission.setTestResults(testResults);
         }
+        if (aiFeedback != null) {
+            submission.setAiFeedback(aiFeedback);
+        }
 
         submission = submissionRepository.save(submission);
 
-        // If passed, increment challenge completed count and user XP
-        if (status == SubmissionStatus.PASSED) {
+        // On passing, increment challenge completed count and user XP
+        if (newlyPassed) {
             challengeRepository.incrementCompletedCount(submission.getChallengeId());
 
             Challenge challenge = challengeRepository.findById(submission.getChallengeId())
@@ -0,0 +1,65 @@
+package dev.compila.submission.config;
+
+import dev.compila.ratelimit.config.RateLimitConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "ai-feedback")
+public class AiFeedbackConfig {
+
+    private int workers = 2;
+    private int capacity = 1000;
+    private int maxAttempts = 3;
+    private Duration retryBackoff = Duration.ofSeconds(5);
+    private Duration sweepInterval = Duration.ofMinutes(5);
+    private RateLimitConfig.Policy rateLimit = new RateLimitConfig.Policy(10, 60, Duration.ofMinutes(1));
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    public void setRetryBackoff(Duration retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    public Duration getSweepInterval() {
+        return sweepInterval;
+    }
+
+    public void setSweepInterval(Duration sweepInterval) {
+        this.sweepInterval = sweepInterval;
+    }
+
+    public RateLimitConfig.Policy getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimitConfig.Policy rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+}
@@ -0,0 +1,9 @@
+package dev.compila.submission.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({SubmissionQueueConfig.class, SubmissionProgressConfig.class, AiFeedbackConfig.class})
+public class SubmissionConfiguration {
+}
@@ -0,0 +1,22 @@
+package dev.compila.submission.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "submission-progress")
+public class SubmissionProgressConfig {
+
+    /**
+     * How long a progress stream stays open before the client has to reconnect
+     */
+    private Duration streamTimeout = Duration.ofMinutes(10);
+
+    public Duration getStreamTimeout() {
+        return streamTimeout;
+    }
+
+    public void setStreamTimeout(Duration streamTimeout) {
+        this.streamTimeout = streamTimeout;
+    }
+}
@@ -0,0 +1,64 @@
+package dev.compila.submission.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "submission-queue")
+public class SubmissionQueueConfig {
+
+    private int workers = 4;
+    private int capacity = 500;
+    private int perUserLimit = 5;
+    private Duration retryAfter = Duration.ofSeconds(5);
+    private int submitWeight = 3;
+    private int runWeight = 1;
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getPerUserLimit() {
+        return perUserLimit;
+    }
+
+    public void setPerUserLimit(int perUserLimit) {
+        this.perUserLimit = perUserLimit;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    public int getSubmitWeight() {
+        return submitWeight;
+    }
+
+    public void setSubmitWeight(int submitWeight) {
+        this.submitWeight = submitWeight;
+    }
+
+    public int getRunWeight() {
+        return runWeight;
+    }
+
+    public void setRunWeight(int runWeight) {
+        this.runWeight = runWeight;
+    }
+}
@@ -2,6 +2,7 @@ package dev.compila.submission.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import dev.compila.ai.dto.CodeEvaluationResponse;
 
 import java.util.List;
 
@@ -11,6 +12,19 @@ import java.util.List;
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class AIFeedback {
+    /** Queued for the AI service */
+    public static final String PENDING = "PENDING";
+    /** Waiting for the AI service to become available again */
+    public static final String DEFERRED = "DEFERRED";
+    /** The AI service failed every attempt; not retried */
+    public static final String UNAVAILABLE = "UNAVAILABLE";
+    public static final String COMPLETED = "COMPLETED";
+    /** Summarized from the local test run, as the AI budget is spent */
+    public static final String LOCAL = "LOCAL";
+
+    @JsonProperty("status")
+    private String status;
+
     @JsonProperty("score")
     private Integer score;
 
@@ -66,6 +80,45 @@ public class AIFeedback {
         );
     }
 
+    public static AIFeedback pending() {
+        AIFeedback feedback = new AIFeedback();
+        feedback.setStatus(PENDING);
+        return feedback;
+    }
+
+    public static AIFeedback deferred() {
+        AIFeedback feedback = new AIFeedback();
+        feedback.setStatus(DEFERRED);
+        return feedback;
+    }
+
+    public static AIFeedback unavailable() {
+        AIFeedback feedback = new AIFeedback();
+        feedback.setStatus(UNAVAILABLE);
+        return feedback;
+    }
+
+    public static AIFeedback local(Integer score, String summary) {
+        AIFeedback feedback = of(score, summary);
+        feedback.setStatus(LOCAL);
+        return feedback;
+    }
+
+    public static AIFeedback from(CodeEvaluationResponse evaluation) {
+        AIFeedback feedback = new AIFeedback(
+                evaluation.score(),
+                evaluation.feedback(),
+                List.of(),
+                evaluation.warnings() != null ? evaluation.warnings() : List.of(),
+                evaluation.suggestion() != null ? List.of(evaluation.suggestion()) : List.of(),
+                null,
+                null,
+                List.of()
+        );
+        feedback.setStatus(COMPLETED);
+        return feedback;
+    }
+
     public static AIFeedback detailed(Integer score, String summary,
                                        List<String> strengths, List<String> improvements) {
         return new AIFeedback(
@@ -81,6 +134,9 @@ public class AIFeedback {
     }
 
     // Getters and Setters
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
     public Integer getScore() { return score; }
     public void setScore(Integer score) { this.score = score; }
 
@@ -2,6 +2,8 @@ package dev.compila.submission.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import dev.compila.ai.dto.CodeEvaluationResponse;
+import dev.compila.testing.dto.TestExecutionResult;
 
 /**
  * Typed DTO for test result data.
@@ -58,6 +60,33 @@ public class TestResult {
         return new TestResult(testId, testName, passed, message, null, null, null);
     }
 
+    /**
+     * From a locally run test case; hidden cases keep their outputs to themselves
+     */
+    public static TestResult from(TestExecutionResult.TestCaseResult result) {
+        return new TestResult(
+                result.testCaseId(),
+                result.testCaseName(),
+                result.passed(),
+                result.errorMessage(),
+                result.executionTimeMs(),
+                result.isHidden() ? null : result.actualOutput(),
+                result.isHidden() ? null : result.expectedOutput()
+        );
+    }
+
+    public static TestResult from(CodeEvaluationResponse.TestResult result) {
+        return new TestResult(
+                null,
+                result.testName(),
+                result.passed(),
+                result.errorMessage(),
+                null,
+                result.output(),
+                result.expectedOutput()
+        );
+    }
+
     // Getters and Setters
     public String getTestId() { return testId; }
     public void setTestId(String testId) { this.testId = testId; }
@@ -0,0 +1,392 @@
+package dev.compila.submission.feedback;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.ai.AiCaller;
+import dev.compila.ai.AiCircuitBreaker;
+import dev.compila.ai.AiEvaluationService;
+import dev.compila.ai.budget.AiTokenBudget;
+import dev.compila.ai.dto.CodeEvaluationRequest;
+import dev.compila.ai.dto.CodeEvaluationResponse;
+import dev.compila.challenge.Challenge;
+import dev.compila.challenge.ChallengeRepository;
+import dev.compila.ratelimit.InMemoryRateLimiter;
+import dev.compila.ratelimit.RateLimiter;
+import dev.compila.submission.Submission;
+import dev.compila.submission.SubmissionRepository;
+import dev.compila.submission.config.AiFeedbackConfig;
+import dev.compila.submission.dto.AIFeedback;
+import dev.compila.submission.enums.SubmissionStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Second grading stage: fetches AI feedback for submissions that already
+ * have their verdict and attaches it to them.
+ * <p>
+ * Submissions wait in a queue of {@code ai-feedback.capacity} for one of
+ * {@code ai-feedback.workers} workers, which call the AI service no faster
+ * than {@code ai-feedback.rate-limit} allows. A failed call is retried after
+ * {@code retry-backoff}, doubling each time, up to {@code max-attempts}. While
+ * the AI service is unavailable the feedback is marked {@link AIFeedback#DEFERRED};
+ * once the attempts run out it is marked {@link AIFeedback#UNAVAILABLE} for
+ * good, so a submission the AI service keeps failing on is not retried on
+ * every sweep, and one still waiting for its verdict ends as {@code ERROR}.
+ * A submission whose user or challenge
+ * has spent its AI token budget gets {@link AIFeedback#LOCAL} feedback from
+ * its test results instead. Submissions still {@code PENDING}, whose challenge
+ * has no local test suite, take their verdict from the AI evaluation too,
+ * through the {@link VerdictHandler}. The stored status is what counts:
+ * submissions still without feedback, because they were deferred, did not
+ * fit in the queue or were queued on an instance that stopped, are picked
+ * up again on startup, every {@code sweep-interval} and when the AI circuit
+ * closes.
+ */
+@Component
+public class AiFeedbackQueue implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AiFeedbackQueue.class);
+    private static final String RATE_LIMIT_KEY = "ai-feedback";
+    private static final TypeReference<Map<String, Object>> FEEDBACK_TYPE = new TypeReference<>() {};
+
+    private final AiFeedbackConfig config;
+    private final SubmissionRepository submissionRepository;
+    private final ChallengeRepository challengeRepository;
+    private final AiEvaluationService aiEvaluationService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final RateLimiter rateLimiter = new InMemoryRateLimiter(1);
+    private final BlockingQueue<Job> queue;
+    /** Submissions queued or waiting for a retry, so a sweep does not add them twice */
+    private final Set<UUID> tracked = ConcurrentHashMap.newKeySet();
+    private volatile VerdictHandler verdictHandler;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ai-feedback-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AiFeedbackQueue(
+            AiFeedbackConfig config,
+            SubmissionRepository submissionRepository,
+            ChallengeRepository challengeRepository,
+            AiEvaluationService aiEvaluationService,
+            AiCircuitBreaker circuitBreaker,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.config = config;
+        this.submissionRepository = submissionRepository;
+        this.challengeRepository = challengeRepository;
+        this.aiEvaluationService = aiEvaluationService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.queue = new LinkedBlockingQueue<>(config.getCapacity());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(config.getWorkers(), runnable -> {
+            Thread thread = new Thread(runnable, "ai-feedback-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < config.getWorkers(); i++) {
+            workers.submit(this::work);
+        }
+
+        Gauge.builder("ai.feedback.queue.size", queue, BlockingQueue::size)
+                .description("Submissions waiting for AI feedback")
+                .register(meterRegistry);
+
+        circuitBreaker.addListener(state -> {
+            if (state == AiCircuitBreaker.State.CLOSED) {
+                scheduler.execute(this::sweep);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = config.getSweepInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::sweep, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a submission whose feedback is stored as {@link AIFeedback#PENDING};
+     * when the queue is full it waits for the next sweep
+     */
+    public void enqueue(UUID submissionId) {
+        offer(new Job(submissionId, 1));
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Record the AI verdict of submissions that could not be graded locally
+     */
+    public void onVerdict(VerdictHandler handler) {
+        this.verdictHandler = handler;
+    }
+
+    private void offer(Job job) {
+        if (!tracked.add(job.submissionId())) {
+            return;
+        }
+        if (!queue.offer(job)) {
+            tracked.remove(job.submissionId());
+            log.debug("AI feedback queue full; submission {} waits for the next sweep", job.submissionId());
+        }
+    }
+
+    /**
+     * Queue submissions still without feedback, oldest first
+     */
+    private void sweep() {
+        try {
+            if (!aiEvaluationService.isAvailable()) {
+                return;
+            }
+            int room = config.getCapacity() - queue.size();
+            if (room <= 0) {
+                return;
+            }
+            List<Submission> awaiting = submissionRepository.findAwaitingAiFeedback(room);
+            awaiting.forEach(submission -> offer(new Job(submission.getId(), 1)));
+        } catch (RuntimeException e) {
+            log.warn("Sweeping submissions awaiting AI feedback failed", e);
+        }
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                process(job);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("AI feedback for submission {} failed", job.submissionId(), e);
+                tracked.remove(job.submissionId());
+            }
+        }
+    }
+
+    private void process(Job job) throws InterruptedException {
+        UUID submissionId = job.submissionId();
+        if (!aiEvaluationService.isAvailable()) {
+            finish(submissionId, AIFeedback.deferred(), "deferred");
+            return;
+        }
+        awaitRateLimit();
+
+        Submission submission = submissionRepository.findById(submissionId).orElse(null);
+        Challenge challenge = submission != null
+                ? challengeRepository.findById(submission.getChallengeId()).orElse(null)
+                : null;
+        if (challenge == null || !awaitsFeedback(submission)) {
+            tracked.remove(submissionId);
+            return;
+        }
+        VerdictHandler handler = submission.getStatus() == SubmissionStatus.PENDING ? verdictHandler : null;
+
+        CodeEvaluationResponse evaluation;
+        try {
+            evaluation = aiEvaluationService
+                    .tryEvaluateCode(buildEvaluationRequest(submission, challenge), challenge.getId().toString())
+                    .contextWrite(new AiCaller(submission.getUserId(), submission.getChallengeId(), submissionId).asContext())
+                    .block();
+        } catch (AiTokenBudget.ExhaustedException e) {
+            // Without a local verdict there is nothing to summarize; it is graded once the budget allows
+            if (handler != null) {
+                finish(submissionId, AIFeedback.deferred(), "deferred");
+            } else {
+                finish(submissionId, localFeedback(submission), "local");
+            }
+            return;
+        } catch (RuntimeException | JsonProcessingException e) {
+            retryOrDefer(job, e);
+            return;
+        }
+        if (evaluation == null) {
+            retryOrDefer(job, new IllegalStateException("Empty response from AI service"));
+            return;
+        }
+        if (handler != null) {
+            try {
+                handler.record(submissionId, challenge, evaluation);
+                count("completed");
+            } finally {
+                tracked.remove(submissionId);
+            }
+            return;
+        }
+        finish(submissionId, AIFeedback.from(evaluation), "completed");
+    }
+
+    private void retryOrDefer(Job job, Exception error) {
+        if (error instanceof AiCircuitBreaker.OpenException) {
+            log.info("AI feedback for submission {} deferred after {} attempts: {}", job.submissionId(), job.attempt(), error.getMessage());
+            finish(job.submissionId(), AIFeedback.deferred(), "deferred");
+            return;
+        }
+        if (job.attempt() >= config.getMaxAttempts()) {
+            log.warn("AI feedback for submission {} given up after {} attempts: {}", job.submissionId(), job.attempt(), error.getMessage());
+            finish(job.submissionId(), AIFeedback.unavailable(), "unavailable");
+            return;
+        }
+        long backoff = config.getRetryBackoff().toMillis() << (job.attempt() - 1);
+        log.debug("AI feedback for submission {} failed, retrying in {} ms: {}", job.submissionId(), backoff, error.getMessage());
+        count("retried");
+        // Still tracked while waiting, so sweeps leave it alone
+        scheduler.schedule(() -> {
+            tracked.remove(job.submissionId());
+            offer(new Job(job.submissionId(), job.attempt() + 1));
+        }, backoff, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Store the feedback, or the reason there is none yet
+     */
+    private void finish(UUID submissionId, AIFeedback feedback, String result) {
+        try {
+            submissionRepository.findById(submissionId).ifPresent(submission -> {
+                if (awaitsFeedback(submission)) {
+                    submission.setAiFeedback(objectMapper.convertValue(feedback, FEEDBACK_TYPE));
+                    if (AIFeedback.UNAVAILABLE.equals(feedback.getStatus())
+                            && submission.getStatus() == SubmissionStatus.PENDING) {
+                        // Nothing is going to grade it any more
+                        submission.setStatus(SubmissionStatus.ERROR);
+                    }
+                    submissionRepository.save(submission);
+                }
+            });
+            count(result);
+        } finally {
+            tracked.remove(submissionId);
+        }
+    }
+
+    /**
+     * Feedback from the verdict of the local test run
+     */
+    private static AIFeedback localFeedback(Submission submission) {
+        List<Map<String, Object>> results = submission.getTestResults() != null ? submission.getTestResults() : List.of();
+        long passed = results.stream().filter(result -> Boolean.TRUE.equals(result.get("passed"))).count();
+        return AIFeedback.local(
+                submission.getScore(),
+                "Passed " + passed + " of " + results.size() + " test cases. Detailed AI feedback is not available today."
+        );
+    }
+
+    private void awaitRateLimit() throws InterruptedException {
+        while (true) {
+            RateLimiter.Decision decision = rateLimiter.tryConsume(RATE_LIMIT_KEY, config.getRateLimit());
+            if (decision.allowed()) {
+                return;
+            }
+            Thread.sleep(Math.max(1, decision.retryAfter().toMillis()));
+        }
+    }
+
+    private static boolean awaitsFeedback(Submission submission) {
+        Object status = submission.getAiFeedback() != null ? submission.getAiFeedback().get("status") : null;
+        return AIFeedback.PENDING.equals(status) || AIFeedback.DEFERRED.equals(status);
+    }
+
+    private CodeEvaluationRequest buildEvaluationRequest(Submission submission, Challenge challenge) throws JsonProcessingException {
+        // Parse challenge requirements to get test cases
+        Map<String, Object> requirements = objectMapper.readValue(
+                challenge.getRequirements() != null ? challenge.getRequirements() : "{}",
+                objectMapper.getTypeFactory().constructMapType(Map.class, String.class, Object.class)
+        );
+
+        // Build evaluation request
+        CodeEvaluationRequest.EvaluationConstraints constraints = new CodeEvaluationRequest.EvaluationConstraints(
+                256, // maxMemoryMb
+                10,  // maxTimeSeconds
+                null  // allowedImports
+        );
+
+        return new CodeEvaluationRequest(
+                submission.getCode(),
+                submission.getLanguage().name(),
+                challenge.getDescription(),
+                extractTestCases(requirements),
+                extractExpectedOutput(requirements),
+                constraints
+        );
+    }
+
+    /**
+     * Test case inputs; cases given as objects contribute their {@code input}
+     */
+    private List<String> extractTestCases(Map<String, Object> requirements) {
+        if (!(requirements.get("testCases") instanceof List<?> tests)) {
+            return List.of();
+        }
+        return tests.stream()
+                .map(test -> test instanceof Map<?, ?> testCase ? Objects.toString(testCase.get("input"), "") : String.valueOf(test))
+                .toList();
+    }
+
+    private String extractExpectedOutput(Map<String, Object> requirements) {
+        Object output = requirements.get("expectedOutput");
+        return output != null ? output.toString() : null;
+    }
+
+    private void count(String result) {
+        Counter.builder("ai.feedback.results")
+                .tag("result", result)
+                .description("AI feedback fetches that completed, were retried, were deferred, were given up or fell back to local feedback")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private record Job(UUID submissionId, int attempt) {
+    }
+
+    @FunctionalInterface
+    public interface VerdictHandler {
+        /**
+         * Store the verdict, score and feedback of a submission from its AI evaluation
+         */
+        void record(UUID submissionId, Challenge challenge, CodeEvaluationResponse evaluation);
+    }
+}
@@ -0,0 +1,206 @@
+package dev.compila.submission.progress;
+
+import dev.compila.submission.config.SubmissionProgressConfig;
+import dev.compila.submission.dto.SubmissionResponse;
+import dev.compila.submission.dto.TestResult;
+import dev.compila.submission.enums.SubmissionStatus;
+import dev.compila.submission.queue.SubmissionQueue;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes the progress of submission evaluations to clients as server-sent
+ * events, so they do not have to poll {@code GET /submissions/{id}}:
+ * <ul>
+ *     <li>{@code queued}: estimated queue position, updated as the queue moves</li>
+ *     <li>{@code started}: a worker picked the submission up</li>
+ *     <li>{@code test-case}: one test case finished</li>
+ *     <li>{@code verdict}: the final submission, after which the stream closes</li>
+ * </ul>
+ * A client that subscribes late first gets everything published so far.
+ * Progress is only known to the instance evaluating the submission; clients
+ * connected elsewhere still get the verdict once it is stored.
+ */
+@Component
+public class SubmissionProgressPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionProgressPublisher.class);
+
+    private final SubmissionProgressConfig config;
+    private final SubmissionQueue submissionQueue;
+    private final Map<UUID, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    public SubmissionProgressPublisher(
+            SubmissionProgressConfig config,
+            SubmissionQueue submissionQueue,
+            MeterRegistry meterRegistry
+    ) {
+        this.config = config;
+        this.submissionQueue = submissionQueue;
+        submissionQueue.addDequeueListener(this::queueMoved);
+
+        Gauge.builder("submission.progress.streams", openStreams, AtomicInteger::get)
+                .description("Open submission progress streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open a progress stream
+     *
+     * @param current loads the stored submission, to close the stream right
+     *                away when it was already evaluated
+     */
+    public SseEmitter subscribe(UUID submissionId, Supplier<SubmissionResponse> current) {
+        SseEmitter emitter = new SseEmitter(config.getStreamTimeout().toMillis());
+        Channel channel = channels.computeIfAbsent(submissionId, id -> new Channel());
+        openStreams.incrementAndGet();
+        emitter.onCompletion(() -> unsubscribe(submissionId, channel, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> emitter.complete());
+
+        synchronized (channel) {
+            channel.emitters.add(emitter);
+            if (channel.ticket != null) {
+                send(channel, emitter, "queued", Map.of("position", channel.position));
+            }
+            if (channel.started) {
+                send(channel, emitter, "started", Map.of("submissionId", submissionId));
+            }
+            channel.results.forEach(result -> send(channel, emitter, "test-case", result));
+        }
+
+        // Subscribed first, then read: a verdict stored in between reaches the
+        // stream one way or the other
+        SubmissionResponse submission = current.get();
+        if (submission.status() != SubmissionStatus.PENDING) {
+            synchronized (channel) {
+                send(channel, emitter, "verdict", submission);
+                channel.emitters.remove(emitter);
+            }
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /**
+     * The submission is waiting in the queue under this ticket
+     */
+    public void queued(UUID submissionId, SubmissionQueue.Ticket ticket) {
+        Channel channel = channels.computeIfAbsent(submissionId, id -> new Channel());
+        synchronized (channel) {
+            channel.ticket = ticket;
+            channel.position = ticket.position();
+            broadcast(channel, "queued", Map.of("position", channel.position));
+        }
+    }
+
+    public void started(UUID submissionId) {
+        Channel channel = channels.computeIfAbsent(submissionId, id -> new Channel());
+        synchronized (channel) {
+            channel.ticket = null;
+            channel.started = true;
+            broadcast(channel, "started", Map.of("submissionId", submissionId));
+        }
+    }
+
+    public void testCaseCompleted(UUID submissionId, TestResult result) {
+        Channel channel = channels.get(submissionId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            channel.results.add(result);
+            broadcast(channel, "test-case", result);
+        }
+    }
+
+    /**
+     * Send the verdict and close every stream of the submission
+     *
+     * @param submission the stored result, or null when it could not be stored
+     */
+    public void completed(UUID submissionId, SubmissionResponse submission) {
+        Channel channel = channels.remove(submissionId);
+        if (channel == null) {
+            return;
+        }
+        List<SseEmitter> emitters;
+        synchronized (channel) {
+            if (submission != null) {
+                broadcast(channel, "verdict", submission);
+            }
+            emitters = List.copyOf(channel.emitters);
+            channel.emitters.clear();
+        }
+        emitters.forEach(SseEmitter::complete);
+    }
+
+    /**
+     * Tell waiting submissions with an audience that they moved up
+     */
+    private void queueMoved() {
+        channels.values().forEach(channel -> {
+            synchronized (channel) {
+                if (channel.ticket == null || channel.emitters.isEmpty()) {
+                    return;
+                }
+                int position = channel.ticket.position();
+                if (position > 0 && position != channel.position) {
+                    channel.position = position;
+                    broadcast(channel, "queued", Map.of("position", position));
+                }
+            }
+        });
+    }
+
+    private void unsubscribe(UUID submissionId, Channel channel, SseEmitter emitter) {
+        openStreams.decrementAndGet();
+        synchronized (channel) {
+            channel.emitters.remove(emitter);
+            // Only drop channels nothing is publishing to, so progress of a
+            // running evaluation is kept for the next subscriber
+            if (channel.emitters.isEmpty() && channel.ticket == null && !channel.started) {
+                channels.remove(submissionId, channel);
+            }
+        }
+    }
+
+    private void broadcast(Channel channel, String event, Object data) {
+        List.copyOf(channel.emitters).forEach(emitter -> send(channel, emitter, event, data));
+    }
+
+    private void send(Channel channel, SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping submission progress stream: {}", e.getMessage());
+            channel.emitters.remove(emitter);
+            emitter.complete();
+        }
+    }
+
+    /**
+     * What has been published for one submission, and who is listening
+     */
+    private static final class Channel {
+        private final List<SseEmitter> emitters = new ArrayList<>();
+        private final List<TestResult> results = new ArrayList<>();
+        private SubmissionQueue.Ticket ticket;
+        private int position;
+        private boolean started;
+    }
+}
@@ -0,0 +1,11 @@
+package dev.compila.submission.queue;
+
+/**
+ * Priority lanes of the submission queue, highest priority first
+ */
+public enum SubmissionLane {
+    /** Regular practice submissions */
+    SUBMIT,
+    /** Ad-hoc "Run" executions from the editor */
+    RUN
+}
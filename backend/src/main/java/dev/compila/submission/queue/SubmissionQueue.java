@@ -0,0 +1,431 @@
+package dev.compila.submission.queue;
+
+import dev.compila.submission.config.SubmissionQueueConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounded scheduler for submission evaluation and code runs.
+ * <p>
+ * Work is grouped into {@link SubmissionLane priority lanes} served by weighted
+ * round robin, and inside each lane users take turns so one user's burst
+ * cannot delay everybody else. When the queue is at capacity, or a user has
+ * reached their limit of queued and running work, new work is rejected with
+ * {@link SubmissionQueueFullException} instead of piling up threads.
+ */
+@Component
+public class SubmissionQueue implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionQueue.class);
+
+    private final SubmissionQueueConfig config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Map<SubmissionLane, Lane> lanes = new EnumMap<>(SubmissionLane.class);
+    /** Work each user has queued or running, counted against {@code perUserLimit} */
+    private final Map<String, Integer> activeByUser = new HashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final List<Runnable> dequeueListeners = new CopyOnWriteArrayList<>();
+    private final MeterRegistry meterRegistry;
+    private long sequence;
+    private int pending;
+    private int running;
+    private volatile boolean shutdown;
+
+    public SubmissionQueue(SubmissionQueueConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+
+        for (SubmissionLane lane : SubmissionLane.values()) {
+            Lane state = new Lane(weightOf(lane));
+            lanes.put(lane, state);
+            Gauge.builder("submission.queue.depth", state, Lane::size)
+                    .tag("lane", lane.name())
+                    .description("Items waiting in the submission queue")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("submission.queue.running", this, SubmissionQueue::getRunning)
+                .description("Items currently being processed by submission workers")
+                .register(meterRegistry);
+
+        for (int i = 0; i < config.getWorkers(); i++) {
+            Thread worker = new Thread(this::workLoop, "submission-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Submission queue started with {} workers and capacity {}", config.getWorkers(), config.getCapacity());
+    }
+
+    /**
+     * Reserve a queue slot for the user without handing over the work yet.
+     * Used when the work can only start after the caller's transaction commits.
+     *
+     * @throws SubmissionQueueFullException if the queue or the user's share of it is full
+     */
+    public Ticket reserve(String userKey, SubmissionLane lane) {
+        lock.lock();
+        try {
+            if (pending >= config.getCapacity()) {
+                reject(lane, "capacity");
+                throw new SubmissionQueueFullException(
+                        "Submission queue is full, please retry shortly",
+                        "QUEUE_FULL",
+                        config.getRetryAfter()
+                );
+            }
+            int userActive = activeByUser.getOrDefault(userKey, 0);
+            if (userActive >= config.getPerUserLimit()) {
+                reject(lane, "user_limit");
+                throw new SubmissionQueueFullException(
+                        "Too many pending submissions, wait for the previous ones to finish",
+                        "USER_QUEUE_LIMIT",
+                        config.getRetryAfter()
+                );
+            }
+            pending++;
+            activeByUser.put(userKey, userActive + 1);
+            return new Ticket(userKey, lane);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserve a slot and enqueue the work immediately
+     *
+     * @throws SubmissionQueueFullException if the queue or the user's share of it is full
+     */
+    public <T> CompletableFuture<T> submit(String userKey, SubmissionLane lane, Supplier<T> work) {
+        return reserve(userKey, lane).submit(work);
+    }
+
+    public int getDepth(SubmissionLane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Call {@code listener} on a worker thread every time a task leaves the
+     * queue, i.e. whenever waiting tasks may have moved up. Must be quick.
+     */
+    public void addDequeueListener(Runnable listener) {
+        dequeueListeners.add(listener);
+    }
+
+    private void enqueue(QueuedTask task) {
+        lock.lock();
+        try {
+            task.sequence = ++sequence;
+            lanes.get(task.lane).add(task);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseSlot(String userKey) {
+        lock.lock();
+        try {
+            pending--;
+            releaseUser(userKey);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Must be called with the lock held */
+    private void releaseUser(String userKey) {
+        activeByUser.computeIfPresent(userKey, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void reject(SubmissionLane lane, String reason) {
+        Counter.builder("submission.queue.rejected")
+                .tag("lane", lane.name())
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void workLoop() {
+        while (!shutdown) {
+            QueuedTask task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            // Nothing a task throws may end the worker; a lost worker would shrink the pool for good
+            try {
+                Timer.builder("submission.queue.wait")
+                        .tag("lane", task.lane.name())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - task.enqueuedAt, TimeUnit.NANOSECONDS);
+                notifyDequeued();
+                task.work.run();
+            } catch (Throwable e) {
+                log.error("Submission queue task failed", e);
+            } finally {
+                lock.lock();
+                try {
+                    running--;
+                    releaseUser(task.userKey);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void notifyDequeued() {
+        for (Runnable listener : dequeueListeners) {
+            try {
+                listener.run();
+            } catch (Throwable e) {
+                log.warn("Submission queue listener failed", e);
+            }
+        }
+    }
+
+    private QueuedTask take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                QueuedTask task = next();
+                if (task != null) {
+                    pending--;
+                    running++;
+                    return task;
+                }
+                available.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Weighted round robin over non-empty lanes in priority order. Credits are
+     * refilled once every non-empty lane has spent its share.
+     */
+    private QueuedTask next() {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            for (Lane lane : lanes.values()) {
+                if (lane.size() > 0 && lane.credits > 0) {
+                    lane.credits--;
+                    return lane.poll();
+                }
+            }
+            boolean anyQueued = false;
+            for (Lane lane : lanes.values()) {
+                lane.credits = lane.weight;
+                anyQueued |= lane.size() > 0;
+            }
+            if (!anyQueued) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Approximate 1-based place of a waiting task: the number of tasks in any
+     * lane that were queued before it, plus one. Lane weights and per-user
+     * rotation may reorder them, so this is an estimate.
+     */
+    private int positionOf(QueuedTask task) {
+        lock.lock();
+        try {
+            if (!lanes.get(task.lane).contains(task)) {
+                return 0;
+            }
+            int ahead = 0;
+            for (Lane lane : lanes.values()) {
+                ahead += lane.countQueuedBefore(task.sequence);
+            }
+            return ahead + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int weightOf(SubmissionLane lane) {
+        int weight = switch (lane) {
+            case SUBMIT -> config.getSubmitWeight();
+            case RUN -> config.getRunWeight();
+        };
+        return Math.max(1, weight);
+    }
+
+    @Override
+    public void destroy() {
+        shutdown = true;
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * A reserved queue slot. Exactly one of {@link #submit} or {@link #release} must be called.
+     */
+    public final class Ticket {
+
+        private final String userKey;
+        private final SubmissionLane lane;
+        private boolean used;
+        private QueuedTask task;
+
+        private Ticket(String userKey, SubmissionLane lane) {
+            this.userKey = userKey;
+            this.lane = lane;
+        }
+
+        public synchronized <T> CompletableFuture<T> submit(Supplier<T> work) {
+            if (used) {
+                throw new IllegalStateException("Ticket already used");
+            }
+            used = true;
+            CompletableFuture<T> future = new CompletableFuture<>();
+            task = new QueuedTask(userKey, lane, () -> {
+                try {
+                    future.complete(work.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                    throw e;
+                }
+            });
+            enqueue(task);
+            return future;
+        }
+
+        /**
+         * Estimated 1-based place in the queue while the work waits; 0 once a
+         * worker has picked it up, or before it was submitted
+         */
+        public int position() {
+            QueuedTask queued;
+            synchronized (this) {
+                queued = task;
+            }
+            return queued != null ? positionOf(queued) : 0;
+        }
+
+        public synchronized void release() {
+            if (!used) {
+                used = true;
+                releaseSlot(userKey);
+            }
+        }
+    }
+
+    private static final class QueuedTask {
+        private final String userKey;
+        private final SubmissionLane lane;
+        private final Runnable work;
+        private final long enqueuedAt = System.nanoTime();
+        private long sequence;
+
+        private QueuedTask(String userKey, SubmissionLane lane, Runnable work) {
+            this.userKey = userKey;
+            this.lane = lane;
+            this.work = work;
+        }
+    }
+
+    /**
+     * One priority lane; users are served in rotation so each gets a turn.
+     */
+    private static final class Lane {
+        private final int weight;
+        private final Map<String, ArrayDeque<QueuedTask>> byUser = new LinkedHashMap<>();
+        private final ArrayDeque<String> rotation = new ArrayDeque<>();
+        private int credits;
+        private int size;
+
+        private Lane(int weight) {
+            this.weight = weight;
+            this.credits = weight;
+        }
+
+        private void add(QueuedTask task) {
+            ArrayDeque<QueuedTask> tasks = byUser.computeIfAbsent(task.userKey, key -> {
+                rotation.addLast(key);
+                return new ArrayDeque<>();
+            });
+            tasks.addLast(task);
+            size++;
+        }
+
+        private QueuedTask poll() {
+            String userKey = rotation.pollFirst();
+            if (userKey == null) {
+                return null;
+            }
+            ArrayDeque<QueuedTask> tasks = byUser.get(userKey);
+            QueuedTask task = tasks.pollFirst();
+            if (tasks.isEmpty()) {
+                byUser.remove(userKey);
+            } else {
+                rotation.addLast(userKey);
+            }
+            size--;
+            return task;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private boolean contains(QueuedTask task) {
+            ArrayDeque<QueuedTask> tasks = byUser.get(task.userKey);
+            return tasks != null && tasks.contains(task);
+        }
+
+        private int countQueuedBefore(long sequence) {
+            int count = 0;
+            for (ArrayDeque<QueuedTask> tasks : byUser.values()) {
+                // Each user's tasks are kept in arrival order
+                for (QueuedTask task : tasks) {
+                    if (task.sequence >= sequence) {
+                        break;
+                    }
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package dev.compila.submission.queue;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the submission queue cannot accept more work, either because
+ * it is at capacity or because the user already has too many queued items.
+ */
+public class SubmissionQueueFullException extends RuntimeException {
+
+    private final Duration retryAfter;
+    private final String errorCode;
+
+    public SubmissionQueueFullException(String message, String errorCode, Duration retryAfter) {
+        super(message);
+        this.errorCode = errorCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+}
@@ -0,0 +1,140 @@
+package dev.compila.testing;
+
+import dev.compila.execution.CodeExecutionService;
+import dev.compila.execution.dto.ExecutionRequest;
+import dev.compila.execution.dto.ExecutionResult;
+import dev.compila.testing.dto.TestExecutionResult;
+import dev.compila.testing.dto.TestSuite;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Times test cases for performance-graded challenges: warm-up runs, then
+ * repeated measured runs whose median and p90 CPU time and peak memory are
+ * compared with the reference solution.
+ * <p>
+ * CPU time and memory come from the sandbox's resource accounting. Where the
+ * sandbox cannot measure them (pooled interpreters, the ulimit sandbox), the
+ * program's wall-clock run time is reported instead, but it is not compared
+ * with the reference's CPU time: the CPU limit only applies to measured runs.
+ */
+@Component
+public class BenchmarkRunner {
+
+    private final CodeExecutionService executionService;
+
+    public BenchmarkRunner(CodeExecutionService executionService) {
+        this.executionService = executionService;
+    }
+
+    /**
+     * Benchmark a case that already produced the right output
+     *
+     * @param request the request that produced {@code result}
+     * @return the result with its measurements attached, failed when a run
+     * failed or the case is slower than the suite allows
+     */
+    public TestExecutionResult.TestCaseResult run(
+            String language,
+            String challengeId,
+            ExecutionRequest request,
+            TestSuite.Benchmark benchmark,
+            TestExecutionResult.TestCaseResult result
+    ) {
+        for (int i = 0; i < benchmark.warmupRuns(); i++) {
+            ExecutionResult warmup = executionService.execute(request, challengeId);
+            if (!completed(warmup)) {
+                return result.withBenchmark(null, failure(warmup));
+            }
+        }
+
+        List<Long> cpuSamples = new ArrayList<>(benchmark.measuredRuns());
+        List<Long> wallSamples = new ArrayList<>(benchmark.measuredRuns());
+        List<Long> memorySamples = new ArrayList<>(benchmark.measuredRuns());
+        boolean cpuMeasured = true;
+        for (int i = 0; i < benchmark.measuredRuns(); i++) {
+            ExecutionResult run = executionService.execute(request, challengeId);
+            if (!completed(run)) {
+                return result.withBenchmark(null, failure(run));
+            }
+            ExecutionResult.ResourceUsage usage = run.resourceUsage();
+            wallSamples.add(wallMicros(run));
+            if (usage != null) {
+                cpuSamples.add(usage.cpuTotalMicros());
+                memorySamples.add(usage.peakMemoryBytes());
+            } else {
+                cpuMeasured = false;
+            }
+        }
+
+        // Never mix CPU and wall-clock samples: one unmeasured run reports them all as wall-clock
+        List<Long> timeSamples = cpuMeasured ? cpuSamples : wallSamples;
+        long medianCpu = percentile(timeSamples, 0.5);
+        Long medianMemory = cpuMeasured ? percentile(memorySamples, 0.5) : null;
+        Long p90Memory = medianMemory != null ? percentile(memorySamples, 0.9) : null;
+
+        TestSuite.Baseline baseline = benchmark.baselineFor(language, result.testCaseId());
+        Double cpuRatio = cpuMeasured && baseline != null && baseline.cpuMicros() > 0
+                ? (double) medianCpu / baseline.cpuMicros()
+                : null;
+        Double memoryRatio = baseline != null && baseline.peakMemoryBytes() != null && baseline.peakMemoryBytes() > 0 && medianMemory != null
+                ? (double) medianMemory / baseline.peakMemoryBytes()
+                : null;
+
+        TestExecutionResult.BenchmarkStats stats = new TestExecutionResult.BenchmarkStats(
+                timeSamples.size(),
+                medianCpu,
+                percentile(timeSamples, 0.9),
+                medianMemory,
+                p90Memory,
+                cpuMeasured,
+                cpuRatio,
+                memoryRatio
+        );
+
+        String error = null;
+        if (exceeds(cpuRatio, benchmark.maxCpuRatio())) {
+            error = String.format(Locale.ROOT, "Too slow: %.1f ms of CPU time is %.1fx the reference solution (limit %.1fx)",
+                    medianCpu / 1000.0, cpuRatio, benchmark.maxCpuRatio());
+        } else if (exceeds(memoryRatio, benchmark.maxMemoryRatio())) {
+            error = String.format(Locale.ROOT, "Too much memory: %.1f MB is %.1fx the reference solution (limit %.1fx)",
+                    medianMemory / (1024.0 * 1024.0), memoryRatio, benchmark.maxMemoryRatio());
+        }
+        return result.withBenchmark(stats, error);
+    }
+
+    private static boolean completed(ExecutionResult run) {
+        return run.success() && run.status() == ExecutionResult.ExecutionStatus.COMPLETED;
+    }
+
+    /**
+     * Runs fail with the execution's own error so timeouts read the same as
+     * in the correctness run
+     */
+    private static String failure(ExecutionResult run) {
+        return run.error() != null ? run.error() : "Benchmark run failed";
+    }
+
+    private static long wallMicros(ExecutionResult run) {
+        if (run.phases() != null && run.phases().runNanos() > 0) {
+            return run.phases().runNanos() / 1000;
+        }
+        return run.executionTimeMs() != null ? run.executionTimeMs() * 1000 : 0;
+    }
+
+    private static boolean exceeds(Double ratio, Double limit) {
+        return ratio != null && limit != null && ratio > limit;
+    }
+
+    /**
+     * Nearest-rank percentile
+     */
+    private static long percentile(List<Long> samples, double fraction) {
+        List<Long> sorted = samples.stream().sorted().toList();
+        int rank = (int) Math.ceil(fraction * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+}
@@ -1,7 +1,11 @@
 package dev.compila.testing;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.cache.ResultCache;
 import dev.compila.execution.CodeExecutionService;
+import dev.compila.execution.compare.ComparisonMode;
+import dev.compila.execution.compare.ExpectedOutput;
+import dev.compila.execution.config.ExecutionConfig;
 import dev.compila.execution.dto.ExecutionRequest;
 import dev.compila.execution.dto.ExecutionResult;
 import dev.compila.testing.dto.TestCase;
@@ -12,9 +16,26 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -24,83 +45,248 @@ import java.util.stream.Collectors;
 public class TestRunnerService {
 
     private static final Logger log = LoggerFactory.getLogger(TestRunnerService.class);
+    /** Versioned with the shape of cached results; entries of an older shape are left to expire */
+    private static final String CACHE_KIND = "tests-v2";
+    private static final Set<ExecutionResult.ExecutionStatus> REPRODUCIBLE_STATUSES = EnumSet.of(
+            ExecutionResult.ExecutionStatus.COMPLETED,
+            ExecutionResult.ExecutionStatus.WRONG_ANSWER,
+            ExecutionResult.ExecutionStatus.RUNTIME_ERROR,
+            ExecutionResult.ExecutionStatus.COMPILATION_ERROR,
+            ExecutionResult.ExecutionStatus.MEMORY_LIMIT_EXCEEDED,
+            ExecutionResult.ExecutionStatus.OUTPUT_LIMIT_EXCEEDED
+    );
+    private static final String SKIPPED_MESSAGE = "Skipped after a previous test case failed";
 
     private final CodeExecutionService executionService;
+    private final ExecutionConfig executionConfig;
     private final ObjectMapper objectMapper;
-
-    public TestRunnerService(CodeExecutionService executionService, ObjectMapper objectMapper) {
+    private final ResultCache resultCache;
+    private final BenchmarkRunner benchmarkRunner;
+    private final TimeoutCalibrations timeoutCalibrations;
+    private final ExecutorService testExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public TestRunnerService(
+            CodeExecutionService executionService,
+            ExecutionConfig executionConfig,
+            ObjectMapper objectMapper,
+            ResultCache resultCache,
+            BenchmarkRunner benchmarkRunner,
+            TimeoutCalibrations timeoutCalibrations
+    ) {
         this.executionService = executionService;
+        this.executionConfig = executionConfig;
         this.objectMapper = objectMapper;
+        this.resultCache = resultCache;
+        this.benchmarkRunner = benchmarkRunner;
+        this.timeoutCalibrations = timeoutCalibrations;
+    }
+
+    /**
+     * Whether test cases in the language can be run here at all
+     */
+    public boolean canRunTests(String language) {
+        return executionService.canExecute(language);
     }
 
     /**
      * Run all test cases in a test suite against submitted code
      */
     public TestExecutionResult runTests(String language, String code, TestSuite testSuite, String submissionId) {
-        List<TestExecutionResult.TestCaseResult> results = new ArrayList<>();
-        long totalExecutionTime = 0;
+        return runTests(language, code, testSuite, submissionId, false);
+    }
 
-        for (TestCase testCase : testSuite.testCases()) {
-            try {
-                // Build execution request with test case input
-                ExecutionRequest request = buildExecutionRequest(
-                        language,
-                        code,
-                        testCase,
-                        testSuite
-                );
+    /**
+     * Run all test cases in a test suite, fanning them out over up to
+     * {@link #parallelism(TestSuite)} concurrent executions. Results keep the
+     * order given by {@link TestCase#order()}. Suites without a per-case
+     * isolation requirement run in batch mode when the language supports it.
+     * Benchmark suites run one case at a time so runs do not skew each
+     * other's timing.
+     *
+     * <p>
+     * Outcomes are cached by code, language and suite, so an identical
+     * resubmission returns the earlier result without running anything.
+     *
+     * @param failFast skip the remaining cases once one fails, for callers that
+     *                 only need pass/fail (batches always run every case)
+     */
+    public TestExecutionResult runTests(
+            String language,
+            String code,
+            TestSuite testSuite,
+            String submissionId,
+            boolean failFast
+    ) {
+        return runTests(language, code, testSuite, submissionId, failFast, result -> { });
+    }
 
-                // Execute code
-                long startTime = System.currentTimeMillis();
-                ExecutionResult executionResult = executionService.execute(request);
-                long executionTime = System.currentTimeMillis() - startTime;
-
-                totalExecutionTime += executionTime;
-
-                // Validate output
-                if (executionResult.status() == ExecutionResult.ExecutionStatus.COMPLETED && executionResult.success()) {
-                    String actualOutput = normalizeOutput(executionResult.output());
-                    String expectedOutput = normalizeOutput(testCase.expectedOutput());
-
-                    if (actualOutput.equals(expectedOutput)) {
-                        results.add(TestExecutionResult.TestCaseResult.passed(
-                                testCase.id(),
-                                testCase.name(),
-                                executionTime,
-                                testCase.isHidden()
-                        ));
-                    } else {
-                        results.add(TestExecutionResult.TestCaseResult.failed(
-                                testCase.id(),
-                                testCase.name(),
-                                expectedOutput,
-                                actualOutput,
-                                executionTime,
-                                testCase.isHidden()
-                        ));
+    /**
+     * Run all test cases in a test suite, handing each case's result to
+     * {@code onResult} as soon as it is known, in completion order
+     */
+    public TestExecutionResult runTests(
+            String language,
+            String code,
+            TestSuite testSuite,
+            String submissionId,
+            boolean failFast,
+            Consumer<TestExecutionResult.TestCaseResult> onResult
+    ) {
+        return runTests(language, code, null, testSuite, submissionId, failFast, onResult);
+    }
+
+    /**
+     * Run all test cases against a multi-file project, whose files every case
+     * runs among
+     *
+     * @param workspace the project's files, or null for {@code code} alone
+     */
+    public TestExecutionResult runTests(
+            String language,
+            String code,
+            ExecutionRequest.Workspace workspace,
+            TestSuite testSuite,
+            String submissionId,
+            boolean failFast,
+            Consumer<TestExecutionResult.TestCaseResult> onResult
+    ) {
+        // The snapshot key only decides where files are linked, never what a run sees
+        Object cacheContext = workspace != null
+                ? List.of(testSuite, new TreeMap<>(workspace.files()), Objects.toString(workspace.entrypoint(), ""))
+                : testSuite;
+        Optional<ResultCache.Key> cacheKey = resultCache.key(CACHE_KIND, testSuite.challengeId(), language, code, cacheContext);
+        Optional<TestExecutionResult> cached = cacheKey.flatMap(key -> resultCache.get(key, TestExecutionResult.class));
+        if (cached.isPresent()) {
+            log.debug("Serving cached test results for submission {}", submissionId);
+            cached.get().results().forEach(onResult);
+            return cached.get().withSubmissionId(submissionId);
+        }
+
+        TestExecutionResult result = runSuite(language, code, workspace, testSuite, submissionId, failFast, onResult);
+        if (isReproducible(result)) {
+            cacheKey.ifPresent(key -> resultCache.put(key, result));
+        }
+        return result;
+    }
+
+    private TestExecutionResult runSuite(
+            String language,
+            String code,
+            ExecutionRequest.Workspace workspace,
+            TestSuite testSuite,
+            String submissionId,
+            boolean failFast,
+            Consumer<TestExecutionResult.TestCaseResult> onResult
+    ) {
+        List<TestCase> testCases = testSuite.testCases().stream()
+                .sorted(Comparator.comparingInt(TestCase::order))
+                .toList();
+
+        if (canBatch(language, testSuite)) {
+            return runBatched(language, code, workspace, testSuite, testCases, submissionId, onResult);
+        }
+
+        Semaphore permits = new Semaphore(parallelism(testSuite));
+        AtomicBoolean failed = new AtomicBoolean(false);
+        // Each case is reported once: by its task as soon as it ran, or else
+        // (skipped, cancelled, failed) by the collection loop below
+        AtomicReferenceArray<TestExecutionResult.TestCaseResult> reported = new AtomicReferenceArray<>(testCases.size());
+        List<Future<TestExecutionResult.TestCaseResult>> futures = new ArrayList<>(testCases.size());
+
+        for (int i = 0; i < testCases.size(); i++) {
+            int index = i;
+            TestCase testCase = testCases.get(i);
+            futures.add(testExecutor.submit(() -> {
+                permits.acquire();
+                try {
+                    if (failFast && failed.get()) {
+                        return skipped(testCase);
+                    }
+                    TestExecutionResult.TestCaseResult result = runTestCase(language, code, workspace, testCase, testSuite);
+                    if (!result.passed()) {
+                        failed.set(true);
                     }
-                } else {
-                    results.add(TestExecutionResult.TestCaseResult.error(
-                            testCase.id(),
-                            testCase.name(),
-                            executionResult.error() != null ? executionResult.error() : "Execution failed",
-                            executionTime,
-                            testCase.isHidden()
-                    ));
+                    if (reported.compareAndSet(index, null, result)) {
+                        onResult.accept(result);
+                    }
+                    return result;
+                } finally {
+                    permits.release();
                 }
+            }));
+        }
 
-            } catch (Exception e) {
-                log.error("Failed to execute test case: {}", testCase.id(), e);
-                results.add(TestExecutionResult.TestCaseResult.error(
-                        testCase.id(),
-                        testCase.name(),
-                        "Test execution error: " + e.getMessage(),
-                        0,
-                        testCase.isHidden()
-                ));
+        List<TestExecutionResult.TestCaseResult> results = new ArrayList<>(testCases.size());
+        long totalExecutionTime = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            TestExecutionResult.TestCaseResult awaited = awaitResult(futures.get(i), testCases.get(i));
+            TestExecutionResult.TestCaseResult result;
+            if (reported.compareAndSet(i, null, awaited)) {
+                result = awaited;
+                onResult.accept(result);
+            } else {
+                // The task finished and reported before its cancellation took effect
+                result = reported.get(i);
+            }
+            totalExecutionTime += result.executionTimeMs();
+            results.add(result);
+
+            if (failFast && !result.passed()) {
+                // Interrupt cases still running; unless they already reported, they count as skipped
+                futures.subList(i + 1, futures.size()).forEach(future -> future.cancel(true));
+            }
+        }
+
+        return TestExecutionResult.success(
+                testSuite.challengeId(),
+                submissionId,
+                results,
+                totalExecutionTime
+        );
+    }
+
+    /**
+     * Batch mode: split the ordered cases into one contiguous chunk per
+     * parallel slot and run each chunk through a single interpreter process.
+     */
+    private TestExecutionResult runBatched(
+            String language,
+            String code,
+            ExecutionRequest.Workspace workspace,
+            TestSuite testSuite,
+            List<TestCase> testCases,
+            String submissionId,
+            Consumer<TestExecutionResult.TestCaseResult> onResult
+    ) {
+        int chunks = Math.min(parallelism(testSuite), testCases.size());
+        int chunkSize = (testCases.size() + chunks - 1) / chunks;
+
+        List<Future<List<TestExecutionResult.TestCaseResult>>> futures = new ArrayList<>();
+        for (int from = 0; from < testCases.size(); from += chunkSize) {
+            List<TestCase> chunk = testCases.subList(from, Math.min(from + chunkSize, testCases.size()));
+            futures.add(testExecutor.submit(() -> {
+                List<TestExecutionResult.TestCaseResult> chunkResults = runChunk(language, code, workspace, chunk, testSuite);
+                chunkResults.forEach(onResult);
+                return chunkResults;
+            }));
+        }
+
+        List<TestExecutionResult.TestCaseResult> results = new ArrayList<>(testCases.size());
+        for (int i = 0; i < futures.size(); i++) {
+            int from = i * chunkSize;
+            List<TestCase> chunk = testCases.subList(from, Math.min(from + chunkSize, testCases.size()));
+            try {
+                results.addAll(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.addAll(chunkFailed(chunk, "Test execution interrupted", onResult));
+            } catch (ExecutionException e) {
+                log.error("Failed to execute test batch", e.getCause());
+                results.addAll(chunkFailed(chunk, "Test execution error: " + e.getCause().getMessage(), onResult));
             }
         }
 
+        long totalExecutionTime = results.stream().mapToLong(TestExecutionResult.TestCaseResult::executionTimeMs).sum();
         return TestExecutionResult.success(
                 testSuite.challengeId(),
                 submissionId,
@@ -109,6 +295,59 @@ public class TestRunnerService {
         );
     }
 
+    private List<TestExecutionResult.TestCaseResult> chunkFailed(
+            List<TestCase> chunk,
+            String error,
+            Consumer<TestExecutionResult.TestCaseResult> onResult
+    ) {
+        List<TestExecutionResult.TestCaseResult> results = chunk.stream()
+                .map(testCase -> TestExecutionResult.TestCaseResult.error(
+                        testCase.id(), testCase.name(), error, 0, testCase.isHidden()))
+                .toList();
+        results.forEach(onResult);
+        return results;
+    }
+
+    private List<TestExecutionResult.TestCaseResult> runChunk(
+            String language,
+            String code,
+            ExecutionRequest.Workspace workspace,
+            List<TestCase> chunk,
+            TestSuite testSuite
+    ) {
+        // The batch runs under the most generous timeout of its cases
+        int timeout = chunk.stream()
+                .mapToInt(testCase -> timeoutSeconds(language, testCase, testSuite))
+                .max()
+                .orElse(testSuite.constraints().timeoutSeconds());
+        ExecutionRequest request = buildExecutionRequest(language, code, workspace, chunk.get(0), testSuite, timeout);
+        List<String> inputs = chunk.stream().map(TestCase::input).toList();
+        List<ExecutionResult> executions = executionService.executeBatch(request, inputs, testSuite.challengeId());
+
+        List<TestExecutionResult.TestCaseResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            ExecutionResult execution = executions.get(i);
+            long executionTime = execution.executionTimeMs() != null ? execution.executionTimeMs() : 0;
+            results.add(toTestCaseResult(chunk.get(i), execution, executionTime));
+        }
+        return results;
+    }
+
+    /**
+     * Batching shares one process across cases, so it is only used when
+     * neither the suite nor any case asks for per-case isolation, and never
+     * for benchmarks, which time each case on its own
+     */
+    private boolean canBatch(String language, TestSuite testSuite) {
+        if (testSuite.testCases().size() < 2 || testSuite.constraints().isolatePerCase()
+                || testSuite.constraints().benchmark() != null) {
+            return false;
+        }
+        boolean caseIsolation = testSuite.testCases().stream()
+                .anyMatch(testCase -> testCase.metadata() != null && Boolean.TRUE.equals(testCase.metadata().get("isolated")));
+        return !caseIsolation && executionService.supportsBatch(language);
+    }
+
     /**
      * Run a single test case
      */
@@ -117,63 +356,161 @@ public class TestRunnerService {
             String code,
             TestCase testCase,
             TestSuite.TestConstraints constraints
+    ) {
+        TestSuite dummySuite = new TestSuite(
+                null,
+                null,
+                List.of(testCase),
+                constraints != null ? constraints : TestSuite.TestConstraints.defaults(),
+                null,
+                null
+        );
+        return runTestCase(language, code, null, testCase, dummySuite);
+    }
+
+    private TestExecutionResult.TestCaseResult runTestCase(
+            String language,
+            String code,
+            ExecutionRequest.Workspace workspace,
+            TestCase testCase,
+            TestSuite testSuite
     ) {
         try {
-            TestSuite dummySuite = new TestSuite(
-                    null,
-                    null,
-                    List.of(testCase),
-                    constraints != null ? constraints : TestSuite.TestConstraints.defaults(),
-                    null,
-                    null
-            );
+            // Build execution request with test case input; the expected output
+            // lets the executor stop the program as soon as it goes wrong
+            ExecutionRequest request = buildExecutionRequest(language, code, workspace, testCase, testSuite, timeoutSeconds(language, testCase, testSuite))
+                    .withExpectedOutput(expectedOutput(testCase));
 
-            ExecutionRequest request = buildExecutionRequest(language, code, testCase, dummySuite);
+            // Execute code
             long startTime = System.currentTimeMillis();
-            ExecutionResult result = executionService.execute(request);
+            ExecutionResult result = executionService.execute(request, testSuite.challengeId());
             long executionTime = System.currentTimeMillis() - startTime;
 
-            if (result.status() == ExecutionResult.ExecutionStatus.COMPLETED && result.success()) {
-                String actual = normalizeOutput(result.output());
-                String expected = normalizeOutput(testCase.expectedOutput());
-
-                if (actual.equals(expected)) {
-                    return TestExecutionResult.TestCaseResult.passed(
-                            testCase.id(),
-                            testCase.name(),
-                            executionTime,
-                            testCase.isHidden()
-                    );
-                } else {
-                    return TestExecutionResult.TestCaseResult.failed(
-                            testCase.id(),
-                            testCase.name(),
-                            expected,
-                            actual,
-                            executionTime,
-                            testCase.isHidden()
-                    );
-                }
+            TestExecutionResult.TestCaseResult caseResult = toTestCaseResult(testCase, result, executionTime);
+            TestSuite.Benchmark benchmark = testSuite.constraints().benchmark();
+            if (benchmark != null && caseResult.passed()) {
+                return benchmarkRunner.run(language, testSuite.challengeId(), request, benchmark, caseResult);
+            }
+            return caseResult;
+        } catch (Exception e) {
+            log.error("Failed to execute test case: {}", testCase.id(), e);
+            return TestExecutionResult.TestCaseResult.error(
+                    testCase.id(),
+                    testCase.name(),
+                    "Test execution error: " + e.getMessage(),
+                    0,
+                    testCase.isHidden()
+            );
+        }
+    }
+
+    /**
+     * The comparator's verdict from the run when there is one; otherwise
+     * (batched runs, pooled interpreters) the collected output is compared
+     */
+    private boolean outputMatches(TestCase testCase, ExecutionResult result) {
+        if (result.outputMatched() != null) {
+            return result.outputMatched();
+        }
+        return expectedOutput(testCase).matches(result.output());
+    }
+
+    private TestExecutionResult.TestCaseResult toTestCaseResult(
+            TestCase testCase,
+            ExecutionResult result,
+            long executionTime
+    ) {
+        boolean wrongAnswer = result.status() == ExecutionResult.ExecutionStatus.WRONG_ANSWER;
+
+        // Validate output
+        if (wrongAnswer || (result.status() == ExecutionResult.ExecutionStatus.COMPLETED && result.success())) {
+            if (!wrongAnswer && outputMatches(testCase, result)) {
+                return TestExecutionResult.TestCaseResult.passed(
+                        testCase.id(),
+                        testCase.name(),
+                        executionTime,
+                        testCase.isHidden()
+                );
             } else {
-                return TestExecutionResult.TestCaseResult.error(
+                return TestExecutionResult.TestCaseResult.failed(
                         testCase.id(),
                         testCase.name(),
-                        result.error() != null ? result.error() : "Execution failed",
+                        displayed(testCase.expectedOutput()),
+                        displayed(result.output()),
                         executionTime,
                         testCase.isHidden()
                 );
             }
-        } catch (Exception e) {
+        } else {
             return TestExecutionResult.TestCaseResult.error(
                     testCase.id(),
                     testCase.name(),
-                    "Test error: " + e.getMessage(),
-                    0,
-                    testCase.isHidden()
+                    result.error() != null ? result.error() : "Execution failed",
+                    executionTime,
+                    testCase.isHidden(),
+                    result.status()
             );
         }
     }
 
+    private TestExecutionResult.TestCaseResult awaitResult(
+            Future<TestExecutionResult.TestCaseResult> future,
+            TestCase testCase
+    ) {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            return skipped(testCase);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TestExecutionResult.TestCaseResult.error(
+                    testCase.id(), testCase.name(), "Test execution interrupted", 0, testCase.isHidden());
+        } catch (ExecutionException e) {
+            log.error("Failed to execute test case: {}", testCase.id(), e.getCause());
+            return TestExecutionResult.TestCaseResult.error(
+                    testCase.id(), testCase.name(), "Test execution error: " + e.getCause().getMessage(), 0, testCase.isHidden());
+        }
+    }
+
+    private TestExecutionResult.TestCaseResult skipped(TestCase testCase) {
+        return TestExecutionResult.TestCaseResult.error(
+                testCase.id(),
+                testCase.name(),
+                SKIPPED_MESSAGE,
+                0,
+                testCase.isHidden()
+        );
+    }
+
+    /**
+     * Whether a result would come out the same on a rerun: every case ended
+     * with a verdict on the code. Cases that never ran to an end, timeouts
+     * and infrastructure errors (execution disabled, unsupported language, a
+     * failing executor) depend on timing, load or configuration, so results
+     * holding any of them are not cached.
+     */
+    private boolean isReproducible(TestExecutionResult result) {
+        return result.results().stream()
+                .map(TestExecutionResult.TestCaseResult::status)
+                .allMatch(status -> status != null && REPRODUCIBLE_STATUSES.contains(status));
+    }
+
+    /**
+     * Number of test cases allowed to run at once: the configured value, or
+     * as many as fit on this machine given each run's CPU core budget.
+     * Benchmarks always run alone.
+     */
+    private int parallelism(TestSuite testSuite) {
+        if (testSuite.constraints().benchmark() != null) {
+            return 1;
+        }
+        if (executionConfig.getTestParallelism() > 0) {
+            return executionConfig.getTestParallelism();
+        }
+        int coresPerRun = Math.max(1, Math.max(testSuite.constraints().maxCpuCores(), executionConfig.getMaxCpuCores()));
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / coresPerRun);
+    }
+
     /**
      * Parse test suite from JSON requirements
      */
@@ -186,20 +523,26 @@ public class TestRunnerService {
             @SuppressWarnings("unchecked")
             Map<String, Object> requirements = objectMapper.readValue(requirementsJson, Map.class);
 
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> testCasesData = (List<Map<String, Object>>) requirements.get("testCases");
-
+            // Cases given as plain input strings (the AI service's format) have
+            // no expected output and cannot run here
             List<TestCase> testCases = List.of();
-            if (testCasesData != null) {
+            if (requirements.get("testCases") instanceof List<?> testCasesData) {
                 testCases = testCasesData.stream()
-                        .map(this::mapToTestCase)
+                        .filter(Map.class::isInstance)
+                        .map(data -> mapToTestCase((Map<?, ?>) data))
                         .collect(Collectors.toList());
             }
 
             TestSuite.TestConstraints constraints = TestSuite.TestConstraints.defaults();
-            if (requirements.containsKey("timeout")) {
-                int timeout = ((Number) requirements.get("timeout")).intValue();
-                constraints = new TestSuite.TestConstraints(timeout, 256, 1);
+            boolean isolatePerCase = Boolean.TRUE.equals(requirements.get("isolatePerCase"));
+            TestSuite.Benchmark benchmark = requirements.get("benchmark") != null
+                    ? objectMapper.convertValue(requirements.get("benchmark"), TestSuite.Benchmark.class)
+                    : null;
+            if (requirements.containsKey("timeout") || isolatePerCase || benchmark != null) {
+                int timeout = requirements.containsKey("timeout")
+                        ? ((Number) requirements.get("timeout")).intValue()
+                        : constraints.timeoutSeconds();
+                constraints = new TestSuite.TestConstraints(timeout, 256, 1, isolatePerCase, benchmark);
             }
 
             return new TestSuite(
@@ -217,7 +560,7 @@ public class TestRunnerService {
         }
     }
 
-    private TestCase mapToTestCase(Map<String, Object> data) {
+    private TestCase mapToTestCase(Map<?, ?> data) {
         return new TestCase(
                 (String) data.get("id"),
                 (String) data.get("name"),
@@ -241,11 +584,56 @@ public class TestRunnerService {
         );
     }
 
+    /**
+     * Time a reference solution on every case of a suite, bypassing the
+     * result cache and calibrated timeouts
+     *
+     * @return the slowest of {@code runs} run times per case id, in
+     * milliseconds, for the cases where every run passed
+     */
+    public Map<String, Long> measureReference(String language, String code, TestSuite testSuite, int runs) {
+        Map<String, Long> baselines = new LinkedHashMap<>();
+        for (TestCase testCase : testSuite.testCases()) {
+            ExecutionRequest request = buildExecutionRequest(language, code, null, testCase, testSuite, testSuite.constraints().timeoutSeconds())
+                    .withExpectedOutput(expectedOutput(testCase));
+            long slowest = 0;
+            TestExecutionResult.TestCaseResult outcome = null;
+            for (int i = 0; i < runs; i++) {
+                ExecutionResult result = executionService.execute(request, testSuite.challengeId());
+                long executionTime = result.executionTimeMs() != null ? result.executionTimeMs() : 0;
+                outcome = toTestCaseResult(testCase, result, executionTime);
+                if (!outcome.passed()) {
+                    break;
+                }
+                slowest = Math.max(slowest, executionTime);
+            }
+            if (outcome != null && outcome.passed()) {
+                baselines.put(testCase.id(), slowest);
+            } else {
+                log.warn("Reference solution fails test case {} of challenge {}: {}",
+                        testCase.id(), testSuite.challengeId(), outcome != null ? outcome.errorMessage() : "not run");
+            }
+        }
+        return baselines;
+    }
+
+    /**
+     * The suite's timeout, lowered to the calibrated one when the challenge's
+     * reference solution was measured for this language
+     */
+    private int timeoutSeconds(String language, TestCase testCase, TestSuite testSuite) {
+        int suiteTimeout = testSuite.constraints().timeoutSeconds();
+        OptionalInt calibrated = timeoutCalibrations.timeoutSeconds(testSuite.challengeId(), language, testCase.id());
+        return calibrated.isPresent() ? Math.min(calibrated.getAsInt(), suiteTimeout) : suiteTimeout;
+    }
+
     private ExecutionRequest buildExecutionRequest(
             String language,
             String code,
+            ExecutionRequest.Workspace workspace,
             TestCase testCase,
-            TestSuite testSuite
+            TestSuite testSuite,
+            int timeoutSeconds
     ) {
         // Combine setup, user code, and teardown
         String fullCode = buildFullCode(code, testSuite);
@@ -253,7 +641,7 @@ public class TestRunnerService {
         // Convert TestConstraints to ExecutionConstraints
         TestSuite.TestConstraints source = testSuite.constraints();
         ExecutionRequest.ExecutionConstraints constraints = new ExecutionRequest.ExecutionConstraints(
-                source.timeoutSeconds(),
+                timeoutSeconds,
                 source.maxMemoryMb(),
                 source.maxCpuCores()
         );
@@ -263,7 +651,9 @@ public class TestRunnerService {
                 language,
                 testCase.input(),
                 constraints,
-                null
+                null,
+                null,
+                workspace
         );
     }
 
@@ -283,11 +673,23 @@ public class TestRunnerService {
         return fullCode.toString();
     }
 
-    private String normalizeOutput(String output) {
-        if (output == null) {
-            return "";
+    /**
+     * Expected output of a case, compared as configured by its metadata:
+     * {@code "comparison"} (exact, trimmed, whitespace, token, float) and
+     * {@code "tolerance"} for float comparison
+     */
+    private ExpectedOutput expectedOutput(TestCase testCase) {
+        Map<String, Object> metadata = testCase.metadata();
+        if (metadata == null || metadata.isEmpty()) {
+            return ExpectedOutput.of(testCase.expectedOutput());
         }
-        // Trim whitespace and normalize line endings
-        return output.trim().replaceAll("\\r\\n?", "\n");
+        double tolerance = metadata.get("tolerance") instanceof Number number
+                ? number.doubleValue()
+                : ExpectedOutput.DEFAULT_TOLERANCE;
+        return new ExpectedOutput(testCase.expectedOutput(), ComparisonMode.from(metadata.get("comparison")), tolerance);
+    }
+
+    private String displayed(String output) {
+        return output != null ? output.strip() : "";
     }
 }
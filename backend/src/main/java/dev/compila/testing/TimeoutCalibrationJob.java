@@ -0,0 +1,138 @@
+package dev.compila.testing;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.challenge.Challenge;
+import dev.compila.challenge.ChallengeRepository;
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.testing.dto.TestSuite;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Measures each challenge's reference solution ({@code solutionCode}, keyed
+ * by language) on every test case and stores the run times for
+ * {@link TimeoutCalibrations}.
+ * <p>
+ * On startup every challenge lacking a calibration for this instance's
+ * hardware and toolchains is calibrated; a challenge whose requirements or
+ * solution change is recalibrated. Calibrations run one at a time in the
+ * background so they do not compete with submissions for the sandbox.
+ */
+@Component
+public class TimeoutCalibrationJob implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TimeoutCalibrationJob.class);
+    private static final TypeReference<Map<String, String>> SOLUTION_TYPE = new TypeReference<>() {};
+
+    private final ChallengeRepository challengeRepository;
+    private final TestRunnerService testRunnerService;
+    private final TimeoutCalibrations calibrations;
+    private final ExecutionConfig config;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "timeout-calibration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TimeoutCalibrationJob(
+            ChallengeRepository challengeRepository,
+            TestRunnerService testRunnerService,
+            TimeoutCalibrations calibrations,
+            ExecutionConfig config,
+            ObjectMapper objectMapper
+    ) {
+        this.challengeRepository = challengeRepository;
+        this.testRunnerService = testRunnerService;
+        this.calibrations = calibrations;
+        this.config = config;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void calibrateStale() {
+        if (config.isTimeoutCalibrationEnabled()) {
+            worker.submit(() -> challengeRepository.findAll().forEach(challenge -> calibrate(challenge, false)));
+        }
+    }
+
+    /**
+     * Drop a challenge's calibrations and measure it again once the current
+     * transaction, if any, has committed
+     */
+    public void recalibrate(UUID challengeId) {
+        calibrations.clear(challengeId);
+        if (!config.isTimeoutCalibrationEnabled()) {
+            return;
+        }
+        Runnable submit = () -> worker.submit(() -> challengeRepository.findById(challengeId)
+                .ifPresent(challenge -> calibrate(challenge, true)));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    private void calibrate(Challenge challenge, boolean force) {
+        Map<String, String> solutions;
+        try {
+            solutions = challenge.getSolutionCode() != null
+                    ? objectMapper.readValue(challenge.getSolutionCode(), SOLUTION_TYPE)
+                    : Map.of();
+        } catch (Exception e) {
+            log.warn("Unreadable reference solution for challenge {}", challenge.getId(), e);
+            return;
+        }
+        if (solutions.isEmpty()) {
+            return;
+        }
+
+        TestSuite testSuite = testRunnerService.parseTestSuite(
+                challenge.getRequirements(), challenge.getId().toString(), challenge.getTitle());
+        if (testSuite.testCases().isEmpty()) {
+            return;
+        }
+
+        solutions.forEach((key, code) -> {
+            String language = key.toUpperCase(Locale.ROOT);
+            if (code == null || code.isBlank() || calibrations.fingerprint(language) == null
+                    || (!force && calibrations.isCalibrated(challenge.getId(), language))) {
+                return;
+            }
+            try {
+                long startTime = System.currentTimeMillis();
+                Map<String, Long> baselines = testRunnerService.measureReference(
+                        language, code, testSuite, Math.max(1, config.getTimeoutCalibrationRuns()));
+                calibrations.store(challenge.getId(), language, baselines);
+                log.info("Calibrated {} timeouts of challenge {} on {} cases in {} ms",
+                        language, challenge.getSlug(), baselines.size(), System.currentTimeMillis() - startTime);
+            } catch (Exception e) {
+                log.warn("Failed to calibrate {} timeouts of challenge {}", language, challenge.getId(), e);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,193 @@
+package dev.compila.testing;
+
+import dev.compila.challenge.ChallengeCalibration;
+import dev.compila.challenge.ChallengeCalibrationRepository;
+import dev.compila.execution.CodeExecutionService;
+import dev.compila.execution.config.ExecutionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-case timeouts derived from reference solution run times: the slowest
+ * reference run times {@code timeout-calibration-factor}, in whole seconds.
+ * <p>
+ * Measurements are only valid for the hardware and toolchain they were taken
+ * on, so each is stored under a fingerprint of both and ignored by instances
+ * with a different one. Lookups are cached in memory.
+ */
+@Component
+public class TimeoutCalibrations {
+
+    private static final Logger log = LoggerFactory.getLogger(TimeoutCalibrations.class);
+    /** How long a lookup is trusted before re-reading it, to see calibrations made by other instances */
+    private static final long CACHE_TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final ChallengeCalibrationRepository repository;
+    private final CodeExecutionService executionService;
+    private final ExecutionConfig config;
+    private final String hardware;
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final Map<String, CachedBaselines> baselines = new ConcurrentHashMap<>();
+
+    public TimeoutCalibrations(
+            ChallengeCalibrationRepository repository,
+            CodeExecutionService executionService,
+            ExecutionConfig config
+    ) {
+        this.repository = repository;
+        this.executionService = executionService;
+        this.config = config;
+        this.hardware = describeHardware();
+    }
+
+    /**
+     * @return the calibrated timeout of a case, or empty when the challenge
+     * has not been calibrated for this language on this machine
+     */
+    public OptionalInt timeoutSeconds(String challengeId, String language, String testCaseId) {
+        UUID id = parseId(challengeId);
+        if (!config.isTimeoutCalibrationEnabled() || id == null || testCaseId == null) {
+            return OptionalInt.empty();
+        }
+        String key = key(id, language);
+        CachedBaselines cached = baselines.get(key);
+        if (cached == null || System.nanoTime() - cached.loadedAt() > CACHE_TTL_NANOS) {
+            cached = new CachedBaselines(load(id, language), System.nanoTime());
+            baselines.put(key, cached);
+        }
+        Long baselineMs = cached.caseBaselinesMs().get(testCaseId);
+        if (baselineMs == null) {
+            return OptionalInt.empty();
+        }
+        double timeoutMs = baselineMs * config.getTimeoutCalibrationFactor();
+        return OptionalInt.of((int) Math.max(1, Math.ceil(timeoutMs / 1000)));
+    }
+
+    public boolean isCalibrated(UUID challengeId, String language) {
+        String fingerprint = fingerprint(language);
+        return fingerprint != null && repository.existsByChallengeIdAndLanguageAndFingerprint(challengeId, language, fingerprint);
+    }
+
+    public void store(UUID challengeId, String language, Map<String, Long> caseBaselinesMs) {
+        String fingerprint = fingerprint(language);
+        if (fingerprint == null) {
+            return;
+        }
+        ChallengeCalibration calibration = repository.findByChallengeIdAndLanguageAndFingerprint(challengeId, language, fingerprint)
+                .orElseGet(() -> new ChallengeCalibration(challengeId, language, fingerprint));
+        calibration.setCaseBaselinesMs(caseBaselinesMs);
+        calibration.setCalibratedAt(LocalDateTime.now());
+        repository.save(calibration);
+        baselines.put(key(challengeId, language), new CachedBaselines(Map.copyOf(caseBaselinesMs), System.nanoTime()));
+    }
+
+    /**
+     * Forget every calibration of a challenge, e.g. after its test cases changed
+     */
+    public void clear(UUID challengeId) {
+        repository.deleteByChallengeId(challengeId);
+        baselines.keySet().removeIf(key -> key.startsWith(challengeId + ":"));
+    }
+
+    /**
+     * Identifies this machine's hardware and the language's toolchain
+     *
+     * @return null when the toolchain is not available
+     */
+    public String fingerprint(String language) {
+        String cached = fingerprints.get(language);
+        if (cached != null) {
+            return cached;
+        }
+        String toolchain;
+        try {
+            toolchain = executionService.toolchainVersion(language);
+        } catch (IllegalStateException e) {
+            log.warn("Cannot calibrate {} timeouts: {}", language, e.getMessage());
+            return null;
+        }
+        if (toolchain == null) {
+            return null;
+        }
+        String fingerprint = sha256(hardware + "\n" + language + "\n" + toolchain).substring(0, 32);
+        fingerprints.put(language, fingerprint);
+        return fingerprint;
+    }
+
+    private Map<String, Long> load(UUID challengeId, String language) {
+        String fingerprint = fingerprint(language);
+        if (fingerprint == null) {
+            return Map.of();
+        }
+        return repository.findByChallengeIdAndLanguageAndFingerprint(challengeId, language, fingerprint)
+                .map(calibration -> Map.copyOf(calibration.getCaseBaselinesMs()))
+                .orElse(Map.of());
+    }
+
+    /**
+     * CPU model and count, plus how runs are isolated, which changes their cost
+     */
+    private String describeHardware() {
+        String cpuModel = "unknown";
+        try {
+            cpuModel = Files.readAllLines(Path.of("/proc/cpuinfo")).stream()
+                    .filter(line -> line.startsWith("model name"))
+                    .map(line -> line.substring(line.indexOf(':') + 1).trim())
+                    .findFirst()
+                    .orElse(cpuModel);
+        } catch (IOException e) {
+            // Not Linux; the architecture and core count still tell machines apart
+        }
+        return String.join("|",
+                System.getProperty("os.arch"),
+                String.valueOf(Runtime.getRuntime().availableProcessors()),
+                cpuModel,
+                config.getSandbox(),
+                config.isUseDocker() ? "docker" : "host");
+    }
+
+    /**
+     * @param caseBaselinesMs empty when the challenge is not calibrated
+     */
+    private record CachedBaselines(Map<String, Long> caseBaselinesMs, long loadedAt) {
+    }
+
+    private static UUID parseId(String challengeId) {
+        if (challengeId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(challengeId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String key(UUID challengeId, String language) {
+        return challengeId + ":" + language;
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
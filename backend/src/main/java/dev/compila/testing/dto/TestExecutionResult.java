@@ -1,5 +1,7 @@
 package dev.compila.testing.dto;
 
+import dev.compila.execution.dto.ExecutionResult;
+
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -16,6 +18,10 @@ public record TestExecutionResult(
         LocalDateTime executedAt,
         String errorMessage
 ) {
+    /**
+     * @param status how the case's run ended; null when it never ran to an
+     *               end, e.g. it was skipped or the harness around it failed
+     */
     public record TestCaseResult(
             String testCaseId,
             String testCaseName,
@@ -24,19 +30,105 @@ public record TestExecutionResult(
             String actualOutput,
             String errorMessage,
             long executionTimeMs,
-            boolean isHidden
+            boolean isHidden,
+            BenchmarkStats benchmark,
+            ExecutionResult.ExecutionStatus status
     ) {
         public static TestCaseResult passed(String id, String name, long timeMs, boolean isHidden) {
-            return new TestCaseResult(id, name, true, null, null, null, timeMs, isHidden);
+            return new TestCaseResult(id, name, true, null, null, null, timeMs, isHidden, null,
+                    ExecutionResult.ExecutionStatus.COMPLETED);
         }
 
         public static TestCaseResult failed(String id, String name, String expected, String actual, long timeMs, boolean isHidden) {
-            return new TestCaseResult(id, name, false, expected, actual, "Output mismatch", timeMs, isHidden);
+            return new TestCaseResult(id, name, false, expected, actual, "Output mismatch", timeMs, isHidden, null,
+                    ExecutionResult.ExecutionStatus.WRONG_ANSWER);
         }
 
+        /**
+         * A case that did not run to an end
+         */
         public static TestCaseResult error(String id, String name, String error, long timeMs, boolean isHidden) {
-            return new TestCaseResult(id, name, false, null, null, error, timeMs, isHidden);
+            return error(id, name, error, timeMs, isHidden, null);
+        }
+
+        public static TestCaseResult error(
+                String id,
+                String name,
+                String error,
+                long timeMs,
+                boolean isHidden,
+                ExecutionResult.ExecutionStatus status
+        ) {
+            return new TestCaseResult(id, name, false, null, null, error, timeMs, isHidden, null, status);
+        }
+
+        /**
+         * Whether the case failed for reasons outside the submitted code: it
+         * never ran to an end, or the execution infrastructure failed it
+         */
+        public boolean failedToRun() {
+            return !passed && (status == null || status == ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
         }
+
+        /**
+         * The same result with benchmark measurements attached, failed with
+         * {@code error} when they exceed the suite's thresholds
+         */
+        public TestCaseResult withBenchmark(BenchmarkStats stats, String error) {
+            return new TestCaseResult(
+                    testCaseId,
+                    testCaseName,
+                    passed && error == null,
+                    expectedOutput,
+                    actualOutput,
+                    error != null ? error : errorMessage,
+                    executionTimeMs,
+                    isHidden,
+                    stats,
+                    status
+            );
+        }
+    }
+
+    /**
+     * Timing of a case over the measured benchmark runs
+     *
+     * @param cpuMeasured false when the sandbox could not account CPU time
+     *                    and the CPU figures are wall-clock run time instead;
+     *                    no CPU ratio is computed or enforced then
+     * @param cpuRatio    median CPU time relative to the reference, when one
+     *                    exists and CPU time was measured
+     * @param memoryRatio median peak memory relative to the reference, when both were measured
+     */
+    public record BenchmarkStats(
+            int runs,
+            long medianCpuMicros,
+            long p90CpuMicros,
+            Long medianPeakMemoryBytes,
+            Long p90PeakMemoryBytes,
+            boolean cpuMeasured,
+            Double cpuRatio,
+            Double memoryRatio
+    ) {
+    }
+
+    /**
+     * The same outcome attributed to another submission, used when serving a cached result
+     */
+    public TestExecutionResult withSubmissionId(String submissionId) {
+        return new TestExecutionResult(
+                challengeId,
+                submissionId,
+                passed,
+                totalTests,
+                passedTests,
+                failedTests,
+                results,
+                score,
+                totalExecutionTimeMs,
+                executedAt,
+                errorMessage
+        );
     }
 
     public static TestExecutionResult success(String challengeId, String submissionId, List<TestCaseResult> results, long totalTime) {
@@ -1,6 +1,7 @@
 package dev.compila.testing.dto;
 
 import java.util.List;
+import java.util.Map;
 
 public record TestSuite(
         String challengeId,
@@ -10,13 +11,72 @@ public record TestSuite(
         String setupCode,
         String teardownCode
 ) {
+    /**
+     * @param isolatePerCase run every test case in its own process instead of
+     *                       batching all cases through one interpreter
+     * @param benchmark      when set, passing cases are also timed against
+     *                       the reference solution
+     */
     public record TestConstraints(
             int timeoutSeconds,
             int maxMemoryMb,
-            int maxCpuCores
+            int maxCpuCores,
+            boolean isolatePerCase,
+            Benchmark benchmark
     ) {
+        public TestConstraints(int timeoutSeconds, int maxMemoryMb, int maxCpuCores, boolean isolatePerCase) {
+            this(timeoutSeconds, maxMemoryMb, maxCpuCores, isolatePerCase, null);
+        }
+
+        public TestConstraints(int timeoutSeconds, int maxMemoryMb, int maxCpuCores) {
+            this(timeoutSeconds, maxMemoryMb, maxCpuCores, false);
+        }
+
         public static TestConstraints defaults() {
             return new TestConstraints(10, 256, 1);
         }
     }
+
+    /**
+     * Benchmark mode: each case that produces the right output is run
+     * {@code warmupRuns} more times unmeasured, then {@code measuredRuns}
+     * times measured, and its median is compared with the reference solution.
+     *
+     * @param maxCpuRatio    how many times slower than the reference a case may
+     *                       be, e.g. 2.0 for "within 2x"; null to only report
+     * @param maxMemoryRatio the same for peak memory
+     * @param reference      reference measurements by language, then test case id
+     */
+    public record Benchmark(
+            int warmupRuns,
+            int measuredRuns,
+            Double maxCpuRatio,
+            Double maxMemoryRatio,
+            Map<String, Map<String, Baseline>> reference
+    ) {
+        public Benchmark {
+            warmupRuns = Math.max(0, warmupRuns);
+            measuredRuns = measuredRuns > 0 ? measuredRuns : 5;
+            reference = reference != null ? reference : Map.of();
+        }
+
+        /**
+         * @return the reference measurement for a case, or null when the
+         * reference solution was not measured in this language
+         */
+        public Baseline baselineFor(String language, String testCaseId) {
+            return reference.entrySet().stream()
+                    .filter(entry -> entry.getKey().equalsIgnoreCase(language))
+                    .map(entry -> entry.getValue().get(testCaseId))
+                    .filter(baseline -> baseline != null)
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * Median CPU time and peak memory of the reference solution on one case
+     */
+    public record Baseline(long cpuMicros, Long peakMemoryBytes) {
+    }
 }
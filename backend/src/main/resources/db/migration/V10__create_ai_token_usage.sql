@@ -0,0 +1,15 @@
+-- AI tokens spent per UTC day, per user, per challenge and in total
+-- (scope_key 'total')
+CREATE TABLE IF NOT EXISTS ai_token_usage (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    scope VARCHAR(16) NOT NULL,
+    scope_key VARCHAR(64) NOT NULL,
+    day DATE NOT NULL,
+    tokens BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    UNIQUE(scope, scope_key, day)
+);
+
+CREATE INDEX IF NOT EXISTS idx_ai_token_usage_day ON ai_token_usage(day, scope, tokens DESC);
@@ -0,0 +1,16 @@
+-- Reference solution run times per test case, measured on one hardware and
+-- toolchain combination (the fingerprint) and used to derive per-case timeouts
+CREATE TABLE IF NOT EXISTS challenge_calibrations (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    challenge_id UUID NOT NULL REFERENCES challenges(id) ON DELETE CASCADE,
+    language VARCHAR(20) NOT NULL,
+    fingerprint VARCHAR(64) NOT NULL,
+    case_baselines_ms JSONB NOT NULL,
+    calibrated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    UNIQUE(challenge_id, language, fingerprint)
+);
+
+CREATE INDEX IF NOT EXISTS idx_challenge_calibrations_challenge ON challenge_calibrations(challenge_id);
@@ -0,0 +1,5 @@
+-- Submissions graded while the AI service was unavailable, whose feedback is
+-- fetched once it is back
+CREATE INDEX IF NOT EXISTS idx_submissions_ai_feedback_deferred
+    ON submissions(submitted_at)
+    WHERE ai_feedback ->> 'status' = 'DEFERRED';
@@ -0,0 +1,7 @@
+-- Submissions still waiting for AI feedback, whether queued or deferred while
+-- the AI service was unavailable
+DROP INDEX IF EXISTS idx_submissions_ai_feedback_deferred;
+
+CREATE INDEX IF NOT EXISTS idx_submissions_ai_feedback_pending
+    ON submissions(submitted_at)
+    WHERE ai_feedback ->> 'status' IN ('PENDING', 'DEFERRED');
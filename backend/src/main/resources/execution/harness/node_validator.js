@@ -0,0 +1,70 @@
+// compila.dev - long-lived Node.js syntax validator
+//
+// Protocol (binary, over stdin/stdout):
+//   request : "CHECK <code_bytes>\n" <code>
+//   response: "<STATUS> <message_bytes>\n" <message>
+// STATUS is OK or ERROR; ERROR carries the parser's message. The validator
+// prints "READY\n" once on startup. Code is compiled as a CommonJS module body,
+// like `node --check` does, and never executed.
+
+'use strict';
+
+const fs = require('fs');
+const vm = require('vm');
+
+const MODULE_PARAMETERS = ['exports', 'require', 'module', '__filename', '__dirname'];
+
+let pending = Buffer.alloc(0);
+let expected = null;
+
+function check(code) {
+    try {
+        vm.compileFunction(code, MODULE_PARAMETERS, { filename: 'solution.js' });
+        return null;
+    } catch (e) {
+        // Keep the source excerpt and message, drop the validator's own frames
+        const stack = String(e && e.stack ? e.stack : e);
+        const frames = stack.indexOf('\n    at ');
+        return frames >= 0 ? stack.substring(0, frames) : stack;
+    }
+}
+
+function respond(error) {
+    const message = Buffer.from(error === null ? '' : error, 'utf8');
+    fs.writeSync(1, `${error === null ? 'OK' : 'ERROR'} ${message.length}\n`);
+    if (message.length > 0) {
+        fs.writeSync(1, message);
+    }
+}
+
+function pump() {
+    while (true) {
+        if (expected === null) {
+            const newline = pending.indexOf(10);
+            if (newline < 0) {
+                return;
+            }
+            const parts = pending.subarray(0, newline).toString('ascii').trim().split(' ');
+            pending = pending.subarray(newline + 1);
+            if (parts[0] !== 'CHECK' || parts.length !== 2) {
+                process.exit(2);
+            }
+            expected = Number(parts[1]);
+        }
+        if (pending.length < expected) {
+            return;
+        }
+        const code = pending.subarray(0, expected).toString('utf8');
+        pending = pending.subarray(expected);
+        expected = null;
+        respond(check(code));
+    }
+}
+
+process.stdin.on('data', (chunk) => {
+    pending = Buffer.concat([pending, chunk]);
+    pump();
+});
+process.stdin.on('end', () => process.exit(0));
+
+fs.writeSync(1, 'READY\n');
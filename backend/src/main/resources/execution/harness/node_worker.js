@@ -0,0 +1,400 @@
+// compila.dev - pooled Node.js interpreter worker
+//
+// Protocol (binary, over the worker's stdin/stdout):
+//   request : "RUN <code_bytes> <input_bytes> <timeout_seconds>\n" <code> <input> <nonce> "\n"
+//   response: "<nonce> <STATUS> <exit_code> <elapsed_ms> <stdout_bytes> <stderr_bytes>\n" <stdout> <stderr>
+// Batch mode compiles the code once and then answers one response per case:
+//   request : "BATCH <code_bytes> <case_count> <timeout_seconds>\n" <code>
+//   request : "CASE <input_bytes>\n" <input> <nonce> "\n"    (repeated case_count times)
+// STATUS is one of OK, ERROR, TIMEOUT, OUTPUT, UNSUPPORTED. The worker prints "READY\n" once
+// on startup.
+// Every response starts with the nonce that trailed its request, which never enters the
+// run's context.
+// The only argument is the output limit in bytes; a run printing more (stdout and stderr
+// combined) is stopped with OUTPUT.
+//
+// A vm context is no security boundary, so the pool starts a fresh worker for every request
+// (one RUN, or one BATCH of the same code); this process only saves the startup time. Code
+// gets its own context per run, and only the modules below, with an fs that reads stdin.
+// A run that reaches past that (another module, other files, a process feature or host
+// global the context lacks) would behave differently than under a plain `node`, so it is
+// abandoned and answered with UNSUPPORTED, and the pool runs the code in a cold process.
+
+'use strict';
+
+const fs = require('fs');
+const vm = require('vm');
+const { Console } = require('console');
+const { Readable, Writable } = require('stream');
+
+const outputLimit = Number(process.argv[2] || 1024 * 1024);
+
+// Modules without access to files, processes or the network
+const allowedModules = new Set([
+    'assert', 'buffer', 'events', 'readline', 'string_decoder', 'util'
+]);
+
+let current = null;
+
+class ExitSignal {
+    constructor(code) {
+        this.code = code;
+    }
+}
+
+class OutputLimitSignal {
+}
+
+class UnsupportedSignal {
+    constructor(feature) {
+        this.feature = feature;
+    }
+}
+
+// Marks the run as one the pool cannot run faithfully. The flag outlives the signal, in
+// case the code catches it and carries on.
+function unsupported(run, feature) {
+    run.unsupported = true;
+    throw new UnsupportedSignal(feature);
+}
+
+function writeResponse(nonce, status, exitCode, elapsedMs, stdout, stderr) {
+    fs.writeSync(1, `${nonce} ${status} ${exitCode} ${elapsedMs} ${stdout.length} ${stderr.length}\n`);
+    for (const output of [stdout, stderr]) {
+        let offset = 0;
+        while (offset < output.length) {
+            offset += fs.writeSync(1, output, offset);
+        }
+    }
+}
+
+function finish(status, exitCode) {
+    const run = current;
+    if (run === null) {
+        return;
+    }
+    current = null;
+    for (const handle of run.timers) {
+        clearTimeout(handle);
+        clearInterval(handle);
+    }
+    if (run.unsupported) {
+        status = 'UNSUPPORTED';
+        exitCode = 0;
+        run.stdout = [];
+        run.stderr = [];
+    }
+    writeResponse(run.nonce, status, exitCode, Date.now() - run.startedAt,
+        Buffer.concat(run.stdout), Buffer.concat(run.stderr));
+    setImmediate(pump);
+}
+
+function fail(run, error) {
+    if (current !== run) {
+        return;
+    }
+    if (error instanceof ExitSignal) {
+        finish(error.code === 0 ? 'OK' : 'ERROR', error.code);
+        return;
+    }
+    if (isMissingHostGlobal(error)) {
+        run.unsupported = true;
+    }
+    run.stderr.push(Buffer.from(userStack(error) + '\n'));
+    finish('ERROR', 1);
+}
+
+// The exit code of a run that ends without calling process.exit, as node reports it
+function exitStatus(sandboxProcess) {
+    return Number(sandboxProcess.exitCode || 0);
+}
+
+// A ReferenceError for a global plain node has but the run's context does not
+function isMissingHostGlobal(error) {
+    if (!error || error.name !== 'ReferenceError') {
+        return false;
+    }
+    const match = /^(\S+) is not defined$/.exec(String(error.message));
+    return match !== null && match[1] in globalThis;
+}
+
+// Strips the worker's own frames so the trace only shows the user's code
+function userStack(error) {
+    const text = String(error && error.stack ? error.stack : error);
+    return text.split('\n')
+        .filter((line) => !line.includes(__filename) && !line.includes('(node:') && !line.includes('at node:'))
+        .join('\n');
+}
+
+// Stops the run once it has printed more than the output limit
+function append(run, chunks, buffer) {
+    run.outputBytes += buffer.length;
+    if (run.outputBytes > outputLimit) {
+        if (current === run) {
+            run.stdout = [];
+            run.stderr = [];
+            finish('OUTPUT', 1);
+        }
+        throw new OutputLimitSignal();
+    }
+    chunks.push(buffer);
+}
+
+// A stream collecting what the run writes into one of its output buffers
+function capture(run, chunks) {
+    const stream = new Writable({
+        write(chunk, encoding, callback) {
+            append(run, chunks, Buffer.isBuffer(chunk) ? chunk : Buffer.from(chunk, encoding));
+            callback();
+        }
+    });
+    stream.write = (chunk, encoding) => {
+        append(run, chunks, Buffer.isBuffer(chunk) ? chunk : Buffer.from(String(chunk), typeof encoding === 'string' ? encoding : 'utf8'));
+        return true;
+    };
+    return stream;
+}
+
+function buildContext(run, input) {
+    const stdout = capture(run, run.stdout);
+    const stderr = capture(run, run.stderr);
+
+    const stdin = Readable.from([input], { objectMode: false });
+    run.stdin = stdin;
+
+    const track = (schedule) => (fn, ...args) => {
+        const handle = schedule((...cbArgs) => {
+            if (schedule !== setInterval) {
+                run.timers.delete(handle);
+            }
+            if (current === run) {
+                try {
+                    fn(...cbArgs);
+                } catch (e) {
+                    fail(run, e);
+                }
+            }
+        }, ...args);
+        run.timers.add(handle);
+        return handle;
+    };
+    const untrack = (clear) => (handle) => {
+        run.timers.delete(handle);
+        clear(handle);
+    };
+
+    // Anything but the listed members is left to a cold process
+    const only = (target, name) => new Proxy(target, {
+        get(object, property, receiver) {
+            if (typeof property === 'symbol' || property in object) {
+                return Reflect.get(object, property, receiver);
+            }
+            return unsupported(run, `${name}.${property}`);
+        }
+    });
+
+    const readStdin = (path) => path === 0 || path === '/dev/stdin';
+    const sandboxFs = only({
+        readFileSync(path, options) {
+            if (!readStdin(path)) {
+                return unsupported(run, `fs.readFileSync(${path})`);
+            }
+            const encoding = typeof options === 'string' ? options : options && options.encoding;
+            return encoding ? input.toString(encoding) : Buffer.from(input);
+        }
+    }, 'fs');
+    const sandboxRequire = (name) => {
+        const bare = String(name).replace(/^node:/, '');
+        if (bare === 'fs') {
+            return sandboxFs;
+        }
+        if (!allowedModules.has(bare)) {
+            return unsupported(run, `require(${name})`);
+        }
+        return require(bare);
+    };
+
+    const sandboxProcess = only({
+        argv: ['node', 'solution.js'],
+        env: {},
+        platform: process.platform,
+        version: process.version,
+        versions: process.versions,
+        stdin,
+        stdout,
+        stderr,
+        hrtime: process.hrtime,
+        memoryUsage: process.memoryUsage,
+        nextTick: process.nextTick,
+        cwd: () => '/',
+        exitCode: undefined,
+        exit: (code) => {
+            throw new ExitSignal(code === undefined ? exitStatus(sandboxProcess) : code);
+        }
+    }, 'process');
+    run.process = sandboxProcess;
+
+    const moduleObject = { exports: {} };
+    sandboxRequire.main = moduleObject;
+    const sandbox = {
+        // ignoreErrors: false so the output limit signal reaches the user's code
+        console: new Console({ stdout, stderr, ignoreErrors: false }),
+        process: sandboxProcess,
+        require: sandboxRequire,
+        module: moduleObject,
+        exports: moduleObject.exports,
+        __filename: '/solution.js',
+        __dirname: '/',
+        Buffer,
+        URL,
+        URLSearchParams,
+        TextEncoder,
+        TextDecoder,
+        queueMicrotask,
+        setTimeout: track(setTimeout),
+        setInterval: track(setInterval),
+        setImmediate: track(setImmediate),
+        clearTimeout: untrack(clearTimeout),
+        clearInterval: untrack(clearInterval),
+        clearImmediate: untrack(clearImmediate)
+    };
+    sandbox.global = sandbox;
+    return vm.createContext(sandbox);
+}
+
+function stdinBusy(stdin) {
+    const listening = stdin.listenerCount('data') + stdin.listenerCount('readable') + stdin.listenerCount('end') > 0;
+    return listening && !stdin.readableEnded;
+}
+
+function awaitIdle(run) {
+    let idleTicks = 0;
+    const check = () => {
+        if (current !== run) {
+            return;
+        }
+        if (run.timers.size === 0 && !stdinBusy(run.stdin)) {
+            idleTicks++;
+        } else {
+            idleTicks = 0;
+        }
+        if (idleTicks >= 2) {
+            const code = exitStatus(run.process);
+            finish(code === 0 ? 'OK' : 'ERROR', code);
+        } else {
+            setImmediate(check);
+        }
+    };
+    setImmediate(check);
+}
+
+function compileScript(code) {
+    try {
+        return { script: new vm.Script(code, { filename: 'solution.js' }), error: null };
+    } catch (e) {
+        return { script: null, error: e };
+    }
+}
+
+function execute(compiled, input, timeoutSeconds, nonce) {
+    const run = {
+        stdout: [], stderr: [], outputBytes: 0, timers: new Set(), startedAt: Date.now(),
+        stdin: null, process: null, unsupported: false, nonce
+    };
+    current = run;
+    try {
+        if (compiled.error !== null) {
+            throw compiled.error;
+        }
+        const context = buildContext(run, input);
+        const options = {};
+        if (timeoutSeconds > 0) {
+            options.timeout = timeoutSeconds * 1000;
+        }
+        compiled.script.runInContext(context, options);
+    } catch (e) {
+        if (e && e.code === 'ERR_SCRIPT_EXECUTION_TIMEOUT') {
+            finish('TIMEOUT', 1);
+        } else {
+            fail(run, e);
+        }
+        return;
+    }
+    awaitIdle(run);
+}
+
+process.on('uncaughtException', (e) => fail(current, e));
+process.on('unhandledRejection', (e) => fail(current, e));
+
+let pending = Buffer.alloc(0);
+let request = null;
+let batch = null;
+
+function takeHeader() {
+    const newline = pending.indexOf(10);
+    if (newline < 0) {
+        return null;
+    }
+    const parts = pending.subarray(0, newline).toString('ascii').trim().split(' ');
+    pending = pending.subarray(newline + 1);
+    if (parts[0] === 'RUN' && parts.length === 4) {
+        return { type: 'RUN', codeBytes: Number(parts[1]), inputBytes: Number(parts[2]), timeout: Number(parts[3]) };
+    }
+    if (parts[0] === 'BATCH' && parts.length === 4) {
+        return { type: 'BATCH', codeBytes: Number(parts[1]), cases: Number(parts[2]), timeout: Number(parts[3]), inputBytes: 0 };
+    }
+    if (parts[0] === 'CASE' && parts.length === 2 && batch !== null) {
+        return { type: 'CASE', codeBytes: 0, inputBytes: Number(parts[1]) };
+    }
+    process.exit(2);
+}
+
+function pump() {
+    while (current === null) {
+        if (request === null) {
+            request = takeHeader();
+            if (request === null) {
+                return;
+            }
+        }
+        const payload = request.codeBytes + request.inputBytes;
+        let needed = payload;
+        let nonce = null;
+        if (request.type !== 'BATCH') {
+            const newline = pending.indexOf(10, payload);
+            if (newline < 0) {
+                return;
+            }
+            nonce = pending.subarray(payload, newline).toString('ascii').trim();
+            needed = newline + 1;
+        }
+        if (pending.length < needed) {
+            return;
+        }
+        const code = pending.subarray(0, request.codeBytes).toString('utf8');
+        const input = Buffer.from(pending.subarray(request.codeBytes, payload));
+        const header = request;
+        pending = pending.subarray(needed);
+        request = null;
+
+        if (header.type === 'RUN') {
+            execute(compileScript(code), input, header.timeout, nonce);
+        } else if (header.type === 'BATCH') {
+            batch = { compiled: compileScript(code), remaining: header.cases, timeout: header.timeout };
+        } else {
+            const { compiled, timeout } = batch;
+            if (--batch.remaining <= 0) {
+                batch = null;
+            }
+            execute(compiled, input, timeout, nonce);
+        }
+    }
+}
+
+process.stdin.on('data', (chunk) => {
+    pending = Buffer.concat([pending, chunk]);
+    pump();
+});
+process.stdin.on('end', () => process.exit(0));
+
+fs.writeSync(1, 'READY\n');
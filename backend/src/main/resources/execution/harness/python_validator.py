@@ -0,0 +1,64 @@
+# compila.dev - long-lived Python syntax validator
+#
+# Protocol (binary, over stdin/stdout):
+#   request : "CHECK <code_bytes>\n" <code>
+#   response: "<STATUS> <message_bytes>\n" <message>
+# STATUS is OK or ERROR; ERROR carries the compiler's message. The validator
+# prints "READY\n" once on startup. Code is compiled, never executed.
+
+import sys
+import traceback
+
+proto_in = sys.stdin.buffer
+proto_out = sys.stdout.buffer
+
+
+def read_exact(n):
+    chunks = []
+    while n > 0:
+        chunk = proto_in.read(n)
+        if not chunk:
+            raise EOFError()
+        chunks.append(chunk)
+        n -= len(chunk)
+    return b"".join(chunks)
+
+
+def respond(status, message):
+    proto_out.write(b"%s %d\n" % (status, len(message)))
+    proto_out.write(message)
+    proto_out.flush()
+
+
+def check(source):
+    try:
+        compile(source, "solution.py", "exec", dont_inherit=True)
+        return None
+    except Exception as e:
+        # SyntaxError for bad code, ValueError for null bytes, RecursionError
+        # and MemoryError for pathologically nested code
+        return "".join(traceback.format_exception_only(type(e), e))
+
+
+def main():
+    proto_out.write(b"READY\n")
+    proto_out.flush()
+    while True:
+        header = proto_in.readline()
+        if not header:
+            return
+        parts = header.decode("ascii").split()
+        if len(parts) != 2 or parts[0] != "CHECK":
+            sys.exit(2)
+        error = check(read_exact(int(parts[1])))
+        if error is None:
+            respond(b"OK", b"")
+        else:
+            respond(b"ERROR", error.encode("utf-8", "replace"))
+
+
+if __name__ == "__main__":
+    try:
+        main()
+    except EOFError:
+        pass
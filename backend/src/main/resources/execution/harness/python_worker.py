@@ -0,0 +1,237 @@
+# compila.dev - pooled Python interpreter worker
+#
+# Protocol (binary, over the worker's original stdin/stdout):
+#   request : "RUN <code_bytes> <input_bytes> <timeout_seconds>\n" <code> <input> <nonce> "\n"
+#   response: "<nonce> <STATUS> <exit_code> <elapsed_ms> <stdout_bytes> <stderr_bytes>\n" <stdout> <stderr>
+# Batch mode compiles the code once and then answers one response per case:
+#   request : "BATCH <code_bytes> <case_count> <timeout_seconds>\n" <code>
+#   request : "CASE <input_bytes>\n" <input> <nonce> "\n"    (repeated case_count times)
+# STATUS is one of OK, ERROR, MEMORY, OUTPUT, TIMEOUT. The worker prints "READY\n" once on
+# startup. Every response starts with the nonce that trailed its request, which the worker
+# only reads once the run is over, so the run itself never sees it.
+# The only argument is the output limit in bytes; a run printing more (stdout and stderr
+# combined) is stopped with OUTPUT.
+#
+# The worker itself only loads the interpreter and compiles code. Each run happens in a
+# child forked for it, which closes the protocol descriptors before the submitted code
+# starts, so the code can neither answer for itself nor leave anything behind (patched
+# builtins, threads, open files) for the next run.
+
+import io
+import os
+import resource
+import select
+import signal
+import sys
+import time
+import traceback
+import types
+
+proto_in = os.fdopen(os.dup(0), "rb", buffering=0)
+proto_out = os.fdopen(os.dup(1), "wb", buffering=0)
+
+# Nothing but responses may reach the original stdout
+devnull = os.open(os.devnull, os.O_RDWR)
+os.dup2(devnull, 0)
+os.dup2(devnull, 1)
+os.close(devnull)
+
+output_limit = int(sys.argv[1]) if len(sys.argv) > 1 else 1024 * 1024
+
+# Keep other processes of the same user, such as the runs, out of /proc/<pid>/fd
+try:
+    import ctypes
+
+    PR_SET_DUMPABLE = 4
+    ctypes.CDLL(None).prctl(PR_SET_DUMPABLE, 0, 0, 0, 0)
+except Exception:
+    pass
+
+
+def read_exact(n):
+    chunks = []
+    while n > 0:
+        chunk = proto_in.read(n)
+        if not chunk:
+            raise EOFError()
+        chunks.append(chunk)
+        n -= len(chunk)
+    return b"".join(chunks)
+
+
+def child(compiled, stdin_fd, stdout_fd, stderr_fd, timeout_seconds):
+    """Run the submitted code in the forked child; never returns"""
+    exit_code = 0
+    try:
+        os.setsid()
+        os.dup2(stdin_fd, 0)
+        os.dup2(stdout_fd, 1)
+        os.dup2(stderr_fd, 2)
+        os.closerange(3, os.sysconf("SC_OPEN_MAX"))
+        if timeout_seconds > 0:
+            _, hard = resource.getrlimit(resource.RLIMIT_CPU)
+            resource.setrlimit(resource.RLIMIT_CPU, (timeout_seconds, hard))
+
+        out = io.TextIOWrapper(io.FileIO(1, "wb", closefd=False), encoding="utf-8", errors="replace")
+        err = io.TextIOWrapper(io.FileIO(2, "wb", closefd=False), encoding="utf-8", errors="backslashreplace",
+                               line_buffering=True)
+        sys.stdin = io.TextIOWrapper(io.FileIO(0, "rb", closefd=False), encoding="utf-8")
+        sys.stdout = out
+        sys.stderr = err
+
+        main_module = types.ModuleType("__main__")
+        sys.modules["__main__"] = main_module
+        try:
+            exec(compiled, main_module.__dict__)
+        except SystemExit as e:
+            exit_code = e.code if isinstance(e.code, int) else (0 if e.code is None else 1)
+        except MemoryError:
+            # Reported like the kernel's OOM kill
+            os.kill(os.getpid(), signal.SIGKILL)
+        except BaseException as e:
+            exit_code = 1
+            # Drop the harness frame so the traceback starts at the user's code
+            traceback.print_exception(type(e), e, e.__traceback__.tb_next)
+        out.flush()
+        err.flush()
+    except BaseException:
+        exit_code = 1
+    finally:
+        os._exit(exit_code & 0xFF)
+
+
+def run(compiled, stdin_data, timeout_seconds):
+    in_read, in_write = os.pipe()
+    out_read, out_write = os.pipe()
+    err_read, err_write = os.pipe()
+    pid = os.fork()
+    if pid == 0:
+        child(compiled, in_read, out_write, err_write, timeout_seconds)
+    os.close(in_read)
+    os.close(out_write)
+    os.close(err_write)
+
+    deadline = time.monotonic() + timeout_seconds if timeout_seconds > 0 else None
+    pending = memoryview(stdin_data)
+    if not pending:
+        os.close(in_write)
+        in_write = -1
+    captured = {out_read: bytearray(), err_read: bytearray()}
+    open_fds = [out_read, err_read]
+    status = None
+    try:
+        while open_fds:
+            remaining = None if deadline is None else deadline - time.monotonic()
+            if remaining is not None and remaining <= 0:
+                status = "TIMEOUT"
+                break
+            writers = [in_write] if in_write >= 0 else []
+            readable, writable, _ = select.select(open_fds, writers, [], remaining)
+            if writable:
+                try:
+                    written = os.write(in_write, pending[:65536])
+                    pending = pending[written:]
+                except OSError:
+                    pending = pending[:0]
+                if not pending:
+                    os.close(in_write)
+                    in_write = -1
+            for fd in readable:
+                chunk = os.read(fd, 65536)
+                if not chunk:
+                    open_fds.remove(fd)
+                    continue
+                captured[fd] += chunk
+            if len(captured[out_read]) + len(captured[err_read]) > output_limit:
+                status = "OUTPUT"
+                break
+    finally:
+        if status is not None:
+            try:
+                os.killpg(pid, signal.SIGKILL)
+            except OSError:
+                pass
+        if in_write >= 0:
+            os.close(in_write)
+        os.close(out_read)
+        os.close(err_read)
+        _, wait_status = os.waitpid(pid, 0)
+        # Nothing the run started may outlive it
+        try:
+            os.killpg(pid, signal.SIGKILL)
+        except OSError:
+            pass
+
+    stdout, stderr = bytes(captured[out_read]), bytes(captured[err_read])
+    if status == "OUTPUT":
+        return status, 1, b"", b""
+    if status == "TIMEOUT":
+        return status, 1, stdout, stderr
+    if os.WIFSIGNALED(wait_status):
+        signum = os.WTERMSIG(wait_status)
+        if signum == signal.SIGXCPU:
+            return "TIMEOUT", 1, stdout, stderr
+        if signum == signal.SIGKILL:
+            return "MEMORY", 1, stdout, stderr
+        return "ERROR", 128 + signum, stdout, stderr
+    exit_code = os.WEXITSTATUS(wait_status)
+    return ("OK" if exit_code == 0 else "ERROR"), exit_code, stdout, stderr
+
+
+def compile_code(code):
+    try:
+        return compile(code, "solution.py", "exec"), None
+    except SyntaxError:
+        return None, traceback.format_exc(limit=0).encode("utf-8")
+
+
+def respond(compiled, syntax_error, stdin_data, timeout_seconds):
+    started = time.monotonic()
+    if compiled is None:
+        status, exit_code, stdout, stderr = "ERROR", 1, b"", syntax_error
+    else:
+        status, exit_code, stdout, stderr = run(compiled, stdin_data, timeout_seconds)
+    elapsed_ms = int((time.monotonic() - started) * 1000)
+
+    nonce = proto_in.readline().strip().decode("ascii")
+    proto_out.write(("%s %s %d %d %d %d\n" % (nonce, status, exit_code, elapsed_ms, len(stdout), len(stderr)))
+                    .encode("ascii"))
+    proto_out.write(stdout)
+    proto_out.write(stderr)
+
+
+def read_header():
+    header = proto_in.readline()
+    if not header:
+        raise EOFError()
+    return header.decode("ascii").split()
+
+
+def main():
+    proto_out.write(b"READY\n")
+    while True:
+        try:
+            parts = read_header()
+        except EOFError:
+            return
+        if len(parts) != 4:
+            return
+
+        code = read_exact(int(parts[1])).decode("utf-8")
+        compiled, syntax_error = compile_code(code)
+        timeout_seconds = int(parts[3])
+
+        if parts[0] == "RUN":
+            respond(compiled, syntax_error, read_exact(int(parts[2])), timeout_seconds)
+        elif parts[0] == "BATCH":
+            for _ in range(int(parts[2])):
+                case = read_header()
+                if len(case) != 2 or case[0] != "CASE":
+                    return
+                respond(compiled, syntax_error, read_exact(int(case[1])), timeout_seconds)
+        else:
+            return
+
+
+if __name__ == "__main__":
+    main()
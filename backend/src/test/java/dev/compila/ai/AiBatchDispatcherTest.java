@@ -0,0 +1,207 @@
+package dev.compila.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AiBatchDispatcherTest {
+
+    private static final Duration LONG_WINDOW = Duration.ofSeconds(30);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Batch> sent = new CopyOnWriteArrayList<>();
+
+    @Test
+    void sendsBatchAsSoonAsItIsFull() throws Exception {
+        AiBatchDispatcher<String, String> dispatcher = dispatcher(3, LONG_WINDOW, uppercase());
+
+        List<CompletableFuture<String>> results = submitAll(dispatcher, "a", "b", "c");
+
+        assertThat(sent).extracting(Batch::requests).containsExactly(List.of("a", "b", "c"));
+        assertThat(join(results)).containsExactly("A", "B", "C");
+    }
+
+    @Test
+    void startsNextBatchWithOverflow() throws Exception {
+        AiBatchDispatcher<String, String> dispatcher = dispatcher(2, Duration.ofMillis(100), uppercase());
+
+        List<CompletableFuture<String>> results = submitAll(dispatcher, "a", "b", "c");
+
+        assertThat(join(results)).containsExactly("A", "B", "C");
+        assertThat(sent).extracting(Batch::requests).containsExactly(List.of("a", "b"), List.of("c"));
+    }
+
+    @Test
+    void flushesPartialBatchAfterWindow() throws Exception {
+        AiBatchDispatcher<String, String> dispatcher = dispatcher(10, Duration.ofMillis(200), uppercase());
+
+        long started = System.nanoTime();
+        List<CompletableFuture<String>> results = submitAll(dispatcher, "a", "b");
+        assertThat(sent).isEmpty();
+
+        assertThat(join(results)).containsExactly("A", "B");
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+        assertThat(sent).extracting(Batch::requests).containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    void staleWindowDoesNotFlushNextBatch() throws Exception {
+        AiBatchDispatcher<String, String> dispatcher = dispatcher(2, Duration.ofMillis(500), uppercase());
+
+        submitAll(dispatcher, "a");
+        Thread.sleep(250);
+        submitAll(dispatcher, "b", "c");
+        // The first window has ended, while the one "c" started has not
+        Thread.sleep(400);
+        assertThat(sent).extracting(Batch::requests).containsExactly(List.of("a", "b"));
+
+        await(() -> sent.size() == 2);
+        assertThat(sent.get(1).requests()).containsExactly("c");
+    }
+
+    @Test
+    void sendsUnderEarliestDeadline() throws Exception {
+        AiBatchDispatcher<String, String> dispatcher = dispatcher(3, LONG_WINDOW, uppercase());
+        Instant now = Instant.now();
+
+        List<CompletableFuture<String>> results = List.of(
+                dispatcher.submit("a", now.plusSeconds(30)).toFuture(),
+                dispatcher.submit("b", now.plusSeconds(10)).toFuture(),
+                dispatcher.submit("c", now.plusSeconds(20)).toFuture()
+        );
+
+        join(results);
+        assertThat(sent.get(0).deadline()).isEqualTo(now.plusSeconds(10));
+    }
+
+    @Test
+    void leavesCancelledRequestsOutOfBatch() throws Exception {
+        AiBatchDispatcher<String, String> dispatcher = dispatcher(10, Duration.ofMillis(100), uppercase());
+
+        Disposable cancelled = dispatcher.submit("a", deadline()).subscribe();
+        CompletableFuture<String> kept = dispatcher.submit("b", deadline()).toFuture();
+        cancelled.dispose();
+
+        assertThat(kept.get(5, TimeUnit.SECONDS)).isEqualTo("B");
+        assertThat(sent).extracting(Batch::requests).containsExactly(List.of("b"));
+    }
+
+    @Test
+    void failedBatchFailsEveryCaller() {
+        IllegalStateException failure = new IllegalStateException("AI service down");
+        AiBatchDispatcher<String, String> dispatcher = dispatcher(2, LONG_WINDOW, (requests, deadline) -> Mono.error(failure));
+
+        List<CompletableFuture<String>> results = submitAll(dispatcher, "a", "b");
+
+        for (CompletableFuture<String> result : results) {
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertThat(thrown).hasCause(failure);
+        }
+        assertThat(meterRegistry.counter("ai.batch.count", "name", "test", "result", "failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void senderThrowingFailsEveryCaller() {
+        AiBatchDispatcher<String, String> dispatcher = dispatcher(2, LONG_WINDOW, (requests, deadline) -> {
+            throw new IllegalArgumentException("Unserializable");
+        });
+
+        List<CompletableFuture<String>> results = submitAll(dispatcher, "a", "b");
+
+        for (CompletableFuture<String> result : results) {
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertThat(thrown).hasCauseInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void replyOfWrongSizeFailsEveryCaller() {
+        AiBatchDispatcher<String, String> dispatcher = dispatcher(2, LONG_WINDOW, (requests, deadline) -> Mono.just(List.of("A")));
+
+        List<CompletableFuture<String>> results = submitAll(dispatcher, "a", "b");
+
+        for (CompletableFuture<String> result : results) {
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertThat(thrown).hasMessageContaining("holds 1 results for 2 requests");
+        }
+    }
+
+    @Test
+    void missingResultFailsOnlyItsCaller() throws Exception {
+        AiBatchDispatcher<String, String> dispatcher = dispatcher(2, LONG_WINDOW, (requests, deadline) -> {
+            List<String> results = new ArrayList<>();
+            results.add(null);
+            results.add("B");
+            return Mono.just(results);
+        });
+
+        List<CompletableFuture<String>> results = submitAll(dispatcher, "a", "b");
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> results.get(0).get(5, TimeUnit.SECONDS));
+        assertThat(thrown).hasMessageContaining("no result");
+        assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isEqualTo("B");
+    }
+
+    private AiBatchDispatcher<String, String> dispatcher(
+            int maxSize,
+            Duration window,
+            BiFunction<List<String>, Instant, Mono<List<String>>> sender
+    ) {
+        return new AiBatchDispatcher<>("test", maxSize, window, (requests, deadline) -> {
+            sent.add(new Batch(List.copyOf(requests), deadline));
+            return sender.apply(requests, deadline);
+        }, meterRegistry);
+    }
+
+    private static BiFunction<List<String>, Instant, Mono<List<String>>> uppercase() {
+        return (requests, deadline) -> Mono.just(requests.stream().map(String::toUpperCase).toList());
+    }
+
+    private static List<CompletableFuture<String>> submitAll(AiBatchDispatcher<String, String> dispatcher, String... requests) {
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (String request : requests) {
+            results.add(dispatcher.submit(request, deadline()).toFuture());
+        }
+        return results;
+    }
+
+    private static List<String> join(List<CompletableFuture<String>> results) throws Exception {
+        List<String> values = new ArrayList<>();
+        for (CompletableFuture<String> result : results) {
+            values.add(result.get(5, TimeUnit.SECONDS));
+        }
+        return values;
+    }
+
+    private static Instant deadline() {
+        return Instant.now().plusSeconds(60);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private record Batch(List<String> requests, Instant deadline) {
+    }
+}
@@ -0,0 +1,183 @@
+package dev.compila.execution.container;
+
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.process.ProcessRunner;
+import dev.compila.execution.sandbox.SandboxLimits;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContainerPoolTest {
+
+    private static final SandboxLimits LIMITS = new SandboxLimits(5, 256, 1, false);
+
+    @TempDir
+    Path workspaceRoot;
+
+    private ExecutionConfig config;
+    private LocalContainerRuntime runtime;
+    private ContainerPool pool;
+
+    @BeforeEach
+    void setUp() {
+        config = new ExecutionConfig();
+        config.setContainerWorkspaceRoot(workspaceRoot.toString());
+        config.setContainerPoolSize(2);
+        config.setPoolMaxRunsPerWorker(100);
+        config.setPoolAcquireTimeout(Duration.ofMillis(200));
+        runtime = new LocalContainerRuntime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void runsProgramWrittenIntoWorkspace() throws Exception {
+        startPool();
+
+        ProcessRunner.ProcessOutcome outcome = pool.run(
+                workspace -> Files.writeString(workspace.resolve("main.sh"), "read line; echo \"$line$line\""),
+                List.of("sh", "main.sh"),
+                LIMITS,
+                "ab\n",
+                null
+        );
+
+        assertThat(outcome.status()).isEqualTo(ProcessRunner.ProcessOutcome.Status.EXITED);
+        assertThat(outcome.exitCode()).isZero();
+        assertThat(outcome.stdout()).isEqualTo("abab\n");
+    }
+
+    @Test
+    void reusesWarmContainers() throws Exception {
+        startPool();
+
+        for (int i = 0; i < 5; i++) {
+            ProcessRunner.ProcessOutcome outcome = pool.run(workspace -> { }, List.of("true"), LIMITS, null, null);
+            assertThat(outcome.exitCode()).isZero();
+            awaitIdle();
+        }
+
+        assertThat(runtime.liveContainers()).isEqualTo(2);
+    }
+
+    @Test
+    void clearsWorkspaceBetweenRuns() throws Exception {
+        config.setContainerPoolSize(1);
+        startPool();
+
+        pool.run(workspace -> { }, List.of("sh", "-c", "echo secret > leftover"), LIMITS, null, null);
+        awaitIdle();
+        ProcessRunner.ProcessOutcome outcome = pool.run(
+                workspace -> { }, List.of("sh", "-c", "ls"), LIMITS, null, null);
+
+        assertThat(outcome.stdout()).isEmpty();
+    }
+
+    @Test
+    void replacesContainerAfterMaxRuns() throws Exception {
+        config.setContainerPoolSize(1);
+        config.setPoolMaxRunsPerWorker(1);
+        startPool();
+
+        String first = pool.run(workspace -> { }, List.of("pwd"), LIMITS, null, null).stdout();
+        awaitIdle();
+        String second = pool.run(workspace -> { }, List.of("pwd"), LIMITS, null, null).stdout();
+
+        assertThat(second).isNotEqualTo(first);
+        await(() -> runtime.liveContainers() == 1 && workspaces() == 1);
+    }
+
+    @Test
+    void discardsContainerAfterTimeout() throws Exception {
+        config.setContainerPoolSize(1);
+        startPool();
+        String before = pool.run(workspace -> { }, List.of("pwd"), LIMITS, null, null).stdout();
+        awaitIdle();
+
+        ProcessRunner.ProcessOutcome outcome = pool.run(
+                workspace -> { }, List.of("sleep", "5"), new SandboxLimits(1, 256, 1, false), null, null);
+        assertThat(outcome.status()).isEqualTo(ProcessRunner.ProcessOutcome.Status.TIMEOUT);
+
+        awaitIdle();
+        String after = pool.run(workspace -> { }, List.of("pwd"), LIMITS, null, null).stdout();
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    @Test
+    void startsContainerWhenNoneIsIdle() throws Exception {
+        config.setContainerPoolSize(0);
+        pool = new ContainerPool("test-image", runtime, config);
+
+        ProcessRunner.ProcessOutcome outcome = pool.run(workspace -> { }, List.of("echo", "cold"), LIMITS, null, null);
+
+        assertThat(outcome.stdout()).isEqualTo("cold\n");
+        await(() -> runtime.liveContainers() == 0);
+    }
+
+    @Test
+    void shutdownRemovesIdleContainersAndRefusesRuns() throws Exception {
+        startPool();
+
+        pool.shutdown();
+
+        assertThat(runtime.liveContainers()).isZero();
+        assertThat(workspaces()).isZero();
+        assertThrows(IOException.class,
+                () -> pool.run(workspace -> { }, List.of("true"), LIMITS, null, null));
+    }
+
+    private void startPool() {
+        pool = new ContainerPool("test-image", runtime, config);
+        pool.start();
+        awaitIdle();
+    }
+
+    /**
+     * Wait until the pool is back to its configured size of paused containers
+     */
+    private void awaitIdle() {
+        await(() -> runtime.liveContainers() == config.getContainerPoolSize()
+                && workspaces() == config.getContainerPoolSize()
+                && runtime.pausedContainers() == config.getContainerPoolSize());
+    }
+
+    private long workspaces() {
+        try (Stream<Path> entries = Files.list(workspaceRoot)) {
+            return entries.count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
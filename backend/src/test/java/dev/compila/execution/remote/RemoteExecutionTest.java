@@ -0,0 +1,282 @@
+package dev.compila.execution.remote;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.config.RemoteExecutionConfig;
+import dev.compila.execution.dto.ExecutionRequest;
+import dev.compila.execution.dto.ExecutionResult;
+import dev.compila.execution.language.CodeExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Dispatcher and worker server talking over loopback, with a stub executor
+ * standing in for the language runtimes
+ */
+class RemoteExecutionTest {
+
+    private static final String TOKEN = "test-token";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<AutoCloseable> cleanup = new ArrayList<>();
+    private StubExecutor executor;
+    private ExecutionConfig executionConfig;
+
+    @BeforeEach
+    void setUp() {
+        executor = new StubExecutor();
+        executionConfig = new ExecutionConfig();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable closeable : cleanup.reversed()) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    void executesOnWorker() {
+        int port = startServer(TOKEN);
+        RemoteExecutionDispatcher dispatcher = dispatcher(TOKEN, "127.0.0.1:" + port);
+
+        ExecutionResult result = dispatcher.execute(request("abc"));
+
+        assertThat(result.status()).isEqualTo(ExecutionResult.ExecutionStatus.COMPLETED);
+        assertThat(result.output()).isEqualTo("cba");
+    }
+
+    @Test
+    void executesBatchInInputOrder() {
+        int port = startServer(TOKEN);
+        RemoteExecutionDispatcher dispatcher = dispatcher(TOKEN, "127.0.0.1:" + port);
+
+        List<ExecutionResult> results = dispatcher.executeBatch(request(null), List.of("ab", "cd", "ef"));
+
+        assertThat(results).extracting(ExecutionResult::output).containsExactly("ba", "dc", "fe");
+    }
+
+    @Test
+    void rejectsWrongToken() {
+        int port = startServer(TOKEN);
+        RemoteExecutionDispatcher dispatcher = dispatcher("wrong-token", "127.0.0.1:" + port);
+
+        ExecutionResult result = dispatcher.execute(request("abc"));
+
+        assertThat(result.status()).isEqualTo(ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        assertThat(executor.runs).hasValue(0);
+    }
+
+    @Test
+    void rejectsHandshakeWithoutToken() throws IOException {
+        int port = startServer(TOKEN);
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            WorkerProtocol.write(out, objectMapper, WorkerFrame.hello(null));
+
+            WorkerFrame reply = WorkerProtocol.read(in, objectMapper);
+
+            assertThat(reply.type()).isEqualTo(WorkerFrame.Type.ERROR);
+            assertThat(reply.error()).isEqualTo("Unauthorized");
+        }
+    }
+
+    @Test
+    void refusesToStartWithoutToken() {
+        RemoteExecutionConfig config = new RemoteExecutionConfig();
+        config.setServerPort(freePort());
+
+        assertThrows(IllegalStateException.class,
+                () -> new ExecutionWorkerServer(List.of(executor), config, objectMapper));
+    }
+
+    @Test
+    void retriesOnAnotherWorkerWhenConnectionBreaks() throws IOException {
+        DroppingWorker dropping = new DroppingWorker();
+        cleanup.add(dropping);
+        int port = startServer(TOKEN);
+        // Equal load goes to the first worker, so the dropping one is tried first
+        RemoteExecutionDispatcher dispatcher = dispatcher(TOKEN,
+                "127.0.0.1:" + dropping.port(), "127.0.0.1:" + port);
+
+        ExecutionResult result = dispatcher.execute(request("abc"));
+
+        assertThat(result.output()).isEqualTo("cba");
+        assertThat(dropping.executions).hasValue(1);
+        assertThat(executor.runs).hasValue(1);
+    }
+
+    @Test
+    void failsWithoutRetryWhenWorkerDoesNotReply() {
+        // Without a run time limit the reply deadline is just the margin
+        executionConfig.setDefaultTimeout(Duration.ZERO);
+        executor.delay = Duration.ofSeconds(2);
+        int port = startServer(TOKEN);
+        RemoteExecutionConfig config = clientConfig(TOKEN, "127.0.0.1:" + port);
+        config.setRequestTimeoutMargin(Duration.ofMillis(200));
+        RemoteExecutionDispatcher dispatcher = dispatcher(config);
+
+        ExecutionResult result = dispatcher.execute(request("abc"));
+
+        assertThat(result.status()).isEqualTo(ExecutionResult.ExecutionStatus.INTERNAL_ERROR);
+        assertThat(result.error()).isEqualTo("Execution worker timed out");
+        assertThat(executor.runs).hasValue(1);
+    }
+
+    private int startServer(String token) {
+        RemoteExecutionConfig config = new RemoteExecutionConfig();
+        config.setServerPort(freePort());
+        config.setAuthToken(token);
+        ExecutionWorkerServer server = new ExecutionWorkerServer(List.of(executor), config, objectMapper);
+        cleanup.add(server::destroy);
+        return config.getServerPort();
+    }
+
+    private RemoteExecutionDispatcher dispatcher(String token, String... workers) {
+        return dispatcher(clientConfig(token, workers));
+    }
+
+    private RemoteExecutionDispatcher dispatcher(RemoteExecutionConfig config) {
+        RemoteExecutionDispatcher dispatcher = new RemoteExecutionDispatcher(config, executionConfig, objectMapper);
+        cleanup.add(dispatcher::destroy);
+        return dispatcher;
+    }
+
+    private static RemoteExecutionConfig clientConfig(String token, String... workers) {
+        RemoteExecutionConfig config = new RemoteExecutionConfig();
+        config.setEnabled(true);
+        config.setWorkers(List.of(workers));
+        config.setAuthToken(token);
+        config.setConnectTimeout(Duration.ofMillis(500));
+        config.setAcquireTimeout(Duration.ofSeconds(2));
+        return config;
+    }
+
+    private static ExecutionRequest request(String input) {
+        return new ExecutionRequest("reverse", StubExecutor.LANGUAGE, input, null, null);
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reverses its input, optionally after a delay
+     */
+    private static class StubExecutor implements CodeExecutor {
+
+        static final String LANGUAGE = "STUB";
+
+        final AtomicInteger runs = new AtomicInteger();
+        volatile Duration delay = Duration.ZERO;
+
+        @Override
+        public String getLanguage() {
+            return LANGUAGE;
+        }
+
+        @Override
+        public ExecutionResult execute(ExecutionRequest request) {
+            runs.incrementAndGet();
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ExecutionResult.success(new StringBuilder(request.input()).reverse().toString(), 0);
+        }
+
+        @Override
+        public ValidationResult validate(String code) {
+            return ValidationResult.success();
+        }
+
+        @Override
+        public String toolchainVersion() {
+            return "stub";
+        }
+
+        @Override
+        public String getFileExtension() {
+            return ".stub";
+        }
+    }
+
+    /**
+     * Worker that completes the handshake and answers pings, but drops the
+     * connection as soon as it receives an execution
+     */
+    private class DroppingWorker implements AutoCloseable {
+
+        final AtomicInteger executions = new AtomicInteger();
+        private final ServerSocket serverSocket;
+
+        DroppingWorker() throws IOException {
+            serverSocket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+            Thread.ofVirtual().start(this::acceptLoop);
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread.ofVirtual().start(() -> serve(socket));
+                } catch (IOException e) {
+                    // Closed
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                WorkerProtocol.read(in, objectMapper);
+                WorkerProtocol.write(out, objectMapper, WorkerFrame.welcome(1));
+                while (true) {
+                    WorkerFrame frame = WorkerProtocol.read(in, objectMapper);
+                    if (frame.type() != WorkerFrame.Type.PING) {
+                        executions.incrementAndGet();
+                        return;
+                    }
+                    WorkerProtocol.write(out, objectMapper, WorkerFrame.pong(frame.id()));
+                }
+            } catch (IOException e) {
+                // Client went away
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
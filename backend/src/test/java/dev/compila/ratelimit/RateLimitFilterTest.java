@@ -0,0 +1,79 @@
+package dev.compila.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.ratelimit.config.RateLimitConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private RateLimitConfig config;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        config = new RateLimitConfig();
+        config.setEnabled(true);
+        config.setPolicies(new EnumMap<>(Map.of(
+                RouteClass.VALIDATION, new RateLimitConfig.Policy(3, 1, Duration.ofHours(1)),
+                RouteClass.EXECUTION, new RateLimitConfig.Policy(1, 1, Duration.ofHours(1))
+        )));
+        filter = new RateLimitFilter(
+                config,
+                new InMemoryRateLimiter(config.getMaxTrackedKeys()),
+                new ObjectMapper().findAndRegisterModules(),
+                new SimpleMeterRegistry()
+        );
+    }
+
+    @Test
+    void validationDoesNotSpendExecutionBudget() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(post("/execution/validate").getStatus()).isEqualTo(200);
+        }
+
+        assertThat(post("/execution/execute").getStatus()).isEqualTo(200);
+        assertThat(post("/execution/execute").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void limitsValidationByItsOwnPolicy() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(post("/execution/validate").getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rejected = post("/execution/validate");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+    }
+
+    @Test
+    void letsUnclassifiedRequestsThrough() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(request("GET", "/execution/languages").getStatus()).isEqualTo(200);
+        }
+    }
+
+    private MockHttpServletResponse post(String path) throws Exception {
+        return request("POST", path);
+    }
+
+    private MockHttpServletResponse request(String method, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
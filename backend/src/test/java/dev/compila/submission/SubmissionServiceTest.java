@@ -0,0 +1,195 @@
+package dev.compila.submission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.ai.dto.CodeEvaluationResponse;
+import dev.compila.challenge.Challenge;
+import dev.compila.challenge.ChallengeRepository;
+import dev.compila.execution.dto.ExecutionResult;
+import dev.compila.social.service.SocialTriggerService;
+import dev.compila.submission.dto.AIFeedback;
+import dev.compila.submission.enums.ProgrammingLanguage;
+import dev.compila.submission.enums.SubmissionStatus;
+import dev.compila.submission.feedback.AiFeedbackQueue;
+import dev.compila.submission.progress.SubmissionProgressPublisher;
+import dev.compila.submission.queue.SubmissionQueue;
+import dev.compila.testing.TestRunnerService;
+import dev.compila.testing.dto.TestCase;
+import dev.compila.testing.dto.TestExecutionResult;
+import dev.compila.testing.dto.TestSuite;
+import dev.compila.user.User;
+import dev.compila.user.UserRepository;
+import dev.compila.user.service.UserSkillService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubmissionServiceTest {
+
+    private static final TestSuite SUITE = new TestSuite(
+            "challenge",
+            "Two",
+            List.of(TestCase.visible("1", "prints two", "", "2")),
+            TestSuite.TestConstraints.defaults(),
+            null,
+            null
+    );
+
+    private SubmissionRepository submissionRepository;
+    private UserRepository userRepository;
+    private ChallengeRepository challengeRepository;
+    private TestRunnerService testRunnerService;
+    private AiFeedbackQueue aiFeedbackQueue;
+    private SubmissionProgressPublisher progressPublisher;
+    private SubmissionService submissionService;
+
+    private Submission submission;
+    private Challenge challenge;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        submissionRepository = mock(SubmissionRepository.class);
+        userRepository = mock(UserRepository.class);
+        challengeRepository = mock(ChallengeRepository.class);
+        testRunnerService = mock(TestRunnerService.class);
+        aiFeedbackQueue = mock(AiFeedbackQueue.class);
+        progressPublisher = mock(SubmissionProgressPublisher.class);
+        submissionService = new SubmissionService(
+                submissionRepository,
+                userRepository,
+                challengeRepository,
+                new ObjectMapper().findAndRegisterModules(),
+                mock(SocialTriggerService.class),
+                mock(UserSkillService.class),
+                mock(SubmissionQueue.class),
+                progressPublisher,
+                testRunnerService,
+                aiFeedbackQueue
+        );
+
+        challenge = new Challenge();
+        challenge.setId(UUID.randomUUID());
+        challenge.setTitle("Two");
+        challenge.setRequirements("{}");
+        challenge.setXpReward(100);
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setXp(0L);
+        submission = new Submission(user.getId(), challenge.getId());
+        submission.setId(UUID.randomUUID());
+        submission.setCode("print(2)");
+        submission.setLanguage(ProgrammingLanguage.PYTHON);
+
+        when(submissionRepository.findById(submission.getId())).thenReturn(Optional.of(submission));
+        when(submissionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(challengeRepository.findById(challenge.getId())).thenReturn(Optional.of(challenge));
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(testRunnerService.parseTestSuite(any(), any(), any())).thenReturn(SUITE);
+        when(testRunnerService.canRunTests(anyString())).thenReturn(true);
+    }
+
+    @Test
+    void gradesLocally() {
+        when(testRunnerService.runTests(any(), any(), any(), any(), any(), anyBoolean(), any()))
+                .thenReturn(result(TestExecutionResult.TestCaseResult.passed("1", "prints two", 5, false)));
+
+        submissionService.evaluateSubmission(submission.getId(), submission, challenge);
+
+        assertThat(submission.getStatus()).isEqualTo(SubmissionStatus.PASSED);
+        assertThat(submission.getXpGained()).isEqualTo(100);
+        assertThat(user.getXp()).isEqualTo(100L);
+        verify(aiFeedbackQueue).enqueue(submission.getId());
+    }
+
+    @Test
+    void unsupportedLanguageIsGradedByAi() {
+        submission.setLanguage(ProgrammingLanguage.GO);
+        when(testRunnerService.canRunTests("GO")).thenReturn(false);
+
+        submissionService.evaluateSubmission(submission.getId(), submission, challenge);
+
+        verify(testRunnerService, never()).runTests(any(), any(), any(), any(), any(), anyBoolean(), any());
+        assertAwaitsAiVerdict();
+    }
+
+    @Test
+    void casesThatFailedToRunAreGradedByAi() {
+        when(testRunnerService.runTests(any(), any(), any(), any(), any(), anyBoolean(), any()))
+                .thenReturn(result(TestExecutionResult.TestCaseResult.error(
+                        "1", "prints two", "Code execution is disabled", 0, false,
+                        ExecutionResult.ExecutionStatus.INTERNAL_ERROR)));
+
+        submissionService.evaluateSubmission(submission.getId(), submission, challenge);
+
+        assertAwaitsAiVerdict();
+    }
+
+    @Test
+    void gradingFailureIsGradedByAi() {
+        when(testRunnerService.runTests(any(), any(), any(), any(), any(), anyBoolean(), any()))
+                .thenThrow(new IllegalStateException("Executor pool exhausted"));
+
+        submissionService.evaluateSubmission(submission.getId(), submission, challenge);
+
+        assertAwaitsAiVerdict();
+    }
+
+    @Test
+    void awardsAiVerdictOnce() {
+        ArgumentCaptor<AiFeedbackQueue.VerdictHandler> handler = ArgumentCaptor.forClass(AiFeedbackQueue.VerdictHandler.class);
+        verify(aiFeedbackQueue).onVerdict(handler.capture());
+        when(submissionRepository.transitionStatus(submission.getId(), SubmissionStatus.PENDING, SubmissionStatus.PASSED))
+                .thenAnswer(invocation -> {
+                    if (submission.getStatus() != SubmissionStatus.PENDING) {
+                        return 0;
+                    }
+                    submission.setStatus(SubmissionStatus.PASSED);
+                    return 1;
+                });
+        CodeEvaluationResponse evaluation = new CodeEvaluationResponse(true, 90, "Good", List.of(), List.of(), null, null);
+
+        handler.getValue().record(submission.getId(), challenge, evaluation);
+        handler.getValue().record(submission.getId(), challenge, evaluation);
+
+        assertThat(submission.getStatus()).isEqualTo(SubmissionStatus.PASSED);
+        assertThat(submission.getAiFeedback()).containsEntry("status", AIFeedback.COMPLETED);
+        assertThat(user.getXp()).isEqualTo(100L);
+        verify(challengeRepository, times(1)).incrementCompletedCount(challenge.getId());
+    }
+
+    @Test
+    void awardsXpOnlyOnTransitionIntoPassed() {
+        submissionService.updateStatus(submission.getId(), SubmissionStatus.PASSED, 100, 100, null);
+        submissionService.updateStatus(submission.getId(), SubmissionStatus.PASSED, 100, 100, null);
+
+        assertThat(user.getXp()).isEqualTo(100L);
+        verify(challengeRepository, times(1)).incrementCompletedCount(challenge.getId());
+    }
+
+    private void assertAwaitsAiVerdict() {
+        assertThat(submission.getStatus()).isEqualTo(SubmissionStatus.PENDING);
+        assertThat(submission.getAiFeedback()).containsEntry("status", AIFeedback.PENDING);
+        assertThat(user.getXp()).isZero();
+        verify(progressPublisher).completed(eq(submission.getId()), eq(null));
+        verify(aiFeedbackQueue).enqueue(submission.getId());
+    }
+
+    private static TestExecutionResult result(TestExecutionResult.TestCaseResult caseResult) {
+        return TestExecutionResult.success("challenge", "submission", List.of(caseResult), 5);
+    }
+}
@@ -0,0 +1,137 @@
+package dev.compila.submission.feedback;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.ai.AiCircuitBreaker;
+import dev.compila.ai.AiEvaluationService;
+import dev.compila.challenge.Challenge;
+import dev.compila.challenge.ChallengeRepository;
+import dev.compila.submission.Submission;
+import dev.compila.submission.SubmissionRepository;
+import dev.compila.submission.config.AiFeedbackConfig;
+import dev.compila.submission.dto.AIFeedback;
+import dev.compila.submission.enums.ProgrammingLanguage;
+import dev.compila.submission.enums.SubmissionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AiFeedbackQueueTest {
+
+    private AiEvaluationService aiEvaluationService;
+    private AiFeedbackQueue queue;
+    private Submission submission;
+
+    @BeforeEach
+    void setUp() {
+        AiFeedbackConfig config = new AiFeedbackConfig();
+        config.setWorkers(1);
+        config.setMaxAttempts(2);
+        config.setRetryBackoff(Duration.ofMillis(10));
+
+        Challenge challenge = new Challenge();
+        challenge.setId(UUID.randomUUID());
+        challenge.setRequirements("{}");
+        submission = new Submission(UUID.randomUUID(), challenge.getId());
+        submission.setId(UUID.randomUUID());
+        submission.setCode("print(2)");
+        submission.setLanguage(ProgrammingLanguage.PYTHON);
+        submission.setAiFeedback(new HashMap<>(Map.of("status", AIFeedback.PENDING)));
+
+        SubmissionRepository submissionRepository = mock(SubmissionRepository.class);
+        when(submissionRepository.findById(submission.getId())).thenReturn(Optional.of(submission));
+        ChallengeRepository challengeRepository = mock(ChallengeRepository.class);
+        when(challengeRepository.findById(challenge.getId())).thenReturn(Optional.of(challenge));
+        aiEvaluationService = mock(AiEvaluationService.class);
+        when(aiEvaluationService.isAvailable()).thenReturn(true);
+
+        queue = new AiFeedbackQueue(
+                config,
+                submissionRepository,
+                challengeRepository,
+                aiEvaluationService,
+                mock(AiCircuitBreaker.class),
+                new ObjectMapper(),
+                new SimpleMeterRegistry()
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.destroy();
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        submission.setStatus(SubmissionStatus.FAILED);
+        when(aiEvaluationService.tryEvaluateCode(any(), anyString()))
+                .thenReturn(Mono.error(new IllegalStateException("Malformed reply")));
+
+        queue.enqueue(submission.getId());
+
+        await(() -> !awaitingFeedback());
+        assertThat(submission.getAiFeedback()).containsEntry("status", AIFeedback.UNAVAILABLE);
+        assertThat(submission.getStatus()).isEqualTo(SubmissionStatus.FAILED);
+        verify(aiEvaluationService, times(2)).tryEvaluateCode(any(), anyString());
+    }
+
+    @Test
+    void endsSubmissionWaitingForVerdictAsErrorWhenGivingUp() {
+        when(aiEvaluationService.tryEvaluateCode(any(), anyString()))
+                .thenReturn(Mono.error(new IllegalStateException("Malformed reply")));
+
+        queue.enqueue(submission.getId());
+
+        await(() -> !awaitingFeedback());
+        assertThat(submission.getAiFeedback()).containsEntry("status", AIFeedback.UNAVAILABLE);
+        assertThat(submission.getStatus()).isEqualTo(SubmissionStatus.ERROR);
+    }
+
+    @Test
+    void defersWhileCircuitIsOpen() {
+        submission.setStatus(SubmissionStatus.FAILED);
+        when(aiEvaluationService.tryEvaluateCode(any(), anyString()))
+                .thenReturn(Mono.error(new AiCircuitBreaker.OpenException("AI service circuit is open")));
+
+        queue.enqueue(submission.getId());
+
+        await(() -> AIFeedback.DEFERRED.equals(submission.getAiFeedback().get("status")));
+        verify(aiEvaluationService, times(1)).tryEvaluateCode(any(), anyString());
+    }
+
+    private boolean awaitingFeedback() {
+        Object status = submission.getAiFeedback().get("status");
+        return AIFeedback.PENDING.equals(status) || AIFeedback.DEFERRED.equals(status);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
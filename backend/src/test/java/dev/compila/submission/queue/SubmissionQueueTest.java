@@ -0,0 +1,107 @@
+package dev.compila.submission.queue;
+
+import dev.compila.submission.config.SubmissionQueueConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SubmissionQueueTest {
+
+    private SubmissionQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        SubmissionQueueConfig config = new SubmissionQueueConfig();
+        config.setWorkers(1);
+        config.setPerUserLimit(1);
+        queue = new SubmissionQueue(config, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.destroy();
+    }
+
+    @Test
+    void runsSubmittedWork() throws Exception {
+        CompletableFuture<String> result = queue.submit("user", SubmissionLane.RUN, () -> "done");
+
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+    }
+
+    @Test
+    void workerSurvivesTaskThrowingError() throws Exception {
+        CompletableFuture<String> failed = queue.submit("user", SubmissionLane.RUN, () -> {
+            throw new StackOverflowError();
+        });
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertThat(thrown).hasCauseInstanceOf(StackOverflowError.class);
+
+        await(() -> queue.getRunning() == 0);
+        CompletableFuture<String> next = queue.submit("user", SubmissionLane.RUN, () -> "still running");
+        assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo("still running");
+    }
+
+    @Test
+    void failingDequeueListenerDoesNotStopWork() throws Exception {
+        queue.addDequeueListener(() -> {
+            throw new LinkageError("listener");
+        });
+
+        CompletableFuture<String> result = queue.submit("user", SubmissionLane.RUN, () -> "done");
+
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+    }
+
+    @Test
+    void runningWorkCountsTowardUserLimit() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> running = queue.submit("user", SubmissionLane.SUBMIT, () -> {
+            started.countDown();
+            awaitLatch(finish);
+            return "done";
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        SubmissionQueueFullException thrown = assertThrows(SubmissionQueueFullException.class,
+                () -> queue.reserve("user", SubmissionLane.SUBMIT));
+        assertThat(thrown.getErrorCode()).isEqualTo("USER_QUEUE_LIMIT");
+        queue.reserve("other", SubmissionLane.SUBMIT).release();
+
+        finish.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        await(() -> queue.getRunning() == 0);
+        queue.reserve("user", SubmissionLane.SUBMIT).release();
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package dev.compila.testing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.compila.cache.ResultCache;
+import dev.compila.execution.CodeExecutionService;
+import dev.compila.execution.config.ExecutionConfig;
+import dev.compila.execution.dto.ExecutionResult;
+import dev.compila.testing.dto.TestCase;
+import dev.compila.testing.dto.TestExecutionResult;
+import dev.compila.testing.dto.TestSuite;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestRunnerServiceTest {
+
+    private static final ResultCache.Key CACHE_KEY = new ResultCache.Key("tests-v2", "key");
+
+    private CodeExecutionService executionService;
+    private ResultCache resultCache;
+    private TestRunnerService testRunner;
+
+    @BeforeEach
+    void setUp() {
+        executionService = mock(CodeExecutionService.class);
+        resultCache = mock(ResultCache.class);
+        TimeoutCalibrations timeoutCalibrations = mock(TimeoutCalibrations.class);
+        when(timeoutCalibrations.timeoutSeconds(any(), any(), any())).thenReturn(OptionalInt.empty());
+        when(resultCache.key(any(), any(), any(), any(), any())).thenReturn(Optional.of(CACHE_KEY));
+        when(resultCache.get(CACHE_KEY, TestExecutionResult.class)).thenReturn(Optional.empty());
+
+        testRunner = new TestRunnerService(
+                executionService,
+                new ExecutionConfig(),
+                new ObjectMapper(),
+                resultCache,
+                mock(BenchmarkRunner.class),
+                timeoutCalibrations
+        );
+    }
+
+    @Test
+    void cachesVerdicts() {
+        when(executionService.execute(any(), anyString())).thenReturn(ExecutionResult.success("2\n", 5));
+
+        TestExecutionResult result = testRunner.runTests("PYTHON", "print(2)", suite(), "submission");
+
+        assertThat(result.passed()).isTrue();
+        verify(resultCache).put(eq(CACHE_KEY), any());
+    }
+
+    @Test
+    void cachesRuntimeErrors() {
+        when(executionService.execute(any(), anyString()))
+                .thenReturn(ExecutionResult.runtimeError("ZeroDivisionError", "ZeroDivisionError"));
+
+        TestExecutionResult result = testRunner.runTests("PYTHON", "1/0", suite(), "submission");
+
+        assertThat(result.passed()).isFalse();
+        verify(resultCache).put(eq(CACHE_KEY), any());
+    }
+
+    @Test
+    void doesNotCacheInfrastructureErrors() {
+        when(executionService.execute(any(), anyString())).thenReturn(ExecutionResult.error(
+                "Unsupported language: GO", ExecutionResult.ExecutionStatus.INTERNAL_ERROR));
+
+        TestExecutionResult result = testRunner.runTests("GO", "package main", suite(), "submission");
+
+        assertThat(result.results()).allMatch(TestExecutionResult.TestCaseResult::failedToRun);
+        verify(resultCache, never()).put(any(), any());
+    }
+
+    @Test
+    void doesNotCacheTimeouts() {
+        when(executionService.execute(any(), anyString())).thenReturn(ExecutionResult.timeout());
+
+        testRunner.runTests("PYTHON", "while True: pass", suite(), "submission");
+
+        verify(resultCache, never()).put(any(), any());
+    }
+
+    @Test
+    void doesNotCacheCasesThatFailedToRun() {
+        when(executionService.execute(any(), anyString())).thenThrow(new IllegalStateException("Sandbox unavailable"));
+
+        TestExecutionResult result = testRunner.runTests("PYTHON", "print(2)", suite(), "submission");
+
+        assertThat(result.results()).allMatch(TestExecutionResult.TestCaseResult::failedToRun);
+        verify(resultCache, never()).put(any(), any());
+    }
+
+    private static TestSuite suite() {
+        return new TestSuite(
+                "challenge",
+                "Two",
+                List.of(TestCase.visible("1", "prints two", "", "2")),
+                TestSuite.TestConstraints.defaults(),
+                null,
+                null
+        );
+    }
+}